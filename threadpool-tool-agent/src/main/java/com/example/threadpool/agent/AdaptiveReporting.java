@@ -0,0 +1,177 @@
+package com.example.threadpool.agent;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 按线程池活跃程度调整上报频率（Agent参数 adaptive，默认关闭）
+ * 上报线程每 minInterval 毫秒运行一次，按线程池自上次上报以来的变化决定本次是否上报：
+ * - HOT：有任务被拒绝（拒绝策略、准入控制、并发限制、丢弃），队列长度或平均排队时间相对上次上报变化超过25%，
+ *   每个周期都上报，即最高频率
+ * - ACTIVE：有任务提交或完成、队列非空，按 interval 上报
+ * - IDLE：没有任何变化，只按 heartbeat 上报一次，表明线程池仍然存在
+ * 只读取Agent的计数器和队列长度，不获取线程池的mainLock；CPU、锁竞争统计也只采样本次上报的线程池，
+ * 未上报期间的计数、速率和耗时分位累计到下一次上报。ForkJoinPool按 interval 上报
+ */
+class AdaptiveReporting {
+
+    static final String HOT = "HOT";
+    static final String ACTIVE = "ACTIVE";
+    static final String IDLE = "IDLE";
+
+    static final int DEFAULT_MIN_INTERVAL_MILLIS = 1000;
+    static final int DEFAULT_HEARTBEAT_SECONDS = 60;
+
+    /**
+     * 队列长度、平均排队时间相对上次上报的变化比例超过该值时视为HOT
+     */
+    private static final double CHANGE_RATIO = 0.25;
+    private static final int MIN_QUEUE_CHANGE = 4;
+    private static final long MIN_WAIT_CHANGE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final BiConsumer<ThreadPoolExecutor, ThreadPoolMetrics> SELECT = AdaptiveReporting::select;
+
+    private static volatile boolean enabled;
+    private static long minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MIN_INTERVAL_MILLIS);
+    private static long intervalNanos = TimeUnit.SECONDS.toNanos(10);
+    private static long heartbeatNanos = TimeUnit.SECONDS.toNanos(DEFAULT_HEARTBEAT_SECONDS);
+
+    /**
+     * ForkJoinPool上次上报的时间，只由上报线程访问
+     */
+    private static long lastForkJoinReportNanos;
+
+    private AdaptiveReporting() {
+    }
+
+    static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setMinIntervalMillis(int millis) {
+        minIntervalNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    static long getMinIntervalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(minIntervalNanos);
+    }
+
+    /**
+     * 设置常规上报间隔，须在其他参数解析完成后调用：最短间隔不超过常规间隔，心跳间隔不小于常规间隔
+     */
+    static void setIntervalSeconds(int seconds) {
+        intervalNanos = TimeUnit.SECONDS.toNanos(seconds);
+        minIntervalNanos = Math.min(minIntervalNanos, intervalNanos);
+        heartbeatNanos = Math.max(heartbeatNanos, intervalNanos);
+    }
+
+    static void setHeartbeatSeconds(int seconds) {
+        heartbeatNanos = TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    /**
+     * 选出本周期需要上报的线程池，在采样和组装上报数据之前由上报线程调用
+     *
+     * @return ForkJoinPool本周期是否上报
+     */
+    static boolean selectDue() {
+        if (!enabled) {
+            return true;
+        }
+        ThreadPoolMonitor.forEachPool(SELECT);
+        long now = System.nanoTime();
+        if (lastForkJoinReportNanos == 0 || elapsed(now, lastForkJoinReportNanos, intervalNanos)) {
+            lastForkJoinReportNanos = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 线程池本周期是否上报，未启用时总是上报
+     */
+    static boolean isDue(ThreadPoolMetrics metrics) {
+        return !enabled || metrics.adaptiveReport.due;
+    }
+
+    private static void select(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.adaptiveReport;
+        long now = System.nanoTime();
+        long submitted = metrics.submittedCount.sum();
+        long completed = metrics.completedCount.sum();
+        long rejected = metrics.rejectedCount.sum() + metrics.admissionRejectedCount.sum() + metrics.shedCount.sum()
+                + (metrics.concurrencyLimiter != null ? metrics.concurrencyLimiter.rejectedCount.sum() : 0);
+        long waitTotal = metrics.queueWaitNanosTotal.sum();
+        long waitCount = metrics.queueWaitCount.sum();
+        int queueSize = threadPool.getQueue().size();
+        long meanWait = waitCount > state.waitCount ? (waitTotal - state.waitTotal) / (waitCount - state.waitCount) : -1;
+
+        String level;
+        if (rejected != state.rejected
+                || changed(queueSize, state.queueSize, MIN_QUEUE_CHANGE)
+                || meanWait >= 0 && changed(meanWait, state.meanWait, MIN_WAIT_CHANGE_NANOS)) {
+            level = HOT;
+        } else if (submitted != state.submitted || completed != state.completed || queueSize > 0) {
+            level = ACTIVE;
+        } else {
+            level = IDLE;
+        }
+        long interval = HOT.equals(level) ? minIntervalNanos : ACTIVE.equals(level) ? intervalNanos : heartbeatNanos;
+        state.due = state.lastReportNanos == 0 || elapsed(now, state.lastReportNanos, interval);
+        if (!state.due) {
+            return;
+        }
+        state.level = level;
+        state.lastReportNanos = now;
+        state.submitted = submitted;
+        state.completed = completed;
+        state.rejected = rejected;
+        state.queueSize = queueSize;
+        state.waitTotal = waitTotal;
+        state.waitCount = waitCount;
+        if (meanWait >= 0) {
+            state.meanWait = meanWait;
+        }
+    }
+
+    /**
+     * 上报线程按 minInterval 固定频率运行，留半个周期的余量避免调度抖动使上报推迟一个周期
+     */
+    private static boolean elapsed(long now, long last, long interval) {
+        return now - last >= interval - minIntervalNanos / 2;
+    }
+
+    private static boolean changed(long current, long reported, long minChange) {
+        return Math.abs(current - reported) >= Math.max(minChange, reported * CHANGE_RATIO);
+    }
+
+    /**
+     * 上报本次的上报级别
+     */
+    static void fill(ThreadPoolInfo info, ThreadPoolMetrics metrics) {
+        if (enabled) {
+            info.setReportLevel(metrics.adaptiveReport.level);
+        }
+    }
+
+    /**
+     * 单个线程池上次上报时的计数，只由上报线程访问
+     */
+    static class State {
+        boolean due;
+        String level;
+        long lastReportNanos;
+        long submitted;
+        long completed;
+        long rejected;
+        int queueSize;
+        long waitTotal;
+        long waitCount;
+        long meanWait;
+    }
+}
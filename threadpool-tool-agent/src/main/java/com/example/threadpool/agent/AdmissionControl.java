@@ -0,0 +1,157 @@
+package com.example.threadpool.agent;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Consumer;
+
+/**
+ * 按排队时间SLO的准入控制，过载时不再执行已经没有意义的任务
+ * - 出队丢弃：任务开始执行前，排队时间已超过 maxQueueWaitMillis 的不再执行。CANCEL 取消Future任务（等待结果的线程收到
+ *   CancellationException），普通Runnable直接丢弃；HANDLER 把原始任务交给 shedCallback 指定的回调（实现
+ *   Consumer&lt;Runnable&gt;、有无参构造的类）由业务代码处理，回调无法加载或抛出异常时按CANCEL处理。
+ *   不复用线程池的RejectedExecutionHandler：CallerRunsPolicy会在工作线程上立即执行过期任务，BLOCK、DROP_OLDEST会把它重新入队
+ * - 提前拒绝：提交时按 队列长度 × 平均执行时间 / 工作线程数 预测排队时间，超过上限时 execute 中的 workQueue.offer 返回false，
+ *   线程数未达到最大线程数时创建新线程执行，否则走线程池自身的拒绝流程（提交方照常收到RejectedExecutionException等）
+ * 平均执行时间是启用后完成任务的指数移动平均，没有数据时不提前拒绝
+ */
+class AdmissionControl {
+
+    static final String SHED_CANCEL = "CANCEL";
+    static final String SHED_HANDLER = "HANDLER";
+
+    private static final String EVENT_TYPE = "ADMISSION_CONTROL";
+
+    /**
+     * 执行时间移动平均的权重为 1/2^EWMA_SHIFT
+     */
+    private static final int EWMA_SHIFT = 3;
+
+    final long maxQueueWaitMillis;
+    final long maxQueueWaitNanos;
+    final boolean rejectEarly;
+    final boolean invokeHandler;
+    final String shedCallbackClass;
+
+    /**
+     * 丢弃回调，第一次丢弃时在工作线程上用其上下文类加载器加载；加载失败后不再尝试
+     */
+    private volatile Consumer<Runnable> shedCallback;
+    private volatile boolean callbackUnavailable;
+
+    private AdmissionControl(AdmissionControlConfig config) {
+        this.maxQueueWaitMillis = config.getMaxQueueWaitMillis();
+        this.maxQueueWaitNanos = config.getMaxQueueWaitMillis() * 1_000_000L;
+        this.rejectEarly = config.isRejectEarly();
+        this.invokeHandler = SHED_HANDLER.equals(config.getShedAction());
+        this.shedCallbackClass = invokeHandler ? config.getShedCallback().trim() : null;
+    }
+
+    /**
+     * 启用、更新或关闭准入控制
+     *
+     * @throws IllegalArgumentException 配置不合法
+     */
+    static void configure(ThreadPoolMetrics metrics, AdmissionControlConfig config) {
+        config.validate();
+        if (!config.isEnabled()) {
+            if (metrics.admissionControl != null) {
+                metrics.admissionControl = null;
+                ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "准入控制已关闭");
+            }
+            return;
+        }
+        metrics.admissionControl = new AdmissionControl(config);
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "准入控制已启用，排队时间上限"
+                + config.getMaxQueueWaitMillis() + "ms，" + (config.isRejectEarly() ? "提前拒绝，" : "")
+                + "超时任务处理方式" + config.getShedAction()
+                + (SHED_HANDLER.equals(config.getShedAction()) ? "（" + config.getShedCallback().trim() + "）" : ""));
+    }
+
+    /**
+     * 提交时是否提前拒绝，由 execute 中的 workQueue.offer 埋点调用
+     */
+    static boolean rejectEarly(ThreadPoolExecutor executor, BlockingQueue<Runnable> queue, MonitoredTask task) {
+        AdmissionControl control = task.metrics.admissionControl;
+        if (control == null || !control.rejectEarly) {
+            return false;
+        }
+        if (predictQueueWaitNanos(executor, queue, task.metrics) <= control.maxQueueWaitNanos) {
+            return false;
+        }
+        task.rejectedByAdmission = true;
+        return true;
+    }
+
+    /**
+     * 预测新任务的排队时间（纳秒），没有执行时间数据时返回0
+     */
+    static long predictQueueWaitNanos(ThreadPoolExecutor executor, BlockingQueue<Runnable> queue,
+                                      ThreadPoolMetrics metrics) {
+        long serviceNanos = metrics.serviceTimeEwmaNanos;
+        int queued = queue.size();
+        if (serviceNanos == 0 || queued == 0) {
+            return 0;
+        }
+        int workers = ThreadPoolCtl.isAvailable() ? ThreadPoolCtl.workerCount(executor) : executor.getPoolSize();
+        return queued * serviceNanos / Math.max(1, workers);
+    }
+
+    /**
+     * 任务开始执行前检查排队时间，超时的任务标记为已丢弃（MonitoredTask.run不再执行原始任务）
+     */
+    static void shedIfExpired(MonitoredTask task) {
+        AdmissionControl control = task.metrics.admissionControl;
+        if (control == null || task.startNanos - task.submitNanos <= control.maxQueueWaitNanos) {
+            return;
+        }
+        task.shed = true;
+        task.metrics.shedCount.increment();
+        if (control.invokeHandler) {
+            Consumer<Runnable> callback = control.shedCallback();
+            if (callback != null) {
+                try {
+                    callback.accept(task.task);
+                    return;
+                } catch (Throwable t) {
+                    // 回调没有处理该任务，按CANCEL处理
+                }
+            }
+        }
+        if (task.task instanceof Future) {
+            ((Future<?>) task.task).cancel(false);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<Runnable> shedCallback() {
+        Consumer<Runnable> callback = shedCallback;
+        if (callback != null || callbackUnavailable) {
+            return callback;
+        }
+        synchronized (this) {
+            if (shedCallback == null && !callbackUnavailable) {
+                try {
+                    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+                    Class<?> callbackClass = Class.forName(shedCallbackClass, true,
+                            loader != null ? loader : ClassLoader.getSystemClassLoader());
+                    shedCallback = (Consumer<Runnable>) callbackClass.getDeclaredConstructor().newInstance();
+                } catch (Throwable t) {
+                    callbackUnavailable = true;
+                    System.err.println("ThreadPoolTool: 无法加载丢弃回调 " + shedCallbackClass + "，按CANCEL处理: " + t);
+                }
+            }
+            return shedCallback;
+        }
+    }
+
+    /**
+     * 更新平均执行时间，启用准入控制时由任务完成埋点调用（并发更新时丢失少量样本不影响预测）
+     */
+    static void recordServiceTime(ThreadPoolMetrics metrics, long executionNanos) {
+        long current = metrics.serviceTimeEwmaNanos;
+        executionNanos = Math.max(1, executionNanos);
+        metrics.serviceTimeEwmaNanos = current == 0 ? executionNanos
+                : current + ((executionNanos - current) >> EWMA_SHIFT);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.threadpool.agent;
+
+/**
+ * 按排队时间SLO的准入控制配置，通过 /api/threadpool/modify 请求的 admissionControl 字段按线程池下发
+ */
+public class AdmissionControlConfig {
+
+    /**
+     * 是否启用准入控制
+     */
+    private boolean enabled;
+
+    /**
+     * 排队等待时间上限（毫秒），出队时已超过的任务不再执行
+     */
+    private long maxQueueWaitMillis = 1000;
+
+    /**
+     * 是否在提交时提前拒绝：预计排队时间超过上限时不入队，线程数未达到最大线程数时创建新线程，否则交给拒绝策略
+     */
+    private boolean rejectEarly = true;
+
+    /**
+     * 丢弃超时任务的方式，见 AdmissionControl：CANCEL（默认）、HANDLER
+     */
+    private String shedAction = AdmissionControl.SHED_CANCEL;
+
+    /**
+     * shedAction 为 HANDLER 时的丢弃回调类名，实现 java.util.function.Consumer&lt;Runnable&gt; 且有无参构造，
+     * 在工作线程上以超时的原始任务调用
+     */
+    private String shedCallback;
+
+    /**
+     * 校验配置，不合法时抛出IllegalArgumentException
+     */
+    void validate() {
+        if (!enabled) {
+            return;
+        }
+        if (maxQueueWaitMillis <= 0) {
+            throw new IllegalArgumentException("maxQueueWaitMillis必须大于0");
+        }
+        if (!AdmissionControl.SHED_CANCEL.equals(shedAction) && !AdmissionControl.SHED_HANDLER.equals(shedAction)) {
+            throw new IllegalArgumentException("不支持的shedAction: " + shedAction);
+        }
+        if (AdmissionControl.SHED_HANDLER.equals(shedAction) && (shedCallback == null || shedCallback.trim().isEmpty())) {
+            throw new IllegalArgumentException("shedAction为HANDLER时必须指定shedCallback");
+        }
+    }
+
+    // Getters and Setters
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxQueueWaitMillis() {
+        return maxQueueWaitMillis;
+    }
+
+    public void setMaxQueueWaitMillis(long maxQueueWaitMillis) {
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+    }
+
+    public boolean isRejectEarly() {
+        return rejectEarly;
+    }
+
+    public void setRejectEarly(boolean rejectEarly) {
+        this.rejectEarly = rejectEarly;
+    }
+
+    public String getShedAction() {
+        return shedAction;
+    }
+
+    public void setShedAction(String shedAction) {
+        this.shedAction = shedAction != null ? shedAction.toUpperCase() : null;
+    }
+
+    public String getShedCallback() {
+        return shedCallback;
+    }
+
+    public void setShedCallback(String shedCallback) {
+        this.shedCallback = shedCallback;
+    }
+}
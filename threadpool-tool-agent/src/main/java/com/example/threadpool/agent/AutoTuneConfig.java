@@ -0,0 +1,145 @@
+package com.example.threadpool.agent;
+
+/**
+ * 线程池自动调优配置，通过 /api/threadpool/modify 请求的 autoTune 字段按线程池下发
+ */
+public class AutoTuneConfig {
+
+    /**
+     * 是否启用自动调优
+     */
+    private boolean enabled;
+
+    /**
+     * 核心线程数下限
+     */
+    private int minPoolSize = 1;
+
+    /**
+     * 核心线程数上限，不大于0时取启用时的最大线程数
+     */
+    private int maxPoolSize;
+
+    /**
+     * 目标平均排队等待时间（毫秒），超过时扩容
+     */
+    private double targetQueueWaitMillis = 50;
+
+    /**
+     * 队列长度阈值，超过时扩容
+     */
+    private int queueSizeThreshold = 10;
+
+    /**
+     * 系统CPU使用率阈值（0~1），达到后不再扩容（CPU已饱和，增加线程无济于事）
+     */
+    private double cpuThreshold = 0.85;
+
+    /**
+     * 连续多少个调优周期过载才扩容
+     */
+    private int growTicks = 2;
+
+    /**
+     * 连续多少个调优周期空闲才缩容
+     */
+    private int shrinkTicks = 10;
+
+    /**
+     * 两次调整之间的最小间隔（毫秒）
+     */
+    private long cooldownMillis = 5000;
+
+    /**
+     * 校验配置，不合法时抛出IllegalArgumentException
+     */
+    void validate() {
+        if (!enabled) {
+            return;
+        }
+        if (minPoolSize < 1) {
+            throw new IllegalArgumentException("minPoolSize必须大于0");
+        }
+        if (maxPoolSize > 0 && maxPoolSize < minPoolSize) {
+            throw new IllegalArgumentException("maxPoolSize不能小于minPoolSize");
+        }
+        if (targetQueueWaitMillis <= 0 || queueSizeThreshold < 0 || cpuThreshold <= 0
+                || growTicks < 1 || shrinkTicks < 1 || cooldownMillis < 0) {
+            throw new IllegalArgumentException("自动调优参数不合法");
+        }
+    }
+
+    // Getters and Setters
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public void setMinPoolSize(int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public double getTargetQueueWaitMillis() {
+        return targetQueueWaitMillis;
+    }
+
+    public void setTargetQueueWaitMillis(double targetQueueWaitMillis) {
+        this.targetQueueWaitMillis = targetQueueWaitMillis;
+    }
+
+    public int getQueueSizeThreshold() {
+        return queueSizeThreshold;
+    }
+
+    public void setQueueSizeThreshold(int queueSizeThreshold) {
+        this.queueSizeThreshold = queueSizeThreshold;
+    }
+
+    public double getCpuThreshold() {
+        return cpuThreshold;
+    }
+
+    public void setCpuThreshold(double cpuThreshold) {
+        this.cpuThreshold = cpuThreshold;
+    }
+
+    public int getGrowTicks() {
+        return growTicks;
+    }
+
+    public void setGrowTicks(int growTicks) {
+        this.growTicks = growTicks;
+    }
+
+    public int getShrinkTicks() {
+        return shrinkTicks;
+    }
+
+    public void setShrinkTicks(int shrinkTicks) {
+        this.shrinkTicks = shrinkTicks;
+    }
+
+    public long getCooldownMillis() {
+        return cooldownMillis;
+    }
+
+    public void setCooldownMillis(long cooldownMillis) {
+        this.cooldownMillis = cooldownMillis;
+    }
+}
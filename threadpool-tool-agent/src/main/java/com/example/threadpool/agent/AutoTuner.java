@@ -0,0 +1,216 @@
+package com.example.threadpool.agent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 线程池自动调优控制器（按线程池启用）
+ * 每个调优周期观察队列长度、周期内平均排队等待时间和系统CPU使用率：
+ * - 连续growTicks个周期过载且CPU未饱和时，核心线程数翻倍（不超过上限），必要时同步调大最大线程数
+ * - 连续shrinkTicks个周期空闲（队列为空、活跃线程不超过核心线程数一半）时，核心线程数减少1/4（不低于下限和当前活跃线程数），
+ *   最大线程数随之回落到启用时的值
+ * - 两次调整之间至少间隔cooldownMillis，避免抖动；每次调整都作为事件上报到Web应用
+ */
+class AutoTuner {
+
+    static final String EVENT_TYPE = "AUTO_TUNE";
+
+    private static final BiConsumer<ThreadPoolExecutor, ThreadPoolMetrics> TICK = AutoTuner::tick;
+
+    private static int intervalMillis = 1000;
+    private static ScheduledExecutorService executor;
+
+    /**
+     * 本周期的系统CPU使用率，只由调优线程访问
+     */
+    private static double cpuLoad;
+
+    private AutoTuner() {
+    }
+
+    static void setIntervalMillis(int millis) {
+        intervalMillis = millis;
+    }
+
+    /**
+     * 启用、更新或关闭指定线程池的自动调优
+     *
+     * @throws IllegalArgumentException 配置不合法
+     */
+    static synchronized void configure(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics, AutoTuneConfig config) {
+        config.validate();
+        if (!config.isEnabled()) {
+            if (metrics.autoTuneState != null) {
+                metrics.autoTuneState = null;
+                ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "自动调优已关闭");
+            }
+            return;
+        }
+
+        State previous = metrics.autoTuneState;
+        int baselineMax = previous != null ? previous.baselineMax : threadPool.getMaximumPoolSize();
+        if (config.getMaxPoolSize() <= 0) {
+            config.setMaxPoolSize(Math.max(Math.max(baselineMax, threadPool.getCorePoolSize()), config.getMinPoolSize()));
+        }
+        metrics.autoTuneState = new State(config, baselineMax, metrics);
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "自动调优已启用，核心线程数范围["
+                + config.getMinPoolSize() + ", " + config.getMaxPoolSize() + "]，目标排队时间"
+                + config.getTargetQueueWaitMillis() + "ms");
+
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ThreadPool-AutoTuner");
+                t.setDaemon(true);
+                return t;
+            });
+            executor.scheduleWithFixedDelay(AutoTuner::tickAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void tickAll() {
+        try {
+            cpuLoad = systemCpuLoad();
+            ThreadPoolMonitor.forEachPool(TICK);
+        } catch (Throwable t) {
+            System.err.println("ThreadPoolTool: 自动调优失败: " + t);
+        }
+    }
+
+    private static void tick(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.autoTuneState;
+        if (state == null || threadPool.isShutdown()) {
+            return;
+        }
+        AutoTuneConfig config = state.config;
+
+        // 本周期内开始执行的任务的平均排队时间
+        long waitTotal = metrics.queueWaitNanosTotal.sum();
+        long waitCount = metrics.queueWaitCount.sum();
+        double avgWaitMillis = waitCount > state.lastWaitCount
+                ? (waitTotal - state.lastWaitTotal) / 1e6 / (waitCount - state.lastWaitCount) : 0;
+        state.lastWaitTotal = waitTotal;
+        state.lastWaitCount = waitCount;
+
+        int queueSize = threadPool.getQueue().size();
+        int core = threadPool.getCorePoolSize();
+        int active;
+        if (ThreadPoolCtl.isAvailable()) {
+            active = metrics.lockFreeActiveCount(ThreadPoolCtl.workerCount(threadPool));
+        } else {
+            active = threadPool.getActiveCount();
+        }
+
+        boolean overloaded = queueSize > config.getQueueSizeThreshold() || avgWaitMillis > config.getTargetQueueWaitMillis();
+        boolean idle = queueSize == 0 && avgWaitMillis <= config.getTargetQueueWaitMillis() / 2 && active <= core / 2;
+        state.overloadedTicks = overloaded ? state.overloadedTicks + 1 : 0;
+        state.idleTicks = idle ? state.idleTicks + 1 : 0;
+
+        long now = System.currentTimeMillis();
+        if (now - state.lastChangeMillis < config.getCooldownMillis()) {
+            return;
+        }
+        String observed = "队列长度=" + queueSize + ", 平均排队=" + round(avgWaitMillis) + "ms, 活跃线程=" + active
+                + ", CPU=" + Math.round(cpuLoad * 100) + "%";
+
+        if (state.overloadedTicks >= config.getGrowTicks() && core < config.getMaxPoolSize()) {
+            if (cpuLoad >= config.getCpuThreshold()) {
+                if (!state.cpuSaturatedReported) {
+                    state.cpuSaturatedReported = true;
+                    ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "CPU已饱和，暂不扩容（" + observed + "）");
+                }
+                return;
+            }
+            state.cpuSaturatedReported = false;
+            int newCore = Math.min(config.getMaxPoolSize(), Math.max(core + 1, core * 2));
+            resize(threadPool, metrics, state, newCore, "扩容", observed);
+        } else if (state.idleTicks >= config.getShrinkTicks() && core > config.getMinPoolSize()) {
+            int newCore = Math.max(config.getMinPoolSize(), Math.max(active, core - Math.max(1, core / 4)));
+            if (newCore < core) {
+                resize(threadPool, metrics, state, newCore, "缩容", observed);
+            }
+        }
+    }
+
+    private static void resize(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics, State state,
+                               int newCore, String action, String observed) {
+        int oldCore = threadPool.getCorePoolSize();
+        int oldMax = threadPool.getMaximumPoolSize();
+        try {
+            // 先调大最大线程数再调大核心线程数，缩容时顺序相反，保证任何时刻core <= max
+            if (newCore > oldMax) {
+                threadPool.setMaximumPoolSize(newCore);
+                threadPool.setCorePoolSize(newCore);
+            } else {
+                threadPool.setCorePoolSize(newCore);
+                int targetMax = Math.max(newCore, state.baselineMax);
+                if (oldMax > targetMax) {
+                    threadPool.setMaximumPoolSize(targetMax);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, action + "失败: " + e.getMessage());
+            return;
+        }
+        int queueCapacity = QueueCapacity.capacityOf(threadPool.getQueue());
+        ThreadPoolJfr.onResize(metrics, ThreadPoolJfr.SOURCE_AUTO_TUNE, oldCore, threadPool.getCorePoolSize(), oldMax,
+                threadPool.getMaximumPoolSize(), queueCapacity, queueCapacity);
+        state.lastChangeMillis = System.currentTimeMillis();
+        state.overloadedTicks = 0;
+        state.idleTicks = 0;
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, action + ": 核心线程数 " + oldCore + " -> "
+                + threadPool.getCorePoolSize() + ", 最大线程数 " + oldMax + " -> " + threadPool.getMaximumPoolSize()
+                + "（" + observed + "）");
+    }
+
+    /**
+     * getSystemCpuLoad在JDK14起废弃，替代的getCpuLoad在Java 8中不存在，Agent以Java 8为目标，继续使用旧方法
+     */
+    @SuppressWarnings("deprecation")
+    private static double systemCpuLoad() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            double load = ((com.sun.management.OperatingSystemMXBean) os).getSystemCpuLoad();
+            if (load >= 0) {
+                return load;
+            }
+        }
+        // 无法获取CPU使用率时按系统负载估算
+        double loadAverage = os.getSystemLoadAverage();
+        return loadAverage >= 0 ? Math.min(1.0, loadAverage / os.getAvailableProcessors()) : 0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    /**
+     * 单个线程池的调优状态，只由调优线程修改
+     */
+    static class State {
+        final AutoTuneConfig config;
+
+        /**
+         * 启用自动调优时的最大线程数，缩容时最大线程数回落到该值
+         */
+        final int baselineMax;
+
+        long lastWaitTotal;
+        long lastWaitCount;
+        int overloadedTicks;
+        int idleTicks;
+        long lastChangeMillis;
+        boolean cpuSaturatedReported;
+
+        State(AutoTuneConfig config, int baselineMax, ThreadPoolMetrics metrics) {
+            this.config = config;
+            this.baselineMax = baselineMax;
+            this.lastWaitTotal = metrics.queueWaitNanosTotal.sum();
+            this.lastWaitCount = metrics.queueWaitCount.sum();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.threadpool.agent;
+
+/**
+ * 自适应并发限制配置，通过 /api/threadpool/modify 请求的 concurrencyLimit 字段按线程池下发
+ */
+public class ConcurrencyLimitConfig {
+
+    /**
+     * 是否启用并发限制
+     */
+    private boolean enabled;
+
+    /**
+     * 调整算法，见 ConcurrencyLimiter：GRADIENT（默认）、AIMD
+     */
+    private String algorithm = ConcurrencyLimiter.ALGORITHM_GRADIENT;
+
+    /**
+     * 初始并发上限（已提交未完成的任务数）
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 并发上限的下限
+     */
+    private int minLimit = 1;
+
+    /**
+     * 并发上限的上限
+     */
+    private int maxLimit = 200;
+
+    /**
+     * GRADIENT：窗口RTT超过最小RTT的多少倍才开始收缩
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * AIMD：窗口平均RTT（毫秒）超过该值时乘性减小
+     */
+    private long rttThresholdMillis;
+
+    /**
+     * AIMD：乘性减小的比例
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * 超出并发上限的任务的处理方式：REJECT（默认，交给线程池的拒绝策略）、BLOCK（提交线程等待）
+     */
+    private String policy = ConcurrencyLimiter.POLICY_REJECT;
+
+    /**
+     * BLOCK：提交线程最多等待的毫秒数，超时后交给线程池的拒绝策略
+     */
+    private long timeoutMillis = 1000;
+
+    /**
+     * 校验配置，不合法时抛出IllegalArgumentException
+     */
+    void validate() {
+        if (!enabled) {
+            return;
+        }
+        if (!ConcurrencyLimiter.ALGORITHM_GRADIENT.equals(algorithm)
+                && !ConcurrencyLimiter.ALGORITHM_AIMD.equals(algorithm)) {
+            throw new IllegalArgumentException("不支持的algorithm: " + algorithm);
+        }
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("并发上限范围不合法: minLimit=" + minLimit + ", maxLimit=" + maxLimit);
+        }
+        if (initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit必须在minLimit和maxLimit之间");
+        }
+        if (ConcurrencyLimiter.ALGORITHM_GRADIENT.equals(algorithm) && rttTolerance < 1) {
+            throw new IllegalArgumentException("rttTolerance不能小于1");
+        }
+        if (ConcurrencyLimiter.ALGORITHM_AIMD.equals(algorithm)) {
+            if (rttThresholdMillis <= 0) {
+                throw new IllegalArgumentException("AIMD算法需要指定rttThresholdMillis");
+            }
+            if (backoffRatio < 0.5 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("backoffRatio必须在[0.5, 1)之间");
+            }
+        }
+        if (!ConcurrencyLimiter.POLICY_REJECT.equals(policy) && !ConcurrencyLimiter.POLICY_BLOCK.equals(policy)) {
+            throw new IllegalArgumentException("不支持的policy: " + policy);
+        }
+        if (ConcurrencyLimiter.POLICY_BLOCK.equals(policy) && timeoutMillis <= 0) {
+            throw new IllegalArgumentException("BLOCK需要指定大于0的timeoutMillis");
+        }
+    }
+
+    // Getters and Setters
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm != null ? algorithm.toUpperCase() : null;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    public void setRttTolerance(double rttTolerance) {
+        this.rttTolerance = rttTolerance;
+    }
+
+    public long getRttThresholdMillis() {
+        return rttThresholdMillis;
+    }
+
+    public void setRttThresholdMillis(long rttThresholdMillis) {
+        this.rttThresholdMillis = rttThresholdMillis;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(String policy) {
+        this.policy = policy != null ? policy.toUpperCase() : null;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.threadpool.agent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 线程池前的自适应并发限制：已提交未完成（排队+执行中）的任务数不超过一个随延迟变化的上限
+ * 提交时（execute入口的admit埋点）占用一个名额，任务执行结束或被拒绝时归还；名额不足时 REJECT 直接走线程池的拒绝流程，
+ * BLOCK 让提交线程最多等待 timeoutMillis 毫秒
+ *
+ * RTT取任务从提交到执行结束的时间（排队+执行），按窗口（至少100ms且至少10个样本）求平均后调整上限：
+ * - GRADIENT：最小RTT为各窗口RTT的最小值（近似无排队时的RTT），上限 = 上限 × clamp(rttTolerance × 最小RTT / 窗口RTT, 0.5, 1) + √上限，
+ *   再与旧上限平滑；排队变长、下游变慢时窗口RTT上升，上限收缩，恢复后按√上限逐步增长。
+ *   持续过载时每个窗口的RTT都偏高，最小RTT无法反映下游本身变慢，因此每600个窗口探测一次：上限降到√上限，
+ *   跳过一个窗口后重新测量最小RTT（探测期间会多拒绝一些任务）
+ * - AIMD：窗口RTT超过 rttThresholdMillis 时上限乘以 backoffRatio，否则加1
+ * 窗口内最大并发不到上限一半时（负载本身不高）不调整上限，避免空闲时上限无限增长
+ *
+ * 从队列中移除而未执行的任务（remove、purge、DISCARD_OLDEST等）不会归还名额，由上报线程按 队列长度+活跃线程数 校正
+ */
+class ConcurrencyLimiter {
+
+    static final String ALGORITHM_GRADIENT = "GRADIENT";
+    static final String ALGORITHM_AIMD = "AIMD";
+    static final String POLICY_REJECT = "REJECT";
+    static final String POLICY_BLOCK = "BLOCK";
+
+    private static final String EVENT_TYPE = "CONCURRENCY_LIMIT";
+
+    private static final long MIN_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long MAX_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    /**
+     * GRADIENT每隔多少个窗口重新探测最小RTT
+     */
+    private static final int PROBE_WINDOWS = 600;
+
+    /**
+     * 新上限与旧上限的平滑权重
+     */
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    private final boolean gradient;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final long rttThresholdNanos;
+    private final double backoffRatio;
+    private final boolean block;
+    private final long timeoutNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    /**
+     * 窗口内的RTT累计和样本数，窗口内出现过的最大并发
+     */
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private volatile int windowMaxInFlight;
+
+    /**
+     * 调整算法的状态，只在窗口结束时由一个线程更新
+     */
+    private double estimatedLimit;
+    private volatile double shortRttNanos;
+    private volatile double minRttNanos;
+    private int windowsSinceProbe;
+    private int skipWindows;
+
+    final LongAdder rejectedCount = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private volatile int waiters;
+
+    /**
+     * 上一次校正时多出的名额，只由上报线程访问
+     */
+    private int lastExcess;
+
+    private ConcurrencyLimiter(ConcurrencyLimitConfig config) {
+        this.gradient = ALGORITHM_GRADIENT.equals(config.getAlgorithm());
+        this.minLimit = config.getMinLimit();
+        this.maxLimit = config.getMaxLimit();
+        this.rttTolerance = config.getRttTolerance();
+        this.rttThresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getRttThresholdMillis());
+        this.backoffRatio = config.getBackoffRatio();
+        this.block = POLICY_BLOCK.equals(config.getPolicy());
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getTimeoutMillis());
+        this.limit = config.getInitialLimit();
+        this.estimatedLimit = config.getInitialLimit();
+    }
+
+    /**
+     * 启用、更新或关闭并发限制；更新时按新配置重新开始，旧配置下已提交的任务仍向旧的限制器归还名额
+     *
+     * @throws IllegalArgumentException 配置不合法
+     */
+    static void configure(ThreadPoolMetrics metrics, ConcurrencyLimitConfig config) {
+        config.validate();
+        if (!config.isEnabled()) {
+            if (metrics.concurrencyLimiter != null) {
+                metrics.concurrencyLimiter = null;
+                ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "并发限制已关闭");
+            }
+            return;
+        }
+        metrics.concurrencyLimiter = new ConcurrencyLimiter(config);
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "并发限制已启用，算法" + config.getAlgorithm()
+                + "，初始上限" + config.getInitialLimit() + "，范围[" + config.getMinLimit() + ", "
+                + config.getMaxLimit() + "]，超限处理方式" + config.getPolicy());
+    }
+
+    /**
+     * 提交时占用名额，由 execute 入口的 admit 埋点调用
+     *
+     * @return false 表示名额不足，任务应交给拒绝流程
+     */
+    static boolean admit(MonitoredTask task) {
+        ConcurrencyLimiter limiter = task.metrics.concurrencyLimiter;
+        if (limiter == null) {
+            return true;
+        }
+        if (limiter.acquire()) {
+            task.limiter = limiter;
+            return true;
+        }
+        limiter.rejectedCount.increment();
+        task.rejectedByLimiter = true;
+        return false;
+    }
+
+    private boolean acquire() {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (!block) {
+            return false;
+        }
+        lock.lock();
+        waiters++;
+        try {
+            long remaining = timeoutNanos;
+            while (!tryAcquire()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = released.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiters--;
+            lock.unlock();
+        }
+    }
+
+    private boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current + 1 > windowMaxInFlight) {
+                    windowMaxInFlight = current + 1;
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 任务执行结束，归还名额并记录RTT
+     */
+    void onComplete(long rttNanos, long now) {
+        release();
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        long start = windowStart.get();
+        long elapsed = now - start;
+        if (elapsed >= MIN_WINDOW_NANOS && (elapsed >= MAX_WINDOW_NANOS || windowSamples.sum() >= MIN_WINDOW_SAMPLES)
+                && windowStart.compareAndSet(start, now)) {
+            long samples = windowSamples.sumThenReset();
+            long rttTotal = windowRttNanos.sumThenReset();
+            if (samples > 0) {
+                updateLimit((double) rttTotal / samples);
+            }
+        }
+    }
+
+    /**
+     * 任务被拒绝，只归还名额
+     */
+    void release() {
+        inFlight.decrementAndGet();
+        if (waiters > 0) {
+            lock.lock();
+            try {
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private synchronized void updateLimit(double rttNanos) {
+        int maxInFlight = windowMaxInFlight;
+        windowMaxInFlight = inFlight.get();
+        shortRttNanos = rttNanos;
+
+        if (skipWindows > 0) {
+            // 探测后的第一个窗口仍有探测前提交的任务
+            skipWindows--;
+            return;
+        }
+        if (minRttNanos == 0 || rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+
+        double current = estimatedLimit;
+        double next;
+        if (gradient) {
+            if (++windowsSinceProbe >= PROBE_WINDOWS) {
+                windowsSinceProbe = 0;
+                skipWindows = 1;
+                minRttNanos = 0;
+                next = Math.sqrt(current);
+            } else if (maxInFlight * 2 < current) {
+                return;
+            } else {
+                double ratio = Math.max(0.5, Math.min(1.0, rttTolerance * minRttNanos / rttNanos));
+                next = current * (1 - LIMIT_SMOOTHING) + (current * ratio + Math.sqrt(current)) * LIMIT_SMOOTHING;
+            }
+        } else if (rttNanos > rttThresholdNanos) {
+            next = current * backoffRatio;
+        } else if (maxInFlight * 2 >= current) {
+            next = current + 1;
+        } else {
+            return;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+        if (waiters > 0 && limit > (int) current) {
+            lock.lock();
+            try {
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 按线程池实际的未完成任务数校正名额：连续两次上报都多出的部分视为未归还的名额（只由上报线程调用）
+     *
+     * @param outstanding 队列长度+活跃线程数
+     */
+    void reconcile(int outstanding) {
+        int excess = Math.max(0, inFlight.get() - outstanding);
+        int leaked = Math.min(excess, lastExcess);
+        lastExcess = excess - leaked;
+        if (leaked > 0) {
+            inFlight.addAndGet(-leaked);
+        }
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    double getRttMillis() {
+        return round(shortRttNanos / 1e6);
+    }
+
+    double getMinRttMillis() {
+        return round(minRttNanos / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
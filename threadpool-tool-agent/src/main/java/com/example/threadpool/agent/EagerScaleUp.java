@@ -0,0 +1,63 @@
+package com.example.threadpool.agent;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 先扩线程再排队的执行模式（类似Tomcat的TaskQueue）
+ * ThreadPoolExecutor 只有在队列放满后才会创建超过核心线程数的线程；启用该模式后，
+ * execute中的 workQueue.offer 在没有空闲线程且线程数未达到最大线程数时返回false，
+ * 线程池随即创建非核心线程执行任务。并发提交导致创建线程失败而进入拒绝流程时，
+ * 任务会被强制放回队列，只有队列也满时才真正交给拒绝策略
+ */
+class EagerScaleUp {
+
+    private EagerScaleUp() {
+    }
+
+    /**
+     * 启用或关闭，返回是否发生了变化
+     */
+    static boolean setEnabled(ThreadPoolMetrics metrics, boolean enabled) {
+        if (metrics.eagerScaleUp == enabled) {
+            return false;
+        }
+        metrics.eagerScaleUp = enabled;
+        ThreadPoolEvents.record(metrics.getPoolId(), "EAGER_SCALE_UP",
+                enabled ? "已启用先扩线程再排队模式" : "已恢复先排队再扩线程模式");
+        return true;
+    }
+
+    /**
+     * 代替 execute 中的 workQueue.offer(task)
+     */
+    static boolean offer(ThreadPoolExecutor executor, ThreadPoolMetrics metrics,
+                         BlockingQueue<Runnable> queue, Runnable task) {
+        if (!metrics.eagerScaleUp) {
+            return queue.offer(task);
+        }
+        int workers = ThreadPoolCtl.isAvailable() ? ThreadPoolCtl.workerCount(executor) : executor.getPoolSize();
+        if (workers < executor.getMaximumPoolSize()) {
+            // 空闲线程足够取走已排队的任务和本任务时照常入队，否则返回false让线程池创建新线程
+            int idle = workers - metrics.lockFreeActiveCount(workers);
+            if (queue.size() >= idle) {
+                return false;
+            }
+        }
+        return queue.offer(task);
+    }
+
+    /**
+     * 创建线程失败进入拒绝流程时，把任务强制放回队列，成功时返回true
+     */
+    static boolean forceOffer(ThreadPoolExecutor executor, Runnable task) {
+        if (executor.isShutdown() || !executor.getQueue().offer(task)) {
+            return false;
+        }
+        int workers = ThreadPoolCtl.isAvailable() ? ThreadPoolCtl.workerCount(executor) : executor.getPoolSize();
+        if (workers == 0) {
+            executor.prestartCoreThread();
+        }
+        return true;
+    }
+}
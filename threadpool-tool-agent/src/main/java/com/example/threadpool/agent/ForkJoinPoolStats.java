@@ -0,0 +1,80 @@
+package com.example.threadpool.agent;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 读取 ForkJoinPool 各工作线程队列的任务数
+ * ForkJoinPool 没有公开单个工作队列的长度，这里反射读取内部的WorkQueue数组（JDK8为workQueues，JDK9+为queues）：
+ * 奇数下标是工作线程自己的队列，偶数下标是外部提交队列；队列长度为 top - base，只是普通字段读取，不加锁
+ * JDK9+ 依赖 SpyInstaller 向Agent开放java.util.concurrent包
+ */
+class ForkJoinPoolStats {
+
+    private static final Field QUEUES = findQueuesField();
+    private static final Field BASE = findWorkQueueField("base");
+    private static final Field TOP = findWorkQueueField("top");
+
+    private ForkJoinPoolStats() {
+    }
+
+    private static Field findQueuesField() {
+        for (String name : new String[] { "queues", "workQueues" }) {
+            try {
+                Field field = ForkJoinPool.class.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (NoSuchFieldException e) {
+                // 尝试其他JDK版本的字段名
+            } catch (Exception e) {
+                break;
+            }
+        }
+        System.err.println("[ThreadPoolAgent] 无法访问ForkJoinPool的工作队列，不采集工作队列长度分布");
+        return null;
+    }
+
+    private static Field findWorkQueueField(String name) {
+        try {
+            Class<?> workQueueClass = Class.forName("java.util.concurrent.ForkJoinPool$WorkQueue");
+            Field field = workQueueClass.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static boolean isAvailable() {
+        return QUEUES != null && BASE != null && TOP != null;
+    }
+
+    /**
+     * 各工作线程队列中的任务数，从大到小排列；不可用时返回空列表
+     */
+    static List<Integer> workerQueueDepths(ForkJoinPool pool) {
+        if (!isAvailable()) {
+            return Collections.emptyList();
+        }
+        List<Integer> depths = new ArrayList<>();
+        try {
+            Object[] queues = (Object[]) QUEUES.get(pool);
+            if (queues != null) {
+                for (int i = 1; i < queues.length; i += 2) {
+                    Object queue = queues[i];
+                    if (queue != null) {
+                        // 并发修改时top和base可能不是同一时刻的值
+                        depths.add(Math.max(0, TOP.getInt(queue) - BASE.getInt(queue)));
+                    }
+                }
+            }
+        } catch (IllegalAccessException e) {
+            return Collections.emptyList();
+        }
+        depths.sort(Collections.reverseOrder());
+        return depths;
+    }
+}
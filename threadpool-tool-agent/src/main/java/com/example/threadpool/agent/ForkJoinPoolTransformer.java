@@ -0,0 +1,47 @@
+package com.example.threadpool.agent;
+
+import javassist.*;
+
+import java.io.ByteArrayInputStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+
+/**
+ * 增强 java.util.concurrent.ForkJoinPool 的构造方法，创建完成时回调 ThreadPoolSpy
+ * 只在直接调用父类构造方法（而不是this(...)）的构造方法末尾埋点，每个实例只回调一次
+ */
+public class ForkJoinPoolTransformer implements ClassFileTransformer {
+
+    static final String TARGET_CLASS = "java/util/concurrent/ForkJoinPool";
+    private static final String SPY = "com.example.threadpool.agent.spy.ThreadPoolSpy";
+
+    @Override
+    public byte[] transform(ClassLoader loader,
+                          String className,
+                          Class<?> classBeingRedefined,
+                          ProtectionDomain protectionDomain,
+                          byte[] classfileBuffer) {
+
+        if (!TARGET_CLASS.equals(className)) {
+            return null;
+        }
+
+        try {
+            ClassPool pool = ClassPool.getDefault();
+            CtClass ctClass = pool.makeClass(new ByteArrayInputStream(classfileBuffer));
+            try {
+                for (CtConstructor constructor : ctClass.getDeclaredConstructors()) {
+                    if (constructor.callsSuper()) {
+                        constructor.insertAfter(SPY + ".onCreateForkJoinPool(this);");
+                    }
+                }
+                return ctClass.toBytecode();
+            } finally {
+                ctClass.detach();
+            }
+        } catch (Exception e) {
+            System.err.println("[ThreadPoolAgent] 增强失败: " + className + ", 错误: " + e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.threadpool.agent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 线程池高频采样器
+ * 按固定间隔（如100ms）采集所有已注册线程池的工作线程数、活跃线程数、队列长度和已完成任务数，
+ * 写入预分配的堆外环形缓冲区（定长记录，采样过程不创建对象），每个上报周期批量发送到Web应用；
+ * 缓冲区写满时覆盖最旧的记录，内存占用固定为配置的大小
+ * 每个线程池第一次采样时分配一个槽位（记录中代表该线程池的编号），线程池被回收后槽位在其采样全部取出后复用，
+ * 槽位数不超过同时存活的线程池数
+ */
+class GaugeSampler {
+
+    /**
+     * 记录格式: timestamp(8) | slot(4) | poolSize(4) | activeThreads(4) | queueSize(4) | completedTaskCount(8)
+     */
+    static final int RECORD_SIZE = 32;
+
+    private static final int OFFSET_SLOT = 8;
+    private static final int OFFSET_POOL_SIZE = 12;
+    private static final int OFFSET_ACTIVE = 16;
+    private static final int OFFSET_QUEUE = 20;
+    private static final int OFFSET_COMPLETED = 24;
+
+    private final int intervalMillis;
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final BiConsumer<ThreadPoolExecutor, ThreadPoolMetrics> sampleAction = this::sample;
+
+    /**
+     * 以下字段由缓冲区锁保护，只有采样线程和上报线程访问
+     */
+    private long writeIndex;
+    private long readIndex;
+    private long overwritten;
+    private String[] slotPoolIds = new String[16];
+    private int slotCount;
+    private final BitSet freeSlots = new BitSet();
+
+    /**
+     * 已被回收的线程池的槽位，缓冲区中可能还有它们的采样，下次取出后才能复用
+     */
+    private final BitSet releasedSlots = new BitSet();
+
+    /**
+     * drain复用的分组数组，长度不小于slotCount
+     */
+    private int[] counts = new int[16];
+    private int[] positions = new int[16];
+    private ThreadPoolSampleBatch[] batches = new ThreadPoolSampleBatch[16];
+
+    /**
+     * 本次采样时间，只由采样线程访问
+     */
+    private long sampleTime;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param intervalMillis 采样间隔（毫秒）
+     * @param bufferKb       环形缓冲区大小（KB）
+     */
+    GaugeSampler(int intervalMillis, int bufferKb) {
+        this.intervalMillis = intervalMillis;
+        this.capacity = Math.max(1, bufferKb * 1024 / RECORD_SIZE);
+        this.buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+    }
+
+    void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ThreadPool-Sampler");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleAtFixedRate(this::sampleAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        System.out.println("ThreadPool Agent 已启动高频采样，间隔" + intervalMillis + "毫秒，缓冲区" + capacity + "条记录");
+    }
+
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void sampleAll() {
+        try {
+            sampleTime = System.currentTimeMillis();
+            ThreadPoolMonitor.forEachPool(sampleAction);
+        } catch (Throwable t) {
+            System.err.println("ThreadPoolTool: 高频采样失败: " + t);
+        }
+    }
+
+    /**
+     * 采样单个线程池，只读取ctl、队列长度和Agent计数器，不获取线程池的mainLock
+     */
+    private void sample(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        int poolSize;
+        int active;
+        if (ThreadPoolCtl.isAvailable()) {
+            poolSize = ThreadPoolCtl.workerCount(threadPool);
+            active = metrics.lockFreeActiveCount(poolSize);
+        } else {
+            poolSize = threadPool.getPoolSize();
+            active = threadPool.getActiveCount();
+        }
+        BlockingQueue<Runnable> queue = threadPool.getQueue();
+        write(sampleTime, metrics, poolSize, active, queue.size(), metrics.lockFreeCompletedCount());
+    }
+
+    private synchronized void write(long timestamp, ThreadPoolMetrics metrics, int poolSize, int active,
+                                    int queueSize, long completed) {
+        int slot = metrics.sampleSlot;
+        if (slot < 0) {
+            slot = allocateSlot();
+            metrics.sampleSlot = slot;
+            slotPoolIds[slot] = metrics.getPoolId();
+        }
+
+        if (writeIndex - readIndex == capacity) {
+            readIndex++;
+            overwritten++;
+        }
+        int offset = (int) (writeIndex % capacity) * RECORD_SIZE;
+        buffer.putLong(offset, timestamp);
+        buffer.putInt(offset + OFFSET_SLOT, slot);
+        buffer.putInt(offset + OFFSET_POOL_SIZE, poolSize);
+        buffer.putInt(offset + OFFSET_ACTIVE, active);
+        buffer.putInt(offset + OFFSET_QUEUE, queueSize);
+        buffer.putLong(offset + OFFSET_COMPLETED, completed);
+        writeIndex++;
+    }
+
+    private int allocateSlot() {
+        int slot = freeSlots.nextSetBit(0);
+        if (slot >= 0) {
+            freeSlots.clear(slot);
+            return slot;
+        }
+        slot = slotCount++;
+        if (slotCount > slotPoolIds.length) {
+            int length = slotPoolIds.length * 2;
+            slotPoolIds = Arrays.copyOf(slotPoolIds, length);
+            counts = new int[length];
+            positions = new int[length];
+            batches = new ThreadPoolSampleBatch[length];
+        }
+        return slot;
+    }
+
+    /**
+     * 线程池被回收、从注册表中清理时调用，槽位在下次取出采样后复用
+     */
+    synchronized void release(ThreadPoolMetrics metrics) {
+        if (metrics.sampleSlot >= 0) {
+            releasedSlots.set(metrics.sampleSlot);
+        }
+    }
+
+    /**
+     * 取出缓冲区中的全部采样，按线程池分组
+     */
+    synchronized List<ThreadPoolSampleBatch> drain() {
+        if (overwritten > 0) {
+            System.err.println("ThreadPoolTool: 采样缓冲区已满，覆盖了" + overwritten + "条最旧的采样，可调大sampleBufferKb");
+            overwritten = 0;
+        }
+
+        Arrays.fill(counts, 0, slotCount, 0);
+        Arrays.fill(positions, 0, slotCount, 0);
+        for (long i = readIndex; i < writeIndex; i++) {
+            counts[buffer.getInt(offset(i) + OFFSET_SLOT)]++;
+        }
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (counts[slot] > 0) {
+                ThreadPoolSampleBatch batch = new ThreadPoolSampleBatch();
+                batch.setThreadPoolId(slotPoolIds[slot]);
+                batch.setTimestamps(new long[counts[slot]]);
+                batch.setPoolSize(new int[counts[slot]]);
+                batch.setActiveThreads(new int[counts[slot]]);
+                batch.setQueueSize(new int[counts[slot]]);
+                batch.setCompletedTaskCount(new long[counts[slot]]);
+                batches[slot] = batch;
+            }
+        }
+
+        for (long i = readIndex; i < writeIndex; i++) {
+            int offset = offset(i);
+            int slot = buffer.getInt(offset + OFFSET_SLOT);
+            ThreadPoolSampleBatch batch = batches[slot];
+            int n = positions[slot]++;
+            batch.getTimestamps()[n] = buffer.getLong(offset);
+            batch.getPoolSize()[n] = buffer.getInt(offset + OFFSET_POOL_SIZE);
+            batch.getActiveThreads()[n] = buffer.getInt(offset + OFFSET_ACTIVE);
+            batch.getQueueSize()[n] = buffer.getInt(offset + OFFSET_QUEUE);
+            batch.getCompletedTaskCount()[n] = buffer.getLong(offset + OFFSET_COMPLETED);
+        }
+        readIndex = writeIndex;
+
+        List<ThreadPoolSampleBatch> result = new ArrayList<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (batches[slot] != null) {
+                result.add(batches[slot]);
+                batches[slot] = null;
+            }
+        }
+        // 已回收线程池的采样已全部取出，释放槽位
+        for (int slot = releasedSlots.nextSetBit(0); slot >= 0; slot = releasedSlots.nextSetBit(slot + 1)) {
+            slotPoolIds[slot] = null;
+        }
+        freeSlots.or(releasedSlots);
+        releasedSlots.clear();
+        return result;
+    }
+
+    private int offset(long index) {
+        return (int) (index % capacity) * RECORD_SIZE;
+    }
+
+    /**
+     * 把本周期的采样批量发送到Web应用；上一批还在途时本周期不取出，采样留在环形缓冲区中下次一起发送
+     */
+    void ship(ThreadPoolReporter reporter) {
+        if (!reporter.hasCapacity(ThreadPoolReporter.Stream.SAMPLES)) {
+            return;
+        }
+        List<ThreadPoolSampleBatch> batches = drain();
+        if (!batches.isEmpty()) {
+            reporter.postJson(ThreadPoolReporter.Stream.SAMPLES, reporter.resolve("/samples"), batches, "上报" + batches.size() + "个线程池的采样数据");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.threadpool.agent;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * 空闲线程池回收（Agent参数 idleReclaim，空闲时长秒数，默认0不启用）
+ * 线程池连续 idleReclaim 秒没有提交和执行任务（Agent计数不变、队列为空、没有活跃线程）时，临时回收核心线程：
+ * keepAliveTime大于0时打开allowCoreThreadTimeOut，核心线程空闲keepAliveTime后退出；否则把核心线程数调为0
+ * 回收后第一次提交任务时（execute埋点中一次volatile读）在回收线程上恢复原设置并预启动全部核心线程；
+ * 提交恰好发生在回收的同时时，由下一次检查发现计数变化后恢复
+ * 启用了自动调优的线程池和 ScheduledThreadPoolExecutor 不回收。回收和恢复都只在回收线程上执行，并记录 IDLE_RECLAIM 事件
+ */
+class IdleReclaimer {
+
+    static final String EVENT_TYPE = "IDLE_RECLAIM";
+
+    private static final String MODE_CORE_TIMEOUT = "allowCoreThreadTimeOut";
+    private static final String MODE_CORE_SIZE = "corePoolSize";
+
+    private static final long MAX_CHECK_INTERVAL_MILLIS = 5000;
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    /**
+     * 每个线程的栈大小（-Xss），未指定时按64位平台的默认值1MB估算
+     */
+    private static final long STACK_BYTES = threadStackBytes();
+
+    private static final BiConsumer<ThreadPoolExecutor, ThreadPoolMetrics> CHECK = IdleReclaimer::check;
+
+    private static long idleNanos;
+    private static ScheduledExecutorService executor;
+
+    private IdleReclaimer() {
+    }
+
+    private static long threadStackBytes() {
+        try {
+            com.sun.management.HotSpotDiagnosticMXBean bean =
+                    ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+            long kb = Long.parseLong(bean.getVMOption("ThreadStackSize").getValue());
+            if (kb > 0) {
+                return kb * 1024;
+            }
+        } catch (Throwable e) {
+            // 非HotSpot JVM
+        }
+        return 1024 * 1024;
+    }
+
+    /**
+     * 设置空闲时长（秒），0表示不回收
+     */
+    static void setIdleSeconds(int seconds) {
+        idleNanos = TimeUnit.SECONDS.toNanos(Math.max(0, seconds));
+    }
+
+    static boolean isEnabled() {
+        return idleNanos > 0;
+    }
+
+    /**
+     * 启动检查线程，未启用时不启动；检查间隔为空闲时长的1/4，最长5秒
+     */
+    static synchronized void start() {
+        if (!isEnabled() || executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ThreadPool-IdleReclaimer");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1, Math.min(MAX_CHECK_INTERVAL_MILLIS, TimeUnit.NANOSECONDS.toMillis(idleNanos) / 4));
+        executor.scheduleWithFixedDelay(IdleReclaimer::checkAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static void checkAll() {
+        try {
+            ThreadPoolMonitor.forEachPool(CHECK);
+        } catch (Throwable t) {
+            System.err.println("ThreadPoolTool: 空闲线程池检查失败: " + t);
+        }
+    }
+
+    private static void check(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.idleReclaim;
+        long now = System.nanoTime();
+        long activity = metrics.submittedCount.sum() + metrics.completedCount.sum();
+        boolean changed = activity != state.lastActivity;
+        state.lastActivity = activity;
+        if (state.reclaimed) {
+            if (changed || !threadPool.getQueue().isEmpty()) {
+                restore(threadPool, metrics);
+            }
+            return;
+        }
+        if (changed || state.idleSinceNanos == 0 || !threadPool.getQueue().isEmpty()) {
+            state.idleSinceNanos = now;
+            return;
+        }
+        if (now - state.idleSinceNanos < idleNanos || threadPool instanceof ScheduledThreadPoolExecutor
+                || metrics.autoTuneState != null) {
+            return;
+        }
+        // 没有可回收的核心线程，或仍有任务在执行
+        if (threadPool.getCorePoolSize() == 0 || threadPool.allowsCoreThreadTimeOut()
+                || threadPool.getPoolSize() == 0 || threadPool.getActiveCount() > 0) {
+            return;
+        }
+        reclaim(threadPool, metrics);
+    }
+
+    private static void reclaim(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.idleReclaim;
+        state.originalCore = threadPool.getCorePoolSize();
+        state.poolSizeBefore = threadPool.getPoolSize();
+        long keepAliveMillis = threadPool.getKeepAliveTime(TimeUnit.MILLISECONDS);
+        if (keepAliveMillis > 0) {
+            state.mode = MODE_CORE_TIMEOUT;
+            threadPool.allowCoreThreadTimeOut(true);
+        } else {
+            state.mode = MODE_CORE_SIZE;
+            threadPool.setCorePoolSize(0);
+        }
+        state.reclaimCount++;
+        state.reclaimed = true;
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "空闲超过" + TimeUnit.NANOSECONDS.toSeconds(idleNanos)
+                + "秒，回收" + state.poolSizeBefore + "个线程（" + (MODE_CORE_TIMEOUT.equals(state.mode)
+                ? "allowCoreThreadTimeOut，空闲" + keepAliveMillis + "ms后退出" : "核心线程数 " + state.originalCore + " -> 0")
+                + "）");
+    }
+
+    /**
+     * 回收后第一次提交任务时调用（execute埋点中），在回收线程上恢复原设置
+     */
+    static void onSubmit(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.idleReclaim;
+        if (state.reclaimed && state.waking.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    restore(threadPool, metrics);
+                } catch (Throwable t) {
+                    System.err.println("ThreadPoolTool: 恢复线程池核心线程失败: " + t);
+                }
+            });
+        }
+    }
+
+    private static void restore(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.idleReclaim;
+        if (!state.reclaimed) {
+            return;
+        }
+        if (MODE_CORE_TIMEOUT.equals(state.mode)) {
+            threadPool.allowCoreThreadTimeOut(false);
+        } else if (threadPool.getCorePoolSize() == 0) {
+            // 回收期间核心线程数被修改接口改过时保持修改后的值
+            threadPool.setCorePoolSize(Math.min(state.originalCore, threadPool.getMaximumPoolSize()));
+        }
+        int prestarted = threadPool.prestartAllCoreThreads();
+        state.reclaimed = false;
+        state.waking.set(false);
+        state.idleSinceNanos = System.nanoTime();
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "负载恢复，恢复" + (MODE_CORE_TIMEOUT.equals(state.mode)
+                ? "allowCoreThreadTimeOut=false" : "核心线程数" + threadPool.getCorePoolSize())
+                + "，预启动" + prestarted + "个核心线程");
+    }
+
+    /**
+     * 上报回收状态，须在工作线程数之后填充
+     */
+    static void fill(ThreadPoolInfo info, ThreadPoolMetrics metrics) {
+        State state = metrics.idleReclaim;
+        info.setIdleReclaimed(state.reclaimed);
+        info.setIdleReclaimCount(state.reclaimCount);
+        if (state.reclaimed) {
+            int reclaimed = Math.max(0, state.poolSizeBefore - info.getPoolSize());
+            info.setIdleReclaimedThreads(reclaimed);
+            info.setIdleReclaimedStackMb(Math.round(reclaimed * STACK_BYTES / BYTES_PER_MB * 100) / 100.0);
+        }
+    }
+
+    /**
+     * 单个线程池的回收状态，除标记外只由回收线程访问
+     */
+    static class State {
+        long lastActivity;
+        long idleSinceNanos;
+        String mode;
+        int originalCore;
+        int poolSizeBefore;
+        volatile long reclaimCount;
+
+        /**
+         * 是否处于回收状态，execute埋点读取
+         */
+        volatile boolean reclaimed;
+
+        /**
+         * 是否已提交恢复任务，保证回收期间只提交一次
+         */
+        final AtomicBoolean waking = new AtomicBoolean();
+    }
+}
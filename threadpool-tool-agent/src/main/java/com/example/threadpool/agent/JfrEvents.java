@@ -0,0 +1,265 @@
+package com.example.threadpool.agent;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR 自定义事件，只由 ThreadPoolJfr 在确认JFR可用后调用，其他类不能直接引用（JDK8早期版本没有jdk.jfr包）
+ */
+final class JfrEvents {
+
+    /**
+     * 事件类型，register 中初始化，之后才会打开 ThreadPoolJfr 的开关
+     */
+    private static EventType submitType;
+    private static EventType startType;
+    private static EventType executeType;
+    private static EventType rejectType;
+    private static EventType resizeType;
+
+    private JfrEvents() {
+    }
+
+    /**
+     * 注册事件类型并监听录制状态，有录制在运行时才打开 ThreadPoolJfr 的开关
+     *
+     * @return false 表示JVM未启用JFR（如 -XX:-FlightRecorder）
+     */
+    static boolean register() {
+        if (!FlightRecorder.isAvailable()) {
+            return false;
+        }
+        submitType = EventType.getEventType(TaskSubmitEvent.class);
+        startType = EventType.getEventType(TaskStartEvent.class);
+        executeType = EventType.getEventType(TaskExecuteEvent.class);
+        rejectType = EventType.getEventType(TaskRejectEvent.class);
+        resizeType = EventType.getEventType(PoolResizeEvent.class);
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                updateActive();
+            }
+        });
+        // 启动参数 -XX:StartFlightRecording 的录制可能在Agent之前开始
+        if (FlightRecorder.isInitialized()) {
+            updateActive();
+        }
+        return true;
+    }
+
+    private static void updateActive() {
+        boolean running = false;
+        for (Recording recording : FlightRecorder.getFlightRecorder().getRecordings()) {
+            if (recording.getState() == RecordingState.RUNNING) {
+                running = true;
+                break;
+            }
+        }
+        ThreadPoolJfr.setActive(running);
+    }
+
+    static void submit(ThreadPoolMetrics metrics, int queueSize) {
+        if (!submitType.isEnabled()) {
+            return;
+        }
+        TaskSubmitEvent event = new TaskSubmitEvent();
+        event.poolId = metrics.getPoolId();
+        event.poolName = ThreadPoolJfr.poolName(metrics);
+        event.queueSize = queueSize;
+        event.commit();
+    }
+
+    /**
+     * 任务开始执行：排队时间超过阈值时提交开始事件；执行事件在这里begin，任务结束时按执行时间决定是否提交
+     */
+    static void start(MonitoredTask task, long queueWaitNanos, long thresholdNanos) {
+        if (queueWaitNanos >= thresholdNanos && startType.isEnabled()) {
+            TaskStartEvent event = new TaskStartEvent();
+            event.poolId = task.metrics.getPoolId();
+            event.poolName = ThreadPoolJfr.poolName(task.metrics);
+            event.taskType = taskType(task);
+            event.queueWait = queueWaitNanos;
+            event.commit();
+        }
+        if (executeType.isEnabled()) {
+            TaskExecuteEvent event = new TaskExecuteEvent();
+            event.begin();
+            task.jfrEvent = event;
+        }
+    }
+
+    static void complete(MonitoredTask task, long runNanos, long thresholdNanos, boolean failed) {
+        TaskExecuteEvent event = (TaskExecuteEvent) task.jfrEvent;
+        task.jfrEvent = null;
+        if (runNanos < thresholdNanos) {
+            return;
+        }
+        event.end();
+        event.poolId = task.metrics.getPoolId();
+        event.poolName = ThreadPoolJfr.poolName(task.metrics);
+        event.taskType = taskType(task);
+        event.queueWait = task.startNanos - task.submitNanos;
+        event.failed = failed;
+        event.commit();
+    }
+
+    static void reject(ThreadPoolMetrics metrics, Runnable task, String reason, int queueSize) {
+        if (!rejectType.isEnabled()) {
+            return;
+        }
+        TaskRejectEvent event = new TaskRejectEvent();
+        event.poolId = metrics.getPoolId();
+        event.poolName = ThreadPoolJfr.poolName(metrics);
+        event.taskType = TaskTypeStats.typeOf(task);
+        event.reason = reason;
+        event.queueSize = queueSize;
+        event.commit();
+    }
+
+    static void resize(ThreadPoolMetrics metrics, String source, int oldCore, int newCore, int oldMax, int newMax,
+                       int oldQueueCapacity, int newQueueCapacity) {
+        if (!resizeType.isEnabled()) {
+            return;
+        }
+        PoolResizeEvent event = new PoolResizeEvent();
+        event.poolId = metrics.getPoolId();
+        event.poolName = ThreadPoolJfr.poolName(metrics);
+        event.source = source;
+        event.oldCorePoolSize = oldCore;
+        event.newCorePoolSize = newCore;
+        event.oldMaximumPoolSize = oldMax;
+        event.newMaximumPoolSize = newMax;
+        event.oldQueueCapacity = oldQueueCapacity;
+        event.newQueueCapacity = newQueueCapacity;
+        event.commit();
+    }
+
+    private static String taskType(MonitoredTask task) {
+        return task.taskType != null ? task.taskType : TaskTypeStats.typeOf(task.task);
+    }
+
+    @Name("com.example.threadpool.TaskSubmit")
+    @Label("Task Submit")
+    @Category({"Thread Pool"})
+    @Description("任务提交到线程池，每个任务一个事件，默认关闭")
+    @Enabled(false)
+    static class TaskSubmitEvent extends Event {
+        @Label("Pool Id")
+        String poolId;
+
+        @Label("Pool Name")
+        String poolName;
+
+        @Label("Queue Size")
+        int queueSize;
+    }
+
+    @Name("com.example.threadpool.TaskStart")
+    @Label("Task Start")
+    @Category({"Thread Pool"})
+    @Description("任务开始执行，只记录排队时间超过Agent参数jfrThreshold的任务")
+    @StackTrace(false)
+    static class TaskStartEvent extends Event {
+        @Label("Pool Id")
+        String poolId;
+
+        @Label("Pool Name")
+        String poolName;
+
+        @Label("Task Type")
+        String taskType;
+
+        @Label("Queue Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueWait;
+    }
+
+    @Name("com.example.threadpool.TaskExecute")
+    @Label("Task Execute")
+    @Category({"Thread Pool"})
+    @Description("任务执行，事件时长为执行时间，只记录执行时间超过Agent参数jfrThreshold的任务")
+    @StackTrace(false)
+    static class TaskExecuteEvent extends Event {
+        @Label("Pool Id")
+        String poolId;
+
+        @Label("Pool Name")
+        String poolName;
+
+        @Label("Task Type")
+        String taskType;
+
+        @Label("Queue Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        long queueWait;
+
+        @Label("Failed")
+        boolean failed;
+    }
+
+    @Name("com.example.threadpool.TaskReject")
+    @Label("Task Reject")
+    @Category({"Thread Pool"})
+    @Description("任务被拒绝，reason为拒绝策略名称或ADMISSION（准入控制）、CONCURRENCY_LIMIT（并发限制）")
+    static class TaskRejectEvent extends Event {
+        @Label("Pool Id")
+        String poolId;
+
+        @Label("Pool Name")
+        String poolName;
+
+        @Label("Task Type")
+        String taskType;
+
+        @Label("Reason")
+        String reason;
+
+        @Label("Queue Size")
+        int queueSize;
+    }
+
+    @Name("com.example.threadpool.PoolResize")
+    @Label("Pool Resize")
+    @Category({"Thread Pool"})
+    @Description("线程池参数被修改接口（MODIFY）或自动调优（AUTO_TUNE）修改")
+    @StackTrace(false)
+    static class PoolResizeEvent extends Event {
+        @Label("Pool Id")
+        String poolId;
+
+        @Label("Pool Name")
+        String poolName;
+
+        @Label("Source")
+        String source;
+
+        @Label("Old Core Pool Size")
+        int oldCorePoolSize;
+
+        @Label("New Core Pool Size")
+        int newCorePoolSize;
+
+        @Label("Old Maximum Pool Size")
+        int oldMaximumPoolSize;
+
+        @Label("New Maximum Pool Size")
+        int newMaximumPoolSize;
+
+        @Label("Old Queue Capacity")
+        int oldQueueCapacity;
+
+        @Label("New Queue Capacity")
+        int newQueueCapacity;
+    }
+}
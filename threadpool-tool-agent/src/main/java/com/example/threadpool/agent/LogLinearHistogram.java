@@ -0,0 +1,141 @@
+package com.example.threadpool.agent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 对数-线性分桶直方图，无锁、固定内存
+ * 每个2的幂区间再线性切分为16个子桶，相对误差不超过1/16；取值单位为纳秒，超过上限的值计入最后一个桶
+ * 记录端可多线程并发写入，快照端（上报线程）按区间读取增量
+ */
+class LogLinearHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_MAGNITUDE = 40;
+
+    /**
+     * 可精确分桶的最大值，约18分钟
+     */
+    static final long MAX_TRACKABLE_VALUE = (1L << MAX_MAGNITUDE) - 1;
+
+    private static final int BUCKET_COUNT = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 上一次快照时的累计值，只由快照线程访问
+     */
+    private final long[] lastCounts = new long[BUCKET_COUNT];
+
+    /**
+     * 记录一个取值（纳秒）
+     */
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketIndex(Math.min(value, MAX_TRACKABLE_VALUE)));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 获取自上次调用以来的区间快照
+     */
+    synchronized Snapshot intervalSnapshot() {
+        long[] delta = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            delta[i] = count - lastCounts[i];
+            lastCounts[i] = count;
+            total += delta[i];
+        }
+        return new Snapshot(delta, total, max.getAndSet(0));
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        return ((long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT)) << shift;
+    }
+
+    static long bucketWidth(int index) {
+        return index < SUB_BUCKET_COUNT ? 1 : 1L << (index / SUB_BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 区间快照
+     */
+    static class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long max;
+
+        Snapshot(long[] counts, long totalCount, long max) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.max = max;
+        }
+
+        long getTotalCount() {
+            return totalCount;
+        }
+
+        long getMax() {
+            return max;
+        }
+
+        /**
+         * 获取分位值（纳秒），取所在桶的中点，不超过区间最大值
+         *
+         * @param percentile 分位，如 99.9
+         */
+        long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long value = bucketLowerBound(i) + (bucketWidth(i) - 1) / 2;
+                    return max > 0 ? Math.min(value, max) : value;
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 获取分位值并换算为毫秒
+         */
+        double getMillisAtPercentile(double percentile) {
+            return toMillis(getValueAtPercentile(percentile));
+        }
+
+        double getMaxMillis() {
+            return toMillis(max);
+        }
+
+        private static double toMillis(long nanos) {
+            return Math.round(nanos / 1000.0) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.threadpool.agent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 提交到被监控线程池的任务包装，记录提交和开始执行的时间戳
+ * 原始任务是Future时使用 {@link OfFuture}，保证队列中的对象仍是Future（purge等逻辑依赖）
+ * 只有按提交顺序出队的JDK队列才放入包装对象，见 {@link #canWrap}
+ */
+class MonitoredTask implements Runnable {
+
+    final Runnable task;
+    final ThreadPoolMetrics metrics;
+    final long submitNanos;
+    long startNanos;
+
+    /**
+     * 任务类型，开始执行时解析，见 TaskTypeStats
+     */
+    String taskType;
+
+    /**
+     * 排队超时被准入控制丢弃，见 AdmissionControl（只由工作线程访问）
+     */
+    boolean shed;
+
+    /**
+     * 已执行结束埋点（只由工作线程访问）：JDK 9+ 的runWorker在子类afterExecute抛出异常时会再调用一次afterExecute，
+     * 结束埋点只处理第一次
+     */
+    boolean completed;
+
+    /**
+     * 提交时被准入控制提前拒绝
+     */
+    boolean rejectedByAdmission;
+
+    /**
+     * 提交时占用了名额的并发限制器，任务结束或被拒绝时归还，见 ConcurrencyLimiter
+     */
+    ConcurrencyLimiter limiter;
+
+    /**
+     * 提交时因并发限制名额不足被拒绝
+     */
+    boolean rejectedByLimiter;
+
+    /**
+     * 开始执行时begin的JFR执行事件（类型为JfrEvents.TaskExecuteEvent），未录制时为null，见 ThreadPoolJfr
+     */
+    Object jfrEvent;
+
+    MonitoredTask(Runnable task, ThreadPoolMetrics metrics, long submitNanos) {
+        this.task = task;
+        this.metrics = metrics;
+        this.submitNanos = submitNanos;
+    }
+
+    /**
+     * 队列是否可以存放包装对象：只包装按提交顺序出队的JDK队列（含子类）；
+     * PriorityBlockingQueue等按元素排序、或只接受特定任务类型的队列会比较/转换队列中的对象，放入包装对象会抛ClassCastException，
+     * 这类线程池的任务不包装，只通过 ThreadPoolMetrics.submitTimes 统计排队时间，先扩线程再排队、准入控制、并发限制、JFR执行事件和按任务类型统计不生效，
+     * 修改接口拒绝为这类线程池启用前三项
+     */
+    static boolean canWrap(BlockingQueue<Runnable> queue) {
+        return queue instanceof LinkedBlockingQueue || queue instanceof ArrayBlockingQueue
+                || queue instanceof SynchronousQueue || queue instanceof LinkedBlockingDeque
+                || queue instanceof LinkedTransferQueue;
+    }
+
+    static MonitoredTask wrap(Runnable task, ThreadPoolMetrics metrics) {
+        long now = System.nanoTime();
+        if (task instanceof RunnableFuture) {
+            return new OfFuture(task, metrics, now);
+        }
+        return new MonitoredTask(task, metrics, now);
+    }
+
+    @Override
+    public void run() {
+        if (!shed) {
+            task.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return task.toString();
+    }
+
+    /**
+     * Future 任务的包装
+     */
+    static class OfFuture extends MonitoredTask implements RunnableFuture<Object> {
+
+        OfFuture(Runnable task, ThreadPoolMetrics metrics, long submitNanos) {
+            super(task, metrics, submitNanos);
+        }
+
+        @SuppressWarnings("unchecked")
+        private RunnableFuture<Object> future() {
+            return (RunnableFuture<Object>) task;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return future().cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return future().isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return future().isDone();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            return future().get();
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return future().get(timeout, unit);
+        }
+    }
+}
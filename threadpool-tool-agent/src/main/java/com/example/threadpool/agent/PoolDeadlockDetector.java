@@ -0,0 +1,313 @@
+package com.example.threadpool.agent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 线程池自身死锁/饥饿检测
+ * 典型场景：有界线程池中的任务对提交到同一线程池的其他任务调用 Future.get()/CompletableFuture.join()，
+ * 所有工作线程都在等待仍在队列中的任务，吞吐量降为0
+ *
+ * 随 StuckTaskDetector 的扫描线程每秒执行一次，不在任务执行路径上埋点：
+ * - 先检查队列非空且上一次扫描以来没有任务完成，正常运行的线程池到这里就结束
+ * - 再检查 WorkerSlots 中的工作线程是否都处于WAITING/TIMED_WAITING，且阻塞对象（LockSupport.getBlocker）是Future
+ *   或CompletableFuture的等待节点
+ * 连续2次扫描满足条件才判定为饥饿，此时才复制队列，按阻塞对象找到被等待的任务所在的线程池：
+ * - SELF_DEADLOCK：等待的任务在本线程池中
+ * - CYCLE：等待的任务在其他同样饥饿的线程池中，且等待关系能回到本线程池
+ * - STARVATION：其他情况（如CompletableFuture的等待节点无法对应到被等待的任务）
+ * 判定时获取一次这些工作线程的栈并记录 POOL_DEADLOCK 事件，恢复时再记录一次
+ */
+class PoolDeadlockDetector {
+
+    static final String EVENT_TYPE = "POOL_DEADLOCK";
+    static final String SELF_DEADLOCK = "SELF_DEADLOCK";
+    static final String CYCLE = "CYCLE";
+    static final String STARVATION = "STARVATION";
+
+    private static final int CONFIRM_SCANS = 2;
+
+    /**
+     * 每个线程池上报的工作线程明细数上限
+     */
+    private static final int MAX_REPORTED = 10;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private PoolDeadlockDetector() {
+    }
+
+    /**
+     * 扫描所有线程池，只由扫描线程调用
+     */
+    static void scan() {
+        Map<ThreadPoolMetrics, Suspect> starved = new LinkedHashMap<>();
+        ThreadPoolMonitor.forEachPool((threadPool, metrics) -> {
+            Suspect suspect = check(threadPool, metrics);
+            if (suspect != null) {
+                starved.put(metrics, suspect);
+            } else if (metrics.deadlock.state != null) {
+                recover(metrics);
+            }
+        });
+        if (starved.isEmpty()) {
+            return;
+        }
+
+        // 饥饿的线程池中排队和正在运行的任务 -> 所在线程池
+        Map<Object, ThreadPoolMetrics> owners = new IdentityHashMap<>();
+        for (Map.Entry<ThreadPoolMetrics, Suspect> entry : starved.entrySet()) {
+            for (Object queued : entry.getValue().threadPool.getQueue().toArray()) {
+                owners.put(queued, entry.getKey());
+                if (queued instanceof MonitoredTask) {
+                    owners.put(((MonitoredTask) queued).task, entry.getKey());
+                }
+            }
+            for (Waiter waiter : entry.getValue().waiters) {
+                owners.put(waiter.task, entry.getKey());
+            }
+        }
+        Map<ThreadPoolMetrics, Set<ThreadPoolMetrics>> waitingOn = new HashMap<>();
+        for (Map.Entry<ThreadPoolMetrics, Suspect> entry : starved.entrySet()) {
+            Set<ThreadPoolMetrics> targets = new LinkedHashSet<>();
+            for (Waiter waiter : entry.getValue().waiters) {
+                ThreadPoolMetrics target = owners.get(waiter.blocker);
+                if (target != null) {
+                    targets.add(target);
+                }
+            }
+            waitingOn.put(entry.getKey(), targets);
+        }
+
+        for (Map.Entry<ThreadPoolMetrics, Suspect> entry : starved.entrySet()) {
+            ThreadPoolMetrics metrics = entry.getKey();
+            Set<ThreadPoolMetrics> targets = waitingOn.get(metrics);
+            String kind;
+            if (inCycle(metrics, targets, waitingOn)) {
+                kind = CYCLE;
+            } else if (targets.contains(metrics)) {
+                kind = SELF_DEADLOCK;
+            } else {
+                kind = STARVATION;
+            }
+            report(metrics, entry.getValue(), kind, targets);
+        }
+    }
+
+    /**
+     * 线程池是否处于饥饿状态（连续2次扫描），否则返回null
+     */
+    private static Suspect check(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.deadlock;
+        long completed = metrics.completedCount.sum();
+        boolean progressed = completed != state.lastCompleted;
+        state.lastCompleted = completed;
+        if (progressed || threadPool.getQueue().isEmpty()) {
+            state.suspectScans = 0;
+            return null;
+        }
+        List<Waiter> waiters = new ArrayList<>();
+        for (WorkerSlots.Chunk chunk : metrics.workerSlots.chunks()) {
+            for (int i = 0; i < WorkerSlots.CHUNK_SIZE; i++) {
+                Thread thread = chunk.threads.get(i);
+                if (thread == null) {
+                    continue;
+                }
+                long startNanos = chunk.startNanos.get(i);
+                Runnable task = chunk.tasks.get(i);
+                Object blocker = LockSupport.getBlocker(thread);
+                if (startNanos == 0 || task == null || !isFutureWait(thread, blocker)) {
+                    state.suspectScans = 0;
+                    return null;
+                }
+                waiters.add(new Waiter(thread, task, blocker, startNanos));
+            }
+        }
+        if (waiters.isEmpty() || ++state.suspectScans < CONFIRM_SCANS) {
+            return null;
+        }
+        return new Suspect(threadPool, waiters);
+    }
+
+    private static boolean isFutureWait(Thread thread, Object blocker) {
+        Thread.State threadState = thread.getState();
+        if (threadState != Thread.State.WAITING && threadState != Thread.State.TIMED_WAITING || blocker == null) {
+            return false;
+        }
+        return blocker instanceof Future
+                || blocker.getClass().getName().startsWith("java.util.concurrent.CompletableFuture$");
+    }
+
+    /**
+     * 从等待的其他线程池出发，能否沿等待关系回到本线程池
+     */
+    private static boolean inCycle(ThreadPoolMetrics metrics, Set<ThreadPoolMetrics> targets,
+                                   Map<ThreadPoolMetrics, Set<ThreadPoolMetrics>> waitingOn) {
+        Set<ThreadPoolMetrics> visited = new HashSet<>();
+        List<ThreadPoolMetrics> pending = new ArrayList<>();
+        for (ThreadPoolMetrics target : targets) {
+            if (target != metrics) {
+                pending.add(target);
+            }
+        }
+        while (!pending.isEmpty()) {
+            ThreadPoolMetrics current = pending.remove(pending.size() - 1);
+            if (!visited.add(current)) {
+                continue;
+            }
+            for (ThreadPoolMetrics next : waitingOn.getOrDefault(current, Collections.emptySet())) {
+                if (next == metrics) {
+                    return true;
+                }
+                pending.add(next);
+            }
+        }
+        return false;
+    }
+
+    private static void report(ThreadPoolMetrics metrics, Suspect suspect, String kind, Set<ThreadPoolMetrics> targets) {
+        State state = metrics.deadlock;
+        List<String> targetIds = new ArrayList<>();
+        for (ThreadPoolMetrics target : targets) {
+            targetIds.add(target.getPoolId());
+        }
+        String waitingOn = targetIds.isEmpty() ? null : String.join(",", targetIds);
+        if (kind.equals(state.state) && Objects.equals(waitingOn, state.waitingOn)) {
+            return;
+        }
+
+        List<Waiter> waiters = suspect.waiters;
+        waiters.sort(Comparator.comparingLong(waiter -> waiter.startNanos));
+        waiters = waiters.subList(0, Math.min(waiters.size(), MAX_REPORTED));
+        long[] ids = new long[waiters.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = waiters.get(i).thread.getId();
+        }
+        ThreadInfo[] infos = THREAD_MX_BEAN.getThreadInfo(ids, StuckTaskDetector.MAX_STACK_DEPTH);
+        long now = System.nanoTime();
+        List<StuckTaskInfo> details = new ArrayList<>(waiters.size());
+        for (int i = 0; i < ids.length; i++) {
+            Waiter waiter = waiters.get(i);
+            StuckTaskInfo detail = new StuckTaskInfo();
+            detail.setThreadName(waiter.thread.getName());
+            detail.setTaskType(TaskTypeStats.typeOf(waiter.task));
+            detail.setRunningMillis(TimeUnit.NANOSECONDS.toMillis(now - waiter.startNanos));
+            if (infos[i] != null) {
+                detail.setThreadState(infos[i].getThreadState().name());
+                detail.setStackTrace(StuckTaskDetector.formatStack(infos[i]));
+            }
+            details.add(detail);
+        }
+
+        state.tasks = details;
+        state.waitingOn = waitingOn;
+        state.state = kind;
+        state.total++;
+
+        int workers = suspect.waiters.size();
+        int queued = suspect.threadPool.getQueue().size();
+        String message;
+        if (CYCLE.equals(kind)) {
+            message = "线程池之间循环等待：全部" + workers + "个工作线程都在等待线程池[" + waitingOn + "]中的任务";
+        } else if (SELF_DEADLOCK.equals(kind)) {
+            message = "线程池自身死锁：全部" + workers + "个工作线程都在等待本线程池中的任务，队列中" + queued + "个任务无法执行";
+        } else {
+            message = "线程池饥饿：全部" + workers + "个工作线程都阻塞在Future等待上，队列中" + queued + "个任务无法执行";
+        }
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, message);
+    }
+
+    private static void recover(ThreadPoolMetrics metrics) {
+        State state = metrics.deadlock;
+        state.state = null;
+        state.waitingOn = null;
+        state.tasks = null;
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "线程池已恢复执行任务");
+    }
+
+    /**
+     * 上报死锁/饥饿状态
+     */
+    static void fill(ThreadPoolInfo info, ThreadPoolMetrics metrics) {
+        State state = metrics.deadlock;
+        info.setDeadlockState(state.state);
+        info.setDeadlockWaitingOn(state.waitingOn);
+        info.setDeadlockTotal(state.total);
+        info.setDeadlockTasks(state.tasks);
+    }
+
+    /**
+     * 单个线程池的检测状态
+     */
+    static class State {
+        /**
+         * 上一次扫描时的已完成任务数、连续满足饥饿条件的扫描次数，只由扫描线程访问
+         */
+        long lastCompleted = -1;
+        int suspectScans;
+
+        /**
+         * 当前判定结果，null表示正常
+         */
+        volatile String state;
+
+        /**
+         * 被等待的任务所在的线程池ID，逗号分隔，无法确定时为null
+         */
+        volatile String waitingOn;
+
+        /**
+         * 判定时的工作线程明细
+         */
+        volatile List<StuckTaskInfo> tasks;
+
+        /**
+         * 累计判定次数，只由扫描线程写入
+         */
+        volatile long total;
+    }
+
+    /**
+     * 阻塞在Future上的工作线程
+     */
+    private static final class Waiter {
+        final Thread thread;
+        final Runnable task;
+        final Object blocker;
+        final long startNanos;
+
+        Waiter(Thread thread, Runnable task, Object blocker, long startNanos) {
+            this.thread = thread;
+            this.task = task;
+            this.blocker = blocker;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static final class Suspect {
+        final ThreadPoolExecutor threadPool;
+        final List<Waiter> waiters;
+
+        Suspect(ThreadPoolExecutor threadPool, List<Waiter> waiters) {
+            this.threadPool = threadPool;
+            this.waiters = waiters;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.threadpool.agent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.net.URLEncoder;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程池稳定标识和按历史负载预热（Agent参数 warmUp，默认关闭）
+ *
+ * 线程池ID是identityHashCode（冲突时加序号后缀），每次重启都会变化，Web端按稳定标识 poolKey 汇总历史负载：
+ * - bean:名称  Spring Bean
+ * - name:名称  NamedThreadPoolExecutor
+ * - site:类名.方法名#序号  其他线程池，取创建线程池的调用位置（跳过JDK、Agent和线程池子类的构造方法），
+ *   序号区分同一位置创建的多个线程池，超过 MAX_SITE_ORDINAL 的共用 #MAX_SITE_ORDINAL+，
+ *   避免反复创建短生命周期线程池的位置在Web端产生无限多的标识
+ *
+ * 启用预热时，线程池注册1秒后（等待Spring设置Bean名称）在预热线程上向Web端查询该标识的历史稳定线程数，
+ * 预启动对应数量的核心线程（不超过核心线程数），避免重启后第一波流量同时承担创建线程的开销；
+ * 配置了 warmUpTask 时再让预启动的线程各执行一次预热任务（无参构造的Runnable，用注册线程池时的上下文类加载器加载），
+ * 让任务代码在真实流量到来前完成类加载和JIT编译。预热结果记录 WARM_UP 事件，并随线程池数据上报
+ */
+class PoolWarmUp {
+
+    static final String EVENT_TYPE = "WARM_UP";
+
+    private static final long LOOKUP_DELAY_MILLIS = 1000;
+    private static final long TASK_TIMEOUT_SECONDS = 10;
+
+    /**
+     * 调用位置 -> 已创建的线程池数，生成site标识的序号
+     */
+    private static final Map<String, AtomicInteger> SITE_COUNTS = new ConcurrentHashMap<>();
+
+    /**
+     * 同一调用位置的最大序号
+     */
+    static final int MAX_SITE_ORDINAL = 16;
+
+    private static final String AGENT_PACKAGE = PoolWarmUp.class.getPackage().getName() + ".";
+
+    private static volatile boolean enabled;
+    private static volatile String taskClassName;
+    private static volatile ThreadPoolReporter reporter;
+    private static volatile ScheduledExecutorService executor;
+
+    private PoolWarmUp() {
+    }
+
+    static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * 设置预热任务类名，为空表示只预启动线程
+     */
+    static void setTaskClassName(String className) {
+        taskClassName = className == null || className.trim().isEmpty() ? null : className.trim();
+    }
+
+    /**
+     * 启动预热线程，未启用时不启动；启动前已注册的线程池在这里补充预热
+     */
+    static synchronized void start(ThreadPoolReporter threadPoolReporter) {
+        if (!enabled || executor != null) {
+            return;
+        }
+        reporter = threadPoolReporter;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ThreadPool-WarmUp");
+            t.setDaemon(true);
+            return t;
+        });
+        ThreadPoolMonitor.forEachPool(PoolWarmUp::schedule);
+    }
+
+    /**
+     * 线程池注册时调用，记录创建位置和上下文类加载器
+     */
+    static void onRegistered(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.warmUp;
+        String site = creationSite(threadPool);
+        int ordinal = SITE_COUNTS.computeIfAbsent(site, key -> new AtomicInteger())
+                .updateAndGet(n -> Math.min(n + 1, MAX_SITE_ORDINAL + 1));
+        state.site = site + "#" + (ordinal <= MAX_SITE_ORDINAL ? String.valueOf(ordinal) : MAX_SITE_ORDINAL + "+");
+        if (enabled) {
+            state.classLoader = Thread.currentThread().getContextClassLoader();
+            schedule(threadPool, metrics);
+        }
+    }
+
+    /**
+     * Spring Bean注册时调用，Bean名称优先作为稳定标识
+     */
+    static void onBeanName(ThreadPoolMetrics metrics, String beanName) {
+        if (beanName != null && !beanName.isEmpty()) {
+            metrics.warmUp.poolKey = "bean:" + beanName;
+        }
+    }
+
+    /**
+     * 线程池的稳定标识，第一次使用时确定（NamedThreadPoolExecutor的名称在子类构造方法中才设置）
+     */
+    static String poolKey(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.warmUp;
+        String key = state.poolKey;
+        if (key == null) {
+            String poolId = metrics.getPoolId();
+            String name = ThreadPoolMonitor.nameOf(poolId, threadPool);
+            if (!name.equals(threadPool.getClass().getName() + "@" + poolId)) {
+                key = "name:" + name.substring(0, name.length() - poolId.length() - 1);
+            } else {
+                key = "site:" + (state.site != null ? state.site : threadPool.getClass().getName());
+            }
+            state.poolKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * 创建线程池的调用位置：跳过JDK、Agent以及线程池类自身（含父类）的构造方法后的第一个栈帧
+     */
+    private static String creationSite(ThreadPoolExecutor threadPool) {
+        Set<String> poolClasses = new HashSet<>();
+        for (Class<?> clazz = threadPool.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+            poolClasses.add(clazz.getName());
+        }
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String className = frame.getClassName();
+            if (className.startsWith("java.") || className.startsWith("javax.") || className.startsWith("jdk.")
+                    || className.startsWith("sun.") || className.startsWith(AGENT_PACKAGE)
+                    || poolClasses.contains(className)) {
+                continue;
+            }
+            return className + "." + frame.getMethodName();
+        }
+        return threadPool.getClass().getName();
+    }
+
+    private static void schedule(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        ScheduledExecutorService current = executor;
+        if (current == null || !metrics.warmUp.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        current.schedule(() -> {
+            try {
+                warmUp(threadPool, metrics);
+            } catch (Throwable t) {
+                System.err.println("ThreadPoolTool: 线程池预热失败: " + t);
+            } finally {
+                metrics.warmUp.classLoader = null;
+            }
+        }, LOOKUP_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void warmUp(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) throws Exception {
+        if (threadPool.isShutdown()) {
+            return;
+        }
+        State state = metrics.warmUp;
+        String key = poolKey(threadPool, metrics);
+        JsonNode recommendation = reporter.getJson(
+                reporter.resolve("/warmup?poolKey=" + URLEncoder.encode(key, "UTF-8")), "查询线程池预热线程数(" + key + ")");
+        if (recommendation == null) {
+            return;
+        }
+        int threads = recommendation.path("threads").asInt(0);
+        state.recommendedThreads = threads;
+        if (threads <= 0) {
+            return;
+        }
+
+        long begin = System.nanoTime();
+        int core = threadPool.getCorePoolSize();
+        int target = Math.min(threads, core);
+        int prestarted = 0;
+        while (threadPool.getPoolSize() < target && threadPool.prestartCoreThread()) {
+            prestarted++;
+        }
+        int tasks = runWarmUpTasks(threadPool, state, Math.min(target, threadPool.getPoolSize()));
+        state.prestarted = prestarted;
+        state.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "按历史负载（" + key + "，近"
+                + recommendation.path("hours").asInt() + "小时稳定线程数" + threads + "）预启动" + prestarted + "个核心线程"
+                + (threads > core ? "，受核心线程数" + core + "限制" : "")
+                + (tasks > 0 ? "，执行预热任务" + tasks + "次" : "") + "，耗时" + state.millis + "ms");
+    }
+
+    /**
+     * 把预热任务直接放入队列由已预启动的空闲线程执行并等待完成（最长10秒）；
+     * 不经过execute，避免核心线程未满时为每个预热任务再创建线程；预热任务包装为WarmUpTask，
+     * beforeExecute/afterExecute埋点跳过它，不计入任务统计，也不影响空闲回收和自适应上报
+     *
+     * @return 完成的预热任务数
+     */
+    private static int runWarmUpTasks(ThreadPoolExecutor threadPool, State state, int count) {
+        String className = taskClassName;
+        if (className == null || count <= 0) {
+            return 0;
+        }
+        Class<?> taskClass;
+        try {
+            ClassLoader loader = state.classLoader != null ? state.classLoader : ClassLoader.getSystemClassLoader();
+            taskClass = Class.forName(className, true, loader);
+        } catch (Throwable t) {
+            System.err.println("ThreadPoolTool: 无法加载预热任务 " + className + ": " + t);
+            return 0;
+        }
+        CountDownLatch done = new CountDownLatch(count);
+        AtomicInteger succeeded = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            try {
+                Runnable task = (Runnable) taskClass.getDeclaredConstructor().newInstance();
+                if (!threadPool.getQueue().offer(new WarmUpTask(task, succeeded, done))) {
+                    done.countDown();
+                }
+            } catch (ClassCastException | IllegalArgumentException e) {
+                // 优先级队列等不接受普通Runnable的队列
+                System.err.println("ThreadPoolTool: 线程池队列不接受预热任务: " + e);
+                return 0;
+            } catch (Throwable t) {
+                System.err.println("ThreadPoolTool: 创建预热任务失败 " + className + ": " + t);
+                return 0;
+            }
+        }
+        try {
+            done.await(TASK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return succeeded.get();
+    }
+
+    /**
+     * 预热任务，埋点按类型识别并跳过
+     */
+    static final class WarmUpTask implements Runnable {
+        private final Runnable task;
+        private final AtomicInteger succeeded;
+        private final CountDownLatch done;
+
+        WarmUpTask(Runnable task, AtomicInteger succeeded, CountDownLatch done) {
+            this.task = task;
+            this.succeeded = succeeded;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+                succeeded.incrementAndGet();
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * 上报稳定标识和预热结果
+     */
+    static void fill(ThreadPoolInfo info, ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        State state = metrics.warmUp;
+        info.setPoolKey(poolKey(threadPool, metrics));
+        info.setWarmUpThreads(state.recommendedThreads);
+        info.setWarmUpPrestarted(state.prestarted);
+        info.setWarmUpMillis(state.millis);
+    }
+
+    /**
+     * 单个线程池的标识和预热状态
+     */
+    static class State {
+        /**
+         * 稳定标识，Bean名称注册时直接设置，否则第一次使用时确定
+         */
+        volatile String poolKey;
+
+        /**
+         * 创建位置（含序号），注册时记录
+         */
+        volatile String site;
+
+        /**
+         * 注册线程池时的上下文类加载器，用于加载预热任务，预热结束后释放
+         */
+        volatile ClassLoader classLoader;
+
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        volatile int recommendedThreads;
+        volatile int prestarted;
+        volatile long millis;
+    }
+}
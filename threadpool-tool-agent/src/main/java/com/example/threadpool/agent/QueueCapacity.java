@@ -0,0 +1,122 @@
+package com.example.threadpool.agent;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 运行时修改工作队列容量（原地修改，不替换线程池持有的队列对象，队列中已有的任务不受影响）
+ * 支持 LinkedBlockingQueue 和 LinkedBlockingDeque：在队列自身的锁内改写其capacity字段，
+ * 后续入队操作获取同一把锁，能看到新的容量；调大容量后唤醒阻塞在put上的生产者。
+ * 入队操作只判断 count == capacity，所以不允许把容量调小到当前任务数以下（持锁期间任务数不会变化）
+ * JDK9+ 依赖 SpyInstaller 向Agent开放java.util.concurrent包
+ */
+class QueueCapacity {
+
+    private static final Field LBQ_CAPACITY = findField(LinkedBlockingQueue.class, "capacity");
+    private static final Field LBQ_PUT_LOCK = findField(LinkedBlockingQueue.class, "putLock");
+    private static final Field LBQ_TAKE_LOCK = findField(LinkedBlockingQueue.class, "takeLock");
+    private static final Field LBQ_NOT_FULL = findField(LinkedBlockingQueue.class, "notFull");
+
+    private static final Field LBD_CAPACITY = findField(LinkedBlockingDeque.class, "capacity");
+    private static final Field LBD_LOCK = findField(LinkedBlockingDeque.class, "lock");
+    private static final Field LBD_NOT_FULL = findField(LinkedBlockingDeque.class, "notFull");
+
+    private static Field findField(Class<?> clazz, String name) {
+        try {
+            Field field = clazz.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            System.err.println("[ThreadPoolAgent] 无法访问" + clazz.getSimpleName() + "." + name + "，不支持修改队列容量: " + e);
+            return null;
+        }
+    }
+
+    private QueueCapacity() {
+    }
+
+    /**
+     * 是否支持运行时修改容量
+     */
+    static boolean isResizable(BlockingQueue<?> queue) {
+        if (queue instanceof LinkedBlockingQueue) {
+            return LBQ_CAPACITY != null && LBQ_PUT_LOCK != null && LBQ_TAKE_LOCK != null && LBQ_NOT_FULL != null;
+        }
+        if (queue instanceof LinkedBlockingDeque) {
+            return LBD_CAPACITY != null && LBD_LOCK != null && LBD_NOT_FULL != null;
+        }
+        return false;
+    }
+
+    /**
+     * 队列容量；无界队列为Integer.MAX_VALUE
+     */
+    static int capacityOf(BlockingQueue<?> queue) {
+        try {
+            if (queue instanceof LinkedBlockingQueue && LBQ_CAPACITY != null) {
+                return LBQ_CAPACITY.getInt(queue);
+            }
+            if (queue instanceof LinkedBlockingDeque && LBD_CAPACITY != null) {
+                return LBD_CAPACITY.getInt(queue);
+            }
+        } catch (IllegalAccessException e) {
+            // 按剩余容量推算
+        }
+        long capacity = (long) queue.size() + queue.remainingCapacity();
+        return (int) Math.min(Integer.MAX_VALUE, capacity);
+    }
+
+    /**
+     * 修改队列容量
+     *
+     * @throws IllegalArgumentException 容量不合法、队列类型不支持或当前任务数超过新容量
+     */
+    static void setCapacity(BlockingQueue<?> queue, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0");
+        }
+        if (!isResizable(queue)) {
+            throw new IllegalArgumentException("不支持修改" + queue.getClass().getName() + "的容量，仅支持LinkedBlockingQueue/LinkedBlockingDeque");
+        }
+        try {
+            if (queue instanceof LinkedBlockingQueue) {
+                ReentrantLock putLock = (ReentrantLock) LBQ_PUT_LOCK.get(queue);
+                ReentrantLock takeLock = (ReentrantLock) LBQ_TAKE_LOCK.get(queue);
+                // 与LinkedBlockingQueue.fullyLock相同的加锁顺序
+                putLock.lock();
+                takeLock.lock();
+                try {
+                    checkSize(queue, capacity);
+                    LBQ_CAPACITY.setInt(queue, capacity);
+                    ((Condition) LBQ_NOT_FULL.get(queue)).signalAll();
+                } finally {
+                    takeLock.unlock();
+                    putLock.unlock();
+                }
+            } else {
+                ReentrantLock lock = (ReentrantLock) LBD_LOCK.get(queue);
+                lock.lock();
+                try {
+                    checkSize(queue, capacity);
+                    LBD_CAPACITY.setInt(queue, capacity);
+                    ((Condition) LBD_NOT_FULL.get(queue)).signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("修改队列容量失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static void checkSize(BlockingQueue<?> queue, int capacity) {
+        int size = queue.size();
+        if (size > capacity) {
+            throw new IllegalArgumentException("队列中当前有" + size + "个任务，不能把容量调小到" + capacity + "，请等队列回落后重试");
+        }
+    }
+}
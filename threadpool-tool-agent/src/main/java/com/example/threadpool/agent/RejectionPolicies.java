@@ -0,0 +1,288 @@
+package com.example.threadpool.agent;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 可在运行时切换的拒绝策略
+ * - ABORT / CALLER_RUNS / DISCARD / DISCARD_OLDEST: JDK内置策略
+ * - ORIGINAL: 恢复线程池注册时代码中配置的策略
+ * - OVERFLOW: 溢出到有界的备用线程池执行，备用线程池也满时抛出RejectedExecutionException
+ * - BLOCK: 提交线程最多阻塞timeoutMillis等待队列空位，超时抛出RejectedExecutionException
+ * - DROP_OLDEST: 丢弃队列中最旧的任务（Future任务会被取消，等待结果的线程不会永久阻塞）并计数
+ * 每种策略的拒绝次数及处理结果记录在 ThreadPoolMetrics 的拒绝统计中，键为“策略名”和“策略名.结果”；
+ * BLOCK等到队列空位时任务仍由线程池执行，只有超时、中断或线程池关闭时才计入拒绝次数
+ */
+class RejectionPolicies {
+
+    static final String ABORT = "ABORT";
+    static final String CALLER_RUNS = "CALLER_RUNS";
+    static final String DISCARD = "DISCARD";
+    static final String DISCARD_OLDEST = "DISCARD_OLDEST";
+    static final String ORIGINAL = "ORIGINAL";
+    static final String OVERFLOW = "OVERFLOW";
+    static final String BLOCK = "BLOCK";
+    static final String DROP_OLDEST = "DROP_OLDEST";
+
+    private RejectionPolicies() {
+    }
+
+    /**
+     * 切换线程池的拒绝策略
+     *
+     * @throws IllegalArgumentException 策略名称或参数不合法
+     */
+    static void apply(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics, RejectionPolicyConfig config) {
+        config.validate();
+        RejectedExecutionHandler handler = create(threadPool, metrics, config);
+        RejectedExecutionHandler previous = threadPool.getRejectedExecutionHandler();
+        threadPool.setRejectedExecutionHandler(handler);
+        if (previous instanceof Overflow) {
+            // 旧的溢出线程池不再接收新任务，已接收的任务继续执行完
+            ((Overflow) previous).spillover.shutdown();
+        }
+        ThreadPoolEvents.record(metrics.getPoolId(), "REJECTION_POLICY", "拒绝策略已切换: "
+                + nameOf(previous) + " -> " + nameOf(handler));
+    }
+
+    private static RejectedExecutionHandler create(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics,
+                                                   RejectionPolicyConfig config) {
+        switch (config.normalizedPolicy()) {
+            case ABORT:
+                return new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD:
+                return new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST:
+                return new ThreadPoolExecutor.DiscardOldestPolicy();
+            case ORIGINAL:
+                return metrics.originalRejectionHandler != null
+                        ? metrics.originalRejectionHandler : threadPool.getRejectedExecutionHandler();
+            case OVERFLOW:
+                return new Overflow(metrics, config.getSpilloverMaxThreads(), config.getSpilloverQueueCapacity());
+            case BLOCK:
+                return new Block(metrics, config.getTimeoutMillis());
+            case DROP_OLDEST:
+                return new DropOldest(metrics);
+            default:
+                throw new IllegalArgumentException("不支持的拒绝策略: " + config.getPolicy());
+        }
+    }
+
+    /**
+     * 拒绝策略名称，Agent提供的策略返回策略名，其他返回类名
+     */
+    static String nameOf(RejectedExecutionHandler handler) {
+        if (handler instanceof ManagedPolicy) {
+            return ((ManagedPolicy) handler).name();
+        }
+        return handler == null ? "null" : handler.getClass().getSimpleName();
+    }
+
+    /**
+     * 拒绝次数是否由策略在真正拒绝时自行统计（策略可能接收任务），否则在进入拒绝流程时统计
+     */
+    static boolean countsOnRefusal(RejectedExecutionHandler handler) {
+        return handler instanceof Block;
+    }
+
+    /**
+     * 策略是否会把被拒绝的任务放入队列（等待空位或挤掉最旧的任务）；
+     * 准入控制、并发限制拒绝的任务交给这类策略会绕过限制，由埋点直接拒绝
+     */
+    static boolean enqueues(RejectedExecutionHandler handler) {
+        return handler instanceof Block || handler instanceof DropOldest
+                || handler instanceof ThreadPoolExecutor.DiscardOldestPolicy;
+    }
+
+    /**
+     * 直接放入队列的任务（绕过execute）需要自行包装，才能统计排队和执行耗时；队列不能存放包装对象时只记录提交时间
+     */
+    private static Runnable wrap(Runnable task, ThreadPoolMetrics metrics) {
+        if (metrics == null) {
+            return task;
+        }
+        if (metrics.submitTimes != null) {
+            metrics.submitTimes.put(task, System.nanoTime());
+            return task;
+        }
+        return MonitoredTask.wrap(task, metrics);
+    }
+
+    /**
+     * 任务直接放入队列后，保证至少有一个工作线程
+     */
+    private static void ensureWorker(ThreadPoolExecutor executor) {
+        int workers = ThreadPoolCtl.isAvailable() ? ThreadPoolCtl.workerCount(executor) : executor.getPoolSize();
+        if (workers == 0) {
+            executor.prestartCoreThread();
+        }
+    }
+
+    static RejectedExecutionException rejected(Runnable task, ThreadPoolExecutor executor, String reason) {
+        return new RejectedExecutionException("Task " + task + " rejected from " + executor + ": " + reason);
+    }
+
+    interface ManagedPolicy {
+        String name();
+    }
+
+    /**
+     * 溢出到有界备用线程池
+     */
+    static class Overflow implements RejectedExecutionHandler, ManagedPolicy {
+        private final ThreadPoolMetrics metrics;
+        final ThreadPoolExecutor spillover;
+
+        Overflow(ThreadPoolMetrics metrics, int maxThreads, int queueCapacity) {
+            this.metrics = metrics;
+            AtomicInteger counter = new AtomicInteger(1);
+            this.spillover = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                    queueCapacity > 0 ? new LinkedBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+                    r -> {
+                        Thread t = new Thread(r, "ThreadPool-" + metrics.getPoolId() + "-spillover-" + counter.getAndIncrement());
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+            this.spillover.allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public String name() {
+            return OVERFLOW;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                metrics.countRejection(OVERFLOW + ".aborted");
+                throw rejected(r, executor, "线程池已关闭");
+            }
+            try {
+                spillover.execute(r);
+                metrics.countRejection(OVERFLOW + ".spilled");
+            } catch (RejectedExecutionException e) {
+                metrics.countRejection(OVERFLOW + ".aborted");
+                throw rejected(r, executor, "溢出线程池已满");
+            }
+        }
+    }
+
+    /**
+     * 阻塞等待队列空位
+     */
+    static class Block implements RejectedExecutionHandler, ManagedPolicy {
+        private final ThreadPoolMetrics metrics;
+        private final long timeoutMillis;
+
+        Block(ThreadPoolMetrics metrics, long timeoutMillis) {
+            this.metrics = metrics;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public String name() {
+            return BLOCK;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw refuse(r, executor, "aborted", "线程池已关闭");
+            }
+            Runnable task = wrap(r, metrics);
+            boolean accepted;
+            try {
+                accepted = executor.getQueue().offer(task, timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw refuse(r, executor, "aborted", "等待队列空位时被中断");
+            }
+            if (!accepted) {
+                throw refuse(r, executor, "timeout", "等待队列空位超时(" + timeoutMillis + "ms)");
+            }
+            // 阻塞期间线程池可能已关闭，此时撤回任务
+            if (executor.isShutdown() && executor.getQueue().remove(task)) {
+                throw refuse(r, executor, "aborted", "线程池已关闭");
+            }
+            ensureWorker(executor);
+            metrics.countRejection(BLOCK + ".accepted");
+        }
+
+        /**
+         * 真正拒绝任务时才计入拒绝次数
+         */
+        private RejectedExecutionException refuse(Runnable r, ThreadPoolExecutor executor, String result, String reason) {
+            metrics.onReject(this);
+            metrics.countRejection(BLOCK + "." + result);
+            ThreadPoolJfr.onReject(executor, metrics, r, BLOCK);
+            return rejected(r, executor, reason);
+        }
+    }
+
+    /**
+     * 丢弃最旧的任务
+     */
+    static class DropOldest implements RejectedExecutionHandler, ManagedPolicy {
+        private static final int MAX_ATTEMPTS = 3;
+
+        private final ThreadPoolMetrics metrics;
+
+        DropOldest(ThreadPoolMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public String name() {
+            return DROP_OLDEST;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                metrics.countRejection(DROP_OLDEST + ".aborted");
+                throw rejected(r, executor, "线程池已关闭");
+            }
+            BlockingQueue<Runnable> queue = executor.getQueue();
+            Runnable task = wrap(r, metrics);
+            for (int i = 0; i < MAX_ATTEMPTS; i++) {
+                Runnable oldest = queue.poll();
+                if (oldest != null) {
+                    drop(oldest);
+                }
+                if (queue.offer(task)) {
+                    ensureWorker(executor);
+                    return;
+                }
+            }
+            // 队列没有容量（如SynchronousQueue），丢弃新任务本身
+            drop(task);
+        }
+
+        private void drop(Runnable task) {
+            Runnable original = task;
+            if (task instanceof MonitoredTask) {
+                MonitoredTask monitoredTask = (MonitoredTask) task;
+                original = monitoredTask.task;
+                // 被丢弃的任务不会执行，归还它占用的并发限制名额
+                if (monitoredTask.limiter != null) {
+                    monitoredTask.limiter.release();
+                    monitoredTask.limiter = null;
+                }
+            }
+            if (original instanceof Future) {
+                ((Future<?>) original).cancel(false);
+            }
+            metrics.countRejection(DROP_OLDEST + ".dropped");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.threadpool.agent;
+
+/**
+ * 拒绝策略配置，通过 /api/threadpool/modify 请求的 rejectionPolicy 字段按线程池下发
+ */
+public class RejectionPolicyConfig {
+
+    /**
+     * 策略名称，见 RejectionPolicies
+     */
+    private String policy;
+
+    /**
+     * BLOCK策略的最长阻塞时间（毫秒）
+     */
+    private long timeoutMillis = 1000;
+
+    /**
+     * OVERFLOW策略溢出线程池的最大线程数
+     */
+    private int spilloverMaxThreads = 4;
+
+    /**
+     * OVERFLOW策略溢出线程池的队列容量
+     */
+    private int spilloverQueueCapacity = 100;
+
+    /**
+     * 大写的策略名称
+     */
+    String normalizedPolicy() {
+        return policy == null ? "" : policy.trim().toUpperCase();
+    }
+
+    /**
+     * 校验策略名称和参数，不合法时抛出IllegalArgumentException
+     */
+    void validate() {
+        switch (normalizedPolicy()) {
+            case RejectionPolicies.ABORT:
+            case RejectionPolicies.CALLER_RUNS:
+            case RejectionPolicies.DISCARD:
+            case RejectionPolicies.DISCARD_OLDEST:
+            case RejectionPolicies.ORIGINAL:
+            case RejectionPolicies.DROP_OLDEST:
+                return;
+            case RejectionPolicies.OVERFLOW:
+                if (spilloverMaxThreads <= 0 || spilloverQueueCapacity < 0) {
+                    throw new IllegalArgumentException("spilloverMaxThreads必须大于0，spilloverQueueCapacity不能小于0");
+                }
+                return;
+            case RejectionPolicies.BLOCK:
+                if (timeoutMillis <= 0) {
+                    throw new IllegalArgumentException("timeoutMillis必须大于0");
+                }
+                return;
+            default:
+                throw new IllegalArgumentException("不支持的拒绝策略: " + policy);
+        }
+    }
+
+    // Getters and Setters
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(String policy) {
+        this.policy = policy;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public int getSpilloverMaxThreads() {
+        return spilloverMaxThreads;
+    }
+
+    public void setSpilloverMaxThreads(int spilloverMaxThreads) {
+        this.spilloverMaxThreads = spilloverMaxThreads;
+    }
+
+    public int getSpilloverQueueCapacity() {
+        return spilloverQueueCapacity;
+    }
+
+    public void setSpilloverQueueCapacity(int spilloverQueueCapacity) {
+        this.spilloverQueueCapacity = spilloverQueueCapacity;
+    }
+}
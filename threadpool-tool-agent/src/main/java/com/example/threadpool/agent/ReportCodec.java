@@ -0,0 +1,361 @@
+package com.example.threadpool.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 线程池上报数据的二进制编码（Agent -> Web，/api/threadpool/upload/binary）
+ *
+ * 帧格式（版本1）:
+ * <pre>
+ * magic "TPR" | version(1) | flags(bit0=gzip) | body
+ * body: sessionId(varlong) | sequence(varlong) | [schema，仅sequence=0] | poolCount(varint) | pool records...
+ * schema: fieldCount(varint) | (kind(byte) | name(string))...
+ * pool record: poolIndex(varint) | recordFlags(bit0=带元数据) | [threadPoolId(string) | threadPoolName(string)]
+ *              | 数值字段变更位图 | 变更数值的zigzag差值(varlong)... | 文本字段变更位图 | 变更文本(string)...
+ * </pre>
+ * 线程池ID和名称每个会话只发送一次，之后只发送相对上一帧变化的数值差值；
+ * 发送失败、被丢弃或Web端要求重新同步时开启新会话，下一帧重新发送完整数据；
+ * 有线程池超过 POOL_EXPIRE_MILLIS 没有上报（已被回收或长期未上报）时也开启新会话，释放其状态和序号
+ */
+class ReportCodec {
+
+    static final byte[] MAGIC = { 'T', 'P', 'R' };
+    static final int VERSION = 1;
+    static final int FLAG_GZIP = 1;
+    static final int RECORD_WITH_METADATA = 1;
+
+    static final int KIND_LONG = 0;
+    static final int KIND_DOUBLE = 1;
+    static final int KIND_BOOLEAN = 2;
+    static final int KIND_STRING = 3;
+    static final int KIND_JSON = 4;
+
+    /**
+     * 浮点字段按定点数编码，保留3位小数
+     */
+    static final double DOUBLE_SCALE = 1000.0;
+
+    /**
+     * 线程池超过该时间没有上报时视为过期；自适应上报的心跳间隔（默认60秒）远小于该值，空闲线程池不会因此频繁开启新会话
+     */
+    static final long POOL_EXPIRE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final List<Field> NUMERIC_FIELDS = new ArrayList<>();
+    private static final List<Field> TEXT_FIELDS = new ArrayList<>();
+
+    static {
+        List<Field> fields = new ArrayList<>();
+        for (Method method : ThreadPoolInfo.class.getMethods()) {
+            Field field = Field.of(method);
+            if (field != null) {
+                fields.add(field);
+            }
+        }
+        fields.sort(Comparator.comparing(f -> f.name));
+        for (Field field : fields) {
+            (field.isNumeric() ? NUMERIC_FIELDS : TEXT_FIELDS).add(field);
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean gzip;
+    private final LongSupplier sessionIds;
+
+    private long sessionId;
+    private long sequence;
+    private Map<String, PoolState> poolStates;
+    private volatile boolean resetRequested = true;
+
+    ReportCodec(ObjectMapper objectMapper, boolean gzip) {
+        this(objectMapper, gzip, () -> ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE);
+    }
+
+    /**
+     * 指定会话ID的来源，测试中用固定的会话ID生成可比对的数据帧
+     */
+    ReportCodec(ObjectMapper objectMapper, boolean gzip, LongSupplier sessionIds) {
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+        this.sessionIds = sessionIds;
+    }
+
+    /**
+     * 要求下一帧开启新会话（可由发送线程调用）
+     */
+    void reset() {
+        resetRequested = true;
+    }
+
+    /**
+     * 编码一帧，只由上报调度线程调用
+     */
+    void encode(List<ThreadPoolInfo> threadPools, OutputStream target) throws IOException {
+        encode(threadPools, target, System.currentTimeMillis());
+    }
+
+    /**
+     * 按指定的当前时间编码一帧，用于判断线程池是否过期
+     */
+    void encode(List<ThreadPoolInfo> threadPools, OutputStream target, long now) throws IOException {
+        if (resetRequested || hasExpiredPools(now)) {
+            resetRequested = false;
+            sessionId = sessionIds.getAsLong();
+            sequence = 0;
+            poolStates = new HashMap<>();
+        }
+
+        target.write(MAGIC);
+        target.write(VERSION);
+        target.write(gzip ? FLAG_GZIP : 0);
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(target, 4096) : null;
+        Writer out = new Writer(gzipStream != null ? gzipStream : target);
+
+        out.writeVarLong(sessionId);
+        out.writeVarLong(sequence);
+        if (sequence == 0) {
+            writeSchema(out);
+        }
+        sequence++;
+
+        out.writeVarLong(threadPools.size());
+        for (ThreadPoolInfo info : threadPools) {
+            writePool(out, info, now);
+        }
+        out.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+    }
+
+    private void writeSchema(Writer out) throws IOException {
+        out.writeVarLong(NUMERIC_FIELDS.size() + TEXT_FIELDS.size());
+        for (Field field : NUMERIC_FIELDS) {
+            out.write(field.kind);
+            out.writeString(field.name);
+        }
+        for (Field field : TEXT_FIELDS) {
+            out.write(field.kind);
+            out.writeString(field.name);
+        }
+    }
+
+    private boolean hasExpiredPools(long now) {
+        for (PoolState state : poolStates.values()) {
+            if (now - state.lastReportMillis > POOL_EXPIRE_MILLIS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writePool(Writer out, ThreadPoolInfo info, long now) throws IOException {
+        PoolState state = poolStates.get(info.getThreadPoolId());
+        boolean isNew = state == null;
+        if (isNew) {
+            state = new PoolState(poolStates.size());
+            poolStates.put(info.getThreadPoolId(), state);
+        }
+        state.lastReportMillis = now;
+        boolean withMetadata = isNew || !Objects.equals(state.name, info.getThreadPoolName());
+        state.name = info.getThreadPoolName();
+
+        out.writeVarLong(state.index);
+        out.write(withMetadata ? RECORD_WITH_METADATA : 0);
+        if (withMetadata) {
+            out.writeString(info.getThreadPoolId());
+            out.writeString(info.getThreadPoolName());
+        }
+
+        long[] values = new long[NUMERIC_FIELDS.size()];
+        byte[] bitmap = new byte[(values.length + 7) / 8];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = NUMERIC_FIELDS.get(i).readNumber(info);
+            if (values[i] != state.values[i]) {
+                bitmap[i >> 3] |= 1 << (i & 7);
+            }
+        }
+        out.write(bitmap);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != state.values[i]) {
+                out.writeVarLong(zigZag(values[i] - state.values[i]));
+            }
+        }
+        state.values = values;
+
+        String[] texts = new String[TEXT_FIELDS.size()];
+        byte[] textBitmap = new byte[(texts.length + 7) / 8];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = TEXT_FIELDS.get(i).readText(info, objectMapper);
+            if (!Objects.equals(texts[i], state.texts[i])) {
+                textBitmap[i >> 3] |= 1 << (i & 7);
+            }
+        }
+        out.write(textBitmap);
+        for (int i = 0; i < texts.length; i++) {
+            if (!Objects.equals(texts[i], state.texts[i])) {
+                out.writeString(texts[i]);
+            }
+        }
+        state.texts = texts;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * 会话内单个线程池最后一次发送的值
+     */
+    private static class PoolState {
+        final int index;
+        String name;
+        long lastReportMillis;
+        long[] values = new long[NUMERIC_FIELDS.size()];
+        String[] texts = new String[TEXT_FIELDS.size()];
+
+        PoolState(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * ThreadPoolInfo 的一个字段（按getter识别），线程池ID和名称属于元数据，不在字段表中
+     */
+    private static class Field {
+        final String name;
+        final int kind;
+        final Method getter;
+
+        private Field(String name, int kind, Method getter) {
+            this.name = name;
+            this.kind = kind;
+            this.getter = getter;
+        }
+
+        static Field of(Method method) {
+            if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())
+                    || method.getDeclaringClass() != ThreadPoolInfo.class) {
+                return null;
+            }
+            String methodName = method.getName();
+            String name;
+            if (methodName.startsWith("get") && methodName.length() > 3) {
+                name = methodName.substring(3);
+            } else if (methodName.startsWith("is") && methodName.length() > 2) {
+                name = methodName.substring(2);
+            } else {
+                return null;
+            }
+            name = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+            if ("threadPoolId".equals(name) || "threadPoolName".equals(name)) {
+                return null;
+            }
+
+            Class<?> type = method.getReturnType();
+            int kind;
+            if (type == int.class || type == long.class || type == short.class || type == byte.class) {
+                kind = KIND_LONG;
+            } else if (type == double.class || type == float.class) {
+                kind = KIND_DOUBLE;
+            } else if (type == boolean.class) {
+                kind = KIND_BOOLEAN;
+            } else if (type == String.class) {
+                kind = KIND_STRING;
+            } else {
+                kind = KIND_JSON;
+            }
+            return new Field(name, kind, method);
+        }
+
+        boolean isNumeric() {
+            return kind == KIND_LONG || kind == KIND_DOUBLE || kind == KIND_BOOLEAN;
+        }
+
+        long readNumber(ThreadPoolInfo info) {
+            Object value = invoke(info);
+            if (kind == KIND_BOOLEAN) {
+                return Boolean.TRUE.equals(value) ? 1 : 0;
+            }
+            if (kind == KIND_DOUBLE) {
+                return Math.round(((Number) value).doubleValue() * DOUBLE_SCALE);
+            }
+            return ((Number) value).longValue();
+        }
+
+        String readText(ThreadPoolInfo info, ObjectMapper objectMapper) throws IOException {
+            Object value = invoke(info);
+            if (value == null) {
+                return null;
+            }
+            return kind == KIND_STRING ? (String) value : objectMapper.writeValueAsString(value);
+        }
+
+        private Object invoke(ThreadPoolInfo info) {
+            try {
+                return getter.invoke(info);
+            } catch (Exception e) {
+                throw new IllegalStateException("读取字段失败: " + name, e);
+            }
+        }
+    }
+
+    /**
+     * varint/字符串写入
+     */
+    private static class Writer {
+        private final OutputStream out;
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+        }
+
+        void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        /**
+         * 长度+1后写入，0表示null
+         */
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            out.write(bytes);
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
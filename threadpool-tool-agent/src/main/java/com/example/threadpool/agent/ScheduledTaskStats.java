@@ -0,0 +1,111 @@
+package com.example.threadpool.agent;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Future;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScheduledThreadPoolExecutor 的定时任务统计
+ * - 开始延迟：任务开始执行时距预定执行时间已过去多久（取自 Delayed.getDelay，开始执行前为负值即迟到）
+ * - 周期漂移：周期任务相邻两次开始执行的间隔超出period的部分。fixedRate任务持续为正说明执行跟不上周期，
+ *   fixedDelay任务约等于上一次的执行耗时加开始延迟，即节奏相对于固定周期的滑动
+ * - 延迟队列按到期时间分桶的任务数，上报时复制一次队列（短暂持有队列锁）
+ */
+class ScheduledTaskStats {
+
+    /**
+     * 到期时间分桶的上界（毫秒）及名称，最后一个桶没有上界
+     */
+    private static final long[] BUCKET_BOUNDS = { 0, 1_000, 10_000, 60_000, 600_000 };
+    private static final String[] BUCKET_NAMES = { "overdue", "1s", "10s", "1m", "10m", "later" };
+
+    final LogLinearHistogram latenessHistogram = new LogLinearHistogram();
+    final LogLinearHistogram driftHistogram = new LogLinearHistogram();
+
+    /**
+     * 周期任务上一次开始执行的时间，任务被取消并回收后自动移除
+     */
+    private final Map<Object, Long> lastStarts = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * 定时任务开始执行（工作线程中，执行前）
+     */
+    void onStart(Runnable task, long now) {
+        if (!(task instanceof RunnableScheduledFuture)) {
+            return;
+        }
+        RunnableScheduledFuture<?> future = (RunnableScheduledFuture<?>) task;
+        latenessHistogram.record(-future.getDelay(TimeUnit.NANOSECONDS));
+        if (!future.isPeriodic()) {
+            return;
+        }
+        Long lastStart = lastStarts.put(future, now);
+        long period = Period.of(future);
+        if (lastStart != null && period > 0) {
+            driftHistogram.record(now - lastStart - period);
+        }
+    }
+
+    /**
+     * 延迟队列中未取消的任务按到期时间分桶计数，只由上报线程调用
+     */
+    static Map<String, Long> queueBuckets(ScheduledThreadPoolExecutor threadPool) {
+        long[] counts = new long[BUCKET_NAMES.length];
+        for (Object queued : threadPool.getQueue().toArray()) {
+            if (!(queued instanceof Delayed) || queued instanceof Future && ((Future<?>) queued).isDone()) {
+                continue;
+            }
+            long delayMillis = ((Delayed) queued).getDelay(TimeUnit.MILLISECONDS);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS.length && delayMillis > BUCKET_BOUNDS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKET_NAMES.length; i++) {
+            buckets.put(BUCKET_NAMES[i], counts[i]);
+        }
+        return buckets;
+    }
+
+    /**
+     * 反射读取ScheduledFutureTask的周期（纳秒，fixedRate为正、fixedDelay为负），首次使用时才初始化
+     * （JDK9+ 须在 SpyInstaller 开放java.util.concurrent包之后）
+     */
+    private static final class Period {
+        private static final Field PERIOD = findField();
+
+        private static Field findField() {
+            try {
+                Field field = Class.forName("java.util.concurrent.ScheduledThreadPoolExecutor$ScheduledFutureTask")
+                        .getDeclaredField("period");
+                field.setAccessible(true);
+                return field;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        /**
+         * 周期的绝对值，无法读取（如decorateTask返回的自定义任务）时返回0
+         */
+        static long of(RunnableScheduledFuture<?> task) {
+            if (PERIOD == null || PERIOD.getDeclaringClass() != task.getClass()) {
+                return 0;
+            }
+            try {
+                return Math.abs(PERIOD.getLong(task));
+            } catch (IllegalAccessException e) {
+                return 0;
+            }
+        }
+    }
+}
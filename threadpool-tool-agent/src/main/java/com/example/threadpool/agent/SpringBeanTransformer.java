@@ -53,8 +53,11 @@ public class SpringBeanTransformer implements ClassFileTransformer {
         method.insertAfter(
             "if ($2 != null && $2 instanceof java.util.concurrent.ThreadPoolExecutor) {" +
             "   com.example.threadpool.agent.ThreadPoolMonitor.registerThreadPool(" +
-            "       (java.util.concurrent.ThreadPoolExecutor) $2);" +
+            "       (java.util.concurrent.ThreadPoolExecutor) $2, $1);" +
             "   System.out.println(\"[Agent] 监控到线程池Bean: \" + $1 + \", 实例: \" + $2);" +
+            "} else if ($2 instanceof java.util.concurrent.ForkJoinPool) {" +
+            "   com.example.threadpool.agent.ThreadPoolMonitor.registerForkJoinPool(" +
+            "       (java.util.concurrent.ForkJoinPool) $2);" +
             "}"
         );
     }
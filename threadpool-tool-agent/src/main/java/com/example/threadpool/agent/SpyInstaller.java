@@ -0,0 +1,109 @@
+package com.example.threadpool.agent;
+
+import com.example.threadpool.agent.spy.ThreadPoolSpy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+/**
+ * 安装线程池埋点
+ * 1. 把spy包中的类打成临时jar追加到Bootstrap ClassLoader，使JDK类可以调用
+ * 2. JDK9+ 下让java.base模块可读spy所在模块，并向Agent开放java.util.concurrent包（反射读取内部状态）
+ * 3. 注册回调并retransform ThreadPoolExecutor和ForkJoinPool
+ */
+class SpyInstaller {
+
+    /**
+     * 需要放入Bootstrap ClassLoader的类，必须在追加前未被加载（本类不能在签名中直接引用它们）
+     */
+    private static final String[] SPY_CLASSES = {
+            "com/example/threadpool/agent/spy/ThreadPoolSpy.class",
+            "com/example/threadpool/agent/spy/ThreadPoolSpy$Listener.class"
+    };
+
+    private static volatile boolean installed;
+
+    static synchronized void install(Instrumentation inst) {
+        if (installed) {
+            return;
+        }
+        try {
+            appendSpyToBootstrap(inst);
+            openJavaBase(inst);
+            ThreadPoolTaskHooks.register();
+            inst.addTransformer(new ThreadPoolExecutorTransformer(), true);
+            inst.retransformClasses(ThreadPoolExecutor.class);
+            inst.addTransformer(new ForkJoinPoolTransformer(), true);
+            inst.retransformClasses(ForkJoinPool.class);
+            installed = true;
+            System.out.println("[ThreadPoolAgent] 已增强 ThreadPoolExecutor");
+        } catch (Throwable e) {
+            System.err.println("[ThreadPoolAgent] 安装线程池埋点失败: " + e);
+        }
+    }
+
+    private static void appendSpyToBootstrap(Instrumentation inst) throws Exception {
+        File jar = File.createTempFile("threadpool-agent-spy", ".jar");
+        jar.deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (String entry : SPY_CLASSES) {
+                out.putNextEntry(new JarEntry(entry));
+                out.write(readResource(entry));
+                out.closeEntry();
+            }
+        }
+        inst.appendToBootstrapClassLoaderSearch(new JarFile(jar));
+    }
+
+    private static byte[] readResource(String name) throws Exception {
+        try (InputStream is = SpyInstaller.class.getClassLoader().getResourceAsStream(name)) {
+            if (is == null) {
+                throw new IllegalStateException("找不到类文件: " + name);
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] data = new byte[1024];
+            int nRead;
+            while ((nRead = is.read(data, 0, data.length)) != -1) {
+                buffer.write(data, 0, nRead);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * 通过反射调用 Instrumentation.redefineModule，兼容Java 8编译目标
+     */
+    private static void openJavaBase(Instrumentation inst) throws Exception {
+        Method getModule;
+        try {
+            getModule = Class.class.getMethod("getModule");
+        } catch (NoSuchMethodException e) {
+            return; // Java 8 没有模块系统
+        }
+        Object javaBase = getModule.invoke(ThreadPoolExecutor.class);
+        Object spyModule = getModule.invoke(ThreadPoolSpy.class);
+        Object agentModule = getModule.invoke(SpyInstaller.class);
+
+        Class<?> moduleClass = Class.forName("java.lang.Module");
+        Method redefineModule = Instrumentation.class.getMethod("redefineModule",
+                moduleClass, Set.class, Map.class, Map.class, Set.class, Map.class);
+        redefineModule.invoke(inst, javaBase,
+                Collections.singleton(spyModule),
+                Collections.emptyMap(),
+                Collections.singletonMap("java.util.concurrent", Collections.singleton(agentModule)),
+                Collections.emptySet(),
+                Collections.emptyMap());
+    }
+}
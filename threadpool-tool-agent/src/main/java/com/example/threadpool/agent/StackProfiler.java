@@ -0,0 +1,304 @@
+package com.example.threadpool.agent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 按需对单个线程池的工作线程做栈采样，用于查看队列堆积时工作线程在做什么
+ * 每个采样周期用一次 ThreadMXBean.getThreadInfo(long[], maxDepth) 批量获取该线程池所有工作线程的栈，
+ * 从栈底到栈顶逐帧插入前缀树（相同调用路径共享节点），内存只随不同调用路径的数量增长，与采样次数无关；
+ * 结果输出为折叠栈格式（每行“栈帧;栈帧;... 次数”），可直接用flamegraph.pl、speedscope等工具生成火焰图
+ *
+ * 开销控制：同一时刻只允许一个采样任务；采样间隔不小于10ms、时长不超过60秒、栈深度不超过128帧、树节点数有上限；
+ * 采样线程统计每次采样消耗的CPU时间（不支持时用经过时间），平均值超过采样间隔的1%时把间隔加倍，保证采样线程占用不超过1%的CPU
+ * 在getTask中等待任务的空闲工作线程只计数，不进入火焰图
+ */
+class StackProfiler {
+
+    static final long DEFAULT_DURATION_MILLIS = 10_000;
+    static final long MAX_DURATION_MILLIS = 60_000;
+    static final long DEFAULT_INTERVAL_MILLIS = 20;
+    static final long MIN_INTERVAL_MILLIS = 10;
+    private static final long MAX_INTERVAL_MILLIS = 1000;
+
+    private static final int MAX_STACK_DEPTH = 128;
+    private static final int MAX_NODES = 10_000;
+
+    /**
+     * 每次采样消耗的CPU时间占采样间隔的上限
+     */
+    private static final double OVERHEAD_BUDGET = 0.01;
+
+    /**
+     * 至少采样这么多次后才按平均耗时调整间隔，避免首次采样的类加载、编译耗时造成误判
+     */
+    private static final int OVERHEAD_CHECK_MIN_SAMPLES = 5;
+
+    /**
+     * 栈被截断或节点数超限时代替剩余栈帧的标记
+     */
+    private static final String TRUNCATED_FRAME = "[truncated]";
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+    private static final String THREAD_POOL_EXECUTOR_CLASS = ThreadPoolExecutor.class.getName();
+
+    /**
+     * 正在运行或最近一次完成的采样任务
+     */
+    private static volatile StackProfiler current;
+
+    private final String poolId;
+    private final ThreadPoolMetrics metrics;
+    private final long durationMillis;
+    private final ThreadPoolReporter reporter;
+    private final long startTime = System.currentTimeMillis();
+
+    private final Node root = new Node();
+    private final Map<StackTraceElement, String> frameNames = new HashMap<>();
+    private int nodeCount;
+    private long sampleCount;
+    private long idleCount;
+
+    private volatile long intervalMillis;
+    private volatile boolean stopped;
+    private volatile boolean finished;
+    private volatile long endTime;
+
+    private StackProfiler(String poolId, ThreadPoolMetrics metrics, long durationMillis, long intervalMillis,
+                          ThreadPoolReporter reporter) {
+        this.poolId = poolId;
+        this.metrics = metrics;
+        this.durationMillis = durationMillis;
+        this.intervalMillis = intervalMillis;
+        this.reporter = reporter;
+    }
+
+    /**
+     * 开始采样，时长和间隔超出上下限时取边界值
+     *
+     * @param reporter 采样结束后用于发送结果，可以为null
+     * @return 新的采样任务，已有采样任务在运行时返回null
+     */
+    static synchronized StackProfiler start(String poolId, ThreadPoolMetrics metrics, long durationMillis,
+                                            long intervalMillis, ThreadPoolReporter reporter) {
+        StackProfiler running = current;
+        if (running != null && !running.finished) {
+            return null;
+        }
+        long duration = Math.min(durationMillis > 0 ? durationMillis : DEFAULT_DURATION_MILLIS, MAX_DURATION_MILLIS);
+        long interval = Math.min(Math.max(intervalMillis > 0 ? intervalMillis : DEFAULT_INTERVAL_MILLIS,
+                MIN_INTERVAL_MILLIS), MAX_INTERVAL_MILLIS);
+        StackProfiler profiler = new StackProfiler(poolId, metrics, duration, interval, reporter);
+        current = profiler;
+
+        Thread thread = new Thread(profiler::run, "ThreadPool-Profiler");
+        thread.setDaemon(true);
+        thread.start();
+        ThreadPoolEvents.record(poolId, "PROFILE", "开始工作线程栈采样，时长" + duration + "ms，间隔" + interval + "ms");
+        return profiler;
+    }
+
+    /**
+     * 指定线程池正在运行或最近一次完成的采样任务，没有时返回null
+     */
+    static StackProfiler find(String poolId) {
+        StackProfiler profiler = current;
+        return profiler != null && profiler.poolId.equals(poolId) ? profiler : null;
+    }
+
+    /**
+     * 提前结束采样，已采到的结果照常发送
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    long getDurationMillis() {
+        return durationMillis;
+    }
+
+    long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    private void run() {
+        long deadline = System.nanoTime() + durationMillis * 1_000_000L;
+        long sampleNanos = 0;
+        int samples = 0;
+        try {
+            while (!stopped && System.nanoTime() < deadline) {
+                long begin = costNanos();
+                sample();
+                sampleNanos += costNanos() - begin;
+                samples++;
+
+                long interval = intervalMillis;
+                if (samples >= OVERHEAD_CHECK_MIN_SAMPLES && interval < MAX_INTERVAL_MILLIS
+                        && sampleNanos / samples > interval * 1_000_000L * OVERHEAD_BUDGET) {
+                    intervalMillis = Math.min(interval * 2, MAX_INTERVAL_MILLIS);
+                    // 按新的间隔重新统计
+                    sampleNanos = 0;
+                    samples = 0;
+                }
+                Thread.sleep(intervalMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            System.err.println("[ThreadPoolAgent] 线程池" + poolId + "栈采样失败: " + e);
+        } finally {
+            endTime = System.currentTimeMillis();
+            finished = true;
+            complete();
+        }
+    }
+
+    /**
+     * 采样线程已消耗的CPU时间，经过时间会把采样线程被调度走、等待安全点的时间也算进去
+     */
+    private static long costNanos() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private void sample() {
+        long[] ids = ThreadCpuAccounting.toArray(metrics);
+        if (ids.length == 0) {
+            return;
+        }
+        ThreadInfo[] infos = THREAD_MX_BEAN.getThreadInfo(ids, MAX_STACK_DEPTH);
+        synchronized (this) {
+            for (ThreadInfo info : infos) {
+                // 已退出的线程为null
+                if (info != null) {
+                    fold(info);
+                }
+            }
+        }
+    }
+
+    /**
+     * 把一个线程栈从栈底到栈顶插入前缀树，栈顶之后追加线程状态作为叶子
+     */
+    private void fold(ThreadInfo info) {
+        StackTraceElement[] frames = info.getStackTrace();
+        if (isIdle(frames)) {
+            idleCount++;
+            return;
+        }
+        sampleCount++;
+        Node node = root;
+        if (frames.length == MAX_STACK_DEPTH) {
+            // 只取到了栈顶的部分，栈底缺失
+            node = child(node, TRUNCATED_FRAME);
+        }
+        for (int i = frames.length - 1; i >= 0; i--) {
+            if (nodeCount >= MAX_NODES && !node.children.containsKey(frameName(frames[i]))) {
+                node = node.children.computeIfAbsent(TRUNCATED_FRAME, key -> new Node());
+                break;
+            }
+            node = child(node, frameName(frames[i]));
+        }
+        Node state = node.children.computeIfAbsent("[" + info.getThreadState() + "]", key -> new Node());
+        state.count++;
+    }
+
+    private Node child(Node parent, String name) {
+        Node node = parent.children.get(name);
+        if (node == null) {
+            node = new Node();
+            parent.children.put(name, node);
+            nodeCount++;
+        }
+        return node;
+    }
+
+    private String frameName(StackTraceElement frame) {
+        String name = frameNames.get(frame);
+        if (name == null) {
+            String className = frame.getClassName();
+            // lambda等隐藏类的类名带有每次运行都不同的地址后缀（如 Foo$$Lambda$84/0x0000000800c4b000），去掉后才能和其他采样对比
+            int hidden = className.indexOf('/');
+            name = (hidden > 0 ? className.substring(0, hidden) : className) + "." + frame.getMethodName();
+            frameNames.put(frame, name);
+        }
+        return name;
+    }
+
+    /**
+     * 工作线程是否在getTask中等待任务，getTask紧挨runWorker，只需检查栈底的几帧
+     */
+    private static boolean isIdle(StackTraceElement[] frames) {
+        for (int i = frames.length - 1; i >= 0 && i >= frames.length - 8; i--) {
+            StackTraceElement frame = frames[i];
+            if ("getTask".equals(frame.getMethodName()) && THREAD_POOL_EXECUTOR_CLASS.equals(frame.getClassName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 输出折叠栈格式，采样进行中也可以调用
+     */
+    synchronized String toCollapsed() {
+        StringBuilder out = new StringBuilder();
+        StringBuilder path = new StringBuilder();
+        for (Map.Entry<String, Node> entry : root.children.entrySet()) {
+            appendCollapsed(entry.getKey(), entry.getValue(), path, out);
+        }
+        return out.toString();
+    }
+
+    private static void appendCollapsed(String name, Node node, StringBuilder path, StringBuilder out) {
+        int length = path.length();
+        if (length > 0) {
+            path.append(';');
+        }
+        path.append(name);
+        if (node.count > 0) {
+            out.append(path).append(' ').append(node.count).append('\n');
+        }
+        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
+            appendCollapsed(entry.getKey(), entry.getValue(), path, out);
+        }
+        path.setLength(length);
+    }
+
+    synchronized ThreadPoolProfile toProfile() {
+        ThreadPoolProfile profile = new ThreadPoolProfile();
+        profile.setThreadPoolId(poolId);
+        profile.setStartTime(startTime);
+        profile.setDurationMillis((finished ? endTime : System.currentTimeMillis()) - startTime);
+        profile.setIntervalMillis(intervalMillis);
+        profile.setSampleCount(sampleCount);
+        profile.setIdleCount(idleCount);
+        profile.setCollapsed(toCollapsed());
+        return profile;
+    }
+
+    private void complete() {
+        ThreadPoolProfile profile = toProfile();
+        ThreadPoolEvents.record(poolId, "PROFILE", "工作线程栈采样结束，采到" + profile.getSampleCount()
+                + "个栈，空闲" + profile.getIdleCount() + "次，实际间隔" + profile.getIntervalMillis() + "ms");
+        if (reporter != null) {
+            reporter.postJson(ThreadPoolReporter.Stream.PROFILES, reporter.resolve("/profiles"), profile, "上报线程池" + poolId + "的栈采样结果");
+        }
+    }
+
+    /**
+     * 前缀树节点，count为以该节点为栈顶的采样次数
+     */
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        long count;
+    }
+}
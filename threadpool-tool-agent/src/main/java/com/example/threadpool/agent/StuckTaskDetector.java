@@ -0,0 +1,261 @@
+package com.example.threadpool.agent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 长时间运行/卡住的任务检测
+ * 后台线程每秒扫描各线程池的 WorkerSlots，运行时间超过阈值（Agent参数 stuckThreshold，默认60秒，可按线程池覆盖）的任务
+ * 标记为卡住，第一次标记时获取一次工作线程栈并上报 STUCK_TASK 事件；同一任务之后的扫描只更新运行时间
+ * 标记的任务可以通过修改接口中断（Thread.interrupt，任务是否响应取决于业务代码）
+ */
+class StuckTaskDetector {
+
+    static final int DEFAULT_THRESHOLD_MILLIS = 60_000;
+    static final String EVENT_TYPE = "STUCK_TASK";
+
+    private static final long SCAN_INTERVAL_MILLIS = 1000;
+    static final int MAX_STACK_DEPTH = 32;
+
+    /**
+     * 每个线程池上报的卡住任务明细数上限，按运行时间从长到短
+     */
+    private static final int MAX_REPORTED = 10;
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final BiConsumer<ThreadPoolExecutor, ThreadPoolMetrics> SCAN = (threadPool, metrics) -> scan(metrics);
+
+    private static volatile int thresholdMillis = DEFAULT_THRESHOLD_MILLIS;
+    private static ScheduledExecutorService executor;
+
+    private StuckTaskDetector() {
+    }
+
+    /**
+     * 设置默认阈值（毫秒），0表示不检测（工作线程也不再记录开始时间）
+     */
+    static void setThresholdMillis(int millis) {
+        thresholdMillis = Math.max(0, millis);
+    }
+
+    static boolean isEnabled() {
+        return thresholdMillis > 0;
+    }
+
+    /**
+     * 启动后台扫描线程，未启用时不启动
+     */
+    static synchronized void start() {
+        if (!isEnabled() || executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ThreadPool-StuckTaskDetector");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(StuckTaskDetector::scanAll, SCAN_INTERVAL_MILLIS, SCAN_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 校验单个线程池的阈值
+     *
+     * @throws IllegalArgumentException Agent未启用检测或阈值为负数
+     */
+    static void validatePoolThreshold(long millis) {
+        if (!isEnabled()) {
+            throw new IllegalArgumentException("Agent未启用卡住任务检测（stuckThreshold=0）");
+        }
+        if (millis < 0) {
+            throw new IllegalArgumentException("stuckTaskThresholdMillis不能为负数");
+        }
+    }
+
+    /**
+     * 设置单个线程池的阈值，0恢复默认值
+     *
+     * @throws IllegalArgumentException Agent未启用检测或阈值为负数
+     */
+    static void setPoolThreshold(ThreadPoolMetrics metrics, long millis) {
+        validatePoolThreshold(millis);
+        metrics.stuckTasks.thresholdMillis = millis;
+        ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "卡住任务阈值设置为"
+                + (millis > 0 ? millis : thresholdMillis) + "ms");
+    }
+
+    private static void scanAll() {
+        try {
+            ThreadPoolMonitor.forEachPool(SCAN);
+            PoolDeadlockDetector.scan();
+        } catch (Throwable t) {
+            System.err.println("ThreadPoolTool: 卡住任务扫描失败: " + t);
+        }
+    }
+
+    /**
+     * 扫描单个线程池，只由扫描线程调用
+     */
+    static void scan(ThreadPoolMetrics metrics) {
+        State state = metrics.stuckTasks;
+        long threshold = state.thresholdMillis > 0 ? state.thresholdMillis : thresholdMillis;
+        long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(threshold);
+        long now = System.nanoTime();
+
+        Map<Thread, StuckTask> previous = state.flagged;
+        Map<Thread, StuckTask> current = new HashMap<>();
+        List<StuckTask> newlyFlagged = new ArrayList<>();
+        for (WorkerSlots.Chunk chunk : metrics.workerSlots.chunks()) {
+            for (int i = 0; i < WorkerSlots.CHUNK_SIZE; i++) {
+                long startNanos = chunk.startNanos.get(i);
+                if (startNanos == 0 || now - startNanos < thresholdNanos) {
+                    continue;
+                }
+                Thread thread = chunk.threads.get(i);
+                Runnable task = chunk.tasks.get(i);
+                if (thread == null || task == null) {
+                    continue;
+                }
+                StuckTask stuck = previous.get(thread);
+                if (stuck == null || stuck.startNanos != startNanos) {
+                    stuck = new StuckTask(thread, chunk, i, startNanos, TaskTypeStats.typeOf(task));
+                    newlyFlagged.add(stuck);
+                }
+                current.put(thread, stuck);
+            }
+        }
+        if (!newlyFlagged.isEmpty()) {
+            captureStacks(newlyFlagged);
+            for (StuckTask stuck : newlyFlagged) {
+                ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "任务" + stuck.taskType + "在线程"
+                        + stuck.thread.getName() + "上已运行" + TimeUnit.NANOSECONDS.toMillis(now - stuck.startNanos)
+                        + "ms，超过阈值" + threshold + "ms");
+            }
+            state.flaggedTotal += newlyFlagged.size();
+        }
+        state.flagged = current.isEmpty() ? Collections.emptyMap() : current;
+    }
+
+    private static void captureStacks(List<StuckTask> tasks) {
+        long[] ids = new long[tasks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = tasks.get(i).thread.getId();
+        }
+        ThreadInfo[] infos = THREAD_MX_BEAN.getThreadInfo(ids, MAX_STACK_DEPTH);
+        for (int i = 0; i < ids.length; i++) {
+            ThreadInfo info = infos[i];
+            if (info == null) {
+                continue;
+            }
+            tasks.get(i).threadState = info.getThreadState().name();
+            tasks.get(i).stackTrace = formatStack(info);
+        }
+    }
+
+    static String formatStack(ThreadInfo info) {
+        StringBuilder stack = new StringBuilder();
+        for (StackTraceElement frame : info.getStackTrace()) {
+            stack.append("at ").append(frame).append('\n');
+        }
+        return stack.toString();
+    }
+
+    /**
+     * 中断当前标记为卡住且仍在运行同一任务的工作线程
+     *
+     * @return 中断的线程数
+     */
+    static int interrupt(ThreadPoolMetrics metrics) {
+        int interrupted = 0;
+        for (StuckTask stuck : metrics.stuckTasks.flagged.values()) {
+            if (stuck.chunk.startNanos.get(stuck.index) != stuck.startNanos) {
+                continue;
+            }
+            stuck.thread.interrupt();
+            interrupted++;
+            ThreadPoolEvents.record(metrics.getPoolId(), EVENT_TYPE, "已中断线程" + stuck.thread.getName()
+                    + "上运行的任务" + stuck.taskType);
+        }
+        return interrupted;
+    }
+
+    /**
+     * 上报当前卡住的任务
+     */
+    static void fill(ThreadPoolInfo info, ThreadPoolMetrics metrics) {
+        State state = metrics.stuckTasks;
+        Map<Thread, StuckTask> flagged = state.flagged;
+        info.setStuckTaskCount(flagged.size());
+        info.setStuckTaskTotal(state.flaggedTotal);
+        if (flagged.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<StuckTask> sorted = new ArrayList<>(flagged.values());
+        sorted.sort(Comparator.comparingLong(stuck -> stuck.startNanos));
+        List<StuckTaskInfo> details = new ArrayList<>(Math.min(sorted.size(), MAX_REPORTED));
+        for (StuckTask stuck : sorted.subList(0, Math.min(sorted.size(), MAX_REPORTED))) {
+            StuckTaskInfo detail = new StuckTaskInfo();
+            detail.setThreadName(stuck.thread.getName());
+            detail.setThreadState(stuck.threadState);
+            detail.setTaskType(stuck.taskType);
+            detail.setRunningMillis(TimeUnit.NANOSECONDS.toMillis(now - stuck.startNanos));
+            detail.setStackTrace(stuck.stackTrace);
+            details.add(detail);
+        }
+        info.setStuckTasks(details);
+    }
+
+    /**
+     * 单个线程池的检测状态
+     */
+    static class State {
+        /**
+         * 线程池单独设置的阈值（毫秒），0表示使用默认值
+         */
+        volatile long thresholdMillis;
+
+        /**
+         * 最近一次扫描标记的任务，扫描线程整体替换
+         */
+        volatile Map<Thread, StuckTask> flagged = Collections.emptyMap();
+
+        /**
+         * 累计标记的任务数，只由扫描线程写入
+         */
+        volatile long flaggedTotal;
+    }
+
+    /**
+     * 一个被标记的任务，栈只在第一次标记时获取
+     */
+    private static final class StuckTask {
+        final Thread thread;
+        final WorkerSlots.Chunk chunk;
+        final int index;
+        final long startNanos;
+        final String taskType;
+        String threadState;
+        String stackTrace;
+
+        StuckTask(Thread thread, WorkerSlots.Chunk chunk, int index, long startNanos, String taskType) {
+            this.thread = thread;
+            this.chunk = chunk;
+            this.index = index;
+            this.startNanos = startNanos;
+            this.taskType = taskType;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.threadpool.agent;
+
+import java.io.Serializable;
+
+/**
+ * 运行时间超过阈值的任务，见 StuckTaskDetector
+ */
+public class StuckTaskInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 工作线程名称
+     */
+    private String threadName;
+
+    /**
+     * 第一次标记时的线程状态
+     */
+    private String threadState;
+
+    /**
+     * 任务类型（任务类名，FutureTask等包装会被展开）
+     */
+    private String taskType;
+
+    /**
+     * 已运行时间（毫秒）
+     */
+    private long runningMillis;
+
+    /**
+     * 第一次标记时的工作线程栈（最多32帧）
+     */
+    private String stackTrace;
+
+    // Getters and Setters
+
+    public String getThreadName() {
+        return threadName;
+    }
+
+    public void setThreadName(String threadName) {
+        this.threadName = threadName;
+    }
+
+    public String getThreadState() {
+        return threadState;
+    }
+
+    public void setThreadState(String threadState) {
+        this.threadState = threadState;
+    }
+
+    public String getTaskType() {
+        return taskType;
+    }
+
+    public void setTaskType(String taskType) {
+        this.taskType = taskType;
+    }
+
+    public long getRunningMillis() {
+        return runningMillis;
+    }
+
+    public void setRunningMillis(long runningMillis) {
+        this.runningMillis = runningMillis;
+    }
+
+    public String getStackTrace() {
+        return stackTrace;
+    }
+
+    public void setStackTrace(String stackTrace) {
+        this.stackTrace = stackTrace;
+    }
+}
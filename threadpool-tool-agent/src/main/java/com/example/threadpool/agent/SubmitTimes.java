@@ -0,0 +1,109 @@
+package com.example.threadpool.agent;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 未包装任务的提交时间，见 ThreadPoolMetrics.submitTimes
+ * 按实例（identityHashCode + ==）查找，相等（equals）的不同任务各自记录；弱引用任务，被remove/purge移出队列的任务不会残留。
+ * 按identityHashCode分段加锁，提交和开始执行只锁住一个分段，不同线程的操作大多落在不同分段上
+ */
+class SubmitTimes {
+
+    /**
+     * 没有记录时 remove 的返回值
+     */
+    static final long NONE = Long.MIN_VALUE;
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    SubmitTimes() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    void put(Runnable task, long submitNanos) {
+        int hash = System.identityHashCode(task);
+        stripeOf(hash).put(new Key(task, hash, null), submitNanos);
+    }
+
+    /**
+     * 取出并删除任务的提交时间，没有记录时返回 NONE
+     */
+    long remove(Runnable task) {
+        int hash = System.identityHashCode(task);
+        return stripeOf(hash).remove(new Key(task, hash, null));
+    }
+
+    boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (!stripe.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Stripe stripeOf(int hash) {
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * 弱引用任务的键，查找时用不入队的临时键
+     */
+    private static final class Key extends WeakReference<Runnable> {
+        private final int hash;
+
+        Key(Runnable task, int hash, ReferenceQueue<Runnable> queue) {
+            super(task, queue);
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Runnable task = get();
+            return task != null && task == ((Key) other).get();
+        }
+    }
+
+    /**
+     * 一个分段，写入时顺带清理已被回收的任务
+     */
+    private static final class Stripe {
+        private final ReferenceQueue<Runnable> collected = new ReferenceQueue<>();
+        private final Map<Key, Long> times = new HashMap<>();
+
+        synchronized void put(Key lookup, long submitNanos) {
+            Key stale;
+            while ((stale = (Key) collected.poll()) != null) {
+                times.remove(stale);
+            }
+            times.put(new Key(lookup.get(), lookup.hash, collected), submitNanos);
+        }
+
+        synchronized long remove(Key lookup) {
+            Long submitNanos = times.remove(lookup);
+            return submitNanos != null ? submitNanos : NONE;
+        }
+
+        synchronized boolean isEmpty() {
+            return times.isEmpty();
+        }
+    }
+}
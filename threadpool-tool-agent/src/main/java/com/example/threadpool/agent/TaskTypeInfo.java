@@ -0,0 +1,182 @@
+package com.example.threadpool.agent;
+
+import java.io.Serializable;
+
+/**
+ * 线程池中某一类任务在一个上报周期内的统计，见 TaskTypeStats
+ */
+public class TaskTypeInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 任务类型（任务类名，FutureTask等包装会被展开）
+     */
+    private String taskType;
+
+    /**
+     * 本周期完成的任务数
+     */
+    private long completedCount;
+
+    /**
+     * 本周期失败的任务数
+     */
+    private long failedCount;
+
+    /**
+     * 本周期完成速率（每秒）
+     */
+    private double completeRate;
+
+    /**
+     * 本周期执行耗时合计（毫秒）
+     */
+    private double executionTimeTotal;
+
+    /**
+     * 本周期平均占用的线程数（执行耗时合计/周期时长）
+     */
+    private double busyThreads;
+
+    /**
+     * 占该线程池本周期执行耗时合计的百分比
+     */
+    private double busyPercent;
+
+    /**
+     * 排队等待时间P50（毫秒）
+     */
+    private double queueWaitTimeP50;
+
+    /**
+     * 排队等待时间P99（毫秒）
+     */
+    private double queueWaitTimeP99;
+
+    /**
+     * 排队等待时间最大值（毫秒）
+     */
+    private double queueWaitTimeMax;
+
+    /**
+     * 执行时间P50（毫秒）
+     */
+    private double executionTimeP50;
+
+    /**
+     * 执行时间P99（毫秒）
+     */
+    private double executionTimeP99;
+
+    /**
+     * 执行时间最大值（毫秒）
+     */
+    private double executionTimeMax;
+
+    // Getters and Setters
+
+    public String getTaskType() {
+        return taskType;
+    }
+
+    public void setTaskType(String taskType) {
+        this.taskType = taskType;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public void setFailedCount(long failedCount) {
+        this.failedCount = failedCount;
+    }
+
+    public double getCompleteRate() {
+        return completeRate;
+    }
+
+    public void setCompleteRate(double completeRate) {
+        this.completeRate = completeRate;
+    }
+
+    public double getExecutionTimeTotal() {
+        return executionTimeTotal;
+    }
+
+    public void setExecutionTimeTotal(double executionTimeTotal) {
+        this.executionTimeTotal = executionTimeTotal;
+    }
+
+    public double getBusyThreads() {
+        return busyThreads;
+    }
+
+    public void setBusyThreads(double busyThreads) {
+        this.busyThreads = busyThreads;
+    }
+
+    public double getBusyPercent() {
+        return busyPercent;
+    }
+
+    public void setBusyPercent(double busyPercent) {
+        this.busyPercent = busyPercent;
+    }
+
+    public double getQueueWaitTimeP50() {
+        return queueWaitTimeP50;
+    }
+
+    public void setQueueWaitTimeP50(double queueWaitTimeP50) {
+        this.queueWaitTimeP50 = queueWaitTimeP50;
+    }
+
+    public double getQueueWaitTimeP99() {
+        return queueWaitTimeP99;
+    }
+
+    public void setQueueWaitTimeP99(double queueWaitTimeP99) {
+        this.queueWaitTimeP99 = queueWaitTimeP99;
+    }
+
+    public double getQueueWaitTimeMax() {
+        return queueWaitTimeMax;
+    }
+
+    public void setQueueWaitTimeMax(double queueWaitTimeMax) {
+        this.queueWaitTimeMax = queueWaitTimeMax;
+    }
+
+    public double getExecutionTimeP50() {
+        return executionTimeP50;
+    }
+
+    public void setExecutionTimeP50(double executionTimeP50) {
+        this.executionTimeP50 = executionTimeP50;
+    }
+
+    public double getExecutionTimeP99() {
+        return executionTimeP99;
+    }
+
+    public void setExecutionTimeP99(double executionTimeP99) {
+        this.executionTimeP99 = executionTimeP99;
+    }
+
+    public double getExecutionTimeMax() {
+        return executionTimeMax;
+    }
+
+    public void setExecutionTimeMax(double executionTimeMax) {
+        this.executionTimeMax = executionTimeMax;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.threadpool.agent;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按任务类型（任务类名）统计单个线程池的完成数、失败数、排队/执行耗时，用于找出占用线程池容量的任务类型
+ * 任务类型在开始执行时解析：FutureTask取其callable，Executors.callable/submit(Runnable)的适配器取原始Runnable，
+ * CompletableFuture的异步任务取其函数；lambda等隐藏类去掉每次运行都不同的地址后缀
+ *
+ * 类型数有上限（Agent参数 taskTypes，默认20）：表满后出现的新类型计入 [other]，记录端只做一次ConcurrentHashMap查找；
+ * 每个上报周期 [other] 有任务时，由上报线程淘汰本周期没有任务的类型和执行耗时最少的类型，腾出位置给新类型，
+ * 使表中保留的是执行耗时最多的类型（淘汰时正在写入的少量数据会丢失）
+ */
+class TaskTypeStats {
+
+    static final int DEFAULT_LIMIT = 20;
+    static final String OTHER = "[other]";
+
+    private static volatile int limit = DEFAULT_LIMIT;
+
+    private static final int MAX_UNWRAP_DEPTH = 4;
+
+    /**
+     * 类名到任务类型名的缓存，不阻止类卸载
+     */
+    private static final ClassValue<String> TYPE_NAMES = new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            String name = type.getName();
+            int hidden = name.indexOf('/');
+            return hidden > 0 ? name.substring(0, hidden) : name;
+        }
+    };
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Entry other = new Entry(OTHER);
+
+    /**
+     * 上一次快照的时间，只由上报线程访问
+     */
+    private long lastSnapshotNanos = System.nanoTime();
+
+    /**
+     * 设置每个线程池统计的任务类型数上限，0表示不统计
+     */
+    static void setLimit(int value) {
+        limit = Math.max(0, value);
+    }
+
+    static boolean isEnabled() {
+        return limit > 0;
+    }
+
+    /**
+     * 解析任务类型，须在任务执行前调用（FutureTask执行完成后会清空callable）
+     */
+    static String typeOf(Runnable task) {
+        Object target = task;
+        for (int depth = 0; depth < MAX_UNWRAP_DEPTH; depth++) {
+            Object inner = Unwrapper.unwrapOnce(target);
+            if (inner == null) {
+                break;
+            }
+            target = inner;
+        }
+        return TYPE_NAMES.get(target.getClass());
+    }
+
+    /**
+     * 反射读取JDK包装类的内部字段，首次解析任务类型时才初始化（JDK9+ 须在 SpyInstaller 开放java.util.concurrent包之后）
+     */
+    private static final class Unwrapper {
+        private static final Field FUTURE_TASK_CALLABLE = findField(FutureTask.class, "callable");
+        private static final Field RUNNABLE_ADAPTER_TASK = findField("java.util.concurrent.Executors$RunnableAdapter", "task");
+        private static final Field ASYNC_RUN_FN = findField("java.util.concurrent.CompletableFuture$AsyncRun", "fn");
+        private static final Field ASYNC_SUPPLY_FN = findField("java.util.concurrent.CompletableFuture$AsyncSupply", "fn");
+
+        private static Field findField(String className, String name) {
+            try {
+                return findField(Class.forName(className), name);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        private static Field findField(Class<?> clazz, String name) {
+            try {
+                Field field = clazz.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        static Object unwrapOnce(Object task) {
+            try {
+                if (task instanceof FutureTask && FUTURE_TASK_CALLABLE != null) {
+                    return FUTURE_TASK_CALLABLE.get(task);
+                }
+                Field field = null;
+                if (RUNNABLE_ADAPTER_TASK != null && RUNNABLE_ADAPTER_TASK.getDeclaringClass() == task.getClass()) {
+                    field = RUNNABLE_ADAPTER_TASK;
+                } else if (ASYNC_RUN_FN != null && ASYNC_RUN_FN.getDeclaringClass() == task.getClass()) {
+                    field = ASYNC_RUN_FN;
+                } else if (ASYNC_SUPPLY_FN != null && ASYNC_SUPPLY_FN.getDeclaringClass() == task.getClass()) {
+                    field = ASYNC_SUPPLY_FN;
+                }
+                return field != null ? field.get(task) : null;
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 记录一个已完成的任务
+     */
+    void record(String type, long queueWaitNanos, long executionNanos, boolean failed) {
+        Entry entry = entries.get(type);
+        if (entry == null) {
+            entry = admit(type);
+        }
+        entry.record(queueWaitNanos, executionNanos, failed);
+    }
+
+    private synchronized Entry admit(String type) {
+        Entry entry = entries.get(type);
+        if (entry == null) {
+            if (entries.size() >= limit) {
+                return other;
+            }
+            entry = new Entry(type);
+            entries.put(type, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 获取本周期有任务完成的类型统计，按执行耗时从多到少排列，并按需淘汰类型；只由上报线程调用
+     */
+    List<TaskTypeInfo> intervalSnapshot() {
+        long now = System.nanoTime();
+        long elapsedNanos = Math.max(1, now - lastSnapshotNanos);
+        lastSnapshotNanos = now;
+
+        List<Entry> active = new ArrayList<>();
+        List<Entry> idle = new ArrayList<>();
+        long totalExecutionNanos = 0;
+        for (Entry entry : entries.values()) {
+            entry.snapshot();
+            (entry.intervalCompleted > 0 ? active : idle).add(entry);
+            totalExecutionNanos += entry.intervalExecutionNanos;
+        }
+        other.snapshot();
+        totalExecutionNanos += other.intervalExecutionNanos;
+        active.sort(Comparator.comparingLong((Entry entry) -> entry.intervalExecutionNanos).reversed());
+
+        List<TaskTypeInfo> result = new ArrayList<>(active.size() + 1);
+        for (Entry entry : active) {
+            result.add(entry.toInfo(elapsedNanos, totalExecutionNanos));
+        }
+        if (other.intervalCompleted > 0) {
+            result.add(other.toInfo(elapsedNanos, totalExecutionNanos));
+            evict(active, idle);
+        }
+        return result;
+    }
+
+    /**
+     * 有类型落入 [other] 时淘汰：本周期没有任务的类型全部淘汰，再淘汰执行耗时少于 [other] 的末位类型（最多1/4）
+     */
+    private synchronized void evict(List<Entry> active, List<Entry> idle) {
+        for (Entry entry : idle) {
+            entries.remove(entry.type, entry);
+        }
+        int maxEvictions = Math.max(1, limit / 4);
+        for (int i = active.size() - 1; i >= 0 && maxEvictions > 0; i--, maxEvictions--) {
+            Entry entry = active.get(i);
+            if (entry.intervalExecutionNanos >= other.intervalExecutionNanos) {
+                break;
+            }
+            entries.remove(entry.type, entry);
+        }
+    }
+
+    /**
+     * 单个任务类型的统计
+     */
+    private static final class Entry {
+        final String type;
+        final LongAdder completed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder executionNanos = new LongAdder();
+        final LogLinearHistogram queueWaitHistogram = new LogLinearHistogram();
+        final LogLinearHistogram executionHistogram = new LogLinearHistogram();
+
+        /**
+         * 上一次快照的累计值和本周期增量，只由上报线程访问
+         */
+        long lastCompleted;
+        long lastFailed;
+        long lastExecutionNanos;
+        long intervalCompleted;
+        long intervalFailed;
+        long intervalExecutionNanos;
+
+        Entry(String type) {
+            this.type = type;
+        }
+
+        void record(long queueWaitNanos, long executionNanos, boolean failed) {
+            completed.increment();
+            if (failed) {
+                this.failed.increment();
+            }
+            this.executionNanos.add(executionNanos);
+            queueWaitHistogram.record(queueWaitNanos);
+            executionHistogram.record(executionNanos);
+        }
+
+        void snapshot() {
+            long completedSum = completed.sum();
+            long failedSum = failed.sum();
+            long executionSum = executionNanos.sum();
+            intervalCompleted = completedSum - lastCompleted;
+            intervalFailed = failedSum - lastFailed;
+            intervalExecutionNanos = executionSum - lastExecutionNanos;
+            lastCompleted = completedSum;
+            lastFailed = failedSum;
+            lastExecutionNanos = executionSum;
+        }
+
+        TaskTypeInfo toInfo(long elapsedNanos, long totalExecutionNanos) {
+            TaskTypeInfo info = new TaskTypeInfo();
+            info.setTaskType(type);
+            info.setCompletedCount(intervalCompleted);
+            info.setFailedCount(intervalFailed);
+            info.setCompleteRate(round(intervalCompleted * 1e9 / elapsedNanos));
+            info.setExecutionTimeTotal(round(intervalExecutionNanos / 1e6));
+            info.setBusyThreads(round((double) intervalExecutionNanos / elapsedNanos));
+            info.setBusyPercent(totalExecutionNanos > 0 ? round(intervalExecutionNanos * 100.0 / totalExecutionNanos) : 0);
+
+            LogLinearHistogram.Snapshot queueWait = queueWaitHistogram.intervalSnapshot();
+            info.setQueueWaitTimeP50(queueWait.getMillisAtPercentile(50));
+            info.setQueueWaitTimeP99(queueWait.getMillisAtPercentile(99));
+            info.setQueueWaitTimeMax(queueWait.getMaxMillis());
+
+            LogLinearHistogram.Snapshot execution = executionHistogram.intervalSnapshot();
+            info.setExecutionTimeP50(execution.getMillisAtPercentile(50));
+            info.setExecutionTimeP99(execution.getMillisAtPercentile(99));
+            info.setExecutionTimeMax(execution.getMaxMillis());
+            return info;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.threadpool.agent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按线程池统计工作线程的锁竞争：进入synchronized时阻塞（BLOCKED）和调用wait/park等待（WAITING）的次数与时间
+ * 每个上报周期把所有线程池的工作线程ID合并，调用一次 ThreadMXBean.getThreadInfo(long[], 0)（不取线程栈），
+ * 按线程累计值的增量得到本周期的值，并统计此刻BLOCKED的工作线程在等待哪些监视器
+ * 阻塞/等待时间需要开启线程竞争监控（Agent参数 contention，默认开启），关闭时只有次数
+ * 注意等待时间包括空闲的工作线程在队列上等待任务的时间，判断锁竞争主要看阻塞时间占比
+ */
+class ThreadContention {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    /**
+     * 每个线程池上报的监视器数上限，按阻塞的线程数从多到少
+     */
+    private static final int MAX_MONITORS = 5;
+
+    private static volatile boolean timeEnabled;
+
+    private ThreadContention() {
+    }
+
+    /**
+     * 开启线程竞争监控，JVM不支持时只统计次数
+     */
+    static void init(boolean enabled) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!THREAD_MX_BEAN.isThreadContentionMonitoringSupported()) {
+                System.err.println("[ThreadPoolAgent] 当前JVM不支持线程竞争监控，只统计阻塞/等待次数");
+                return;
+            }
+            if (!THREAD_MX_BEAN.isThreadContentionMonitoringEnabled()) {
+                THREAD_MX_BEAN.setThreadContentionMonitoringEnabled(true);
+            }
+            timeEnabled = true;
+        } catch (Exception e) {
+            System.err.println("[ThreadPoolAgent] 无法启用线程竞争监控: " + e);
+        }
+    }
+
+    /**
+     * 采样本周期上报的线程池（见 AdaptiveReporting）的工作线程，结果写入各线程池的 metrics.contention，只由上报线程调用
+     */
+    static void sampleAll() {
+        List<ThreadPoolMetrics> pools = new ArrayList<>();
+        List<long[]> poolThreadIds = new ArrayList<>();
+        ThreadPoolMonitor.forEachPool((threadPool, metrics) -> {
+            if (!AdaptiveReporting.isDue(metrics)) {
+                return;
+            }
+            pools.add(metrics);
+            poolThreadIds.add(ThreadCpuAccounting.toArray(metrics));
+        });
+        int total = 0;
+        for (long[] ids : poolThreadIds) {
+            total += ids.length;
+        }
+        long[] allIds = new long[total];
+        int offset = 0;
+        for (long[] ids : poolThreadIds) {
+            System.arraycopy(ids, 0, allIds, offset, ids.length);
+            offset += ids.length;
+        }
+
+        long now = System.nanoTime();
+        ThreadInfo[] infos = total > 0 ? THREAD_MX_BEAN.getThreadInfo(allIds, 0) : new ThreadInfo[0];
+        offset = 0;
+        for (int p = 0; p < pools.size(); p++) {
+            int count = poolThreadIds.get(p).length;
+            update(pools.get(p), infos, offset, count, now);
+            offset += count;
+        }
+    }
+
+    /**
+     * 按线程累计值的增量计算本周期的值，新线程以0为起点，已退出的线程（ThreadInfo为null）不再计入
+     */
+    private static void update(ThreadPoolMetrics metrics, ThreadInfo[] infos, int offset, int count, long now) {
+        Usage usage = metrics.contention;
+        boolean withTime = timeEnabled;
+        Map<Long, long[]> last = new HashMap<>(count * 2);
+        Map<String, Long> monitors = new HashMap<>();
+        long blockedCount = 0;
+        long blockedTime = 0;
+        long waitedCount = 0;
+        long waitedTime = 0;
+        int threads = 0;
+        for (int i = offset; i < offset + count; i++) {
+            ThreadInfo info = infos[i];
+            if (info == null) {
+                continue;
+            }
+            threads++;
+            long[] values = { info.getBlockedCount(), info.getBlockedTime(), info.getWaitedCount(), info.getWaitedTime() };
+            long[] previous = usage != null ? usage.lastThreadValues.get(info.getThreadId()) : null;
+            blockedCount += values[0] - previousValue(previous, 0);
+            waitedCount += values[2] - previousValue(previous, 2);
+            if (withTime) {
+                blockedTime += Math.max(0, values[1]) - previousValue(previous, 1);
+                waitedTime += Math.max(0, values[3]) - previousValue(previous, 3);
+            }
+            last.put(info.getThreadId(), values);
+
+            if (info.getThreadState() == Thread.State.BLOCKED && info.getLockName() != null) {
+                String monitor = info.getLockName()
+                        + (info.getLockOwnerName() != null ? " owned by " + info.getLockOwnerName() : "");
+                monitors.merge(monitor, 1L, Long::sum);
+            }
+        }
+
+        Usage next = new Usage(now, last);
+        if (usage != null && now > usage.sampleNanos) {
+            next.blockedCount = blockedCount;
+            next.waitedCount = waitedCount;
+            next.blockedTimeMillis = blockedTime;
+            next.waitedTimeMillis = waitedTime;
+            double elapsedMillis = (now - usage.sampleNanos) / 1e6;
+            if (withTime && threads > 0) {
+                next.blockedPercent = round(Math.min(100, blockedTime * 100.0 / (elapsedMillis * threads)));
+                next.waitedPercent = round(Math.min(100, waitedTime * 100.0 / (elapsedMillis * threads)));
+            }
+        }
+        next.blockedMonitors = topMonitors(monitors);
+        metrics.contention = next;
+    }
+
+    private static Map<String, Long> topMonitors(Map<String, Long> monitors) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        monitors.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(MAX_MONITORS)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    private static long previousValue(long[] previous, int index) {
+        return previous != null && previous[index] >= 0 ? previous[index] : 0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 上报锁竞争统计
+     */
+    static void fill(ThreadPoolInfo info, ThreadPoolMetrics metrics) {
+        Usage usage = metrics.contention;
+        if (usage == null) {
+            return;
+        }
+        info.setWorkerBlockedCount(usage.blockedCount);
+        info.setWorkerBlockedTimeMillis(usage.blockedTimeMillis);
+        info.setWorkerBlockedPercent(usage.blockedPercent);
+        info.setWorkerWaitedCount(usage.waitedCount);
+        info.setWorkerWaitedTimeMillis(usage.waitedTimeMillis);
+        info.setWorkerWaitedPercent(usage.waitedPercent);
+        info.setBlockedMonitors(usage.blockedMonitors);
+    }
+
+    /**
+     * 单个线程池最近一次采样的结果及各线程的累计值（阻塞次数、阻塞时间、等待次数、等待时间）
+     */
+    static class Usage {
+        final long sampleNanos;
+        final Map<Long, long[]> lastThreadValues;
+        long blockedCount;
+        long blockedTimeMillis;
+        long waitedCount;
+        long waitedTimeMillis;
+        double blockedPercent;
+        double waitedPercent;
+        Map<String, Long> blockedMonitors;
+
+        Usage(long sampleNanos, Map<Long, long[]> lastThreadValues) {
+            this.sampleNanos = sampleNanos;
+            this.lastThreadValues = lastThreadValues;
+        }
+    }
+}
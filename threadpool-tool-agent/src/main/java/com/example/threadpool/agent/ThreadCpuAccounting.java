@@ -0,0 +1,263 @@
+package com.example.threadpool.agent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按线程池统计工作线程的CPU时间和内存分配量
+ * 工作线程由runWorker埋点登记（进入时加入、退出时移除），Agent加载前已启动的工作线程在注册时从workers集合补登；
+ * 每个上报周期把所有线程池的工作线程ID合并成一个数组，各调用一次ThreadMXBean的批量接口
+ * （getThreadCpuTime/getThreadUserTime/getThreadAllocatedBytes(long[])），开销只随线程数线性增长，不逐个线程调用
+ * CPU使用率按单核计算（与top相同，多线程时可以超过100%）
+ */
+class ThreadCpuAccounting {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean SUN_THREAD_MX_BEAN = findSunThreadMXBean();
+    private static final boolean CPU_TIME_ENABLED = enableCpuTime();
+    private static final boolean ALLOCATION_ENABLED = enableAllocatedMemory();
+
+    private static final Field WORKERS = findField(ThreadPoolExecutor.class, "workers");
+    private static final Field MAIN_LOCK = findField(ThreadPoolExecutor.class, "mainLock");
+    private static final Field WORKER_THREAD = findWorkerThreadField();
+
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private ThreadCpuAccounting() {
+    }
+
+    private static com.sun.management.ThreadMXBean findSunThreadMXBean() {
+        try {
+            return THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean
+                    ? (com.sun.management.ThreadMXBean) THREAD_MX_BEAN : null;
+        } catch (Throwable e) {
+            // 非HotSpot JVM可能没有com.sun.management
+            return null;
+        }
+    }
+
+    private static boolean enableCpuTime() {
+        try {
+            if (!THREAD_MX_BEAN.isThreadCpuTimeSupported()) {
+                return false;
+            }
+            if (!THREAD_MX_BEAN.isThreadCpuTimeEnabled()) {
+                THREAD_MX_BEAN.setThreadCpuTimeEnabled(true);
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("[ThreadPoolAgent] 无法启用线程CPU时间统计: " + e);
+            return false;
+        }
+    }
+
+    private static boolean enableAllocatedMemory() {
+        try {
+            if (SUN_THREAD_MX_BEAN == null || !SUN_THREAD_MX_BEAN.isThreadAllocatedMemorySupported()) {
+                return false;
+            }
+            if (!SUN_THREAD_MX_BEAN.isThreadAllocatedMemoryEnabled()) {
+                SUN_THREAD_MX_BEAN.setThreadAllocatedMemoryEnabled(true);
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("[ThreadPoolAgent] 无法启用线程内存分配统计: " + e);
+            return false;
+        }
+    }
+
+    private static Field findField(Class<?> clazz, String name) {
+        try {
+            Field field = clazz.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Field findWorkerThreadField() {
+        try {
+            return findField(Class.forName("java.util.concurrent.ThreadPoolExecutor$Worker"), "thread");
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static void onWorkerStart(ThreadPoolMetrics metrics, Thread worker) {
+        metrics.workerThreadIds.add(worker.getId());
+    }
+
+    static void onWorkerExit(ThreadPoolMetrics metrics, Thread worker) {
+        metrics.workerThreadIds.remove(worker.getId());
+    }
+
+    /**
+     * 注册时补登已在运行的工作线程（短暂获取一次mainLock）
+     */
+    static void captureExistingWorkers(ThreadPoolExecutor threadPool, ThreadPoolMetrics metrics) {
+        if (WORKERS == null || MAIN_LOCK == null || WORKER_THREAD == null) {
+            return;
+        }
+        try {
+            ReentrantLock mainLock = (ReentrantLock) MAIN_LOCK.get(threadPool);
+            mainLock.lock();
+            try {
+                for (Object worker : (HashSet<?>) WORKERS.get(threadPool)) {
+                    Thread thread = (Thread) WORKER_THREAD.get(worker);
+                    if (thread != null && thread.isAlive()) {
+                        metrics.workerThreadIds.add(thread.getId());
+                    }
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        } catch (Exception e) {
+            System.err.println("[ThreadPoolAgent] 读取线程池工作线程失败: " + e);
+        }
+    }
+
+    /**
+     * 采样本周期上报的线程池（见 AdaptiveReporting）的工作线程，结果写入各线程池的 metrics.resourceUsage，只由上报线程调用
+     */
+    static void sampleAll() {
+        if (!CPU_TIME_ENABLED && !ALLOCATION_ENABLED) {
+            return;
+        }
+        List<ThreadPoolMetrics> pools = new ArrayList<>();
+        List<long[]> poolThreadIds = new ArrayList<>();
+        int total = 0;
+        ThreadPoolMonitor.forEachPool((threadPool, metrics) -> {
+            if (!AdaptiveReporting.isDue(metrics)) {
+                return;
+            }
+            pools.add(metrics);
+            poolThreadIds.add(toArray(metrics));
+        });
+        for (long[] ids : poolThreadIds) {
+            total += ids.length;
+        }
+
+        long[] allIds = new long[total];
+        int offset = 0;
+        for (long[] ids : poolThreadIds) {
+            System.arraycopy(ids, 0, allIds, offset, ids.length);
+            offset += ids.length;
+        }
+
+        long now = System.nanoTime();
+        long[] cpu = null;
+        long[] user = null;
+        long[] allocated = null;
+        if (CPU_TIME_ENABLED && SUN_THREAD_MX_BEAN != null) {
+            cpu = SUN_THREAD_MX_BEAN.getThreadCpuTime(allIds);
+            user = SUN_THREAD_MX_BEAN.getThreadUserTime(allIds);
+        } else if (CPU_TIME_ENABLED) {
+            // 标准接口没有批量方法
+            cpu = new long[total];
+            user = new long[total];
+            for (int i = 0; i < total; i++) {
+                cpu[i] = THREAD_MX_BEAN.getThreadCpuTime(allIds[i]);
+                user[i] = THREAD_MX_BEAN.getThreadUserTime(allIds[i]);
+            }
+        }
+        if (ALLOCATION_ENABLED) {
+            allocated = SUN_THREAD_MX_BEAN.getThreadAllocatedBytes(allIds);
+        }
+
+        offset = 0;
+        for (int p = 0; p < pools.size(); p++) {
+            int count = poolThreadIds.get(p).length;
+            update(pools.get(p), allIds, cpu, user, allocated, offset, count, now);
+            offset += count;
+        }
+    }
+
+    /**
+     * 线程池当前登记的工作线程ID
+     */
+    static long[] toArray(ThreadPoolMetrics metrics) {
+        long[] ids = new long[metrics.workerThreadIds.size()];
+        int n = 0;
+        for (Long id : metrics.workerThreadIds) {
+            if (n == ids.length) {
+                break;
+            }
+            ids[n++] = id;
+        }
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    /**
+     * 按线程累计值的增量计算本周期的使用率，新线程以0为起点，已退出的线程（返回-1）不再计入
+     */
+    private static void update(ThreadPoolMetrics metrics, long[] ids, long[] cpu, long[] user, long[] allocated,
+                               int offset, int count, long now) {
+        Usage usage = metrics.resourceUsage;
+        Map<Long, long[]> last = new HashMap<>(count * 2);
+        long cpuDelta = 0;
+        long userDelta = 0;
+        long allocatedDelta = 0;
+        for (int i = offset; i < offset + count; i++) {
+            long cpuTime = cpu != null ? cpu[i] : -1;
+            long userTime = user != null ? user[i] : -1;
+            long allocatedBytes = allocated != null ? allocated[i] : -1;
+            if (cpuTime < 0 && allocatedBytes < 0) {
+                continue;
+            }
+            long[] previous = usage != null ? usage.lastThreadValues.get(ids[i]) : null;
+            if (cpuTime >= 0) {
+                cpuDelta += cpuTime - previousValue(previous, 0);
+                userDelta += userTime - previousValue(previous, 1);
+            }
+            if (allocatedBytes >= 0) {
+                allocatedDelta += allocatedBytes - previousValue(previous, 2);
+            }
+            last.put(ids[i], new long[] { cpuTime, userTime, allocatedBytes });
+        }
+
+        Usage next = new Usage(now, last);
+        if (usage != null && now > usage.sampleNanos) {
+            double elapsedNanos = now - usage.sampleNanos;
+            next.cpuPercent = round(cpuDelta * 100.0 / elapsedNanos);
+            next.userCpuPercent = round(userDelta * 100.0 / elapsedNanos);
+            next.systemCpuPercent = round(Math.max(0, cpuDelta - userDelta) * 100.0 / elapsedNanos);
+            next.allocationRate = round(allocatedDelta / BYTES_PER_MB / (elapsedNanos / 1e9));
+        }
+        metrics.resourceUsage = next;
+    }
+
+    private static long previousValue(long[] previous, int index) {
+        return previous != null && previous[index] >= 0 ? previous[index] : 0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 单个线程池最近一次采样的结果及各线程的累计值
+     */
+    static class Usage {
+        final long sampleNanos;
+        final Map<Long, long[]> lastThreadValues;
+        double cpuPercent;
+        double userCpuPercent;
+        double systemCpuPercent;
+        double allocationRate;
+
+        Usage(long sampleNanos, Map<Long, long[]> lastThreadValues) {
+            this.sampleNanos = sampleNanos;
+            this.lastThreadValues = lastThreadValues;
+        }
+    }
+}
@@ -2,8 +2,12 @@ package com.example.threadpool.agent;
 
 import java.io.IOException;
 import java.lang.instrument.Instrumentation;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -22,6 +26,19 @@ public class ThreadPoolAgent {
     private static final int DEFAULT_HTTP_PORT = 9999;
     private static int httpPort = DEFAULT_HTTP_PORT;
     private static com.sun.net.httpserver.HttpServer httpServer;
+    private static boolean lockFreeSnapshot = false;
+    private static int connectTimeoutMillis = 3000;
+    private static int readTimeoutMillis = 5000;
+    private static int maxInFlightReports = 2;
+    private static boolean binaryFormat = false;
+    private static boolean gzipCompress = false;
+    private static int sampleIntervalMillis = 0;
+    private static int sampleBufferKb = 256;
+    private static boolean discoverAll = false;
+    private static boolean jfrEnabled = true;
+    private static boolean contentionMonitoring = true;
+    private static GaugeSampler sampler;
+    private static ThreadPoolReporter reporter;
     /**
      * JVM 启动时调用的 premain 方法
      */
@@ -65,11 +82,29 @@ public class ThreadPoolAgent {
         } catch (Exception e) {
             System.err.println("[ThreadPoolAgent] 重转换失败: " + e.getMessage());
         }
+
+        // 增强 ThreadPoolExecutor，采集任务排队和执行耗时
+        SpyInstaller.install(inst);
+
+        // 并行流、CompletableFuture默认使用commonPool，始终监控
+        ThreadPoolMonitor.registerForkJoinPool(ForkJoinPool.commonPool());
+
+        // 工作线程阻塞/等待时间统计
+        ThreadContention.init(contentionMonitoring);
+
+        // JFR自定义事件，JFR不可用时跳过
+        if (jfrEnabled) {
+            ThreadPoolJfr.init();
+        }
     }
     
     /**
      * 解析Agent参数
-     * 格式: url=http://localhost:8080/api/threadpool/upload,interval=10,port=9999
+     * 格式: url=http://localhost:8080/api/threadpool/upload,interval=10,port=9999,snapshot=lockfree,
+     *      connectTimeout=3000,readTimeout=5000,maxInFlight=2,format=binary,compress=gzip,
+     *      sampleInterval=100,sampleBufferKb=256,autoTuneInterval=1000,discover=all,taskTypes=20,stuckThreshold=60000,
+     *      jfr=true,jfrThreshold=20,contention=true,idleReclaim=600,
+     *      warmUp=true,warmUpTask=com.example.WarmUpTask,adaptive=true,minInterval=1000,heartbeat=60
      */
     private static void parseArgs(String args) {
         if (args != null && !args.trim().isEmpty()) {
@@ -94,6 +129,69 @@ public class ThreadPoolAgent {
                         } catch (NumberFormatException e) {
                             System.err.println("Invalid port value: " + value + ", using default: " + DEFAULT_HTTP_PORT);
                         }
+                    } else if ("snapshot".equals(key)) {
+                        // lockfree: 采样时不获取线程池mainLock；locking: 调用ThreadPoolExecutor的统计方法（默认）
+                        lockFreeSnapshot = "lockfree".equalsIgnoreCase(value);
+                    } else if ("connectTimeout".equals(key)) {
+                        connectTimeoutMillis = parsePositiveInt(key, value, connectTimeoutMillis);
+                    } else if ("readTimeout".equals(key)) {
+                        readTimeoutMillis = parsePositiveInt(key, value, readTimeoutMillis);
+                    } else if ("maxInFlight".equals(key)) {
+                        maxInFlightReports = parsePositiveInt(key, value, maxInFlightReports);
+                    } else if ("format".equals(key)) {
+                        // json: 每次上报完整JSON（默认）；binary: 二进制差值编码，上报到 url + "/binary"
+                        binaryFormat = "binary".equalsIgnoreCase(value);
+                    } else if ("compress".equals(key)) {
+                        // 仅对binary格式生效
+                        gzipCompress = "gzip".equalsIgnoreCase(value);
+                    } else if ("sampleInterval".equals(key)) {
+                        // 高频采样间隔（毫秒），0表示不启用（默认）
+                        sampleIntervalMillis = "0".equals(value) ? 0 : parsePositiveInt(key, value, sampleIntervalMillis);
+                    } else if ("sampleBufferKb".equals(key)) {
+                        sampleBufferKb = parsePositiveInt(key, value, sampleBufferKb);
+                    } else if ("discover".equals(key)) {
+                        // spring: 只注册Spring Bean（默认）；all: 注册所有新创建的ThreadPoolExecutor及其子类
+                        discoverAll = "all".equalsIgnoreCase(value);
+                    } else if ("taskTypes".equals(key)) {
+                        // 每个线程池按任务类型统计的类型数上限，0表示不统计
+                        TaskTypeStats.setLimit("0".equals(value) ? 0 : parsePositiveInt(key, value, TaskTypeStats.DEFAULT_LIMIT));
+                    } else if ("stuckThreshold".equals(key)) {
+                        // 任务运行超过该时间（毫秒）视为卡住，0表示不检测
+                        StuckTaskDetector.setThresholdMillis("0".equals(value) ? 0
+                                : parsePositiveInt(key, value, StuckTaskDetector.DEFAULT_THRESHOLD_MILLIS));
+                    } else if ("jfr".equals(key)) {
+                        // 是否输出JFR自定义事件，默认输出（JFR可用且有录制在运行时）
+                        jfrEnabled = !"false".equalsIgnoreCase(value);
+                    } else if ("jfrThreshold".equals(key)) {
+                        // JFR开始/执行事件只记录排队时间/执行时间超过该值（毫秒）的任务，0表示全部记录
+                        ThreadPoolJfr.setThresholdMillis("0".equals(value) ? 0
+                                : parsePositiveInt(key, value, ThreadPoolJfr.DEFAULT_THRESHOLD_MILLIS));
+                    } else if ("contention".equals(key)) {
+                        // 是否开启线程竞争监控（统计工作线程的阻塞/等待时间），默认开启
+                        contentionMonitoring = !"false".equalsIgnoreCase(value);
+                    } else if ("idleReclaim".equals(key)) {
+                        // 线程池空闲超过该时间（秒）后临时回收核心线程，0表示不回收（默认）
+                        IdleReclaimer.setIdleSeconds("0".equals(value) ? 0 : parsePositiveInt(key, value, 0));
+                    } else if ("warmUp".equals(key)) {
+                        // 线程池注册后按Web端记录的历史稳定线程数预启动核心线程，默认关闭
+                        PoolWarmUp.setEnabled("true".equalsIgnoreCase(value));
+                    } else if ("warmUpTask".equals(key)) {
+                        // 预热时向线程池提交的任务类（实现Runnable，无参构造），不设置时只预启动线程
+                        PoolWarmUp.setTaskClassName(value);
+                    } else if ("adaptive".equals(key)) {
+                        // 按线程池活跃程度调整上报频率，默认关闭（所有线程池都按interval上报）
+                        AdaptiveReporting.setEnabled("true".equalsIgnoreCase(value));
+                    } else if ("minInterval".equals(key)) {
+                        // 自适应上报时变化剧烈的线程池的上报间隔（毫秒），即最高上报频率
+                        AdaptiveReporting.setMinIntervalMillis(
+                                parsePositiveInt(key, value, AdaptiveReporting.DEFAULT_MIN_INTERVAL_MILLIS));
+                    } else if ("heartbeat".equals(key)) {
+                        // 自适应上报时没有变化的线程池的上报间隔（秒）
+                        AdaptiveReporting.setHeartbeatSeconds(
+                                parsePositiveInt(key, value, AdaptiveReporting.DEFAULT_HEARTBEAT_SECONDS));
+                    } else if ("autoTuneInterval".equals(key)) {
+                        // 自动调优周期（毫秒），各线程池通过修改接口的autoTune字段单独启用
+                        AutoTuner.setIntervalMillis(parsePositiveInt(key, value, 1000));
                     }
                 }
             }
@@ -104,29 +202,73 @@ public class ThreadPoolAgent {
             webAppUrl = DEFAULT_WEB_URL;
         }
         
-        System.out.println("ThreadPool Agent 配置: Web应用URL=" + webAppUrl + ", 上报间隔=" + reportIntervalSeconds + "秒, HTTP端口=" + httpPort);
+        ThreadPoolMonitor.setLockFreeSnapshot(lockFreeSnapshot);
+        ThreadPoolMonitor.setDiscoverAll(discoverAll);
+        AdaptiveReporting.setIntervalSeconds(reportIntervalSeconds);
+
+        System.out.println("ThreadPool Agent 配置: Web应用URL=" + webAppUrl + ", 上报间隔=" + reportIntervalSeconds + "秒, HTTP端口=" + httpPort
+                + ", 采样模式=" + (lockFreeSnapshot ? "lockfree" : "locking")
+                + ", 线程池发现=" + (discoverAll ? "all" : "spring")
+                + ", 上报格式=" + (binaryFormat ? "binary" + (gzipCompress ? "+gzip" : "") : "json")
+                + ", 高频采样=" + (sampleIntervalMillis > 0 ? sampleIntervalMillis + "ms/" + sampleBufferKb + "KB" : "关闭")
+                + ", 自适应上报=" + (AdaptiveReporting.isEnabled() ? "最短" + AdaptiveReporting.getMinIntervalMillis() + "ms" : "关闭"));
     }
     
     
+    private static int parsePositiveInt(String key, String value, int defaultValue) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // 使用默认值
+        }
+        System.err.println("Invalid " + key + " value: " + value + ", using default: " + defaultValue);
+        return defaultValue;
+    }
+    
     /**
      * 启动定时上报任务
      */
     private static void startReportScheduler() {
+        if (reporter == null) {
+            reporter = new ThreadPoolReporter(webAppUrl, connectTimeoutMillis, readTimeoutMillis, maxInFlightReports,
+                    binaryFormat, gzipCompress);
+            Runtime.getRuntime().addShutdownHook(new Thread(reporter::shutdown, "ThreadPool-Reporter-Shutdown"));
+        }
+        StuckTaskDetector.start();
+        IdleReclaimer.start();
+        PoolWarmUp.start(reporter);
+        if (sampler == null && sampleIntervalMillis > 0) {
+            sampler = new GaugeSampler(sampleIntervalMillis, sampleBufferKb);
+            ThreadPoolMonitor.setExpungeListener(sampler::release);
+            sampler.start();
+        }
+
         scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "ThreadPool-Monitor");
             t.setDaemon(true);
             return t;
         });
         
+        // 自适应上报时按最短间隔运行，每次只上报到期的线程池
+        long periodMillis = AdaptiveReporting.isEnabled()
+                ? AdaptiveReporting.getMinIntervalMillis() : TimeUnit.SECONDS.toMillis(reportIntervalSeconds);
         scheduler.scheduleAtFixedRate(() -> {
             try {
-                ThreadPoolMonitor.reportAllThreadPools(webAppUrl);
+                ThreadPoolMonitor.reportAllThreadPools(reporter);
+                if (sampler != null) {
+                    sampler.ship(reporter);
+                }
+                ThreadPoolEvents.ship(reporter);
             } catch (Exception e) {
                 System.err.println("上报线程池数据失败: " + e.getMessage());
             }
-        }, reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
         
-        System.out.println("ThreadPool Agent 已启动定时上报任务，间隔" + reportIntervalSeconds + "秒");
+        System.out.println("ThreadPool Agent 已启动定时上报任务，间隔" + reportIntervalSeconds + "秒"
+                + (AdaptiveReporting.isEnabled() ? "（自适应，" + periodMillis + "ms检查一次）" : ""));
     }
 
     
@@ -145,6 +287,7 @@ public class ThreadPoolAgent {
         try {
             httpServer = com.sun.net.httpserver.HttpServer.create(new java.net.InetSocketAddress(httpPort), 0);
             httpServer.createContext("/api/threadpool/modify", new ThreadPoolModifyHandler());
+            httpServer.createContext("/api/threadpool/profile", new ThreadPoolProfileHandler());
             httpServer.setExecutor(Executors.newSingleThreadExecutor(r -> {
                 Thread t = new Thread(r, "ThreadPool-HTTP-Server");
                 t.setDaemon(true);
@@ -193,7 +336,13 @@ public class ThreadPoolAgent {
                 ThreadPoolModifyRequest request = objectMapper.readValue(requestBody, ThreadPoolModifyRequest.class);
                 
                 // 查找并修改线程池
-                boolean success = modifyThreadPool(request);
+                boolean success;
+                try {
+                    success = modifyThreadPool(request);
+                } catch (IllegalArgumentException e) {
+                    sendResponse(exchange, 400, "Invalid parameters: " + e.getMessage());
+                    return;
+                }
                 
                 if (success) {
                     sendResponse(exchange, 200, "Thread pool parameters modified successfully");
@@ -224,29 +373,256 @@ public class ThreadPoolAgent {
             if (threadPool == null) {
                 return false;
             }
+            // 所有配置先校验，任何一项不合法时不做任何修改
+            if (request.getRejectionPolicy() != null) {
+                request.getRejectionPolicy().validate();
+            }
+            if (request.getAutoTune() != null) {
+                request.getAutoTune().validate();
+            }
+            if (request.getAdmissionControl() != null) {
+                request.getAdmissionControl().validate();
+                if (request.getAdmissionControl().isEnabled()) {
+                    requireWrappedTasks(threadPool, "准入控制");
+                }
+            }
+            if (request.getConcurrencyLimit() != null) {
+                request.getConcurrencyLimit().validate();
+                if (request.getConcurrencyLimit().isEnabled()) {
+                    requireWrappedTasks(threadPool, "并发限制");
+                }
+            }
+            if (request.getStuckTaskThresholdMillis() != null) {
+                StuckTaskDetector.validatePoolThreshold(request.getStuckTaskThresholdMillis());
+            }
+            if (Boolean.TRUE.equals(request.getEagerScaleUp())) {
+                requireWrappedTasks(threadPool, "先扩线程再排队");
+            }
             
-            // 修改线程池参数
-            if (request.getCorePoolSize() > 0) {
-                threadPool.setCorePoolSize(request.getCorePoolSize());
+            int oldCore = threadPool.getCorePoolSize();
+            int oldMax = threadPool.getMaximumPoolSize();
+            int oldQueueCapacity = QueueCapacity.capacityOf(threadPool.getQueue());
+            int newCore = request.getCorePoolSize() > 0 ? request.getCorePoolSize() : oldCore;
+            int newMax = request.getMaximumPoolSize() > 0 ? request.getMaximumPoolSize() : oldMax;
+            if (newCore > newMax) {
+                throw new IllegalArgumentException("核心线程数" + newCore + "不能大于最大线程数" + newMax);
+            }
+
+            // 队列容量最先修改，调小失败时其他参数保持不变
+            if (request.getQueueCapacity() > 0) {
+                QueueCapacity.setCapacity(threadPool.getQueue(), request.getQueueCapacity());
             }
             
-            if (request.getMaximumPoolSize() > 0) {
-                threadPool.setMaximumPoolSize(request.getMaximumPoolSize());
+            // 修改线程池参数：调大时先改最大线程数，调小时先改核心线程数，保证任何时刻核心线程数不大于最大线程数
+            if (newMax >= oldMax) {
+                threadPool.setMaximumPoolSize(newMax);
+                threadPool.setCorePoolSize(newCore);
+            } else {
+                threadPool.setCorePoolSize(newCore);
+                threadPool.setMaximumPoolSize(newMax);
             }
             
             if (request.getKeepAliveTime() > 0) {
                 threadPool.setKeepAliveTime(request.getKeepAliveTime(), TimeUnit.MILLISECONDS);
             }
+
+            int newQueueCapacity = QueueCapacity.capacityOf(threadPool.getQueue());
+            if (oldCore != threadPool.getCorePoolSize() || oldMax != threadPool.getMaximumPoolSize()
+                    || oldQueueCapacity != newQueueCapacity) {
+                ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(threadPool);
+                if (metrics != null) {
+                    ThreadPoolJfr.onResize(metrics, ThreadPoolJfr.SOURCE_MODIFY, oldCore, threadPool.getCorePoolSize(),
+                            oldMax, threadPool.getMaximumPoolSize(), oldQueueCapacity, newQueueCapacity);
+                }
+            }
+
+            if (request.getRejectionPolicy() != null) {
+                ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(threadPool);
+                if (metrics != null) {
+                    RejectionPolicies.apply(threadPool, metrics, request.getRejectionPolicy());
+                }
+            }
+
+            if (request.getEagerScaleUp() != null) {
+                ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(threadPool);
+                if (metrics != null) {
+                    EagerScaleUp.setEnabled(metrics, request.getEagerScaleUp());
+                }
+            }
+
+            if (request.getAutoTune() != null) {
+                ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(threadPool);
+                if (metrics != null) {
+                    AutoTuner.configure(threadPool, metrics, request.getAutoTune());
+                }
+            }
+
+            if (request.getAdmissionControl() != null) {
+                ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(threadPool);
+                if (metrics != null) {
+                    AdmissionControl.configure(metrics, request.getAdmissionControl());
+                }
+            }
+
+            if (request.getConcurrencyLimit() != null) {
+                ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(threadPool);
+                if (metrics != null) {
+                    ConcurrencyLimiter.configure(metrics, request.getConcurrencyLimit());
+                }
+            }
+
+            if (request.getStuckTaskThresholdMillis() != null) {
+                ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(threadPool);
+                if (metrics != null) {
+                    StuckTaskDetector.setPoolThreshold(metrics, request.getStuckTaskThresholdMillis());
+                }
+            }
+
+            if (Boolean.TRUE.equals(request.getInterruptStuckTasks())) {
+                ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(threadPool);
+                if (metrics != null) {
+                    System.out.println("ThreadPool Agent: 已中断线程池" + request.getThreadPoolId() + "中"
+                            + StuckTaskDetector.interrupt(metrics) + "个卡住的任务");
+                }
+            }
             
             System.out.println("ThreadPool Agent: 已修改线程池参数，ID=" + request.getThreadPoolId() + 
                     ", 核心线程数=" + threadPool.getCorePoolSize() + 
                     ", 最大线程数=" + threadPool.getMaximumPoolSize() + 
-                    ", 保持活跃时间=" + threadPool.getKeepAliveTime(TimeUnit.MILLISECONDS) + "ms");
+                    ", 保持活跃时间=" + threadPool.getKeepAliveTime(TimeUnit.MILLISECONDS) + "ms" +
+                    ", 队列容量=" + QueueCapacity.capacityOf(threadPool.getQueue()) +
+                    ", 拒绝策略=" + RejectionPolicies.nameOf(threadPool.getRejectedExecutionHandler()));
             
             return true;
         }
     }
     
+    /**
+     * 依赖任务包装的功能只能在队列存放包装对象的线程池上启用，见 MonitoredTask.canWrap
+     *
+     * @throws IllegalArgumentException 线程池的任务不包装
+     */
+    static void requireWrappedTasks(ThreadPoolExecutor threadPool, String feature) {
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(threadPool);
+        if (metrics != null && metrics.submitTimes != null) {
+            throw new IllegalArgumentException("线程池队列" + threadPool.getQueue().getClass().getName()
+                    + "不能存放包装任务，不支持" + feature);
+        }
+    }
+
+    /**
+     * 处理工作线程栈采样请求的Handler
+     * POST ?threadPoolId=&durationMs=&intervalMs= 开始采样，结束后结果自动上报到Web应用；
+     * GET ?threadPoolId= 以折叠栈格式返回正在进行或最近一次的采样结果；DELETE ?threadPoolId= 提前结束采样
+     */
+    static class ThreadPoolProfileHandler implements com.sun.net.httpserver.HttpHandler {
+        private final ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
+
+        @Override
+        public void handle(com.sun.net.httpserver.HttpExchange exchange) throws IOException {
+            try {
+                Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+                String threadPoolId = params.get("threadPoolId");
+                if (threadPoolId == null || threadPoolId.isEmpty()) {
+                    sendResponse(exchange, 400, "threadPoolId is required");
+                    return;
+                }
+
+                String method = exchange.getRequestMethod();
+                if ("POST".equalsIgnoreCase(method)) {
+                    startProfile(exchange, threadPoolId, params);
+                } else if ("GET".equalsIgnoreCase(method)) {
+                    StackProfiler profiler = StackProfiler.find(threadPoolId);
+                    if (profiler == null) {
+                        sendResponse(exchange, 404, "No profile for thread pool");
+                        return;
+                    }
+                    byte[] responseBytes = profiler.toCollapsed().getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                    exchange.sendResponseHeaders(200, responseBytes.length == 0 ? -1 : responseBytes.length);
+                    java.io.OutputStream os = exchange.getResponseBody();
+                    os.write(responseBytes);
+                    os.close();
+                } else if ("DELETE".equalsIgnoreCase(method)) {
+                    StackProfiler profiler = StackProfiler.find(threadPoolId);
+                    if (profiler == null || profiler.isFinished()) {
+                        sendResponse(exchange, 404, "No running profile for thread pool");
+                        return;
+                    }
+                    profiler.stop();
+                    sendResponse(exchange, 200, "Profiling stopped");
+                } else {
+                    sendResponse(exchange, 405, "Method Not Allowed");
+                }
+            } catch (IllegalArgumentException e) {
+                sendResponse(exchange, 400, "Invalid parameters: " + e.getMessage());
+            } catch (Exception e) {
+                System.err.println("处理线程池栈采样请求失败: " + e.getMessage());
+                e.printStackTrace();
+                sendResponse(exchange, 500, "Internal Server Error: " + e.getMessage());
+            }
+        }
+
+        private void startProfile(com.sun.net.httpserver.HttpExchange exchange, String threadPoolId,
+                                  Map<String, String> params) throws IOException {
+            ThreadPoolExecutor threadPool = ThreadPoolMonitor.getThreadPoolById(threadPoolId);
+            ThreadPoolMetrics metrics = threadPool != null ? ThreadPoolMonitor.getMetrics(threadPool) : null;
+            if (metrics == null) {
+                sendResponse(exchange, 404, "Thread pool not found");
+                return;
+            }
+            long durationMillis = parseLong(params, "durationMs");
+            long intervalMillis = parseLong(params, "intervalMs");
+            StackProfiler profiler = StackProfiler.start(threadPoolId, metrics, durationMillis, intervalMillis, reporter);
+            if (profiler == null) {
+                sendResponse(exchange, 409, "Another profile is running");
+                return;
+            }
+            sendResponse(exchange, 202, "Profiling started, duration=" + profiler.getDurationMillis()
+                    + "ms, interval=" + profiler.getIntervalMillis() + "ms");
+        }
+
+        private static long parseLong(Map<String, String> params, String name) {
+            String value = params.get(name);
+            if (value == null || value.isEmpty()) {
+                return 0;
+            }
+            try {
+                long parsed = Long.parseLong(value);
+                if (parsed < 0) {
+                    throw new IllegalArgumentException(name + " must not be negative");
+                }
+                return parsed;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(name + " is not a number: " + value);
+            }
+        }
+
+        private static Map<String, String> parseQuery(String query) throws IOException {
+            Map<String, String> params = new HashMap<>();
+            if (query == null) {
+                return params;
+            }
+            for (String pair : query.split("&")) {
+                int index = pair.indexOf('=');
+                if (index > 0) {
+                    params.put(java.net.URLDecoder.decode(pair.substring(0, index), "UTF-8"),
+                            java.net.URLDecoder.decode(pair.substring(index + 1), "UTF-8"));
+                }
+            }
+            return params;
+        }
+
+        private void sendResponse(com.sun.net.httpserver.HttpExchange exchange, int statusCode, String message) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            byte[] responseBytes = objectMapper.writeValueAsBytes(new ThreadPoolModifyResponse(statusCode, message));
+            exchange.sendResponseHeaders(statusCode, responseBytes.length);
+            java.io.OutputStream os = exchange.getResponseBody();
+            os.write(responseBytes);
+            os.close();
+        }
+    }
+
     /**
      * 线程池修改请求
      */
@@ -255,6 +631,14 @@ public class ThreadPoolAgent {
         private int corePoolSize;
         private int maximumPoolSize;
         private long keepAliveTime;
+        private int queueCapacity;
+        private AutoTuneConfig autoTune;
+        private RejectionPolicyConfig rejectionPolicy;
+        private Boolean eagerScaleUp;
+        private AdmissionControlConfig admissionControl;
+        private ConcurrencyLimitConfig concurrencyLimit;
+        private Long stuckTaskThresholdMillis;
+        private Boolean interruptStuckTasks;
         
         public String getThreadPoolId() { return threadPoolId; }
         public void setThreadPoolId(String threadPoolId) { this.threadPoolId = threadPoolId; }
@@ -267,6 +651,30 @@ public class ThreadPoolAgent {
         
         public long getKeepAliveTime() { return keepAliveTime; }
         public void setKeepAliveTime(long keepAliveTime) { this.keepAliveTime = keepAliveTime; }
+        
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        
+        public AutoTuneConfig getAutoTune() { return autoTune; }
+        public void setAutoTune(AutoTuneConfig autoTune) { this.autoTune = autoTune; }
+        
+        public RejectionPolicyConfig getRejectionPolicy() { return rejectionPolicy; }
+        public void setRejectionPolicy(RejectionPolicyConfig rejectionPolicy) { this.rejectionPolicy = rejectionPolicy; }
+        
+        public Boolean getEagerScaleUp() { return eagerScaleUp; }
+        public void setEagerScaleUp(Boolean eagerScaleUp) { this.eagerScaleUp = eagerScaleUp; }
+        
+        public AdmissionControlConfig getAdmissionControl() { return admissionControl; }
+        public void setAdmissionControl(AdmissionControlConfig admissionControl) { this.admissionControl = admissionControl; }
+        
+        public ConcurrencyLimitConfig getConcurrencyLimit() { return concurrencyLimit; }
+        public void setConcurrencyLimit(ConcurrencyLimitConfig concurrencyLimit) { this.concurrencyLimit = concurrencyLimit; }
+        
+        public Long getStuckTaskThresholdMillis() { return stuckTaskThresholdMillis; }
+        public void setStuckTaskThresholdMillis(Long stuckTaskThresholdMillis) { this.stuckTaskThresholdMillis = stuckTaskThresholdMillis; }
+        
+        public Boolean getInterruptStuckTasks() { return interruptStuckTasks; }
+        public void setInterruptStuckTasks(Boolean interruptStuckTasks) { this.interruptStuckTasks = interruptStuckTasks; }
     }
     
     /**
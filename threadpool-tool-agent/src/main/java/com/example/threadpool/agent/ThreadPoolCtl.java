@@ -0,0 +1,47 @@
+package com.example.threadpool.agent;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读取 ThreadPoolExecutor 内部的ctl状态字（高3位运行状态，低29位工作线程数）
+ * 只是一次volatile读，不需要获取mainLock；JDK9+ 依赖 SpyInstaller 向Agent开放java.util.concurrent包
+ */
+class ThreadPoolCtl {
+
+    private static final int COUNT_BITS = Integer.SIZE - 3;
+    private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+
+    private static final Field CTL_FIELD = findCtlField();
+
+    private static Field findCtlField() {
+        try {
+            Field field = ThreadPoolExecutor.class.getDeclaredField("ctl");
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            System.err.println("[ThreadPoolAgent] 无法访问ThreadPoolExecutor.ctl，无锁采样不可用: " + e);
+            return null;
+        }
+    }
+
+    static boolean isAvailable() {
+        return CTL_FIELD != null;
+    }
+
+    static int ctl(ThreadPoolExecutor executor) {
+        try {
+            return ((AtomicInteger) CTL_FIELD.get(executor)).get();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 当前工作线程数，等价于getPoolSize()（线程池终止后getPoolSize返回0，这里返回ctl中的原值）
+     */
+    static int workerCount(ThreadPoolExecutor executor) {
+        return ctl(executor) & COUNT_MASK;
+    }
+}
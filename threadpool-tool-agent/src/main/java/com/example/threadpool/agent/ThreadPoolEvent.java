@@ -0,0 +1,75 @@
+package com.example.threadpool.agent;
+
+import java.io.Serializable;
+
+/**
+ * Agent侧产生的线程池事件（如自动调优决策），随上报周期批量发送到Web应用
+ */
+public class ThreadPoolEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 线程池ID
+     */
+    private String threadPoolId;
+
+    /**
+     * 事件类型
+     */
+    private String type;
+
+    /**
+     * 事件发生时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    /**
+     * 事件描述
+     */
+    private String message;
+
+    public ThreadPoolEvent() {
+    }
+
+    public ThreadPoolEvent(String threadPoolId, String type, String message) {
+        this.threadPoolId = threadPoolId;
+        this.type = type;
+        this.message = message;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    // Getters and Setters
+
+    public String getThreadPoolId() {
+        return threadPoolId;
+    }
+
+    public void setThreadPoolId(String threadPoolId) {
+        this.threadPoolId = threadPoolId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.threadpool.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 待上报的线程池事件，缓存数量有上限，超过上限的事件直接丢弃
+ */
+class ThreadPoolEvents {
+
+    private static final int MAX_PENDING_EVENTS = 1000;
+
+    private static final BlockingQueue<ThreadPoolEvent> PENDING = new ArrayBlockingQueue<>(MAX_PENDING_EVENTS);
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    private ThreadPoolEvents() {
+    }
+
+    /**
+     * 记录一个事件，同时输出到Agent日志
+     */
+    static void record(String threadPoolId, String type, String message) {
+        System.out.println("ThreadPoolTool: [" + type + "] 线程池" + threadPoolId + ": " + message);
+        if (!PENDING.offer(new ThreadPoolEvent(threadPoolId, type, message))) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    /**
+     * 把缓存的事件批量发送到Web应用；上一批还在途时本次不取出，事件留在缓存中下次一起发送
+     */
+    static void ship(ThreadPoolReporter reporter) {
+        if (!reporter.hasCapacity(ThreadPoolReporter.Stream.EVENTS)) {
+            return;
+        }
+        long dropped = DROPPED.getAndSet(0);
+        if (dropped > 0) {
+            System.err.println("ThreadPoolTool: 待上报事件过多，丢弃了" + dropped + "个事件");
+        }
+        List<ThreadPoolEvent> events = new ArrayList<>();
+        PENDING.drainTo(events);
+        if (!events.isEmpty()) {
+            reporter.postJson(ThreadPoolReporter.Stream.EVENTS, reporter.resolve("/events"), events, "上报" + events.size() + "个线程池事件");
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.threadpool.agent;
+
+import javassist.*;
+import javassist.expr.ExprEditor;
+import javassist.expr.MethodCall;
+
+import java.io.ByteArrayInputStream;
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+
+/**
+ * 增强 java.util.concurrent.ThreadPoolExecutor，在线程池创建、任务提交、执行前后、拒绝时回调 ThreadPoolSpy
+ * 只修改方法体，不增删字段和方法，因此可以对已加载的类做retransform
+ */
+public class ThreadPoolExecutorTransformer implements ClassFileTransformer {
+
+    static final String TARGET_CLASS = "java/util/concurrent/ThreadPoolExecutor";
+    private static final String EXECUTOR_CLASS = "java.util.concurrent.ThreadPoolExecutor";
+    private static final String QUEUE_CLASS = "java.util.concurrent.BlockingQueue";
+    private static final String SPY = "com.example.threadpool.agent.spy.ThreadPoolSpy";
+
+    @Override
+    public byte[] transform(ClassLoader loader,
+                          String className,
+                          Class<?> classBeingRedefined,
+                          ProtectionDomain protectionDomain,
+                          byte[] classfileBuffer) {
+
+        if (!TARGET_CLASS.equals(className)) {
+            return null;
+        }
+
+        try {
+            ClassPool pool = ClassPool.getDefault();
+            CtClass ctClass = pool.makeClass(new ByteArrayInputStream(classfileBuffer));
+            try {
+                enhanceConstructor(pool, ctClass);
+                enhanceExecute(pool, ctClass);
+                enhanceRunWorker(ctClass);
+                enhanceReject(ctClass);
+                enhanceRemove(pool, ctClass);
+                enhanceShutdownNow(ctClass);
+                return ctClass.toBytecode();
+            } finally {
+                ctClass.detach();
+            }
+        } catch (Exception e) {
+            System.err.println("[ThreadPoolAgent] 增强失败: " + className + ", 错误: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * 其他构造方法（包括ScheduledThreadPoolExecutor等子类的构造方法）最终都会调用这个完整参数的构造方法
+     */
+    private void enhanceConstructor(ClassPool pool, CtClass ctClass)
+            throws NotFoundException, CannotCompileException {
+        CtConstructor constructor = ctClass.getDeclaredConstructor(new CtClass[] {
+                CtClass.intType, CtClass.intType, CtClass.longType,
+                pool.get("java.util.concurrent.TimeUnit"),
+                pool.get("java.util.concurrent.BlockingQueue"),
+                pool.get("java.util.concurrent.ThreadFactory"),
+                pool.get("java.util.concurrent.RejectedExecutionHandler") });
+        constructor.insertAfter(SPY + ".onCreate(this);");
+    }
+
+    /**
+     * execute(Runnable)：记录提交时间，任务被替换为带时间戳的包装对象；并发限制不允许提交时直接走reject；
+     * 入队操作交给埋点决定（先扩线程再排队模式）
+     */
+    private void enhanceExecute(ClassPool pool, CtClass ctClass)
+            throws NotFoundException, CannotCompileException {
+        CtMethod method = ctClass.getDeclaredMethod("execute", new CtClass[] { pool.get("java.lang.Runnable") });
+        method.instrument(new ExprEditor() {
+            @Override
+            public void edit(MethodCall call) throws CannotCompileException {
+                if ("offer".equals(call.getMethodName()) && QUEUE_CLASS.equals(call.getClassName())) {
+                    call.replace("$_ = " + SPY + ".offer(this, $0, (Runnable) $1);");
+                }
+            }
+        });
+        method.insertBefore("{ $1 = " + SPY + ".onExecute(this, $1); if (!" + SPY + ".admit(this, $1)) { reject($1); return; } }");
+    }
+
+    /**
+     * runWorker(Worker)：在beforeExecute/afterExecute调用点埋点，并把原始任务交给子类的钩子方法；
+     * 子类的beforeExecute抛出异常时runWorker不会调用afterExecute，这里补充结束埋点，避免开始计数、并发名额和工作线程状态残留；
+     * JDK 9+ 子类的afterExecute抛出异常时runWorker会以该异常再调用一次afterExecute，结束埋点按任务去重；
+     * 方法入口和结束（finally）分别登记和移除工作线程
+     */
+    private void enhanceRunWorker(CtClass ctClass) throws NotFoundException, CannotCompileException {
+        CtMethod method = ctClass.getDeclaredMethod("runWorker");
+        method.insertBefore(SPY + ".onWorkerStart(this, Thread.currentThread());");
+        method.insertAfter(SPY + ".onWorkerExit(this, Thread.currentThread());", true);
+        method.instrument(new ExprEditor() {
+            @Override
+            public void edit(MethodCall call) throws CannotCompileException {
+                if (!EXECUTOR_CLASS.equals(call.getClassName())) {
+                    return;
+                }
+                if ("beforeExecute".equals(call.getMethodName())) {
+                    call.replace("{ " + SPY + ".beforeExecute($0, $1, $2); try { $proceed($1, " + SPY + ".unwrap($2)); }"
+                            + " catch (Throwable e) { " + SPY + ".afterExecute($0, $2, e); throw e; } }");
+                } else if ("afterExecute".equals(call.getMethodName())) {
+                    call.replace("{ " + SPY + ".afterExecute($0, $1, $2); $proceed(" + SPY + ".unwrap($1), $2); }");
+                }
+            }
+        });
+    }
+
+    /**
+     * reject(Runnable)：拒绝策略拿到的是原始任务，埋点已处理的任务不再交给拒绝策略
+     */
+    private void enhanceReject(CtClass ctClass) throws NotFoundException, CannotCompileException {
+        CtMethod method = ctClass.getDeclaredMethod("reject");
+        method.instrument(new ExprEditor() {
+            @Override
+            public void edit(MethodCall call) throws CannotCompileException {
+                if ("rejectedExecution".equals(call.getMethodName())) {
+                    call.replace("{ Runnable task = " + SPY + ".onReject($2, $1); if (task != null) { $proceed(task, $2); } }");
+                }
+            }
+        });
+    }
+
+    /**
+     * remove(Runnable)：按原始任务移除队列中的包装对象
+     */
+    private void enhanceRemove(ClassPool pool, CtClass ctClass)
+            throws NotFoundException, CannotCompileException {
+        CtMethod method = ctClass.getDeclaredMethod("remove", new CtClass[] { pool.get("java.lang.Runnable") });
+        method.insertBefore("$1 = " + SPY + ".findQueued(this, $1);");
+    }
+
+    /**
+     * shutdownNow()：返回原始任务列表
+     */
+    private void enhanceShutdownNow(CtClass ctClass) throws NotFoundException, CannotCompileException {
+        CtMethod method = ctClass.getDeclaredMethod("shutdownNow");
+        method.insertAfter(SPY + ".unwrapAll($_);");
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.threadpool.agent;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 线程池信息模型类，用于存储线程池的各种参数
@@ -60,9 +62,394 @@ public class ThreadPoolInfo implements Serializable {
     private long completedTaskCount;
     
     /**
-     * 自定义任务计数
+     * 自定义任务计数（Agent侧统计的已提交任务总数，含被拒绝的任务）
      */
     private long customTaskCount;
+    
+    /**
+     * 本周期任务排队等待时间P50（毫秒）
+     */
+    private double queueWaitTimeP50;
+    
+    /**
+     * 本周期任务排队等待时间P90（毫秒）
+     */
+    private double queueWaitTimeP90;
+    
+    /**
+     * 本周期任务排队等待时间P99（毫秒）
+     */
+    private double queueWaitTimeP99;
+    
+    /**
+     * 本周期任务排队等待时间P99.9（毫秒）
+     */
+    private double queueWaitTimeP999;
+    
+    /**
+     * 本周期任务排队等待时间最大值（毫秒）
+     */
+    private double queueWaitTimeMax;
+    
+    /**
+     * 本周期任务执行时间P50（毫秒）
+     */
+    private double executionTimeP50;
+    
+    /**
+     * 本周期任务执行时间P90（毫秒）
+     */
+    private double executionTimeP90;
+    
+    /**
+     * 本周期任务执行时间P99（毫秒）
+     */
+    private double executionTimeP99;
+    
+    /**
+     * 本周期任务执行时间P99.9（毫秒）
+     */
+    private double executionTimeP999;
+    
+    /**
+     * 本周期任务执行时间最大值（毫秒）
+     */
+    private double executionTimeMax;
+    
+    /**
+     * 被拒绝任务总数（Agent计数）
+     */
+    private long rejectedTaskCount;
+    
+    /**
+     * 执行失败任务总数（Agent计数）
+     */
+    private long failedTaskCount;
+    
+    /**
+     * 本周期任务提交速率（个/秒）
+     */
+    private double submitRate;
+    
+    /**
+     * 本周期任务开始执行速率（个/秒）
+     */
+    private double startRate;
+    
+    /**
+     * 本周期任务完成速率（个/秒）
+     */
+    private double completeRate;
+    
+    /**
+     * 本周期任务失败速率（个/秒）
+     */
+    private double failRate;
+    
+    /**
+     * 本周期任务拒绝速率（个/秒）
+     */
+    private double rejectRate;
+    
+    /**
+     * 当前线程数
+     */
+    private int poolSize;
+    
+    /**
+     * 是否启用了自动调优
+     */
+    private boolean autoTuneEnabled;
+    
+    /**
+     * 工作队列容量（无界队列为Integer.MAX_VALUE）
+     */
+    private int queueCapacity;
+    
+    /**
+     * 当前拒绝策略（Agent提供的策略为策略名，其他为类名）
+     */
+    private String rejectionPolicy;
+    
+    /**
+     * 按拒绝策略统计的拒绝次数及处理结果（累计值），键为“策略名”或“策略名.结果”
+     */
+    private Map<String, Long> rejectionCounts;
+    
+    /**
+     * 是否启用先扩线程再排队模式
+     */
+    private boolean eagerScaleUp;
+    
+    /**
+     * 线程池类型: THREAD_POOL_EXECUTOR、SCHEDULED_THREAD_POOL_EXECUTOR、FORK_JOIN_POOL
+     */
+    private String poolType;
+    
+    /**
+     * ForkJoinPool并行度
+     */
+    private int parallelism;
+    
+    /**
+     * ForkJoinPool未阻塞在join或其他同步操作上的工作线程数
+     */
+    private int runningThreads;
+    
+    /**
+     * ForkJoinPool累计窃取任务数
+     */
+    private long stealCount;
+    
+    /**
+     * ForkJoinPool外部提交队列中的任务数
+     */
+    private long queuedSubmissionCount;
+    
+    /**
+     * ForkJoinPool工作线程队列中的任务数
+     */
+    private long queuedTaskCount;
+    
+    /**
+     * ForkJoinPool单个工作线程队列的最大任务数
+     */
+    private int workerQueueDepthMax;
+    
+    /**
+     * ForkJoinPool工作线程队列的平均任务数
+     */
+    private double workerQueueDepthAvg;
+    
+    /**
+     * ForkJoinPool各工作线程队列的任务数，从大到小排列
+     */
+    private List<Integer> workerQueueDepths;
+    
+    /**
+     * 本周期工作线程CPU使用率（%，按单核计算，多线程时可超过100）
+     */
+    private double cpuPercent;
+    
+    /**
+     * 本周期工作线程用户态CPU使用率（%）
+     */
+    private double userCpuPercent;
+    
+    /**
+     * 本周期工作线程内核态CPU使用率（%）
+     */
+    private double systemCpuPercent;
+    
+    /**
+     * 本周期工作线程内存分配速率（MB/s）
+     */
+    private double allocationRate;
+    
+    /**
+     * 按任务类型的统计（本周期有任务完成的类型，按执行耗时从多到少排列）
+     */
+    private List<TaskTypeInfo> taskTypes;
+    
+    /**
+     * 是否启用准入控制
+     */
+    private boolean admissionControlEnabled;
+    
+    /**
+     * 准入控制的排队等待时间上限（毫秒），未启用时为0
+     */
+    private long maxQueueWaitMillis;
+    
+    /**
+     * 准入控制丢弃的排队超时任务数（累计值）
+     */
+    private long shedTaskCount;
+    
+    /**
+     * 准入控制按预测排队时间提前拒绝的任务数（累计值）
+     */
+    private long admissionRejectedCount;
+    
+    /**
+     * 是否启用自适应并发限制
+     */
+    private boolean concurrencyLimitEnabled;
+    
+    /**
+     * 当前并发上限
+     */
+    private int concurrencyLimit;
+    
+    /**
+     * 已占用的并发名额（已提交未完成的任务数）
+     */
+    private int concurrencyInFlight;
+    
+    /**
+     * 最近一个窗口的平均RTT（提交到执行结束，毫秒）
+     */
+    private double concurrencyLimitRttMillis;
+    
+    /**
+     * 最小RTT（毫秒，近似无排队时的RTT）
+     */
+    private double concurrencyLimitMinRttMillis;
+    
+    /**
+     * 因并发限制被拒绝的任务数（累计）
+     */
+    private long concurrencyLimitRejectedCount;
+    
+    /**
+     * 定时任务开始延迟P50（毫秒，本周期）
+     */
+    private double startLatenessP50;
+    
+    /**
+     * 定时任务开始延迟P99（毫秒，本周期）
+     */
+    private double startLatenessP99;
+    
+    /**
+     * 定时任务开始延迟最大值（毫秒，本周期）
+     */
+    private double startLatenessMax;
+    
+    /**
+     * 周期任务漂移P50（毫秒，本周期）
+     */
+    private double periodDriftP50;
+    
+    /**
+     * 周期任务漂移P99（毫秒，本周期）
+     */
+    private double periodDriftP99;
+    
+    /**
+     * 周期任务漂移最大值（毫秒，本周期）
+     */
+    private double periodDriftMax;
+    
+    /**
+     * 延迟队列按到期时间分桶的任务数（overdue/1s/10s/1m/10m/later）
+     */
+    private Map<String, Long> delayedQueueBuckets;
+    
+    /**
+     * 当前运行时间超过阈值的任务数
+     */
+    private int stuckTaskCount;
+    
+    /**
+     * 累计标记为卡住的任务数
+     */
+    private long stuckTaskTotal;
+    
+    /**
+     * 当前卡住的任务明细（按运行时间从长到短，最多10个）
+     */
+    private List<StuckTaskInfo> stuckTasks;
+    
+    /**
+     * 死锁/饥饿检测结果：SELF_DEADLOCK、CYCLE、STARVATION，null表示正常
+     */
+    private String deadlockState;
+    
+    /**
+     * 被等待的任务所在的线程池ID，逗号分隔
+     */
+    private String deadlockWaitingOn;
+    
+    /**
+     * 累计判定为死锁/饥饿的次数
+     */
+    private long deadlockTotal;
+    
+    /**
+     * 判定时阻塞在Future上的工作线程及栈（最多10个）
+     */
+    private List<StuckTaskInfo> deadlockTasks;
+    
+    /**
+     * 本周期工作线程进入synchronized时阻塞的次数
+     */
+    private long workerBlockedCount;
+    
+    /**
+     * 本周期工作线程阻塞的总时间（毫秒），未开启线程竞争监控时为0
+     */
+    private long workerBlockedTimeMillis;
+    
+    /**
+     * 本周期工作线程时间中阻塞的比例（%）
+     */
+    private double workerBlockedPercent;
+    
+    /**
+     * 本周期工作线程等待（wait/park）的次数
+     */
+    private long workerWaitedCount;
+    
+    /**
+     * 本周期工作线程等待的总时间（毫秒），包括空闲线程在队列上等待任务的时间
+     */
+    private long workerWaitedTimeMillis;
+    
+    /**
+     * 本周期工作线程时间中等待的比例（%）
+     */
+    private double workerWaitedPercent;
+    
+    /**
+     * 采样时阻塞的工作线程在等待的监视器及线程数（最多5个），键为监视器及持有线程
+     */
+    private Map<String, Long> blockedMonitors;
+    
+    /**
+     * 是否因空闲临时回收了核心线程，见Agent参数idleReclaim
+     */
+    private boolean idleReclaimed;
+    
+    /**
+     * 累计空闲回收次数
+     */
+    private long idleReclaimCount;
+    
+    /**
+     * 回收期间估算已退出的线程数（回收时线程数减当前线程数）
+     */
+    private int idleReclaimedThreads;
+    
+    /**
+     * 回收的线程栈内存估算（MB），按-Xss计算
+     */
+    private double idleReclaimedStackMb;
+    
+    /**
+     * 线程池稳定标识（bean:Bean名称、name:线程池名称或site:创建位置），重启后不变，用于汇总历史负载
+     */
+    private String poolKey;
+    
+    /**
+     * Web端按历史负载推荐的预热线程数，0表示没有历史数据或未启用预热
+     */
+    private int warmUpThreads;
+    
+    /**
+     * 预热时预启动的核心线程数
+     */
+    private int warmUpPrestarted;
+    
+    /**
+     * 预热耗时（毫秒），含预启动线程和执行预热任务
+     */
+    private long warmUpMillis;
+    
+    /**
+     * 自适应上报时本次的上报级别：HOT（变化剧烈，按最短间隔上报）、ACTIVE（按常规间隔上报）、IDLE（只按心跳间隔上报），未启用时为空
+     */
+    private String reportLevel;
 
     // Getters and Setters
     public String getThreadPoolId() {
@@ -152,4 +539,620 @@ public class ThreadPoolInfo implements Serializable {
     public void setCustomTaskCount(long customTaskCount) {
         this.customTaskCount = customTaskCount;
     }
+
+    public double getQueueWaitTimeP50() {
+        return queueWaitTimeP50;
+    }
+
+    public void setQueueWaitTimeP50(double queueWaitTimeP50) {
+        this.queueWaitTimeP50 = queueWaitTimeP50;
+    }
+
+    public double getQueueWaitTimeP90() {
+        return queueWaitTimeP90;
+    }
+
+    public void setQueueWaitTimeP90(double queueWaitTimeP90) {
+        this.queueWaitTimeP90 = queueWaitTimeP90;
+    }
+
+    public double getQueueWaitTimeP99() {
+        return queueWaitTimeP99;
+    }
+
+    public void setQueueWaitTimeP99(double queueWaitTimeP99) {
+        this.queueWaitTimeP99 = queueWaitTimeP99;
+    }
+
+    public double getQueueWaitTimeP999() {
+        return queueWaitTimeP999;
+    }
+
+    public void setQueueWaitTimeP999(double queueWaitTimeP999) {
+        this.queueWaitTimeP999 = queueWaitTimeP999;
+    }
+
+    public double getQueueWaitTimeMax() {
+        return queueWaitTimeMax;
+    }
+
+    public void setQueueWaitTimeMax(double queueWaitTimeMax) {
+        this.queueWaitTimeMax = queueWaitTimeMax;
+    }
+
+    public double getExecutionTimeP50() {
+        return executionTimeP50;
+    }
+
+    public void setExecutionTimeP50(double executionTimeP50) {
+        this.executionTimeP50 = executionTimeP50;
+    }
+
+    public double getExecutionTimeP90() {
+        return executionTimeP90;
+    }
+
+    public void setExecutionTimeP90(double executionTimeP90) {
+        this.executionTimeP90 = executionTimeP90;
+    }
+
+    public double getExecutionTimeP99() {
+        return executionTimeP99;
+    }
+
+    public void setExecutionTimeP99(double executionTimeP99) {
+        this.executionTimeP99 = executionTimeP99;
+    }
+
+    public double getExecutionTimeP999() {
+        return executionTimeP999;
+    }
+
+    public void setExecutionTimeP999(double executionTimeP999) {
+        this.executionTimeP999 = executionTimeP999;
+    }
+
+    public double getExecutionTimeMax() {
+        return executionTimeMax;
+    }
+
+    public void setExecutionTimeMax(double executionTimeMax) {
+        this.executionTimeMax = executionTimeMax;
+    }
+
+    public long getRejectedTaskCount() {
+        return rejectedTaskCount;
+    }
+
+    public void setRejectedTaskCount(long rejectedTaskCount) {
+        this.rejectedTaskCount = rejectedTaskCount;
+    }
+
+    public long getFailedTaskCount() {
+        return failedTaskCount;
+    }
+
+    public void setFailedTaskCount(long failedTaskCount) {
+        this.failedTaskCount = failedTaskCount;
+    }
+
+    public double getSubmitRate() {
+        return submitRate;
+    }
+
+    public void setSubmitRate(double submitRate) {
+        this.submitRate = submitRate;
+    }
+
+    public double getStartRate() {
+        return startRate;
+    }
+
+    public void setStartRate(double startRate) {
+        this.startRate = startRate;
+    }
+
+    public double getCompleteRate() {
+        return completeRate;
+    }
+
+    public void setCompleteRate(double completeRate) {
+        this.completeRate = completeRate;
+    }
+
+    public double getFailRate() {
+        return failRate;
+    }
+
+    public void setFailRate(double failRate) {
+        this.failRate = failRate;
+    }
+
+    public double getRejectRate() {
+        return rejectRate;
+    }
+
+    public void setRejectRate(double rejectRate) {
+        this.rejectRate = rejectRate;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public boolean isAutoTuneEnabled() {
+        return autoTuneEnabled;
+    }
+
+    public void setAutoTuneEnabled(boolean autoTuneEnabled) {
+        this.autoTuneEnabled = autoTuneEnabled;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public String getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    public void setRejectionPolicy(String rejectionPolicy) {
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    public Map<String, Long> getRejectionCounts() {
+        return rejectionCounts;
+    }
+
+    public void setRejectionCounts(Map<String, Long> rejectionCounts) {
+        this.rejectionCounts = rejectionCounts;
+    }
+
+    public boolean isEagerScaleUp() {
+        return eagerScaleUp;
+    }
+
+    public void setEagerScaleUp(boolean eagerScaleUp) {
+        this.eagerScaleUp = eagerScaleUp;
+    }
+
+    public String getPoolType() {
+        return poolType;
+    }
+
+    public void setPoolType(String poolType) {
+        this.poolType = poolType;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getRunningThreads() {
+        return runningThreads;
+    }
+
+    public void setRunningThreads(int runningThreads) {
+        this.runningThreads = runningThreads;
+    }
+
+    public long getStealCount() {
+        return stealCount;
+    }
+
+    public void setStealCount(long stealCount) {
+        this.stealCount = stealCount;
+    }
+
+    public long getQueuedSubmissionCount() {
+        return queuedSubmissionCount;
+    }
+
+    public void setQueuedSubmissionCount(long queuedSubmissionCount) {
+        this.queuedSubmissionCount = queuedSubmissionCount;
+    }
+
+    public long getQueuedTaskCount() {
+        return queuedTaskCount;
+    }
+
+    public void setQueuedTaskCount(long queuedTaskCount) {
+        this.queuedTaskCount = queuedTaskCount;
+    }
+
+    public int getWorkerQueueDepthMax() {
+        return workerQueueDepthMax;
+    }
+
+    public void setWorkerQueueDepthMax(int workerQueueDepthMax) {
+        this.workerQueueDepthMax = workerQueueDepthMax;
+    }
+
+    public double getWorkerQueueDepthAvg() {
+        return workerQueueDepthAvg;
+    }
+
+    public void setWorkerQueueDepthAvg(double workerQueueDepthAvg) {
+        this.workerQueueDepthAvg = workerQueueDepthAvg;
+    }
+
+    public List<Integer> getWorkerQueueDepths() {
+        return workerQueueDepths;
+    }
+
+    public void setWorkerQueueDepths(List<Integer> workerQueueDepths) {
+        this.workerQueueDepths = workerQueueDepths;
+    }
+
+    public double getCpuPercent() {
+        return cpuPercent;
+    }
+
+    public void setCpuPercent(double cpuPercent) {
+        this.cpuPercent = cpuPercent;
+    }
+
+    public double getUserCpuPercent() {
+        return userCpuPercent;
+    }
+
+    public void setUserCpuPercent(double userCpuPercent) {
+        this.userCpuPercent = userCpuPercent;
+    }
+
+    public double getSystemCpuPercent() {
+        return systemCpuPercent;
+    }
+
+    public void setSystemCpuPercent(double systemCpuPercent) {
+        this.systemCpuPercent = systemCpuPercent;
+    }
+
+    public double getAllocationRate() {
+        return allocationRate;
+    }
+
+    public void setAllocationRate(double allocationRate) {
+        this.allocationRate = allocationRate;
+    }
+
+    public List<TaskTypeInfo> getTaskTypes() {
+        return taskTypes;
+    }
+
+    public void setTaskTypes(List<TaskTypeInfo> taskTypes) {
+        this.taskTypes = taskTypes;
+    }
+
+    public boolean isAdmissionControlEnabled() {
+        return admissionControlEnabled;
+    }
+
+    public void setAdmissionControlEnabled(boolean admissionControlEnabled) {
+        this.admissionControlEnabled = admissionControlEnabled;
+    }
+
+    public long getMaxQueueWaitMillis() {
+        return maxQueueWaitMillis;
+    }
+
+    public void setMaxQueueWaitMillis(long maxQueueWaitMillis) {
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+    }
+
+    public long getShedTaskCount() {
+        return shedTaskCount;
+    }
+
+    public void setShedTaskCount(long shedTaskCount) {
+        this.shedTaskCount = shedTaskCount;
+    }
+
+    public long getAdmissionRejectedCount() {
+        return admissionRejectedCount;
+    }
+
+    public void setAdmissionRejectedCount(long admissionRejectedCount) {
+        this.admissionRejectedCount = admissionRejectedCount;
+    }
+
+    public boolean isConcurrencyLimitEnabled() {
+        return concurrencyLimitEnabled;
+    }
+
+    public void setConcurrencyLimitEnabled(boolean concurrencyLimitEnabled) {
+        this.concurrencyLimitEnabled = concurrencyLimitEnabled;
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public void setConcurrencyLimit(int concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    public int getConcurrencyInFlight() {
+        return concurrencyInFlight;
+    }
+
+    public void setConcurrencyInFlight(int concurrencyInFlight) {
+        this.concurrencyInFlight = concurrencyInFlight;
+    }
+
+    public double getConcurrencyLimitRttMillis() {
+        return concurrencyLimitRttMillis;
+    }
+
+    public void setConcurrencyLimitRttMillis(double concurrencyLimitRttMillis) {
+        this.concurrencyLimitRttMillis = concurrencyLimitRttMillis;
+    }
+
+    public double getConcurrencyLimitMinRttMillis() {
+        return concurrencyLimitMinRttMillis;
+    }
+
+    public void setConcurrencyLimitMinRttMillis(double concurrencyLimitMinRttMillis) {
+        this.concurrencyLimitMinRttMillis = concurrencyLimitMinRttMillis;
+    }
+
+    public long getConcurrencyLimitRejectedCount() {
+        return concurrencyLimitRejectedCount;
+    }
+
+    public void setConcurrencyLimitRejectedCount(long concurrencyLimitRejectedCount) {
+        this.concurrencyLimitRejectedCount = concurrencyLimitRejectedCount;
+    }
+
+    public double getStartLatenessP50() {
+        return startLatenessP50;
+    }
+
+    public void setStartLatenessP50(double startLatenessP50) {
+        this.startLatenessP50 = startLatenessP50;
+    }
+
+    public double getStartLatenessP99() {
+        return startLatenessP99;
+    }
+
+    public void setStartLatenessP99(double startLatenessP99) {
+        this.startLatenessP99 = startLatenessP99;
+    }
+
+    public double getStartLatenessMax() {
+        return startLatenessMax;
+    }
+
+    public void setStartLatenessMax(double startLatenessMax) {
+        this.startLatenessMax = startLatenessMax;
+    }
+
+    public double getPeriodDriftP50() {
+        return periodDriftP50;
+    }
+
+    public void setPeriodDriftP50(double periodDriftP50) {
+        this.periodDriftP50 = periodDriftP50;
+    }
+
+    public double getPeriodDriftP99() {
+        return periodDriftP99;
+    }
+
+    public void setPeriodDriftP99(double periodDriftP99) {
+        this.periodDriftP99 = periodDriftP99;
+    }
+
+    public double getPeriodDriftMax() {
+        return periodDriftMax;
+    }
+
+    public void setPeriodDriftMax(double periodDriftMax) {
+        this.periodDriftMax = periodDriftMax;
+    }
+
+    public Map<String, Long> getDelayedQueueBuckets() {
+        return delayedQueueBuckets;
+    }
+
+    public void setDelayedQueueBuckets(Map<String, Long> delayedQueueBuckets) {
+        this.delayedQueueBuckets = delayedQueueBuckets;
+    }
+
+    public int getStuckTaskCount() {
+        return stuckTaskCount;
+    }
+
+    public void setStuckTaskCount(int stuckTaskCount) {
+        this.stuckTaskCount = stuckTaskCount;
+    }
+
+    public long getStuckTaskTotal() {
+        return stuckTaskTotal;
+    }
+
+    public void setStuckTaskTotal(long stuckTaskTotal) {
+        this.stuckTaskTotal = stuckTaskTotal;
+    }
+
+    public List<StuckTaskInfo> getStuckTasks() {
+        return stuckTasks;
+    }
+
+    public void setStuckTasks(List<StuckTaskInfo> stuckTasks) {
+        this.stuckTasks = stuckTasks;
+    }
+
+    public String getDeadlockState() {
+        return deadlockState;
+    }
+
+    public void setDeadlockState(String deadlockState) {
+        this.deadlockState = deadlockState;
+    }
+
+    public String getDeadlockWaitingOn() {
+        return deadlockWaitingOn;
+    }
+
+    public void setDeadlockWaitingOn(String deadlockWaitingOn) {
+        this.deadlockWaitingOn = deadlockWaitingOn;
+    }
+
+    public long getDeadlockTotal() {
+        return deadlockTotal;
+    }
+
+    public void setDeadlockTotal(long deadlockTotal) {
+        this.deadlockTotal = deadlockTotal;
+    }
+
+    public List<StuckTaskInfo> getDeadlockTasks() {
+        return deadlockTasks;
+    }
+
+    public void setDeadlockTasks(List<StuckTaskInfo> deadlockTasks) {
+        this.deadlockTasks = deadlockTasks;
+    }
+
+    public long getWorkerBlockedCount() {
+        return workerBlockedCount;
+    }
+
+    public void setWorkerBlockedCount(long workerBlockedCount) {
+        this.workerBlockedCount = workerBlockedCount;
+    }
+
+    public long getWorkerBlockedTimeMillis() {
+        return workerBlockedTimeMillis;
+    }
+
+    public void setWorkerBlockedTimeMillis(long workerBlockedTimeMillis) {
+        this.workerBlockedTimeMillis = workerBlockedTimeMillis;
+    }
+
+    public double getWorkerBlockedPercent() {
+        return workerBlockedPercent;
+    }
+
+    public void setWorkerBlockedPercent(double workerBlockedPercent) {
+        this.workerBlockedPercent = workerBlockedPercent;
+    }
+
+    public long getWorkerWaitedCount() {
+        return workerWaitedCount;
+    }
+
+    public void setWorkerWaitedCount(long workerWaitedCount) {
+        this.workerWaitedCount = workerWaitedCount;
+    }
+
+    public long getWorkerWaitedTimeMillis() {
+        return workerWaitedTimeMillis;
+    }
+
+    public void setWorkerWaitedTimeMillis(long workerWaitedTimeMillis) {
+        this.workerWaitedTimeMillis = workerWaitedTimeMillis;
+    }
+
+    public double getWorkerWaitedPercent() {
+        return workerWaitedPercent;
+    }
+
+    public void setWorkerWaitedPercent(double workerWaitedPercent) {
+        this.workerWaitedPercent = workerWaitedPercent;
+    }
+
+    public Map<String, Long> getBlockedMonitors() {
+        return blockedMonitors;
+    }
+
+    public void setBlockedMonitors(Map<String, Long> blockedMonitors) {
+        this.blockedMonitors = blockedMonitors;
+    }
+
+    public boolean isIdleReclaimed() {
+        return idleReclaimed;
+    }
+
+    public void setIdleReclaimed(boolean idleReclaimed) {
+        this.idleReclaimed = idleReclaimed;
+    }
+
+    public long getIdleReclaimCount() {
+        return idleReclaimCount;
+    }
+
+    public void setIdleReclaimCount(long idleReclaimCount) {
+        this.idleReclaimCount = idleReclaimCount;
+    }
+
+    public int getIdleReclaimedThreads() {
+        return idleReclaimedThreads;
+    }
+
+    public void setIdleReclaimedThreads(int idleReclaimedThreads) {
+        this.idleReclaimedThreads = idleReclaimedThreads;
+    }
+
+    public double getIdleReclaimedStackMb() {
+        return idleReclaimedStackMb;
+    }
+
+    public void setIdleReclaimedStackMb(double idleReclaimedStackMb) {
+        this.idleReclaimedStackMb = idleReclaimedStackMb;
+    }
+
+    public String getPoolKey() {
+        return poolKey;
+    }
+
+    public void setPoolKey(String poolKey) {
+        this.poolKey = poolKey;
+    }
+
+    public int getWarmUpThreads() {
+        return warmUpThreads;
+    }
+
+    public void setWarmUpThreads(int warmUpThreads) {
+        this.warmUpThreads = warmUpThreads;
+    }
+
+    public int getWarmUpPrestarted() {
+        return warmUpPrestarted;
+    }
+
+    public void setWarmUpPrestarted(int warmUpPrestarted) {
+        this.warmUpPrestarted = warmUpPrestarted;
+    }
+
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    public void setWarmUpMillis(long warmUpMillis) {
+        this.warmUpMillis = warmUpMillis;
+    }
+
+    public String getReportLevel() {
+        return reportLevel;
+    }
+
+    public void setReportLevel(String reportLevel) {
+        this.reportLevel = reportLevel;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.threadpool.agent;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把线程池活动输出为 JFR 自定义事件（见 JfrEvents），便于在同一个录制中对照GC、锁等事件分析线程池停顿
+ * - 只有JFR可用（JDK11+或8u262+）且有录制在运行时才创建事件，否则埋点中只多一次volatile读
+ * - 开始/执行事件只记录排队时间/执行时间超过 jfrThreshold（默认20ms）的任务；提交事件默认关闭，可在录制配置中打开
+ * - 只覆盖经过execute提交的任务，ScheduledThreadPoolExecutor的定时任务只有拒绝事件
+ * 本类不引用jdk.jfr包，JFR不可用时不会加载 JfrEvents
+ */
+final class ThreadPoolJfr {
+
+    static final int DEFAULT_THRESHOLD_MILLIS = 20;
+
+    static final String REASON_ADMISSION = "ADMISSION";
+    static final String REASON_CONCURRENCY_LIMIT = "CONCURRENCY_LIMIT";
+    static final String SOURCE_MODIFY = "MODIFY";
+    static final String SOURCE_AUTO_TUNE = "AUTO_TUNE";
+
+    private static volatile boolean active;
+    private static long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_THRESHOLD_MILLIS);
+
+    private ThreadPoolJfr() {
+    }
+
+    /**
+     * 设置开始/执行事件的阈值（毫秒），须在 init 之前调用
+     */
+    static void setThresholdMillis(int millis) {
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * 检测JFR并注册事件，JFR不可用时跳过
+     */
+    static void init() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+            if (!JfrEvents.register()) {
+                System.out.println("ThreadPoolTool: 当前JVM未启用JFR，不输出线程池JFR事件");
+                return;
+            }
+            System.out.println("ThreadPoolTool: 已注册线程池JFR事件，阈值"
+                    + TimeUnit.NANOSECONDS.toMillis(thresholdNanos) + "ms");
+        } catch (Throwable t) {
+            System.out.println("ThreadPoolTool: JFR不可用，不输出线程池JFR事件: " + t);
+        }
+    }
+
+    static void setActive(boolean running) {
+        active = running;
+    }
+
+    static void onSubmit(ThreadPoolExecutor executor, ThreadPoolMetrics metrics) {
+        if (active) {
+            JfrEvents.submit(metrics, executor.getQueue().size());
+        }
+    }
+
+    static void onStart(MonitoredTask task, long now) {
+        if (active) {
+            JfrEvents.start(task, now - task.submitNanos, thresholdNanos);
+        }
+    }
+
+    static void onComplete(MonitoredTask task, long now, boolean failed) {
+        if (task.jfrEvent != null) {
+            JfrEvents.complete(task, now - task.startNanos, thresholdNanos, failed);
+        }
+    }
+
+    static void onReject(ThreadPoolExecutor executor, ThreadPoolMetrics metrics, Runnable task, String reason) {
+        if (active) {
+            JfrEvents.reject(metrics, task, reason, executor.getQueue().size());
+        }
+    }
+
+    static void onResize(ThreadPoolMetrics metrics, String source, int oldCore, int newCore, int oldMax, int newMax,
+                         int oldQueueCapacity, int newQueueCapacity) {
+        if (active) {
+            JfrEvents.resize(metrics, source, oldCore, newCore, oldMax, newMax, oldQueueCapacity, newQueueCapacity);
+        }
+    }
+
+    /**
+     * 事件中的线程池名称，第一次使用时解析
+     */
+    static String poolName(ThreadPoolMetrics metrics) {
+        String name = metrics.poolName;
+        if (name == null) {
+            ThreadPoolExecutor threadPool = ThreadPoolMonitor.getThreadPoolById(metrics.getPoolId());
+            name = threadPool != null ? ThreadPoolMonitor.nameOf(metrics.getPoolId(), threadPool) : metrics.getPoolId();
+            metrics.poolName = name;
+        }
+        return name;
+    }
+}
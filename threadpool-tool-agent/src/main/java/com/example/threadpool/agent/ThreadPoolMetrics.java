@@ -0,0 +1,361 @@
+package com.example.threadpool.agent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个线程池的Agent侧运行指标，由埋点回调写入、上报线程读取
+ * 计数器使用LongAdder，竞争时分散到多个cell，避免高频提交时集中CAS同一个变量
+ */
+class ThreadPoolMetrics {
+
+    private final String poolId;
+
+    /**
+     * 高频采样记录中代表该线程池的编号，第一次采样时分配，未分配时为-1；由GaugeSampler的锁保护
+     */
+    int sampleSlot = -1;
+
+    /**
+     * 任务排队等待时间（提交到开始执行）
+     */
+    final LogLinearHistogram queueWaitHistogram = new LogLinearHistogram();
+
+    /**
+     * 任务执行时间
+     */
+    final LogLinearHistogram executionHistogram = new LogLinearHistogram();
+
+    final LongAdder submittedCount = new LongAdder();
+    final LongAdder startedCount = new LongAdder();
+    final LongAdder completedCount = new LongAdder();
+    final LongAdder failedCount = new LongAdder();
+    final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * 累计排队等待时间和对应的任务数，供自动调优按周期计算平均排队时间（不消费直方图的周期快照）
+     */
+    final LongAdder queueWaitNanosTotal = new LongAdder();
+    final LongAdder queueWaitCount = new LongAdder();
+
+    /**
+     * 队列不能存放包装对象时（见 MonitoredTask.canWrap）按原始任务记录提交时间，开始执行时取出。可以包装时为null
+     */
+    final SubmitTimes submitTimes;
+
+    /**
+     * 按拒绝策略统计的拒绝次数及处理结果，见 RejectionPolicies
+     */
+    private final Map<String, LongAdder> rejectionStats = new ConcurrentHashMap<>();
+
+    /**
+     * 注册时代码中配置的拒绝策略，切换策略后可恢复
+     */
+    volatile RejectedExecutionHandler originalRejectionHandler;
+
+    /**
+     * 是否启用先扩线程再排队模式，见 EagerScaleUp
+     */
+    volatile boolean eagerScaleUp;
+
+    /**
+     * 自动调优状态，未启用时为null
+     */
+    volatile AutoTuner.State autoTuneState;
+
+    /**
+     * 准入控制配置，未启用时为null
+     */
+    volatile AdmissionControl admissionControl;
+
+    /**
+     * 准入控制丢弃的超时任务数、提前拒绝的任务数
+     */
+    final LongAdder shedCount = new LongAdder();
+    final LongAdder admissionRejectedCount = new LongAdder();
+
+    /**
+     * 任务执行时间的移动平均（纳秒），只在启用准入控制时更新
+     */
+    volatile long serviceTimeEwmaNanos;
+
+    /**
+     * 自适应并发限制，未启用时为null
+     */
+    volatile ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 定时任务统计，只有ScheduledThreadPoolExecutor才有
+     */
+    volatile ScheduledTaskStats scheduledStats;
+
+    /**
+     * 各工作线程当前任务的开始时间及卡住任务检测状态，见 StuckTaskDetector
+     */
+    final WorkerSlots workerSlots = new WorkerSlots();
+    final StuckTaskDetector.State stuckTasks = new StuckTaskDetector.State();
+
+    /**
+     * 线程池死锁/饥饿检测状态，见 PoolDeadlockDetector
+     */
+    final PoolDeadlockDetector.State deadlock = new PoolDeadlockDetector.State();
+
+    /**
+     * 线程池名称，JFR事件第一次使用时解析，见 ThreadPoolJfr
+     */
+    volatile String poolName;
+
+    /**
+     * 空闲回收状态，见 IdleReclaimer
+     */
+    final IdleReclaimer.State idleReclaim = new IdleReclaimer.State();
+
+    /**
+     * 稳定标识和预热状态，见 PoolWarmUp
+     */
+    final PoolWarmUp.State warmUp = new PoolWarmUp.State();
+
+    /**
+     * 自适应上报状态，见 AdaptiveReporting
+     */
+    final AdaptiveReporting.State adaptiveReport = new AdaptiveReporting.State();
+
+    /**
+     * 按任务类型的统计
+     */
+    final TaskTypeStats taskTypes = new TaskTypeStats();
+
+    /**
+     * 工作线程ID，由runWorker埋点维护，见 ThreadCpuAccounting
+     */
+    final Set<Long> workerThreadIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 最近一次CPU时间/内存分配采样结果，只由上报线程写入
+     */
+    volatile ThreadCpuAccounting.Usage resourceUsage;
+
+    /**
+     * 最近一次锁竞争采样结果，只由上报线程写入
+     */
+    volatile ThreadContention.Usage contention;
+
+    /**
+     * 注册时线程池已完成的任务数和活跃线程数，无锁采样时作为Agent计数的基准
+     */
+    private volatile long completedBaseline;
+    private volatile long activeBaseline;
+
+    /**
+     * 上一次计数快照，只由上报线程访问
+     */
+    private Counters lastCounters;
+
+    ThreadPoolMetrics(String poolId, BlockingQueue<Runnable> queue) {
+        this.poolId = poolId;
+        this.submitTimes = MonitoredTask.canWrap(queue) ? null : new SubmitTimes();
+        this.lastCounters = new Counters(System.nanoTime(), 0, 0, 0, 0, 0);
+    }
+
+    String getPoolId() {
+        return poolId;
+    }
+
+    /**
+     * 记录注册时刻的基准值（只在注册时获取一次mainLock）
+     */
+    void captureBaseline(ThreadPoolExecutor executor) {
+        originalRejectionHandler = executor.getRejectedExecutionHandler();
+        activeBaseline = executor.getActiveCount();
+        completedBaseline = executor.getCompletedTaskCount();
+        ThreadCpuAccounting.captureExistingWorkers(executor, this);
+        if (executor instanceof ScheduledThreadPoolExecutor) {
+            scheduledStats = new ScheduledTaskStats();
+        }
+    }
+
+    /**
+     * 无锁推算的已完成任务数
+     */
+    long lockFreeCompletedCount() {
+        return completedBaseline + completedCount.sum();
+    }
+
+    /**
+     * 无锁推算的活跃线程数：已开始减去已结束，再加上注册时正在执行的任务
+     *
+     * @param workerCount 当前工作线程数，作为上限
+     */
+    int lockFreeActiveCount(int workerCount) {
+        long completed = completedCount.sum();
+        long started = startedCount.sum();
+        long active = started - completed + activeBaseline;
+        return (int) Math.max(0, Math.min(active, workerCount));
+    }
+
+    void onSubmit() {
+        submittedCount.increment();
+    }
+
+    void onStart(MonitoredTask task, long now) {
+        startedCount.increment();
+        if (task != null) {
+            task.startNanos = now;
+            recordQueueWait(now - task.submitNanos);
+            if (TaskTypeStats.isEnabled()) {
+                task.taskType = TaskTypeStats.typeOf(task.task);
+            }
+            ThreadPoolJfr.onStart(task, now);
+        }
+    }
+
+    /**
+     * 未包装的任务开始执行，记录了提交时间时统计排队时间
+     */
+    void onStartUnwrapped(Runnable task) {
+        startedCount.increment();
+        long submitNanos = submitTimes != null ? submitTimes.remove(task) : SubmitTimes.NONE;
+        if (submitNanos != SubmitTimes.NONE) {
+            recordQueueWait(System.nanoTime() - submitNanos);
+        }
+    }
+
+    private void recordQueueWait(long wait) {
+        queueWaitHistogram.record(wait);
+        queueWaitNanosTotal.add(wait);
+        queueWaitCount.increment();
+    }
+
+    void onComplete(MonitoredTask task, Runnable original, Throwable error, long now) {
+        completedCount.increment();
+        boolean failed = error != null || isFailedFuture(original);
+        if (failed) {
+            failedCount.increment();
+        }
+        if (task != null && task.limiter != null) {
+            task.limiter.onComplete(now - task.submitNanos, now);
+        }
+        if (task != null) {
+            ThreadPoolJfr.onComplete(task, now, failed);
+        }
+        if (task != null && task.startNanos != 0 && !task.shed) {
+            long execution = now - task.startNanos;
+            if (admissionControl != null) {
+                AdmissionControl.recordServiceTime(this, execution);
+            }
+            executionHistogram.record(execution);
+            if (task.taskType != null) {
+                taskTypes.record(task.taskType, task.startNanos - task.submitNanos, execution, failed);
+            }
+        }
+    }
+
+    void onReject(RejectedExecutionHandler handler) {
+        rejectedCount.increment();
+        countRejection(RejectionPolicies.nameOf(handler));
+    }
+
+    void countRejection(String key) {
+        LongAdder adder = rejectionStats.get(key);
+        if (adder == null) {
+            adder = rejectionStats.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * 拒绝统计快照（累计值）
+     */
+    Map<String, Long> rejectionStatsSnapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        rejectionStats.forEach((key, adder) -> snapshot.put(key, adder.sum()));
+        return snapshot;
+    }
+
+    /**
+     * FutureTask会吞掉任务异常，执行结束后通过get()判断是否失败（此时不会阻塞）
+     */
+    private static boolean isFailedFuture(Runnable task) {
+        if (!(task instanceof Future)) {
+            return false;
+        }
+        Future<?> future = (Future<?>) task;
+        if (!future.isDone() || future.isCancelled()) {
+            return false;
+        }
+        try {
+            future.get();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    /**
+     * 获取自上次调用以来的计数增量与速率
+     */
+    synchronized Counters intervalCounters() {
+        Counters current = new Counters(System.nanoTime(),
+                submittedCount.sum(), startedCount.sum(), completedCount.sum(),
+                failedCount.sum(), rejectedCount.sum());
+        current.computeRates(lastCounters);
+        lastCounters = current;
+        return current;
+    }
+
+    /**
+     * 计数快照，速率单位为每秒
+     */
+    static class Counters {
+        private final long timestampNanos;
+        final long submitted;
+        final long started;
+        final long completed;
+        final long failed;
+        final long rejected;
+        double submitRate;
+        double startRate;
+        double completeRate;
+        double failRate;
+        double rejectRate;
+
+        Counters(long timestampNanos, long submitted, long started, long completed, long failed, long rejected) {
+            this.timestampNanos = timestampNanos;
+            this.submitted = submitted;
+            this.started = started;
+            this.completed = completed;
+            this.failed = failed;
+            this.rejected = rejected;
+        }
+
+        private void computeRates(Counters previous) {
+            long elapsed = timestampNanos - previous.timestampNanos;
+            submitRate = rate(submitted - previous.submitted, elapsed);
+            startRate = rate(started - previous.started, elapsed);
+            completeRate = rate(completed - previous.completed, elapsed);
+            failRate = rate(failed - previous.failed, elapsed);
+            rejectRate = rate(rejected - previous.rejected, elapsed);
+        }
+
+        /**
+         * 换算为每秒速率，保留两位小数
+         */
+        private static double rate(long delta, long elapsedNanos) {
+            if (elapsedNanos <= 0) {
+                return 0;
+            }
+            return Math.round(delta * 1e9 / elapsedNanos * 100) / 100.0;
+        }
+    }
+}
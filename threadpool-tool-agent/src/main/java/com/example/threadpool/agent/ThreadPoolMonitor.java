@@ -1,20 +1,17 @@
 package com.example.threadpool.agent;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * 线程池监控类，负责收集线程池数据并上报
@@ -22,60 +19,152 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class ThreadPoolMonitor {
 
     /**
-     * 全局线程池注册表，用于存储所有被创建的线程池实例
-     * 键为线程池的hashCode，值为线程池实例
+     * 全局线程池注册表，弱引用线程池实例，按实例查找运行指标、按ID（identityHashCode，冲突时加序号后缀）查找实例
+     */
+    private static final ThreadPoolRegistry THREAD_POOL_REGISTRY = new ThreadPoolRegistry();
+
+    /**
+     * 已注册的ForkJoinPool，弱引用，键为线程池ID（与ThreadPoolExecutor相同的分配方式），注册在该Map的锁内进行
+     * ForkJoinPool不经过任务埋点，数量也很少，上报时清理已被回收的项即可
+     */
+    private static final Map<String, WeakReference<ForkJoinPool>> FORK_JOIN_POOLS = new ConcurrentHashMap<>();
+
+    static final String TYPE_THREAD_POOL_EXECUTOR = "THREAD_POOL_EXECUTOR";
+    static final String TYPE_SCHEDULED_THREAD_POOL_EXECUTOR = "SCHEDULED_THREAD_POOL_EXECUTOR";
+    static final String TYPE_FORK_JOIN_POOL = "FORK_JOIN_POOL";
+
+    /**
+     * Agent内部线程池使用的ThreadFactory都定义在Agent包中，自动发现时跳过
      */
-    private static final Map<String, ThreadPoolExecutor> THREAD_POOL_REGISTRY = new ConcurrentHashMap<>();
+    private static final String AGENT_PACKAGE = ThreadPoolMonitor.class.getPackage().getName() + ".";
 
     /**
      * 根据线程池ID获取线程池实例
      * 
      * @param threadPoolId 线程池ID
-     * @return 线程池实例，如果不存在则返回null
+     * @return 线程池实例，如果不存在或已被回收则返回null
      */
     public static ThreadPoolExecutor getThreadPoolById(String threadPoolId) {
-        return THREAD_POOL_REGISTRY.get(threadPoolId);
+        return THREAD_POOL_REGISTRY.getById(threadPoolId);
+    }
+
+    /**
+     * 获取已注册线程池的运行指标，未注册返回null
+     */
+    static ThreadPoolMetrics getMetrics(ThreadPoolExecutor threadPool) {
+        return THREAD_POOL_REGISTRY.getMetrics(threadPool);
+    }
+
+    /**
+     * 设置已被回收的线程池从注册表中清理时的回调
+     */
+    static void setExpungeListener(Consumer<ThreadPoolMetrics> listener) {
+        THREAD_POOL_REGISTRY.setExpungeListener(listener);
+    }
+
+    /**
+     * 遍历所有已注册且未被回收的线程池及其运行指标（不创建迭代器对象）
+     */
+    static void forEachPool(BiConsumer<ThreadPoolExecutor, ThreadPoolMetrics> action) {
+        THREAD_POOL_REGISTRY.forEach(action);
+    }
+
+    /**
+     * 是否注册所有新创建的线程池（构造方法埋点），关闭时只注册Spring Bean
+     */
+    private static volatile boolean discoverAll;
+
+    public static void setDiscoverAll(boolean enabled) {
+        discoverAll = enabled;
     }
 
     /**
-     * 任务执行计数器
+     * ThreadPoolExecutor（含子类）构造完成时由埋点调用
      */
-    private static final Map<String, Long> TASK_COUNT_MAP = new ConcurrentHashMap<>();
+    static void onThreadPoolCreated(ThreadPoolExecutor threadPool) {
+        if (discoverAll && !threadPool.getThreadFactory().getClass().getName().startsWith(AGENT_PACKAGE)) {
+            registerThreadPool(threadPool);
+        }
+    }
+
+    /**
+     * 是否使用无锁采样（不调用需要mainLock的getActiveCount/getTaskCount/getCompletedTaskCount/getPoolSize）
+     */
+    private static volatile boolean lockFreeSnapshot;
+
+    public static void setLockFreeSnapshot(boolean enabled) {
+        lockFreeSnapshot = enabled;
+    }
 
     /**
      * 注册线程池实例
      */
     public static void registerThreadPool(ThreadPoolExecutor threadPool) {
         if (threadPool != null) {
-            String poolId = String.valueOf(threadPool.hashCode());
-            THREAD_POOL_REGISTRY.put(poolId, threadPool);
-            System.out.println("ThreadPoolTool: 注册线程池，ID=" + poolId + ", 当前注册池数量: " + THREAD_POOL_REGISTRY.size());
+            ThreadPoolRegistry.Entry entry = THREAD_POOL_REGISTRY.register(threadPool);
+            if (entry != null) {
+                String poolId = entry.poolId;
+                entry.metrics.captureBaseline(threadPool);
+                PoolWarmUp.onRegistered(threadPool, entry.metrics);
+                System.out.println("ThreadPoolTool: 注册线程池，ID=" + poolId + ", 当前注册池数量: " + THREAD_POOL_REGISTRY.size());
+            }
+        }
+    }
+
+    /**
+     * 注册Spring Bean线程池，Bean名称作为线程池的稳定标识（自动发现时线程池已在构造时注册）
+     */
+    public static void registerThreadPool(ThreadPoolExecutor threadPool, String beanName) {
+        registerThreadPool(threadPool);
+        ThreadPoolMetrics metrics = threadPool != null ? getMetrics(threadPool) : null;
+        if (metrics != null) {
+            PoolWarmUp.onBeanName(metrics, beanName);
+        }
+    }
+
+    /**
+     * 注册ForkJoinPool实例（commonPool在Agent启动时注册）
+     */
+    public static void registerForkJoinPool(ForkJoinPool pool) {
+        if (pool != null) {
+            String poolId;
+            synchronized (FORK_JOIN_POOLS) {
+                for (WeakReference<ForkJoinPool> registered : FORK_JOIN_POOLS.values()) {
+                    if (registered.get() == pool) {
+                        return;
+                    }
+                }
+                poolId = ThreadPoolRegistry.uniqueId(FORK_JOIN_POOLS, String.valueOf(System.identityHashCode(pool)));
+                FORK_JOIN_POOLS.put(poolId, new WeakReference<>(pool));
+            }
+            System.out.println("ThreadPoolTool: 注册ForkJoinPool，ID=" + poolId + ", 并行度=" + pool.getParallelism());
+        }
+    }
+
+    /**
+     * ForkJoinPool（含子类）构造完成时由埋点调用
+     */
+    static void onForkJoinPoolCreated(ForkJoinPool pool) {
+        if (discoverAll) {
+            registerForkJoinPool(pool);
         }
     }
 
    
     /**
-     * 上报所有线程池数据到Web应用
+     * 上报所有线程池数据到Web应用，只负责采集，发送由上报器异步完成
      */
-    public static void reportAllThreadPools(String webAppUrl) {
+    public static void reportAllThreadPools(ThreadPoolReporter reporter) {
         try {
             List<ThreadPoolInfo> threadPools = getAllThreadPools();
             if (threadPools.isEmpty()) {
-                System.out.println("ThreadPoolTool: 没有找到线程池，跳过上报");
+                if (!AdaptiveReporting.isEnabled()) {
+                    System.out.println("ThreadPoolTool: 没有找到线程池，跳过上报");
+                }
                 return;
             }
 
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonData = mapper.writeValueAsString(threadPools);
-
-            try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-                HttpPost httpPost = new HttpPost(webAppUrl);
-                httpPost.setHeader("Content-Type", "application/json");
-                httpPost.setEntity(new StringEntity(jsonData));
-
-                httpClient.execute(httpPost);
-                System.out.println("ThreadPoolTool: 成功上报" + threadPools.size() + "个线程池数据");
-            }
+            reporter.reportThreadPools(threadPools);
         } catch (Exception e) {
             System.err.println("ThreadPoolTool: 上报线程池数据失败: " + e.getMessage());
             e.printStackTrace();
@@ -89,18 +178,38 @@ public class ThreadPoolMonitor {
         List<ThreadPoolInfo> threadPools = new ArrayList<>();
 
         try {
+            int collected = THREAD_POOL_REGISTRY.expungeCollected();
+            if (collected > 0) {
+                System.out.println("ThreadPoolTool: 清理" + collected + "个已被回收的线程池");
+            }
+            // 按活跃程度选出本周期上报的线程池（未启用自适应上报时全部上报）
+            boolean forkJoinDue = AdaptiveReporting.selectDue();
+            ThreadCpuAccounting.sampleAll();
+            ThreadContention.sampleAll();
+
             // 从注册表中获取线程池
-            for (Map.Entry<String, ThreadPoolExecutor> entry : THREAD_POOL_REGISTRY.entrySet()) {
-                String poolId = entry.getKey();
-                ThreadPoolExecutor threadPool = entry.getValue();
+            THREAD_POOL_REGISTRY.forEach((threadPool, metrics) -> {
+                if (AdaptiveReporting.isDue(metrics)) {
+                    threadPools.add(createThreadPoolInfo(metrics.getPoolId(), threadPool, metrics));
+                }
+            });
 
-                if (threadPool != null) {
-                    ThreadPoolInfo info = createThreadPoolInfo(poolId, threadPool);
-                    threadPools.add(info);
+            Iterator<Map.Entry<String, WeakReference<ForkJoinPool>>> iterator = FORK_JOIN_POOLS.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, WeakReference<ForkJoinPool>> entry = iterator.next();
+                ForkJoinPool pool = entry.getValue().get();
+                if (pool == null) {
+                    // 只删除仍是这个已回收引用的项，该ID可能刚被新注册的线程池复用
+                    FORK_JOIN_POOLS.remove(entry.getKey(), entry.getValue());
+                } else if (forkJoinDue) {
+                    threadPools.add(createForkJoinPoolInfo(entry.getKey(), pool));
                 }
             }
 
-            System.out.println("ThreadPoolTool: 获取到" + threadPools.size() + "个线程池信息");
+            // 自适应上报时每 minInterval 采集一次，不逐次打印
+            if (!AdaptiveReporting.isEnabled()) {
+                System.out.println("ThreadPoolTool: 获取到" + threadPools.size() + "个线程池信息");
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -109,16 +218,14 @@ public class ThreadPoolMonitor {
     }
 
     /**
-     * 创建线程池信息对象
+     * 线程池名称：NamedThreadPoolExecutor取poolName，其他取类名，后缀为线程池ID
      */
-    private static ThreadPoolInfo createThreadPoolInfo(String poolId, ThreadPoolExecutor threadPool) {
-        ThreadPoolInfo info = new ThreadPoolInfo();
-        info.setThreadPoolId(poolId);
-        info.setThreadPoolName(threadPool.getClass().getName() + "@" + poolId);
+    static String nameOf(String poolId, ThreadPoolExecutor threadPool) {
+        String poolName = threadPool.getClass().getName() + "@" + poolId;
         if (threadPool instanceof NamedThreadPoolExecutor) {
             System.err.println("[WARN] instanceof 判断对应类型: ");
             String name = ((NamedThreadPoolExecutor) threadPool).getPoolName();
-            info.setThreadPoolName(name + "@" + poolId);
+            poolName = name + "@" + poolId;
         }
         if (threadPool.getClass().getName().contains("NamedThreadPoolExecutor")) {
             try {
@@ -126,28 +233,187 @@ public class ThreadPoolMonitor {
                 Field field = clazz.getDeclaredField("poolName");
                 field.setAccessible(true);
                 String name = (String) field.get(threadPool);
-                info.setThreadPoolName(name + "@" + poolId);
+                poolName = name + "@" + poolId;
             } catch (Exception e) {
                 System.err.println("[WARN] 无法通过反射获取线程池名称: " + e.getMessage());
             }
         }
+        return poolName;
+    }
+
+    /**
+     * 创建线程池信息对象
+     */
+    private static ThreadPoolInfo createThreadPoolInfo(String poolId, ThreadPoolExecutor threadPool,
+                                                       ThreadPoolMetrics metrics) {
+        ThreadPoolInfo info = new ThreadPoolInfo();
+        info.setThreadPoolId(poolId);
+        info.setThreadPoolName(nameOf(poolId, threadPool));
+
+        info.setPoolType(threadPool instanceof ScheduledThreadPoolExecutor
+                ? TYPE_SCHEDULED_THREAD_POOL_EXECUTOR : TYPE_THREAD_POOL_EXECUTOR);
+        fillRuntimeState(info, threadPool, metrics, lockFreeSnapshot);
+
+        info.setRejectionPolicy(RejectionPolicies.nameOf(threadPool.getRejectedExecutionHandler()));
+        if (metrics != null) {
+            info.setAutoTuneEnabled(metrics.autoTuneState != null);
+            info.setRejectionCounts(metrics.rejectionStatsSnapshot());
+            info.setEagerScaleUp(metrics.eagerScaleUp);
+
+            AdmissionControl admissionControl = metrics.admissionControl;
+            info.setAdmissionControlEnabled(admissionControl != null);
+            info.setMaxQueueWaitMillis(admissionControl != null ? admissionControl.maxQueueWaitMillis : 0);
+            info.setShedTaskCount(metrics.shedCount.sum());
+            info.setAdmissionRejectedCount(metrics.admissionRejectedCount.sum());
+
+            ConcurrencyLimiter limiter = metrics.concurrencyLimiter;
+            info.setConcurrencyLimitEnabled(limiter != null);
+            if (limiter != null) {
+                limiter.reconcile(info.getQueueSize() + info.getActiveThreads());
+                info.setConcurrencyLimit(limiter.getLimit());
+                info.setConcurrencyInFlight(limiter.getInFlight());
+                info.setConcurrencyLimitRttMillis(limiter.getRttMillis());
+                info.setConcurrencyLimitMinRttMillis(limiter.getMinRttMillis());
+                info.setConcurrencyLimitRejectedCount(limiter.rejectedCount.sum());
+            }
+
+            ThreadCpuAccounting.Usage usage = metrics.resourceUsage;
+            if (usage != null) {
+                info.setCpuPercent(usage.cpuPercent);
+                info.setUserCpuPercent(usage.userCpuPercent);
+                info.setSystemCpuPercent(usage.systemCpuPercent);
+                info.setAllocationRate(usage.allocationRate);
+            }
+            ThreadContention.fill(info, metrics);
+            IdleReclaimer.fill(info, metrics);
+            PoolWarmUp.fill(info, threadPool, metrics);
+            AdaptiveReporting.fill(info, metrics);
+
+            // Agent侧任务计数及本周期速率
+            ThreadPoolMetrics.Counters counters = metrics.intervalCounters();
+            info.setCustomTaskCount(counters.submitted);
+            info.setRejectedTaskCount(counters.rejected);
+            info.setFailedTaskCount(counters.failed);
+            info.setSubmitRate(counters.submitRate);
+            info.setStartRate(counters.startRate);
+            info.setCompleteRate(counters.completeRate);
+            info.setFailRate(counters.failRate);
+            info.setRejectRate(counters.rejectRate);
+
+            // 排队等待和执行耗时分位（本上报周期内）
+            LogLinearHistogram.Snapshot queueWait = metrics.queueWaitHistogram.intervalSnapshot();
+            info.setQueueWaitTimeP50(queueWait.getMillisAtPercentile(50));
+            info.setQueueWaitTimeP90(queueWait.getMillisAtPercentile(90));
+            info.setQueueWaitTimeP99(queueWait.getMillisAtPercentile(99));
+            info.setQueueWaitTimeP999(queueWait.getMillisAtPercentile(99.9));
+            info.setQueueWaitTimeMax(queueWait.getMaxMillis());
+
+            LogLinearHistogram.Snapshot execution = metrics.executionHistogram.intervalSnapshot();
+            info.setExecutionTimeP50(execution.getMillisAtPercentile(50));
+            info.setExecutionTimeP90(execution.getMillisAtPercentile(90));
+            info.setExecutionTimeP99(execution.getMillisAtPercentile(99));
+            info.setExecutionTimeP999(execution.getMillisAtPercentile(99.9));
+            info.setExecutionTimeMax(execution.getMaxMillis());
+
+            if (TaskTypeStats.isEnabled()) {
+                info.setTaskTypes(metrics.taskTypes.intervalSnapshot());
+            }
+
+            if (StuckTaskDetector.isEnabled()) {
+                StuckTaskDetector.fill(info, metrics);
+                PoolDeadlockDetector.fill(info, metrics);
+            }
+
+            // 定时任务开始延迟、周期漂移分位（本上报周期内）及延迟队列分桶
+            ScheduledTaskStats scheduledStats = metrics.scheduledStats;
+            if (scheduledStats != null) {
+                LogLinearHistogram.Snapshot lateness = scheduledStats.latenessHistogram.intervalSnapshot();
+                info.setStartLatenessP50(lateness.getMillisAtPercentile(50));
+                info.setStartLatenessP99(lateness.getMillisAtPercentile(99));
+                info.setStartLatenessMax(lateness.getMaxMillis());
+
+                LogLinearHistogram.Snapshot drift = scheduledStats.driftHistogram.intervalSnapshot();
+                info.setPeriodDriftP50(drift.getMillisAtPercentile(50));
+                info.setPeriodDriftP99(drift.getMillisAtPercentile(99));
+                info.setPeriodDriftMax(drift.getMaxMillis());
+
+                info.setDelayedQueueBuckets(ScheduledTaskStats.queueBuckets((ScheduledThreadPoolExecutor) threadPool));
+            }
+        }
+
+        return info;
+    }
+
+    /**
+     * 创建ForkJoinPool信息对象：核心/最大线程数填并行度，队列长度为外部提交队列与工作线程队列任务数之和；
+     * 窃取数持续偏低、工作线程队列长度差距大而活跃线程数低于并行度，通常说明有任务在池内阻塞
+     */
+    private static ThreadPoolInfo createForkJoinPoolInfo(String poolId, ForkJoinPool pool) {
+        ThreadPoolInfo info = new ThreadPoolInfo();
+        info.setThreadPoolId(poolId);
+        info.setThreadPoolName((pool == ForkJoinPool.commonPool() ? "ForkJoinPool.commonPool" : pool.getClass().getName())
+                + "@" + poolId);
+        info.setPoolType(TYPE_FORK_JOIN_POOL);
+
+        int parallelism = pool.getParallelism();
+        info.setParallelism(parallelism);
+        info.setCorePoolSize(parallelism);
+        info.setMaximumPoolSize(parallelism);
+        info.setPoolSize(pool.getPoolSize());
+        info.setActiveThreads(pool.getActiveThreadCount());
+        info.setRunningThreads(pool.getRunningThreadCount());
+        info.setStealCount(pool.getStealCount());
 
+        long queuedSubmissions = pool.getQueuedSubmissionCount();
+        long queuedTasks = pool.getQueuedTaskCount();
+        info.setQueuedSubmissionCount(queuedSubmissions);
+        info.setQueuedTaskCount(queuedTasks);
+        info.setQueueSize((int) Math.min(Integer.MAX_VALUE, queuedSubmissions + queuedTasks));
+
+        List<Integer> depths = ForkJoinPoolStats.workerQueueDepths(pool);
+        info.setWorkerQueueDepths(depths);
+        if (!depths.isEmpty()) {
+            long total = 0;
+            for (int depth : depths) {
+                total += depth;
+            }
+            info.setWorkerQueueDepthMax(depths.get(0));
+            info.setWorkerQueueDepthAvg(Math.round(total * 100.0 / depths.size()) / 100.0);
+        }
+        return info;
+    }
+
+    /**
+     * 采集线程数、队列、任务数等运行时数据
+     * 无锁模式下线程数取自ctl状态字，活跃线程数和任务数由Agent计数器推算，避免与addWorker/processWorkerExit争用mainLock
+     */
+    static void fillRuntimeState(ThreadPoolInfo info, ThreadPoolExecutor threadPool,
+                                 ThreadPoolMetrics metrics, boolean lockFree) {
         info.setCorePoolSize(threadPool.getCorePoolSize());
         info.setMaximumPoolSize(threadPool.getMaximumPoolSize());
-        info.setActiveThreads(threadPool.getActiveCount());
-
-        BlockingQueue<Runnable> queue = threadPool.getQueue();
-        info.setQueueSize(queue.size());
-        info.setQueueRemainingCapacity(queue.remainingCapacity());
         info.setKeepAliveTime(threadPool.getKeepAliveTime(java.util.concurrent.TimeUnit.MILLISECONDS));
-        info.setTaskCount(threadPool.getTaskCount());
-        info.setCompletedTaskCount(threadPool.getCompletedTaskCount());
 
-        // 添加自定义计数器的数据
-        Long customTaskCount = TASK_COUNT_MAP.getOrDefault(poolId, 0L);
-        info.setCustomTaskCount(customTaskCount);
+        BlockingQueue<Runnable> queue = threadPool.getQueue();
+        int queueSize = queue.size();
+        info.setQueueSize(queueSize);
+        // 队列容量被调小到当前任务数以下时，LinkedBlockingQueue的剩余容量会是负数
+        info.setQueueRemainingCapacity(Math.max(0, queue.remainingCapacity()));
+        info.setQueueCapacity(QueueCapacity.capacityOf(queue));
 
-        return info;
+        if (lockFree && metrics != null && ThreadPoolCtl.isAvailable()) {
+            int workerCount = ThreadPoolCtl.workerCount(threadPool);
+            int active = metrics.lockFreeActiveCount(workerCount);
+            long completed = metrics.lockFreeCompletedCount();
+            info.setPoolSize(workerCount);
+            info.setActiveThreads(active);
+            info.setCompletedTaskCount(completed);
+            info.setTaskCount(completed + active + queueSize);
+        } else {
+            info.setPoolSize(threadPool.getPoolSize());
+            info.setActiveThreads(threadPool.getActiveCount());
+            info.setTaskCount(threadPool.getTaskCount());
+            info.setCompletedTaskCount(threadPool.getCompletedTaskCount());
+        }
     }
 
     class NamedThreadFactory implements ThreadFactory {
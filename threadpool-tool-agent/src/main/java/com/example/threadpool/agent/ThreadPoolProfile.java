@@ -0,0 +1,104 @@
+package com.example.threadpool.agent;
+
+import java.io.Serializable;
+
+/**
+ * 一次工作线程栈采样的结果，采样结束后发送到Web应用
+ */
+public class ThreadPoolProfile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 线程池ID
+     */
+    private String threadPoolId;
+
+    /**
+     * 采样开始时间（毫秒时间戳）
+     */
+    private long startTime;
+
+    /**
+     * 实际采样时长（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 结束时的采样间隔（毫秒），开销超出预算时会被自动调大
+     */
+    private long intervalMillis;
+
+    /**
+     * 采到的工作线程栈数量（不含空闲线程）
+     */
+    private long sampleCount;
+
+    /**
+     * 工作线程空闲（在getTask中等待任务）的次数
+     */
+    private long idleCount;
+
+    /**
+     * 折叠栈格式（每行“栈帧;栈帧;... 次数”），可直接用flamegraph.pl等工具生成火焰图
+     */
+    private String collapsed;
+
+    // Getters and Setters
+
+    public String getThreadPoolId() {
+        return threadPoolId;
+    }
+
+    public void setThreadPoolId(String threadPoolId) {
+        this.threadPoolId = threadPoolId;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public void setIntervalMillis(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public void setSampleCount(long sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    public long getIdleCount() {
+        return idleCount;
+    }
+
+    public void setIdleCount(long idleCount) {
+        this.idleCount = idleCount;
+    }
+
+    public String getCollapsed() {
+        return collapsed;
+    }
+
+    public void setCollapsed(String collapsed) {
+        this.collapsed = collapsed;
+    }
+}
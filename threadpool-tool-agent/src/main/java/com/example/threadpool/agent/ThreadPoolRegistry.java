@@ -0,0 +1,193 @@
+package com.example.threadpool.agent;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 线程池弱引用注册表，按实例（identityHashCode + ==）查找，不依赖线程池子类的equals/hashCode；线程池ID由注册表分配，不会重复
+ * 注册表只弱引用线程池，线程池被回收后由ReferenceQueue通知，在下次注册或上报时批量清理；
+ * 运行指标不引用线程池本身，所以短生命周期的线程池不会因为被监控而无法回收
+ *
+ * 查找在每次提交和执行任务时都会发生：开放寻址表只做数组读取和引用比较，不加锁也不创建对象；
+ * 注册、清理在锁内进行，扩容和清理时整表重建后替换
+ */
+class ThreadPoolRegistry {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * 注册表中的一项，弱引用线程池，强引用其运行指标
+     */
+    static final class Entry extends WeakReference<ThreadPoolExecutor> {
+        final String poolId;
+        final int hash;
+        final ThreadPoolMetrics metrics;
+
+        Entry(ThreadPoolExecutor threadPool, String poolId, ThreadPoolMetrics metrics,
+              ReferenceQueue<ThreadPoolExecutor> queue) {
+            super(threadPool, queue);
+            this.poolId = poolId;
+            this.hash = System.identityHashCode(threadPool);
+            this.metrics = metrics;
+        }
+    }
+
+    private final ReferenceQueue<ThreadPoolExecutor> collected = new ReferenceQueue<>();
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+
+    /**
+     * 开放寻址表，长度为2的幂，装载因子不超过1/2；写操作由this锁保护
+     */
+    private volatile AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private int size;
+
+    /**
+     * 清理已被回收的线程池时回调其运行指标，可为null
+     */
+    private volatile Consumer<ThreadPoolMetrics> expungeListener;
+
+    void setExpungeListener(Consumer<ThreadPoolMetrics> listener) {
+        expungeListener = listener;
+    }
+
+    /**
+     * 注册线程池，线程池ID为identityHashCode，与其他存活线程池的ID冲突时追加序号后缀（如 12345-1）
+     *
+     * @return 新的注册项，已注册过时返回null
+     */
+    synchronized Entry register(ThreadPoolExecutor threadPool) {
+        expungeCollected();
+        if (find(table, threadPool) != null) {
+            return null;
+        }
+        String poolId = uniqueId(byId, String.valueOf(System.identityHashCode(threadPool)));
+        Entry entry = new Entry(threadPool, poolId, new ThreadPoolMetrics(poolId, threadPool.getQueue()), collected);
+        if ((size + 1) * 2 > table.length()) {
+            table = rebuild(table, table.length() * 2);
+        }
+        insert(table, entry);
+        size++;
+        byId.put(poolId, entry);
+        return entry;
+    }
+
+    /**
+     * 在ID表中找一个未被存活对象占用的ID，已被回收、尚未清理的项可以被替换
+     */
+    static <T extends WeakReference<?>> String uniqueId(Map<String, T> ids, String baseId) {
+        String id = baseId;
+        for (int suffix = 1; ; suffix++) {
+            T existing = ids.get(id);
+            if (existing == null || existing.get() == null) {
+                return id;
+            }
+            id = baseId + "-" + suffix;
+        }
+    }
+
+    /**
+     * 按实例查找运行指标，未注册或已被回收时返回null
+     */
+    ThreadPoolMetrics getMetrics(ThreadPoolExecutor threadPool) {
+        Entry entry = find(table, threadPool);
+        return entry != null ? entry.metrics : null;
+    }
+
+    /**
+     * 按线程池ID查找实例，已被回收时返回null
+     */
+    ThreadPoolExecutor getById(String poolId) {
+        Entry entry = byId.get(poolId);
+        return entry != null ? entry.get() : null;
+    }
+
+    /**
+     * 遍历仍存活的线程池，不创建迭代器和Entry对象
+     */
+    void forEach(BiConsumer<ThreadPoolExecutor, ThreadPoolMetrics> action) {
+        AtomicReferenceArray<Entry> tab = table;
+        for (int i = 0; i < tab.length(); i++) {
+            Entry entry = tab.get(i);
+            if (entry != null) {
+                ThreadPoolExecutor threadPool = entry.get();
+                if (threadPool != null) {
+                    action.accept(threadPool, entry.metrics);
+                }
+            }
+        }
+    }
+
+    /**
+     * 已注册的线程池数量（可能包含已被回收、尚未清理的项）
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 清理已被回收的线程池，返回清理的数量
+     */
+    synchronized int expungeCollected() {
+        int removed = 0;
+        Entry entry;
+        Consumer<ThreadPoolMetrics> listener = expungeListener;
+        while ((entry = (Entry) collected.poll()) != null) {
+            byId.remove(entry.poolId, entry);
+            if (listener != null) {
+                listener.accept(entry.metrics);
+            }
+            removed++;
+        }
+        if (removed > 0) {
+            table = rebuild(table, table.length());
+        }
+        return removed;
+    }
+
+    private AtomicReferenceArray<Entry> rebuild(AtomicReferenceArray<Entry> old, int capacity) {
+        AtomicReferenceArray<Entry> rebuilt = new AtomicReferenceArray<>(capacity);
+        int live = 0;
+        for (int i = 0; i < old.length(); i++) {
+            Entry entry = old.get(i);
+            if (entry != null && entry.get() != null) {
+                insert(rebuilt, entry);
+                live++;
+            }
+        }
+        size = live;
+        return rebuilt;
+    }
+
+    private static void insert(AtomicReferenceArray<Entry> tab, Entry entry) {
+        int mask = tab.length() - 1;
+        int i = mix(entry.hash) & mask;
+        while (tab.get(i) != null) {
+            i = (i + 1) & mask;
+        }
+        tab.set(i, entry);
+    }
+
+    private static Entry find(AtomicReferenceArray<Entry> tab, ThreadPoolExecutor threadPool) {
+        int mask = tab.length() - 1;
+        int hash = System.identityHashCode(threadPool);
+        int i = mix(hash) & mask;
+        Entry entry;
+        while ((entry = tab.get(i)) != null) {
+            if (entry.hash == hash && entry.get() == threadPool) {
+                return entry;
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
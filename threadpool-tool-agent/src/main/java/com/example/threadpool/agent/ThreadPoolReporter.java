@@ -0,0 +1,270 @@
+package com.example.threadpool.agent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池数据上报器，Agent生命周期内只创建一次
+ * - 复用同一个HttpClient和长连接，每次都读取并关闭响应，避免连接泄漏
+ * - 复用ObjectMapper，序列化到可复用的缓冲区
+ * - 在独立的发送线程中异步发送，每类数据（见 Stream）同时在途的请求数各自有上限，超过上限直接丢弃本次数据，
+ *   采样线程不会被慢请求阻塞，一类数据积压也不会挤占其他数据的名额
+ * - 可选二进制差值编码（见 ReportCodec），发送失败、数据被丢弃或Web端返回409时重新发送完整数据
+ */
+public class ThreadPoolReporter {
+
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+    private static final ContentType BINARY = ContentType.APPLICATION_OCTET_STREAM;
+
+    /**
+     * 上报的数据类型，各自有独立的在途请求上限
+     */
+    enum Stream {
+        REPORT, SAMPLES, EVENTS, PROFILES
+    }
+
+    private final String uploadUrl;
+    private final CloseableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadPoolExecutor sender;
+    private final Map<Stream, Semaphore> inFlight = new EnumMap<>(Stream.class);
+    private final BlockingQueue<PooledBuffer> bufferPool;
+    private final ReportCodec codec;
+
+    /**
+     * @param uploadUrl      上报地址
+     * @param connectTimeout 连接超时（毫秒）
+     * @param readTimeout    读取超时（毫秒）
+     * @param maxInFlight    每类数据同时在途（排队+发送中）的最大请求数
+     * @param binary         是否使用二进制差值编码
+     * @param gzip           二进制编码时是否gzip压缩
+     */
+    ThreadPoolReporter(String uploadUrl, int connectTimeout, int readTimeout, int maxInFlight,
+                       boolean binary, boolean gzip) {
+        this.uploadUrl = uploadUrl;
+        this.codec = binary ? new ReportCodec(objectMapper, gzip) : null;
+        for (Stream stream : Stream.values()) {
+            inFlight.put(stream, new Semaphore(maxInFlight));
+        }
+        this.bufferPool = new ArrayBlockingQueue<>(maxInFlight * Stream.values().length);
+
+        connectionManager = new PoolingHttpClientConnectionManager(60, TimeUnit.SECONDS);
+        connectionManager.setMaxTotal(2);
+        connectionManager.setDefaultMaxPerRoute(2);
+        connectionManager.setValidateAfterInactivity(5000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(connectTimeout)
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .build();
+
+        sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "ThreadPool-Reporter");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 根据上报地址推导同一Web应用下的其他接口地址，如 /api/threadpool/upload -> /api/threadpool/events
+     */
+    String resolve(String path) {
+        int index = uploadUrl.lastIndexOf('/');
+        return (index > 0 ? uploadUrl.substring(0, index) : uploadUrl) + path;
+    }
+
+    /**
+     * 异步上报线程池数据
+     *
+     * @return 是否已提交发送；在途请求达到上限时返回false，本次数据被丢弃
+     */
+    boolean reportThreadPools(List<ThreadPoolInfo> threadPools) {
+        String description = "上报" + threadPools.size() + "个线程池数据";
+        if (codec == null) {
+            return postJson(Stream.REPORT, uploadUrl, threadPools, description);
+        }
+
+        PooledBuffer buffer = acquireBuffer();
+        try {
+            codec.encode(threadPools, buffer);
+        } catch (Exception e) {
+            codec.reset();
+            releaseBuffer(buffer);
+            System.err.println("ThreadPoolTool: 编码失败(" + description + "): " + e.getMessage());
+            return false;
+        }
+        // 差值编码的帧必须按顺序送达，任何一帧没有成功送达都要重新发送完整数据
+        boolean submitted = post(Stream.REPORT, uploadUrl + "/binary", BINARY, buffer, description, codec::reset);
+        if (!submitted) {
+            codec.reset();
+        }
+        return submitted;
+    }
+
+    /**
+     * 把对象序列化为JSON后异步POST到指定地址
+     */
+    boolean postJson(Stream stream, String url, Object body, String description) {
+        PooledBuffer buffer = acquireBuffer();
+        try {
+            objectMapper.writeValue(buffer, body);
+        } catch (IOException e) {
+            releaseBuffer(buffer);
+            System.err.println("ThreadPoolTool: 序列化失败(" + description + "): " + e.getMessage());
+            return false;
+        }
+        return post(stream, url, ContentType.APPLICATION_JSON, buffer, description, null);
+    }
+
+    /**
+     * 该类数据是否还有在途名额，先取出待发送数据再上报的调用方据此决定是否取出，避免取出后因名额不足丢弃；
+     * 同一类数据只由一个线程发送时，返回true后紧接着的post一定能取得名额
+     */
+    boolean hasCapacity(Stream stream) {
+        return inFlight.get(stream).availablePermits() > 0;
+    }
+
+    /**
+     * 异步POST缓冲区中的数据，发送完成后缓冲区归还到池中
+     *
+     * @param onFailure 发送失败或响应非2xx时在发送线程中回调，可为null
+     */
+    boolean post(Stream stream, String url, ContentType contentType, PooledBuffer buffer, String description,
+                 Runnable onFailure) {
+        Semaphore permits = inFlight.get(stream);
+        if (!permits.tryAcquire()) {
+            releaseBuffer(buffer);
+            System.err.println("ThreadPoolTool: 在途请求过多，丢弃本次数据(" + description + ")");
+            return false;
+        }
+        try {
+            sender.execute(() -> {
+                try {
+                    if (!send(url, contentType, buffer, description) && onFailure != null) {
+                        onFailure.run();
+                    }
+                } finally {
+                    releaseBuffer(buffer);
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            releaseBuffer(buffer);
+            permits.release();
+            return false;
+        }
+    }
+
+    /**
+     * 同步GET并解析JSON响应，在调用线程中执行，不占用发送线程
+     *
+     * @return 响应JSON，请求失败或响应非2xx时返回null
+     */
+    JsonNode getJson(String url, String description) {
+        try (CloseableHttpResponse response = httpClient.execute(new HttpGet(url))) {
+            int status = response.getStatusLine().getStatusCode();
+            String responseBody = response.getEntity() != null
+                    ? EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8) : "";
+            if (status >= 200 && status < 300) {
+                return objectMapper.readTree(responseBody);
+            }
+            System.err.println("ThreadPoolTool: " + description + "失败，HTTP " + status + ": " + responseBody);
+        } catch (Exception e) {
+            System.err.println("ThreadPoolTool: " + description + "失败: " + e.getMessage());
+        }
+        return null;
+    }
+
+    private boolean send(String url, ContentType contentType, PooledBuffer buffer, String description) {
+        HttpPost httpPost = new HttpPost(url);
+        httpPost.setEntity(new ByteArrayEntity(buffer.array(), 0, buffer.size(), contentType));
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            int status = response.getStatusLine().getStatusCode();
+            String responseBody = response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : "";
+            if (status >= 200 && status < 300) {
+                System.out.println("ThreadPoolTool: 成功" + description);
+                return true;
+            }
+            System.err.println("ThreadPoolTool: " + description + "失败，HTTP " + status + ": " + responseBody);
+        } catch (Exception e) {
+            System.err.println("ThreadPoolTool: " + description + "失败: " + e.getMessage());
+        }
+        return false;
+    }
+
+    PooledBuffer acquireBuffer() {
+        PooledBuffer buffer = bufferPool.poll();
+        return buffer != null ? buffer : new PooledBuffer();
+    }
+
+    void releaseBuffer(PooledBuffer buffer) {
+        // 超大的缓冲区不回收，避免长期占用内存
+        if (buffer.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+            buffer.reset();
+            bufferPool.offer(buffer);
+        }
+    }
+
+    void shutdown() {
+        sender.shutdown();
+        try {
+            sender.awaitTermination(2, TimeUnit.SECONDS);
+            httpClient.close();
+        } catch (Exception e) {
+            // 退出阶段忽略
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+
+    /**
+     * 可复用的字节缓冲区，直接暴露底层数组避免拷贝
+     */
+    static class PooledBuffer extends ByteArrayOutputStream {
+
+        PooledBuffer() {
+            super(8192);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.threadpool.agent;
+
+import java.io.Serializable;
+
+/**
+ * 单个线程池在一个上报周期内的高频采样数据，按列存放（下标相同的元素属于同一次采样）
+ */
+public class ThreadPoolSampleBatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 线程池ID
+     */
+    private String threadPoolId;
+
+    /**
+     * 采样时间（毫秒时间戳）
+     */
+    private long[] timestamps;
+
+    /**
+     * 工作线程数
+     */
+    private int[] poolSize;
+
+    /**
+     * 活跃线程数
+     */
+    private int[] activeThreads;
+
+    /**
+     * 队列长度
+     */
+    private int[] queueSize;
+
+    /**
+     * 已完成任务数
+     */
+    private long[] completedTaskCount;
+
+    // Getters and Setters
+
+    public String getThreadPoolId() {
+        return threadPoolId;
+    }
+
+    public void setThreadPoolId(String threadPoolId) {
+        this.threadPoolId = threadPoolId;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public void setTimestamps(long[] timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    public int[] getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int[] poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int[] getActiveThreads() {
+        return activeThreads;
+    }
+
+    public void setActiveThreads(int[] activeThreads) {
+        this.activeThreads = activeThreads;
+    }
+
+    public int[] getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int[] queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public long[] getCompletedTaskCount() {
+        return completedTaskCount;
+    }
+
+    public void setCompletedTaskCount(long[] completedTaskCount) {
+        this.completedTaskCount = completedTaskCount;
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.threadpool.agent;
+
+import com.example.threadpool.agent.spy.ThreadPoolSpy;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * ThreadPoolExecutor 埋点回调实现，只处理已注册到 ThreadPoolMonitor 的线程池
+ */
+class ThreadPoolTaskHooks implements ThreadPoolSpy.Listener {
+
+    /**
+     * 工作线程正在执行、尚未结束埋点的未包装任务，保证同一次执行只结束一次（见 MonitoredTask.completed）
+     */
+    private static final ThreadLocal<Runnable> RUNNING_UNWRAPPED = new ThreadLocal<>();
+
+    /**
+     * 注册为埋点回调，须在spy类追加到Bootstrap ClassLoader之后调用
+     */
+    static void register() {
+        ThreadPoolSpy.setListener(new ThreadPoolTaskHooks());
+    }
+
+    @Override
+    public void onCreate(ThreadPoolExecutor executor) {
+        ThreadPoolMonitor.onThreadPoolCreated(executor);
+    }
+
+    @Override
+    public void onCreateForkJoinPool(ForkJoinPool pool) {
+        ThreadPoolMonitor.onForkJoinPoolCreated(pool);
+    }
+
+    @Override
+    public Runnable onExecute(ThreadPoolExecutor executor, Runnable task) {
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(executor);
+        if (metrics == null) {
+            return task;
+        }
+        metrics.onSubmit();
+        ThreadPoolJfr.onSubmit(executor, metrics);
+        IdleReclaimer.onSubmit(executor, metrics);
+        Runnable original = unwrap(task);
+        if (metrics.submitTimes != null) {
+            // 队列不能存放包装对象，只记录提交时间
+            metrics.submitTimes.put(original, System.nanoTime());
+            return original;
+        }
+        return MonitoredTask.wrap(original, metrics);
+    }
+
+    @Override
+    public boolean admit(ThreadPoolExecutor executor, Runnable task) {
+        return !(task instanceof MonitoredTask) || ConcurrencyLimiter.admit((MonitoredTask) task);
+    }
+
+    @Override
+    public boolean offer(ThreadPoolExecutor executor, BlockingQueue<Runnable> queue, Runnable task) {
+        if (task instanceof MonitoredTask) {
+            MonitoredTask monitoredTask = (MonitoredTask) task;
+            if (AdmissionControl.rejectEarly(executor, queue, monitoredTask)) {
+                return false;
+            }
+            try {
+                return EagerScaleUp.offer(executor, monitoredTask.metrics, queue, task);
+            } catch (ClassCastException | IllegalArgumentException e) {
+                // 队列子类对元素做了类型检查，不接受包装对象：归还名额后按原始任务入队，任务按未包装处理
+                if (monitoredTask.limiter != null) {
+                    monitoredTask.limiter.release();
+                    monitoredTask.limiter = null;
+                }
+                return queue.offer(monitoredTask.task);
+            }
+        }
+        return queue.offer(task);
+    }
+
+    @Override
+    public void onWorkerStart(ThreadPoolExecutor executor, Thread worker) {
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(executor);
+        if (metrics != null) {
+            ThreadCpuAccounting.onWorkerStart(metrics, worker);
+        }
+    }
+
+    @Override
+    public void onWorkerExit(ThreadPoolExecutor executor, Thread worker) {
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(executor);
+        if (metrics != null) {
+            ThreadCpuAccounting.onWorkerExit(metrics, worker);
+            metrics.workerSlots.onWorkerExit();
+        }
+    }
+
+    @Override
+    public void beforeExecute(ThreadPoolExecutor executor, Thread worker, Runnable task) {
+        if (task instanceof MonitoredTask) {
+            MonitoredTask monitoredTask = (MonitoredTask) task;
+            long now = System.nanoTime();
+            monitoredTask.metrics.onStart(monitoredTask, now);
+            if (StuckTaskDetector.isEnabled()) {
+                monitoredTask.metrics.workerSlots.onStart(worker, monitoredTask.task, now);
+            }
+            AdmissionControl.shedIfExpired(monitoredTask);
+            return;
+        }
+        if (task instanceof PoolWarmUp.WarmUpTask) {
+            return;
+        }
+        // 未包装的任务（ScheduledThreadPoolExecutor的定时任务、队列不能存放包装对象的线程池）只计数和统计排队时间，
+        // 定时任务另外统计开始延迟和周期漂移
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(executor);
+        if (metrics != null) {
+            RUNNING_UNWRAPPED.set(task);
+            metrics.onStartUnwrapped(task);
+            ScheduledTaskStats scheduledStats = metrics.scheduledStats;
+            if (scheduledStats != null || StuckTaskDetector.isEnabled()) {
+                long now = System.nanoTime();
+                if (scheduledStats != null) {
+                    scheduledStats.onStart(task, now);
+                }
+                if (StuckTaskDetector.isEnabled()) {
+                    metrics.workerSlots.onStart(worker, task, now);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void afterExecute(ThreadPoolExecutor executor, Runnable task, Throwable error) {
+        if (task instanceof MonitoredTask) {
+            MonitoredTask monitoredTask = (MonitoredTask) task;
+            if (monitoredTask.completed) {
+                return;
+            }
+            monitoredTask.completed = true;
+            monitoredTask.metrics.onComplete(monitoredTask, monitoredTask.task, error, System.nanoTime());
+            if (StuckTaskDetector.isEnabled()) {
+                monitoredTask.metrics.workerSlots.onComplete();
+            }
+            return;
+        }
+        if (task instanceof PoolWarmUp.WarmUpTask) {
+            return;
+        }
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(executor);
+        if (metrics != null) {
+            if (RUNNING_UNWRAPPED.get() != task) {
+                return;
+            }
+            RUNNING_UNWRAPPED.set(null);
+            metrics.onComplete(null, task, error, 0);
+            if (StuckTaskDetector.isEnabled()) {
+                metrics.workerSlots.onComplete();
+            }
+        }
+    }
+
+    @Override
+    public Runnable onReject(ThreadPoolExecutor executor, Runnable task) {
+        if (!(task instanceof MonitoredTask)) {
+            ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(executor);
+            RejectedExecutionHandler handler = executor.getRejectedExecutionHandler();
+            if (metrics != null && !RejectionPolicies.countsOnRefusal(handler)) {
+                metrics.onReject(handler);
+                ThreadPoolJfr.onReject(executor, metrics, task, RejectionPolicies.nameOf(handler));
+            }
+            return task;
+        }
+        MonitoredTask monitoredTask = (MonitoredTask) task;
+        ThreadPoolMetrics metrics = monitoredTask.metrics;
+        if (monitoredTask.rejectedByAdmission) {
+            // 准入控制提前拒绝的任务不再强制入队
+            metrics.admissionRejectedCount.increment();
+        } else if (!monitoredTask.rejectedByLimiter && metrics.eagerScaleUp && EagerScaleUp.forceOffer(executor, task)) {
+            return null;
+        }
+        // 并发限制拒绝的任务没有占用名额，其他被拒绝的任务归还名额
+        if (monitoredTask.limiter != null) {
+            monitoredTask.limiter.release();
+            monitoredTask.limiter = null;
+        }
+        RejectedExecutionHandler handler = executor.getRejectedExecutionHandler();
+        if ((monitoredTask.rejectedByAdmission || monitoredTask.rejectedByLimiter) && RejectionPolicies.enqueues(handler)) {
+            // 等待队列空位或挤掉最旧任务的策略会让准入控制、并发限制拒绝的任务照常入队，直接拒绝
+            String reason = monitoredTask.rejectedByAdmission ? ThreadPoolJfr.REASON_ADMISSION
+                    : ThreadPoolJfr.REASON_CONCURRENCY_LIMIT;
+            metrics.rejectedCount.increment();
+            metrics.countRejection(reason);
+            ThreadPoolJfr.onReject(executor, metrics, monitoredTask.task, reason);
+            throw RejectionPolicies.rejected(monitoredTask.task, executor,
+                    monitoredTask.rejectedByAdmission ? "预计排队时间超过准入上限" : "并发限制名额不足");
+        }
+        // 可能接收任务的策略（BLOCK）在真正拒绝时自行计数
+        if (!RejectionPolicies.countsOnRefusal(handler)) {
+            metrics.onReject(handler);
+            String reason = monitoredTask.rejectedByAdmission ? ThreadPoolJfr.REASON_ADMISSION
+                    : monitoredTask.rejectedByLimiter ? ThreadPoolJfr.REASON_CONCURRENCY_LIMIT
+                    : RejectionPolicies.nameOf(handler);
+            ThreadPoolJfr.onReject(executor, metrics, monitoredTask.task, reason);
+        }
+        return monitoredTask.task;
+    }
+
+    @Override
+    public Runnable unwrap(Runnable task) {
+        return task instanceof MonitoredTask ? ((MonitoredTask) task).task : task;
+    }
+
+    @Override
+    public Runnable findQueued(ThreadPoolExecutor executor, Runnable task) {
+        if (task instanceof MonitoredTask || ThreadPoolMonitor.getMetrics(executor) == null) {
+            return task;
+        }
+        for (Runnable queued : executor.getQueue()) {
+            if (queued instanceof MonitoredTask && ((MonitoredTask) queued).task == task) {
+                return queued;
+            }
+        }
+        return task;
+    }
+}
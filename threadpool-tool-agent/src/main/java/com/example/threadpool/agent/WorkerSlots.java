@@ -0,0 +1,109 @@
+package com.example.threadpool.agent;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单个线程池各工作线程当前任务的开始时间，供 StuckTaskDetector 扫描
+ * 工作线程第一次执行任务时占用一个槽位（线程退出时归还），之后每个任务只写两次槽位（开始时间、任务引用），不分配对象；
+ * 槽位按每块16个预先分配，工作线程数超过容量时追加新块，已有的块不移动，工作线程写入时不需要感知扩容
+ */
+class WorkerSlots {
+
+    static final int CHUNK_SIZE = 16;
+
+    /**
+     * 当前线程占用的槽位，线程退出时移除
+     */
+    private static final ThreadLocal<Slot> CURRENT = new ThreadLocal<>();
+
+    private volatile Chunk[] chunks = { new Chunk() };
+
+    /**
+     * 任务开始执行（工作线程中）
+     */
+    void onStart(Thread worker, Runnable task, long now) {
+        Slot slot = CURRENT.get();
+        if (slot == null || slot.owner != this) {
+            slot = claim(worker);
+        }
+        slot.chunk.tasks.lazySet(slot.index, task);
+        slot.chunk.startNanos.lazySet(slot.index, now);
+    }
+
+    /**
+     * 任务执行结束（工作线程中）
+     */
+    void onComplete() {
+        Slot slot = CURRENT.get();
+        if (slot != null && slot.owner == this) {
+            slot.chunk.startNanos.lazySet(slot.index, 0);
+            slot.chunk.tasks.lazySet(slot.index, null);
+        }
+    }
+
+    /**
+     * 工作线程退出，归还槽位
+     */
+    void onWorkerExit() {
+        Slot slot = CURRENT.get();
+        if (slot != null && slot.owner == this) {
+            CURRENT.remove();
+            slot.chunk.startNanos.set(slot.index, 0);
+            slot.chunk.tasks.set(slot.index, null);
+            slot.chunk.threads.set(slot.index, null);
+        }
+    }
+
+    private synchronized Slot claim(Thread worker) {
+        Chunk[] current = chunks;
+        for (Chunk chunk : current) {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                if (chunk.threads.get(i) == null) {
+                    return bind(chunk, i, worker);
+                }
+            }
+        }
+        Chunk chunk = new Chunk();
+        Chunk[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = chunk;
+        chunks = grown;
+        return bind(chunk, 0, worker);
+    }
+
+    private Slot bind(Chunk chunk, int index, Thread worker) {
+        chunk.threads.set(index, worker);
+        Slot slot = new Slot(this, chunk, index);
+        CURRENT.set(slot);
+        return slot;
+    }
+
+    /**
+     * 当前所有槽位块，只读
+     */
+    Chunk[] chunks() {
+        return chunks;
+    }
+
+    /**
+     * 槽位块：同一下标对应同一个工作线程，开始时间为0表示空闲
+     */
+    static final class Chunk {
+        final AtomicReferenceArray<Thread> threads = new AtomicReferenceArray<>(CHUNK_SIZE);
+        final AtomicReferenceArray<Runnable> tasks = new AtomicReferenceArray<>(CHUNK_SIZE);
+        final AtomicLongArray startNanos = new AtomicLongArray(CHUNK_SIZE);
+    }
+
+    private static final class Slot {
+        final WorkerSlots owner;
+        final Chunk chunk;
+        final int index;
+
+        Slot(WorkerSlots owner, Chunk chunk, int index) {
+            this.owner = owner;
+            this.chunk = chunk;
+            this.index = index;
+        }
+    }
+}
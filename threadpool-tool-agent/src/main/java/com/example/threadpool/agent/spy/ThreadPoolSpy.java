@@ -0,0 +1,238 @@
+package com.example.threadpool.agent.spy;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池埋点桥接类
+ * 该类会被追加到Bootstrap ClassLoader中，供增强后的ThreadPoolExecutor调用；
+ * 实际逻辑由Agent注册的Listener实现，未注册时所有方法都是空操作
+ */
+public final class ThreadPoolSpy {
+
+    /**
+     * 埋点回调接口，由Agent实现
+     */
+    public interface Listener {
+
+        /**
+         * 线程池（含子类）构造完成
+         */
+        void onCreate(ThreadPoolExecutor executor);
+
+        /**
+         * ForkJoinPool（含子类）构造完成
+         */
+        void onCreateForkJoinPool(ForkJoinPool pool);
+
+        /**
+         * 任务提交，返回值会替换原任务
+         */
+        Runnable onExecute(ThreadPoolExecutor executor, Runnable task);
+
+        /**
+         * 任务提交时的并发限制（onExecute之后），返回false时任务直接交给线程池的拒绝流程
+         */
+        boolean admit(ThreadPoolExecutor executor, Runnable task);
+
+        /**
+         * 代替execute中的workQueue.offer，返回false时线程池会尝试创建新线程
+         */
+        boolean offer(ThreadPoolExecutor executor, BlockingQueue<Runnable> queue, Runnable task);
+
+        /**
+         * 工作线程开始运行（工作线程中，runWorker入口）
+         */
+        void onWorkerStart(ThreadPoolExecutor executor, Thread worker);
+
+        /**
+         * 工作线程退出（工作线程中，runWorker结束时）
+         */
+        void onWorkerExit(ThreadPoolExecutor executor, Thread worker);
+
+        /**
+         * 任务开始执行（工作线程中，调用beforeExecute之前）
+         */
+        void beforeExecute(ThreadPoolExecutor executor, Thread worker, Runnable task);
+
+        /**
+         * 任务执行结束（工作线程中，调用afterExecute之前）；子类的beforeExecute抛出异常时任务不会执行，也会以该异常回调
+         */
+        void afterExecute(ThreadPoolExecutor executor, Runnable task, Throwable error);
+
+        /**
+         * 任务被拒绝，返回值会交给RejectedExecutionHandler，返回null表示任务已被处理，不再调用拒绝策略；
+         * 抛出RejectedExecutionException表示直接拒绝，异常抛给提交方
+         */
+        Runnable onReject(ThreadPoolExecutor executor, Runnable task);
+
+        /**
+         * 还原被Agent包装过的任务
+         */
+        Runnable unwrap(Runnable task);
+
+        /**
+         * 在线程池队列中查找包装了指定任务的对象，用于remove
+         */
+        Runnable findQueued(ThreadPoolExecutor executor, Runnable task);
+    }
+
+    private static volatile Listener listener;
+
+    private ThreadPoolSpy() {
+    }
+
+    public static void setListener(Listener newListener) {
+        listener = newListener;
+    }
+
+    public static void onCreate(ThreadPoolExecutor executor) {
+        Listener current = listener;
+        if (current != null) {
+            try {
+                current.onCreate(executor);
+            } catch (Throwable ignored) {
+                // 埋点异常不能影响线程池创建
+            }
+        }
+    }
+
+    public static void onCreateForkJoinPool(ForkJoinPool pool) {
+        Listener current = listener;
+        if (current != null) {
+            try {
+                current.onCreateForkJoinPool(pool);
+            } catch (Throwable ignored) {
+                // 埋点异常不能影响线程池创建
+            }
+        }
+    }
+
+    public static Runnable onExecute(ThreadPoolExecutor executor, Runnable task) {
+        Listener current = listener;
+        if (current == null || task == null) {
+            return task;
+        }
+        try {
+            return current.onExecute(executor, task);
+        } catch (Throwable e) {
+            return task;
+        }
+    }
+
+    public static boolean admit(ThreadPoolExecutor executor, Runnable task) {
+        Listener current = listener;
+        if (current == null || task == null) {
+            return true;
+        }
+        try {
+            return current.admit(executor, task);
+        } catch (Throwable e) {
+            return true;
+        }
+    }
+
+    public static boolean offer(ThreadPoolExecutor executor, BlockingQueue<Runnable> queue, Runnable task) {
+        Listener current = listener;
+        if (current == null) {
+            return queue.offer(task);
+        }
+        try {
+            return current.offer(executor, queue, task);
+        } catch (Throwable e) {
+            // 回调失败时按原始任务入队，队列不接受包装对象时原样重试仍会失败
+            return queue.offer(current.unwrap(task));
+        }
+    }
+
+    public static void onWorkerStart(ThreadPoolExecutor executor, Thread worker) {
+        Listener current = listener;
+        if (current != null) {
+            try {
+                current.onWorkerStart(executor, worker);
+            } catch (Throwable ignored) {
+                // 埋点异常不能影响工作线程
+            }
+        }
+    }
+
+    public static void onWorkerExit(ThreadPoolExecutor executor, Thread worker) {
+        Listener current = listener;
+        if (current != null) {
+            try {
+                current.onWorkerExit(executor, worker);
+            } catch (Throwable ignored) {
+                // 埋点异常不能影响工作线程
+            }
+        }
+    }
+
+    public static void beforeExecute(ThreadPoolExecutor executor, Thread worker, Runnable task) {
+        Listener current = listener;
+        if (current != null) {
+            try {
+                current.beforeExecute(executor, worker, task);
+            } catch (Throwable ignored) {
+                // 埋点异常不能影响业务任务
+            }
+        }
+    }
+
+    public static void afterExecute(ThreadPoolExecutor executor, Runnable task, Throwable error) {
+        Listener current = listener;
+        if (current != null) {
+            try {
+                current.afterExecute(executor, task, error);
+            } catch (Throwable ignored) {
+                // 埋点异常不能影响业务任务
+            }
+        }
+    }
+
+    public static Runnable onReject(ThreadPoolExecutor executor, Runnable task) {
+        Listener current = listener;
+        if (current == null) {
+            return task;
+        }
+        try {
+            return current.onReject(executor, task);
+        } catch (RejectedExecutionException e) {
+            throw e;
+        } catch (Throwable e) {
+            return current.unwrap(task);
+        }
+    }
+
+    public static Runnable unwrap(Runnable task) {
+        Listener current = listener;
+        return current == null ? task : current.unwrap(task);
+    }
+
+    /**
+     * 还原shutdownNow返回列表中的包装任务
+     */
+    public static List<Runnable> unwrapAll(List<Runnable> tasks) {
+        Listener current = listener;
+        if (current != null && tasks != null) {
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.set(i, current.unwrap(tasks.get(i)));
+            }
+        }
+        return tasks;
+    }
+
+    public static Runnable findQueued(ThreadPoolExecutor executor, Runnable task) {
+        Listener current = listener;
+        if (current == null || task == null) {
+            return task;
+        }
+        try {
+            return current.findQueued(executor, task);
+        } catch (Throwable e) {
+            return task;
+        }
+    }
+}
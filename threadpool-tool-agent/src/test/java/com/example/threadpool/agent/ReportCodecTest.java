@@ -0,0 +1,176 @@
+package com.example.threadpool.agent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 二进制上报编码与Web端 ReportDecoder 的往返一致性
+ *
+ * 两端的编解码器分别实现，共用Web模块中的样例数据帧（report-codec-frames.json）：
+ * 这里校验Agent编码出的每一帧与样例逐字节一致，Web端的 ReportDecoderTest 把同样的字节解码回样例中的线程池数据。
+ * 修改帧格式或 ThreadPoolInfo 字段后，用 -Dreport.fixture.update=true 运行本测试重新生成样例
+ */
+public class ReportCodecTest {
+
+    private static final File FIXTURE = new File("../threadpool-tool-web/src/test/resources/report-codec-frames.json");
+
+    private static final long START = 1700000000000L;
+
+    /**
+     * 多字节varint的会话ID，每开启一个会话加1
+     */
+    private static final long FIRST_SESSION_ID = 0x123456789ABL;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void framesMatchWebDecoderFixture() throws Exception {
+        ArrayNode frames = encodeScenario();
+        if (Boolean.getBoolean("report.fixture.update")) {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(FIXTURE, frames);
+        }
+
+        assertTrue("样例数据帧不存在: " + FIXTURE.getCanonicalPath(), FIXTURE.isFile());
+        JsonNode fixture = objectMapper.readTree(FIXTURE);
+        assertEquals(frames.size(), fixture.size());
+        for (int i = 0; i < frames.size(); i++) {
+            JsonNode expected = fixture.get(i);
+            JsonNode actual = frames.get(i);
+            String description = expected.get("description").asText();
+            assertEquals(description, actual.get("description").asText());
+            assertArrayEquals(description, expected.get("frame").binaryValue(), actual.get("frame").binaryValue());
+            assertEquals(description, expected.get("threadPools"),
+                    objectMapper.readTree(objectMapper.writeValueAsString(actual.get("threadPools"))));
+        }
+    }
+
+    @Test
+    public void deltaFrameOnlyCarriesChangedFields() throws Exception {
+        ReportCodec codec = new ReportCodec(objectMapper, false, () -> FIRST_SESSION_ID);
+        List<ThreadPoolInfo> threadPools = Collections.singletonList(orderPool(4, 10, 1000, 12.5, 2));
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        codec.encode(threadPools, first, START);
+        ByteArrayOutputStream unchanged = new ByteArrayOutputStream();
+        codec.encode(threadPools, unchanged, START + 1000);
+
+        // 头部、会话ID、序号、线程池数、序号+记录标志，之后只剩两个全零位图
+        assertTrue(unchanged.size() < 32);
+        assertTrue(unchanged.size() < first.size() / 10);
+    }
+
+    /**
+     * 依次编码：完整首帧、差值帧、新线程池、改名、线程池过期开启新会话、Web要求重新同步
+     */
+    private ArrayNode encodeScenario() throws Exception {
+        long[] nextSessionId = { FIRST_SESSION_ID };
+        ReportCodec codec = new ReportCodec(objectMapper, false, () -> nextSessionId[0]++);
+        ArrayNode frames = objectMapper.createArrayNode();
+        long tick = TimeUnit.SECONDS.toMillis(10);
+
+        ThreadPoolInfo report = reportPool(2, 0, 50);
+        addFrame(frames, codec, "会话1首帧：字段表和两个线程池的完整数据", START,
+                orderPool(4, 10, 1000, 12.5, 2), report);
+
+        addFrame(frames, codec, "会话1差值帧：数值减少（负差值）和增加，文本字段变更", START + tick,
+                orderPool(1, 0, 1500, 0.75, 3), reportPool(2, 0, 51));
+
+        ThreadPoolInfo batch = batchPool(8, 120, 70000);
+        addFrame(frames, codec, "会话1新线程池加入", START + 2 * tick,
+                orderPool(1, 0, 1500, 0.75, 3), reportPool(3, 5, 60), batch);
+
+        ThreadPoolInfo renamed = orderPool(1, 0, 1600, 0.75, 3);
+        renamed.setThreadPoolName("orderPool-v2");
+        addFrame(frames, codec, "会话1线程池改名，reportPool未上报，batchPool数值不变", START + 3 * tick,
+                renamed, batch);
+
+        long expired = START + 2 * tick + ReportCodec.POOL_EXPIRE_MILLIS + 1;
+        addFrame(frames, codec, "reportPool超过10分钟未上报，开启会话2重新发送完整数据", expired,
+                renamed, batchPool(6, 100, 72000));
+
+        codec.reset();
+        addFrame(frames, codec, "Web端要求重新同步，开启会话3，线程池顺序改变", expired + tick,
+                batchPool(6, 90, 73000), renamed);
+        return frames;
+    }
+
+    private void addFrame(ArrayNode frames, ReportCodec codec, String description, long now,
+                          ThreadPoolInfo... threadPools) throws Exception {
+        List<ThreadPoolInfo> list = Arrays.asList(threadPools);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.encode(list, out, now);
+
+        ObjectNode frame = frames.addObject();
+        frame.put("description", description);
+        frame.put("frame", out.toByteArray());
+        frame.set("threadPools", objectMapper.valueToTree(list));
+    }
+
+    private static ThreadPoolInfo orderPool(int activeThreads, int queueSize, long taskCount,
+                                            double queueWaitTimeP99, long abortCount) {
+        ThreadPoolInfo info = pool("1001", "orderPool", 4, 16);
+        info.setActiveThreads(activeThreads);
+        info.setQueueSize(queueSize);
+        info.setTaskCount(taskCount);
+        info.setQueueWaitTimeP99(queueWaitTimeP99);
+        info.setSubmitRate(33.333);
+        info.setAutoTuneEnabled(true);
+        info.setRejectionPolicy(abortCount > 2 ? "CallerRunsPolicy" : "AbortPolicy");
+        Map<String, Long> rejectionCounts = new TreeMap<>();
+        rejectionCounts.put("AbortPolicy", abortCount);
+        info.setRejectionCounts(rejectionCounts);
+
+        TaskTypeInfo taskType = new TaskTypeInfo();
+        taskType.setTaskType("com.example.OrderTask");
+        taskType.setCompletedCount(taskCount - queueSize);
+        taskType.setExecutionTimeP99(3.25);
+        info.setTaskTypes(Collections.singletonList(taskType));
+        return info;
+    }
+
+    private static ThreadPoolInfo reportPool(int activeThreads, int queueSize, long taskCount) {
+        ThreadPoolInfo info = pool("1002", "报表线程池", 2, 2);
+        info.setActiveThreads(activeThreads);
+        info.setQueueSize(queueSize);
+        info.setTaskCount(taskCount);
+        info.setCpuPercent(-0.5);
+        return info;
+    }
+
+    private static ThreadPoolInfo batchPool(int activeThreads, int queueSize, long taskCount) {
+        ThreadPoolInfo info = pool("1003", "batchPool", 8, 8);
+        info.setPoolType("ForkJoinPool");
+        info.setParallelism(8);
+        info.setActiveThreads(activeThreads);
+        info.setQueuedTaskCount(queueSize);
+        info.setTaskCount(taskCount);
+        info.setWorkerQueueDepths(new ArrayList<>(Arrays.asList(queueSize / 2, 0, queueSize / 2)));
+        return info;
+    }
+
+    private static ThreadPoolInfo pool(String id, String name, int corePoolSize, int maximumPoolSize) {
+        ThreadPoolInfo info = new ThreadPoolInfo();
+        info.setThreadPoolId(id);
+        info.setThreadPoolName(name);
+        info.setCorePoolSize(corePoolSize);
+        info.setMaximumPoolSize(maximumPoolSize);
+        info.setKeepAliveTime(60000);
+        return info;
+    }
+}
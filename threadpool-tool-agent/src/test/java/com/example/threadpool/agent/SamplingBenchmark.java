@@ -0,0 +1,90 @@
+package com.example.threadpool.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 采样方式对线程池提交吞吐量影响的基准测试
+ * 线程池配置为 core=1、max=64、keepAlive=1ms，工作线程频繁创建和回收（addWorker/processWorkerExit 都要获取mainLock），
+ * 采样线程不间断地读取运行时数据，分别对比不采样、加锁采样、无锁采样三种情况下的提交吞吐量
+ *
+ * 位于测试源码目录，不打包进Agent；用法（先 mvn package，挂载Agent以启用埋点计数）:
+ * java -javaagent:target/threadpool-tool-agent-1.0.0.jar=interval=3600 \
+ *      -cp target/test-classes:target/threadpool-tool-agent-1.0.0.jar \
+ *      com.example.threadpool.agent.SamplingBenchmark [提交线程数，默认8] [每轮秒数，默认5]
+ */
+public class SamplingBenchmark {
+
+    private static final Runnable NOOP = () -> { };
+
+    enum Mode { NONE, LOCKING, LOCK_FREE }
+
+    public static void main(String[] args) throws Exception {
+        int producers = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        if (!ThreadPoolCtl.isAvailable()) {
+            System.out.println("[SamplingBenchmark] ctl不可访问，无锁采样将退化为加锁采样");
+        }
+
+        // 预热一轮，结果不计
+        run(Mode.NONE, producers, Math.max(1, seconds / 2));
+
+        System.out.printf("%-10s %18s %18s%n", "mode", "submits/sec", "samples/sec");
+        for (Mode mode : Mode.values()) {
+            long[] result = run(mode, producers, seconds);
+            System.out.printf("%-10s %,18d %,18d%n", mode, result[0] / seconds, result[1] / seconds);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * @return [提交次数, 采样次数]
+     */
+    private static long[] run(Mode mode, int producers, int seconds) throws InterruptedException {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 64, 1, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(256), new ThreadPoolExecutor.CallerRunsPolicy());
+        ThreadPoolMonitor.registerThreadPool(executor);
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(executor);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder submits = new LongAdder();
+        LongAdder samples = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < producers; i++) {
+            threads.add(new Thread(() -> {
+                while (running.get()) {
+                    executor.execute(NOOP);
+                    submits.increment();
+                }
+            }, "benchmark-producer-" + i));
+        }
+        if (mode != Mode.NONE) {
+            boolean lockFree = mode == Mode.LOCK_FREE;
+            threads.add(new Thread(() -> {
+                while (running.get()) {
+                    ThreadPoolMonitor.fillRuntimeState(new ThreadPoolInfo(), executor, metrics, lockFree);
+                    samples.increment();
+                }
+            }, "benchmark-sampler"));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return new long[] { submits.sum(), samples.sum() };
+    }
+}
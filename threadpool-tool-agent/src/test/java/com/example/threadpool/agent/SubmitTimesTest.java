@@ -0,0 +1,46 @@
+package com.example.threadpool.agent;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 未包装任务的提交时间按实例记录
+ */
+public class SubmitTimesTest {
+
+    @Test
+    public void equalTasksKeepTheirOwnTimes() {
+        SubmitTimes times = new SubmitTimes();
+        Runnable first = new EqualTask();
+        Runnable second = new EqualTask();
+
+        times.put(first, 1);
+        times.put(second, 2);
+
+        assertEquals(2, times.remove(second));
+        assertEquals(1, times.remove(first));
+        assertEquals(SubmitTimes.NONE, times.remove(first));
+        assertTrue(times.isEmpty());
+    }
+
+    /**
+     * 所有实例都相等的任务
+     */
+    private static class EqualTask implements Runnable {
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof EqualTask;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.threadpool.agent;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 线程池ID分配：冲突时追加序号，不覆盖存活的线程池
+ */
+public class ThreadPoolRegistryTest {
+
+    @Test
+    public void collidingIdGetsSuffix() {
+        Object live = new Object();
+        Map<String, WeakReference<Object>> ids = new HashMap<>();
+        ids.put("42", new WeakReference<>(live));
+        ids.put("42-1", new WeakReference<>(live));
+
+        assertEquals("42-2", ThreadPoolRegistry.uniqueId(ids, "42"));
+        assertEquals("7", ThreadPoolRegistry.uniqueId(ids, "7"));
+    }
+
+    @Test
+    public void collectedEntryCanBeReplaced() {
+        WeakReference<Object> collected = new WeakReference<>(new Object());
+        collected.clear();
+        Map<String, WeakReference<Object>> ids = new HashMap<>();
+        ids.put("42", collected);
+
+        assertEquals("42", ThreadPoolRegistry.uniqueId(ids, "42"));
+    }
+
+    @Test
+    public void registerKeepsEachPoolReachableById() {
+        ThreadPoolRegistry registry = new ThreadPoolRegistry();
+        ThreadPoolExecutor first = newPool();
+        ThreadPoolExecutor second = newPool();
+
+        ThreadPoolRegistry.Entry firstEntry = registry.register(first);
+        ThreadPoolRegistry.Entry secondEntry = registry.register(second);
+
+        assertNull(registry.register(first));
+        assertNotEquals(firstEntry.poolId, secondEntry.poolId);
+        assertSame(first, registry.getById(firstEntry.poolId));
+        assertSame(second, registry.getById(secondEntry.poolId));
+    }
+
+    private static ThreadPoolExecutor newPool() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+    }
+}
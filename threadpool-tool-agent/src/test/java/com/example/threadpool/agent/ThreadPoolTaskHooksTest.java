@@ -0,0 +1,355 @@
+package com.example.threadpool.agent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 按增强后的 execute/runWorker 的调用顺序驱动埋点回调，验证提交到不同队列的任务
+ */
+public class ThreadPoolTaskHooksTest {
+
+    private final ThreadPoolTaskHooks hooks = new ThreadPoolTaskHooks();
+    private final List<ThreadPoolExecutor> pools = new ArrayList<>();
+
+    @After
+    public void shutdown() {
+        pools.forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    @Test
+    public void priorityQueuePoolKeepsTaskOrder() {
+        ThreadPoolExecutor pool = register(new PriorityBlockingQueue<>());
+
+        List<Integer> executed = runAll(pool, 3, 1, 2);
+
+        assertEquals(Arrays.asList(1, 2, 3), executed);
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(pool);
+        assertEquals(3, metrics.submittedCount.sum());
+        assertEquals(3, metrics.startedCount.sum());
+        assertEquals(3, metrics.completedCount.sum());
+        assertEquals(3, metrics.queueWaitCount.sum());
+        assertTrue(metrics.submitTimes.isEmpty());
+    }
+
+    @Test
+    public void priorityQueueWithComparatorSeesOriginalTasks() {
+        Comparator<Runnable> byPriority = Comparator.comparingInt(task -> ((PriorityTask) task).priority);
+        ThreadPoolExecutor pool = register(new PriorityBlockingQueue<>(16, byPriority));
+
+        List<Integer> executed = runAll(pool, 2, 3, 1);
+
+        assertEquals(Arrays.asList(1, 2, 3), executed);
+        for (Runnable queued : pool.getQueue()) {
+            assertTrue(queued instanceof PriorityTask);
+        }
+    }
+
+    @Test
+    public void fifoQueuePoolWrapsTasks() {
+        ThreadPoolExecutor pool = register(new LinkedBlockingQueue<>());
+        PriorityTask task = new PriorityTask(1, new ArrayList<>());
+
+        Runnable submitted = hooks.onExecute(pool, task);
+
+        assertTrue(submitted instanceof MonitoredTask);
+        assertSame(task, hooks.unwrap(submitted));
+    }
+
+    @Test
+    public void typedQueueFallsBackToOriginalTask() {
+        ThreadPoolExecutor pool = register(new TypedQueue());
+        PriorityTask task = new PriorityTask(1, new ArrayList<>());
+
+        Runnable submitted = hooks.onExecute(pool, task);
+
+        assertTrue(hooks.offer(pool, pool.getQueue(), submitted));
+        assertSame(task, pool.getQueue().peek());
+    }
+
+    @Test
+    public void throwingAfterExecuteCompletesTaskOnce() {
+        ThreadPoolExecutor pool = register(new ThrowingAfterExecutePool(new LinkedBlockingQueue<>()));
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(pool);
+        ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+        config.setEnabled(true);
+        ConcurrencyLimiter.configure(metrics, config);
+
+        Runnable task = hooks.onExecute(pool, new PriorityTask(1, new ArrayList<>()));
+        assertTrue(hooks.admit(pool, task));
+        assertTrue(hooks.offer(pool, pool.getQueue(), task));
+        runLikeJdk9(pool, pool.getQueue().poll());
+
+        assertEquals(1, metrics.completedCount.sum());
+        assertEquals(0, metrics.failedCount.sum());
+        assertEquals(0, metrics.concurrencyLimiter.getInFlight());
+    }
+
+    @Test
+    public void throwingAfterExecuteCompletesUnwrappedTaskOnce() {
+        ThreadPoolExecutor pool = register(new ThrowingAfterExecutePool(new PriorityBlockingQueue<>()));
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(pool);
+
+        Runnable task = hooks.onExecute(pool, new PriorityTask(1, new ArrayList<>()));
+        assertTrue(hooks.offer(pool, pool.getQueue(), task));
+        runLikeJdk9(pool, pool.getQueue().poll());
+
+        assertEquals(1, metrics.completedCount.sum());
+    }
+
+    @Test
+    public void limiterRejectionBypassesBlockPolicy() {
+        ThreadPoolExecutor pool = limitedPool();
+        pool.setRejectedExecutionHandler(new RejectionPolicies.Block(ThreadPoolMonitor.getMetrics(pool), 10));
+
+        assertLimiterRejectsDirectly(pool);
+    }
+
+    @Test
+    public void limiterRejectionBypassesDropOldestPolicy() {
+        ThreadPoolExecutor pool = limitedPool();
+        pool.setRejectedExecutionHandler(new RejectionPolicies.DropOldest(ThreadPoolMonitor.getMetrics(pool)));
+
+        assertLimiterRejectsDirectly(pool);
+    }
+
+    @Test
+    public void admissionRejectionBypassesDropOldestPolicy() {
+        ThreadPoolExecutor pool = register(new LinkedBlockingQueue<>());
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(pool);
+        pool.setRejectedExecutionHandler(new RejectionPolicies.DropOldest(metrics));
+        AdmissionControlConfig config = new AdmissionControlConfig();
+        config.setEnabled(true);
+        config.setMaxQueueWaitMillis(1);
+        AdmissionControl.configure(metrics, config);
+        metrics.serviceTimeEwmaNanos = TimeUnit.SECONDS.toNanos(1);
+        PriorityTask first = new PriorityTask(1, new ArrayList<>());
+        assertTrue(submit(pool, first));
+
+        try {
+            submit(pool, new PriorityTask(2, new ArrayList<>()));
+            fail("预计排队时间超限的任务应被直接拒绝");
+        } catch (RejectedExecutionException expected) {
+            // 预期
+        }
+
+        assertEquals(1, pool.getQueue().size());
+        assertSame(first, hooks.unwrap(pool.getQueue().peek()));
+        assertEquals(1, metrics.admissionRejectedCount.sum());
+        assertEquals(Long.valueOf(1), metrics.rejectionStatsSnapshot().get(ThreadPoolJfr.REASON_ADMISSION));
+    }
+
+    @Test
+    public void dropOldestReleasesLimiterPermit() {
+        ThreadPoolExecutor pool = limitedPool();
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(pool);
+        // 占住唯一的工作线程（测试中execute未增强），被丢弃和新放入的任务都留在队列中
+        CountDownLatch gate = new CountDownLatch(1);
+        pool.execute(() -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(submit(pool, new PriorityTask(1, new ArrayList<>())));
+        assertEquals(1, metrics.concurrencyLimiter.getInFlight());
+
+        PriorityTask newer = new PriorityTask(2, new ArrayList<>());
+        new RejectionPolicies.DropOldest(metrics).rejectedExecution(newer, pool);
+
+        assertEquals(0, metrics.concurrencyLimiter.getInFlight());
+        assertSame(newer, hooks.unwrap(pool.getQueue().peek()));
+        gate.countDown();
+    }
+
+    @Test
+    public void warmUpTaskIsNotCounted() {
+        ThreadPoolExecutor pool = register(new LinkedBlockingQueue<>());
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        Runnable task = new PoolWarmUp.WarmUpTask(() -> { }, succeeded, done);
+
+        hooks.beforeExecute(pool, Thread.currentThread(), task);
+        task.run();
+        hooks.afterExecute(pool, task, null);
+
+        assertEquals(1, succeeded.get());
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(pool);
+        assertEquals(0, metrics.startedCount.sum());
+        assertEquals(0, metrics.completedCount.sum());
+        assertEquals(0, metrics.queueWaitCount.sum());
+    }
+
+    @Test
+    public void transformerCompilesRunWorker() throws Exception {
+        byte[] original;
+        try (InputStream in = ThreadPoolExecutor.class.getResourceAsStream("ThreadPoolExecutor.class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            original = out.toByteArray();
+        }
+
+        assertNotNull(new ThreadPoolExecutorTransformer().transform(null,
+                ThreadPoolExecutorTransformer.TARGET_CLASS, null, null, original));
+    }
+
+    private ThreadPoolExecutor register(BlockingQueue<Runnable> queue) {
+        return register(new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue));
+    }
+
+    private ThreadPoolExecutor register(ThreadPoolExecutor pool) {
+        pools.add(pool);
+        ThreadPoolMonitor.registerThreadPool(pool);
+        return pool;
+    }
+
+    /**
+     * 依次提交任务后由当前线程按队列顺序取出执行，返回执行顺序
+     */
+    private List<Integer> runAll(ThreadPoolExecutor pool, int... priorities) {
+        List<Integer> executed = new ArrayList<>();
+        BlockingQueue<Runnable> queue = pool.getQueue();
+        for (int priority : priorities) {
+            Runnable task = hooks.onExecute(pool, new PriorityTask(priority, executed));
+            assertTrue(hooks.admit(pool, task));
+            assertTrue(hooks.offer(pool, queue, task));
+        }
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            hooks.beforeExecute(pool, Thread.currentThread(), task);
+            task.run();
+            hooks.afterExecute(pool, task, null);
+        }
+        return executed;
+    }
+
+    /**
+     * 并发上限为1的线程池
+     */
+    private ThreadPoolExecutor limitedPool() {
+        ThreadPoolExecutor pool = register(new LinkedBlockingQueue<>());
+        ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+        config.setEnabled(true);
+        config.setInitialLimit(1);
+        config.setMinLimit(1);
+        config.setMaxLimit(1);
+        ConcurrencyLimiter.configure(ThreadPoolMonitor.getMetrics(pool), config);
+        return pool;
+    }
+
+    /**
+     * 按增强后的execute提交（不创建工作线程）：准入后入队，不准入或入队失败时走reject埋点
+     *
+     * @return 是否入队
+     */
+    private boolean submit(ThreadPoolExecutor pool, Runnable original) {
+        Runnable task = hooks.onExecute(pool, original);
+        if (hooks.admit(pool, task) && hooks.offer(pool, pool.getQueue(), task)) {
+            return true;
+        }
+        Runnable rejected = hooks.onReject(pool, task);
+        if (rejected != null) {
+            pool.getRejectedExecutionHandler().rejectedExecution(rejected, pool);
+        }
+        return false;
+    }
+
+    private void assertLimiterRejectsDirectly(ThreadPoolExecutor pool) {
+        ThreadPoolMetrics metrics = ThreadPoolMonitor.getMetrics(pool);
+        PriorityTask first = new PriorityTask(1, new ArrayList<>());
+        assertTrue(submit(pool, first));
+
+        try {
+            submit(pool, new PriorityTask(2, new ArrayList<>()));
+            fail("超出并发上限的任务应被直接拒绝");
+        } catch (RejectedExecutionException expected) {
+            // 预期
+        }
+
+        assertEquals(1, pool.getQueue().size());
+        assertSame(first, hooks.unwrap(pool.getQueue().peek()));
+        assertEquals(1, metrics.concurrencyLimiter.getInFlight());
+        assertEquals(1, metrics.rejectedCount.sum());
+        assertEquals(Long.valueOf(1), metrics.rejectionStatsSnapshot().get(ThreadPoolJfr.REASON_CONCURRENCY_LIMIT));
+    }
+
+    /**
+     * 按JDK 9+ runWorker的调用顺序执行任务：afterExecute(task, null)抛出异常后再以该异常调用一次afterExecute
+     */
+    private void runLikeJdk9(ThreadPoolExecutor pool, Runnable task) {
+        hooks.beforeExecute(pool, Thread.currentThread(), task);
+        try {
+            task.run();
+            hooks.afterExecute(pool, task, null);
+            ((ThrowingAfterExecutePool) pool).afterExecute(hooks.unwrap(task), null);
+        } catch (Throwable e) {
+            hooks.afterExecute(pool, task, e);
+        }
+    }
+
+    private static class ThrowingAfterExecutePool extends ThreadPoolExecutor {
+        ThrowingAfterExecutePool(BlockingQueue<Runnable> queue) {
+            super(1, 1, 0, TimeUnit.MILLISECONDS, queue);
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable error) {
+            throw new IllegalStateException("afterExecute failed");
+        }
+    }
+
+    private static class PriorityTask implements Runnable, Comparable<PriorityTask> {
+        final int priority;
+        private final List<Integer> executed;
+
+        PriorityTask(int priority, List<Integer> executed) {
+            this.priority = priority;
+            this.executed = executed;
+        }
+
+        @Override
+        public void run() {
+            executed.add(priority);
+        }
+
+        @Override
+        public int compareTo(PriorityTask other) {
+            return Integer.compare(priority, other.priority);
+        }
+    }
+
+    /**
+     * 只接受PriorityTask的队列
+     */
+    private static class TypedQueue extends LinkedBlockingQueue<Runnable> {
+        @Override
+        public boolean offer(Runnable task) {
+            return super.offer((PriorityTask) task);
+        }
+    }
+}
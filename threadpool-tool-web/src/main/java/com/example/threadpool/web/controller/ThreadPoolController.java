@@ -1,9 +1,25 @@
 package com.example.threadpool.web.controller;
 
+import com.example.threadpool.web.model.AdmissionControlConfig;
+import com.example.threadpool.web.model.ConcurrencyLimitConfig;
+import com.example.threadpool.web.model.AutoTuneConfig;
+import com.example.threadpool.web.model.RejectionPolicyConfig;
+import com.example.threadpool.web.model.ThreadPoolEvent;
 import com.example.threadpool.web.model.ThreadPoolInfo;
+import com.example.threadpool.web.model.ThreadPoolProfile;
+import com.example.threadpool.web.model.ThreadPoolSample;
+import com.example.threadpool.web.model.ThreadPoolSampleBatch;
+import com.example.threadpool.web.model.WarmUpRecommendation;
 import com.example.threadpool.web.repository.ThreadPoolRepository;
+import com.example.threadpool.web.service.ReportDecoder;
+import com.example.threadpool.web.service.ThreadPoolEventService;
+import com.example.threadpool.web.service.ThreadPoolLoadHistoryService;
+import com.example.threadpool.web.service.ThreadPoolProfileService;
+import com.example.threadpool.web.service.ThreadPoolSampleService;
 import com.example.threadpool.web.service.ThreadPoolService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,6 +34,21 @@ public class ThreadPoolController {
 
     @Autowired
     private ThreadPoolService threadPoolService;
+
+    @Autowired
+    private ReportDecoder reportDecoder;
+
+    @Autowired
+    private ThreadPoolSampleService sampleService;
+
+    @Autowired
+    private ThreadPoolEventService eventService;
+
+    @Autowired
+    private ThreadPoolProfileService profileService;
+
+    @Autowired
+    private ThreadPoolLoadHistoryService loadHistoryService;
     
     /**
      * 获取所有线程池信息
@@ -66,4 +97,231 @@ public class ThreadPoolController {
             return ResponseEntity.badRequest().body("接收线程池数据失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 接收Agent上报的二进制差值编码数据（Agent参数 format=binary）
+     * 返回409表示服务端没有该Agent的会话状态或帧序号不连续，Agent会在下一次上报时重新发送完整数据
+     */
+    @PostMapping(value = "/upload/binary", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<String> receiveBinaryThreadPoolData(@RequestBody byte[] frame) {
+        try {
+            List<ThreadPoolInfo> threadPools = reportDecoder.decode(frame);
+            threadPoolService.updateThreadPools(threadPools);
+            return ResponseEntity.ok("成功接收" + threadPools.size() + "个线程池数据");
+        } catch (ReportDecoder.ResyncRequiredException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("接收线程池数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 接收Agent批量上报的高频采样数据（Agent参数 sampleInterval）
+     */
+    @PostMapping("/samples")
+    public ResponseEntity<String> receiveSamples(@RequestBody List<ThreadPoolSampleBatch> batches) {
+        try {
+            int count = sampleService.saveBatches(batches);
+            return ResponseEntity.ok("成功接收" + count + "条采样数据");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("接收采样数据失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按历史负载获取线程池的预热线程数，由Agent在线程池注册后调用（Agent参数 warmUp）
+     *
+     * @param poolKey 线程池稳定标识
+     */
+    @GetMapping("/warmup")
+    public ResponseEntity<WarmUpRecommendation> getWarmUp(@RequestParam String poolKey) {
+        return ResponseEntity.ok(loadHistoryService.recommendWarmUp(poolKey));
+    }
+
+    /**
+     * 获取指定线程池的高频采样数据
+     *
+     * @param since 起始时间（毫秒时间戳），默认最近5分钟
+     */
+    @GetMapping("/{threadPoolId}/samples")
+    public ResponseEntity<List<ThreadPoolSample>> getSamples(
+            @PathVariable String threadPoolId,
+            @RequestParam(required = false) Long since) {
+        long from = since != null ? since : System.currentTimeMillis() - 5 * 60 * 1000L;
+        return ResponseEntity.ok(sampleService.getSamples(threadPoolId, from));
+    }
+
+    /**
+     * 启用、更新或关闭指定线程池的自动调优，配置会下发到远程JVM
+     */
+    @PutMapping("/{threadPoolId}/autotune")
+    public ResponseEntity<String> updateAutoTune(
+            @PathVariable String threadPoolId,
+            @RequestBody AutoTuneConfig autoTuneConfig) {
+        boolean success = threadPoolService.updateAutoTune(threadPoolId, autoTuneConfig);
+        if (success) {
+            return ResponseEntity.ok("自动调优配置已同步到远程JVM");
+        } else {
+            return ResponseEntity.badRequest().body("自动调优配置失败，可能找不到指定的线程池、配置不合法或远程JVM不可达");
+        }
+    }
+
+    /**
+     * 切换指定线程池的拒绝策略，配置会下发到远程JVM
+     */
+    @PutMapping("/{threadPoolId}/rejection-policy")
+    public ResponseEntity<String> updateRejectionPolicy(
+            @PathVariable String threadPoolId,
+            @RequestBody RejectionPolicyConfig rejectionPolicyConfig) {
+        boolean success = threadPoolService.updateRejectionPolicy(threadPoolId, rejectionPolicyConfig);
+        if (success) {
+            return ResponseEntity.ok("拒绝策略已同步到远程JVM");
+        } else {
+            return ResponseEntity.badRequest().body("切换拒绝策略失败，可能找不到指定的线程池、策略不合法或远程JVM不可达");
+        }
+    }
+
+    /**
+     * 启用、更新或关闭指定线程池的准入控制（排队时间SLO），配置会下发到远程JVM
+     */
+    @PutMapping("/{threadPoolId}/admission-control")
+    public ResponseEntity<String> updateAdmissionControl(
+            @PathVariable String threadPoolId,
+            @RequestBody AdmissionControlConfig admissionControlConfig) {
+        boolean success = threadPoolService.updateAdmissionControl(threadPoolId, admissionControlConfig);
+        if (success) {
+            return ResponseEntity.ok("准入控制配置已同步到远程JVM");
+        } else {
+            return ResponseEntity.badRequest().body("准入控制配置失败，可能找不到指定的线程池、配置不合法或远程JVM不可达");
+        }
+    }
+
+    /**
+     * 启用、更新或关闭指定线程池的自适应并发限制，配置会下发到远程JVM
+     */
+    @PutMapping("/{threadPoolId}/concurrency-limit")
+    public ResponseEntity<String> updateConcurrencyLimit(
+            @PathVariable String threadPoolId,
+            @RequestBody ConcurrencyLimitConfig concurrencyLimitConfig) {
+        boolean success = threadPoolService.updateConcurrencyLimit(threadPoolId, concurrencyLimitConfig);
+        if (success) {
+            return ResponseEntity.ok("并发限制配置已同步到远程JVM");
+        } else {
+            return ResponseEntity.badRequest().body("并发限制配置失败，可能找不到指定的线程池、配置不合法或远程JVM不可达");
+        }
+    }
+
+    /**
+     * 设置指定线程池的卡住任务阈值（毫秒），0恢复Agent的默认阈值
+     */
+    @PutMapping("/{threadPoolId}/stuck-task-threshold")
+    public ResponseEntity<String> updateStuckTaskThreshold(
+            @PathVariable String threadPoolId,
+            @RequestParam long thresholdMillis) {
+        boolean success = threadPoolService.updateStuckTaskThreshold(threadPoolId, thresholdMillis);
+        if (success) {
+            return ResponseEntity.ok("卡住任务阈值已同步到远程JVM");
+        } else {
+            return ResponseEntity.badRequest().body("设置卡住任务阈值失败，可能找不到指定的线程池、Agent未启用检测或远程JVM不可达");
+        }
+    }
+
+    /**
+     * 中断指定线程池当前卡住的任务（Thread.interrupt）
+     */
+    @PostMapping("/{threadPoolId}/stuck-tasks/interrupt")
+    public ResponseEntity<String> interruptStuckTasks(@PathVariable String threadPoolId) {
+        boolean success = threadPoolService.interruptStuckTasks(threadPoolId);
+        if (success) {
+            return ResponseEntity.ok("已请求远程JVM中断卡住的任务");
+        } else {
+            return ResponseEntity.badRequest().body("中断卡住任务失败，可能找不到指定的线程池或远程JVM不可达");
+        }
+    }
+
+    /**
+     * 启用或关闭指定线程池的先扩线程再排队模式
+     */
+    @PutMapping("/{threadPoolId}/eager-scale-up")
+    public ResponseEntity<String> updateEagerScaleUp(
+            @PathVariable String threadPoolId,
+            @RequestParam boolean enabled) {
+        boolean success = threadPoolService.updateEagerScaleUp(threadPoolId, enabled);
+        if (success) {
+            return ResponseEntity.ok(enabled ? "已启用先扩线程再排队模式" : "已恢复先排队再扩线程模式");
+        } else {
+            return ResponseEntity.badRequest().body("切换执行模式失败，可能找不到指定的线程池或远程JVM不可达");
+        }
+    }
+
+    /**
+     * 接收Agent上报的线程池事件
+     */
+    @PostMapping("/events")
+    public ResponseEntity<String> receiveEvents(@RequestBody List<ThreadPoolEvent> events) {
+        try {
+            eventService.saveEvents(events);
+            return ResponseEntity.ok("成功接收" + events.size() + "个线程池事件");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("接收线程池事件失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取指定线程池最近的事件
+     */
+    @GetMapping("/{threadPoolId}/events")
+    public ResponseEntity<List<ThreadPoolEvent>> getEvents(@PathVariable String threadPoolId) {
+        return ResponseEntity.ok(eventService.getRecentEvents(threadPoolId));
+    }
+
+    /**
+     * 对指定线程池的工作线程做栈采样，采样在远程JVM中异步进行，结束后结果由Agent上报
+     *
+     * @param durationMs 采样时长（毫秒），默认10秒，最长60秒
+     * @param intervalMs 采样间隔（毫秒），默认20ms，最小10ms
+     */
+    @PostMapping("/{threadPoolId}/profile")
+    public ResponseEntity<String> startProfile(
+            @PathVariable String threadPoolId,
+            @RequestParam(defaultValue = "0") long durationMs,
+            @RequestParam(defaultValue = "0") long intervalMs) {
+        boolean success = threadPoolService.startProfile(threadPoolId, durationMs, intervalMs);
+        if (success) {
+            return ResponseEntity.accepted().body("已开始栈采样，结束后结果自动上报");
+        } else {
+            return ResponseEntity.badRequest().body("启动栈采样失败，可能找不到指定的线程池、已有采样在进行或远程JVM不可达");
+        }
+    }
+
+    /**
+     * 接收Agent上报的栈采样结果
+     */
+    @PostMapping("/profiles")
+    public ResponseEntity<String> receiveProfile(@RequestBody ThreadPoolProfile profile) {
+        try {
+            ThreadPoolProfile saved = profileService.saveProfile(profile);
+            return ResponseEntity.ok("成功接收栈采样结果，ID=" + saved.getId());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("接收栈采样结果失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取指定线程池最近的栈采样记录（不含采样数据）
+     */
+    @GetMapping("/{threadPoolId}/profiles")
+    public ResponseEntity<List<ThreadPoolProfile>> getProfiles(@PathVariable String threadPoolId) {
+        return ResponseEntity.ok(profileService.getRecentProfiles(threadPoolId));
+    }
+
+    /**
+     * 以折叠栈格式返回栈采样数据，可直接用flamegraph.pl等工具生成火焰图
+     */
+    @GetMapping(value = "/profiles/{profileId}/collapsed", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getCollapsedStacks(@PathVariable Long profileId) {
+        return profileService.getProfile(profileId)
+                .map(profile -> ResponseEntity.ok(profile.getCollapsed()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import java.io.Serializable;
+
+/**
+ * 按排队时间SLO的准入控制配置，原样下发给Agent
+ */
+@Data
+public class AdmissionControlConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 是否启用准入控制
+     */
+    private boolean enabled;
+
+    /**
+     * 排队等待时间上限（毫秒），出队时已超过的任务不再执行
+     */
+    private long maxQueueWaitMillis = 1000;
+
+    /**
+     * 预计排队时间超过上限时是否在提交时提前拒绝
+     */
+    private boolean rejectEarly = true;
+
+    /**
+     * 丢弃超时任务的方式: CANCEL（取消Future任务）、HANDLER（交给 shedCallback 指定的回调）
+     */
+    private String shedAction = "CANCEL";
+
+    /**
+     * HANDLER 时的丢弃回调类名（应用中实现 Consumer&lt;Runnable&gt; 的类）
+     */
+    private String shedCallback;
+}
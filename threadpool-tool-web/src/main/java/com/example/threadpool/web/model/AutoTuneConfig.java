@@ -0,0 +1,58 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import java.io.Serializable;
+
+/**
+ * 线程池自动调优配置，原样下发给Agent
+ */
+@Data
+public class AutoTuneConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 是否启用自动调优
+     */
+    private boolean enabled;
+
+    /**
+     * 核心线程数下限
+     */
+    private int minPoolSize = 1;
+
+    /**
+     * 核心线程数上限，不大于0时取启用时的最大线程数
+     */
+    private int maxPoolSize;
+
+    /**
+     * 目标平均排队等待时间（毫秒），超过时扩容
+     */
+    private double targetQueueWaitMillis = 50;
+
+    /**
+     * 队列长度阈值，超过时扩容
+     */
+    private int queueSizeThreshold = 10;
+
+    /**
+     * 系统CPU使用率阈值（0~1），达到后不再扩容
+     */
+    private double cpuThreshold = 0.85;
+
+    /**
+     * 连续多少个调优周期过载才扩容
+     */
+    private int growTicks = 2;
+
+    /**
+     * 连续多少个调优周期空闲才缩容
+     */
+    private int shrinkTicks = 10;
+
+    /**
+     * 两次调整之间的最小间隔（毫秒）
+     */
+    private long cooldownMillis = 5000;
+}
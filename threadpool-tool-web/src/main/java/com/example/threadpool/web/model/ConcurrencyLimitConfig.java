@@ -0,0 +1,63 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import java.io.Serializable;
+
+/**
+ * 自适应并发限制配置，原样下发给Agent
+ */
+@Data
+public class ConcurrencyLimitConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 是否启用并发限制
+     */
+    private boolean enabled;
+
+    /**
+     * 调整算法: GRADIENT、AIMD
+     */
+    private String algorithm = "GRADIENT";
+
+    /**
+     * 初始并发上限（已提交未完成的任务数）
+     */
+    private int initialLimit = 20;
+
+    /**
+     * 并发上限的下限
+     */
+    private int minLimit = 1;
+
+    /**
+     * 并发上限的上限
+     */
+    private int maxLimit = 200;
+
+    /**
+     * GRADIENT：窗口RTT超过最小RTT的多少倍才开始收缩
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * AIMD：窗口平均RTT（毫秒）超过该值时乘性减小
+     */
+    private long rttThresholdMillis;
+
+    /**
+     * AIMD：乘性减小的比例
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * 超出并发上限的任务的处理方式: REJECT（交给拒绝策略）、BLOCK（提交线程等待）
+     */
+    private String policy = "REJECT";
+
+    /**
+     * BLOCK：提交线程最多等待的毫秒数
+     */
+    private long timeoutMillis = 1000;
+}
@@ -0,0 +1,43 @@
+package com.example.threadpool.web.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Map&lt;String, Long&gt; 与JSON字符串之间的转换，用于把统计类字段存到单个列中
+ */
+@Converter
+public class LongMapJsonConverter implements AttributeConverter<Map<String, Long>, String> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Long>> TYPE = new TypeReference<Map<String, Long>>() { };
+
+    @Override
+    public String convertToDatabaseColumn(Map<String, Long> attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(attribute);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法序列化为JSON: " + attribute, e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> convertToEntityAttribute(String dbData) {
+        if (dbData == null || dbData.isEmpty()) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readValue(dbData, TYPE);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法解析JSON: " + dbData, e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import java.io.Serializable;
+
+/**
+ * 拒绝策略配置，原样下发给Agent
+ */
+@Data
+public class RejectionPolicyConfig implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 策略名称: ABORT、CALLER_RUNS、DISCARD、DISCARD_OLDEST、ORIGINAL、OVERFLOW、BLOCK、DROP_OLDEST
+     */
+    private String policy;
+
+    /**
+     * BLOCK策略的最长阻塞时间（毫秒）
+     */
+    private long timeoutMillis = 1000;
+
+    /**
+     * OVERFLOW策略溢出线程池的最大线程数
+     */
+    private int spilloverMaxThreads = 4;
+
+    /**
+     * OVERFLOW策略溢出线程池的队列容量
+     */
+    private int spilloverQueueCapacity = 100;
+}
@@ -0,0 +1,38 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import java.io.Serializable;
+
+/**
+ * 运行时间超过阈值的任务，随线程池数据上报
+ */
+@Data
+public class StuckTaskInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 工作线程名称
+     */
+    private String threadName;
+
+    /**
+     * 第一次标记时的线程状态
+     */
+    private String threadState;
+
+    /**
+     * 任务类型（任务类名，FutureTask等包装会被展开）
+     */
+    private String taskType;
+
+    /**
+     * 已运行时间（毫秒）
+     */
+    private long runningMillis;
+
+    /**
+     * 第一次标记时的工作线程栈（最多32帧）
+     */
+    private String stackTrace;
+}
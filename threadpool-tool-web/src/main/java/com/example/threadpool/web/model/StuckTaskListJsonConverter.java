@@ -0,0 +1,43 @@
+package com.example.threadpool.web.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * List&lt;StuckTaskInfo&gt; 与JSON字符串之间的转换，用于把卡住任务明细存到单个列中
+ */
+@Converter
+public class StuckTaskListJsonConverter implements AttributeConverter<List<StuckTaskInfo>, String> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<StuckTaskInfo>> TYPE = new TypeReference<List<StuckTaskInfo>>() { };
+
+    @Override
+    public String convertToDatabaseColumn(List<StuckTaskInfo> attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(attribute);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法序列化为JSON: " + attribute, e);
+        }
+    }
+
+    @Override
+    public List<StuckTaskInfo> convertToEntityAttribute(String dbData) {
+        if (dbData == null || dbData.isEmpty()) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readValue(dbData, TYPE);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法解析JSON: " + dbData, e);
+        }
+    }
+}
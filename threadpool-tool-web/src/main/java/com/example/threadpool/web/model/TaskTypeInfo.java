@@ -0,0 +1,78 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import java.io.Serializable;
+
+/**
+ * 线程池中某一类任务在一个上报周期内的统计，随线程池数据上报
+ */
+@Data
+public class TaskTypeInfo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 任务类型（任务类名，FutureTask等包装会被展开）
+     */
+    private String taskType;
+
+    /**
+     * 本周期完成的任务数
+     */
+    private long completedCount;
+
+    /**
+     * 本周期失败的任务数
+     */
+    private long failedCount;
+
+    /**
+     * 本周期完成速率（每秒）
+     */
+    private double completeRate;
+
+    /**
+     * 本周期执行耗时合计（毫秒）
+     */
+    private double executionTimeTotal;
+
+    /**
+     * 本周期平均占用的线程数（执行耗时合计/周期时长）
+     */
+    private double busyThreads;
+
+    /**
+     * 占该线程池本周期执行耗时合计的百分比
+     */
+    private double busyPercent;
+
+    /**
+     * 排队等待时间P50（毫秒）
+     */
+    private double queueWaitTimeP50;
+
+    /**
+     * 排队等待时间P99（毫秒）
+     */
+    private double queueWaitTimeP99;
+
+    /**
+     * 排队等待时间最大值（毫秒）
+     */
+    private double queueWaitTimeMax;
+
+    /**
+     * 执行时间P50（毫秒）
+     */
+    private double executionTimeP50;
+
+    /**
+     * 执行时间P99（毫秒）
+     */
+    private double executionTimeP99;
+
+    /**
+     * 执行时间最大值（毫秒）
+     */
+    private double executionTimeMax;
+}
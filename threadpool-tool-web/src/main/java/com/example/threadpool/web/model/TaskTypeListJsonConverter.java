@@ -0,0 +1,43 @@
+package com.example.threadpool.web.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * List&lt;TaskTypeInfo&gt; 与JSON字符串之间的转换，用于把按任务类型的统计存到单个列中
+ */
+@Converter
+public class TaskTypeListJsonConverter implements AttributeConverter<List<TaskTypeInfo>, String> {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<TaskTypeInfo>> TYPE = new TypeReference<List<TaskTypeInfo>>() { };
+
+    @Override
+    public String convertToDatabaseColumn(List<TaskTypeInfo> attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsString(attribute);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法序列化为JSON: " + attribute, e);
+        }
+    }
+
+    @Override
+    public List<TaskTypeInfo> convertToEntityAttribute(String dbData) {
+        if (dbData == null || dbData.isEmpty()) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readValue(dbData, TYPE);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("无法解析JSON: " + dbData, e);
+        }
+    }
+}
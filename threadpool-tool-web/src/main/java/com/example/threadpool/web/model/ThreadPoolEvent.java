@@ -0,0 +1,47 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * Agent上报的线程池事件（如自动调优决策）
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_event_pool_time", columnList = "threadPoolId,timestamp"))
+public class ThreadPoolEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 线程池ID
+     */
+    private String threadPoolId;
+
+    /**
+     * 事件类型
+     */
+    private String type;
+
+    /**
+     * 事件发生时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    /**
+     * 事件描述
+     */
+    @Column(length = 2000)
+    private String message;
+}
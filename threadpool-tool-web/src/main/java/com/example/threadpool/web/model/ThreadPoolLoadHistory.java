@@ -0,0 +1,55 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * 线程池按小时汇总的负载历史，按稳定标识 poolKey 累计，重启后线程池ID变化不影响汇总
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_load_history_key_hour", columnList = "poolKey,hourTimestamp"))
+public class ThreadPoolLoadHistory implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 线程池稳定标识
+     */
+    private String poolKey;
+
+    /**
+     * 所在小时的起始时间（毫秒时间戳）
+     */
+    private long hourTimestamp;
+
+    /**
+     * 本小时计入的采样周期数（每10秒一个，见 ThreadPoolLoadHistoryService）
+     */
+    private long reports;
+
+    /**
+     * 各采样周期的工作线程数之和，除以采样周期数为本小时按时间加权的平均工作线程数
+     */
+    private long poolSizeSum;
+
+    /**
+     * 活跃线程数之和
+     */
+    private long activeThreadsSum;
+
+    /**
+     * 本小时的最大活跃线程数
+     */
+    private int maxActiveThreads;
+}
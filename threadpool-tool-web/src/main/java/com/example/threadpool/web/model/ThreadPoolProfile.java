@@ -0,0 +1,64 @@
+package com.example.threadpool.web.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * Agent上报的工作线程栈采样结果
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_profile_pool_time", columnList = "threadPoolId,startTime"))
+public class ThreadPoolProfile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 线程池ID
+     */
+    private String threadPoolId;
+
+    /**
+     * 采样开始时间（毫秒时间戳）
+     */
+    private long startTime;
+
+    /**
+     * 实际采样时长（毫秒）
+     */
+    private long durationMillis;
+
+    /**
+     * 结束时的采样间隔（毫秒）
+     */
+    private long intervalMillis;
+
+    /**
+     * 采到的工作线程栈数量（不含空闲线程）
+     */
+    private long sampleCount;
+
+    /**
+     * 工作线程空闲的次数
+     */
+    private long idleCount;
+
+    /**
+     * 折叠栈格式的采样结果，只接收不随列表返回，通过 /profiles/{profileId}/collapsed 单独获取
+     */
+    @Lob
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String collapsed;
+}
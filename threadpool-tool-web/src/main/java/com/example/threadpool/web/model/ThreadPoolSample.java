@@ -0,0 +1,55 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.io.Serializable;
+
+/**
+ * 线程池高频采样记录，由Agent按采样间隔采集、每个上报周期批量上报
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_sample_pool_time", columnList = "threadPoolId,timestamp"))
+public class ThreadPoolSample implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 线程池ID
+     */
+    private String threadPoolId;
+
+    /**
+     * 采样时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    /**
+     * 工作线程数
+     */
+    private int poolSize;
+
+    /**
+     * 活跃线程数
+     */
+    private int activeThreads;
+
+    /**
+     * 队列长度
+     */
+    private int queueSize;
+
+    /**
+     * 已完成任务数
+     */
+    private long completedTaskCount;
+}
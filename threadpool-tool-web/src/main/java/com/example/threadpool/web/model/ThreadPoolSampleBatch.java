@@ -0,0 +1,25 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+import java.io.Serializable;
+
+/**
+ * Agent上报的单个线程池采样批次，按列存放（下标相同的元素属于同一次采样）
+ */
+@Data
+public class ThreadPoolSampleBatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String threadPoolId;
+
+    private long[] timestamps;
+
+    private int[] poolSize;
+
+    private int[] activeThreads;
+
+    private int[] queueSize;
+
+    private long[] completedTaskCount;
+}
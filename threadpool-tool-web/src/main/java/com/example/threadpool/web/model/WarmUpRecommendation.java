@@ -0,0 +1,30 @@
+package com.example.threadpool.web.model;
+
+import lombok.Data;
+
+/**
+ * 线程池预热建议，Agent在线程池注册后查询（Agent参数 warmUp）
+ */
+@Data
+public class WarmUpRecommendation {
+
+    /**
+     * 线程池稳定标识
+     */
+    private String poolKey;
+
+    /**
+     * 建议预启动的线程数：各小时平均工作线程数的75分位（向上取整），没有历史数据时为0
+     */
+    private int threads;
+
+    /**
+     * 参与计算的小时数
+     */
+    private int hours;
+
+    /**
+     * 历史最大活跃线程数
+     */
+    private int maxActiveThreads;
+}
@@ -0,0 +1,23 @@
+package com.example.threadpool.web.repository;
+
+import com.example.threadpool.web.model.ThreadPoolEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 线程池事件数据访问层
+ */
+@Repository
+public interface ThreadPoolEventRepository extends JpaRepository<ThreadPoolEvent, Long> {
+
+    List<ThreadPoolEvent> findTop100ByThreadPoolIdOrderByTimestampDesc(String threadPoolId);
+
+    @Modifying
+    @Query("delete from ThreadPoolEvent e where e.timestamp < :before")
+    int deleteOlderThan(@Param("before") long before);
+}
@@ -0,0 +1,26 @@
+package com.example.threadpool.web.repository;
+
+import com.example.threadpool.web.model.ThreadPoolLoadHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 线程池负载历史数据访问层
+ */
+@Repository
+public interface ThreadPoolLoadHistoryRepository extends JpaRepository<ThreadPoolLoadHistory, Long> {
+
+    Optional<ThreadPoolLoadHistory> findByPoolKeyAndHourTimestamp(String poolKey, long hourTimestamp);
+
+    List<ThreadPoolLoadHistory> findByPoolKeyAndHourTimestampGreaterThanEqual(String poolKey, long since);
+
+    @Modifying
+    @Query("delete from ThreadPoolLoadHistory h where h.hourTimestamp < :before")
+    int deleteOlderThan(@Param("before") long before);
+}
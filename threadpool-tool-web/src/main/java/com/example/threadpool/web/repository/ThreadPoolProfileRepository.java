@@ -0,0 +1,23 @@
+package com.example.threadpool.web.repository;
+
+import com.example.threadpool.web.model.ThreadPoolProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 工作线程栈采样结果数据访问层
+ */
+@Repository
+public interface ThreadPoolProfileRepository extends JpaRepository<ThreadPoolProfile, Long> {
+
+    List<ThreadPoolProfile> findTop20ByThreadPoolIdOrderByStartTimeDesc(String threadPoolId);
+
+    @Modifying
+    @Query("delete from ThreadPoolProfile p where p.startTime < :before")
+    int deleteOlderThan(@Param("before") long before);
+}
@@ -0,0 +1,23 @@
+package com.example.threadpool.web.repository;
+
+import com.example.threadpool.web.model.ThreadPoolSample;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 线程池采样记录数据访问层
+ */
+@Repository
+public interface ThreadPoolSampleRepository extends JpaRepository<ThreadPoolSample, Long> {
+
+    List<ThreadPoolSample> findByThreadPoolIdAndTimestampGreaterThanEqualOrderByTimestampAsc(String threadPoolId, long since);
+
+    @Modifying
+    @Query("delete from ThreadPoolSample s where s.timestamp < :before")
+    int deleteOlderThan(@Param("before") long before);
+}
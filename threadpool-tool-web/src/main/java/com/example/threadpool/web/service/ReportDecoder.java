@@ -0,0 +1,444 @@
+package com.example.threadpool.web.service;
+
+import com.example.threadpool.web.model.ThreadPoolInfo;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.beans.PropertyDescriptor;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Agent二进制上报数据的解码器，帧格式见Agent端的 ReportCodec
+ * 每个Agent会话在服务端保存上一帧的完整数值，收到差值后还原为完整的线程池数据；
+ * 会话不存在或帧序号不连续时抛出 ResyncRequiredException，由Controller返回409，Agent随后重新发送完整数据
+ *
+ * 数据帧来自网络，长度、数量都按上限校验后再分配内存：解压后大小、字段数、线程池数、字符串长度、会话数超过上限时拒绝该帧
+ */
+@Service
+public class ReportDecoder {
+
+    private static final int VERSION = 1;
+    private static final int FLAG_GZIP = 1;
+    private static final int RECORD_WITH_METADATA = 1;
+
+    private static final int KIND_LONG = 0;
+    private static final int KIND_DOUBLE = 1;
+    private static final int KIND_BOOLEAN = 2;
+    private static final int KIND_STRING = 3;
+    private static final int KIND_JSON = 4;
+
+    private static final double DOUBLE_SCALE = 1000.0;
+
+    /**
+     * 超过该时间没有收到数据的会话会被清理
+     */
+    private static final long SESSION_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * 单帧解压后的最大字节数
+     */
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * 字段表的最大字段数
+     */
+    private static final int MAX_FIELDS = 1024;
+
+    /**
+     * 单个会话的最大线程池数（线程池序号上限）
+     */
+    private static final int MAX_POOLS = 10000;
+
+    /**
+     * 单个字符串（线程池名称、文本/JSON字段）的最大字节数
+     */
+    private static final int MAX_STRING_BYTES = 1024 * 1024;
+
+    /**
+     * 同时保存的最大会话数
+     */
+    private static final int MAX_SESSIONS = 1000;
+
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private volatile long lastSweepTime = System.currentTimeMillis();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 解码一帧，返回完整的线程池数据
+     */
+    public List<ThreadPoolInfo> decode(byte[] frame) throws IOException {
+        sweepIdleSessions();
+
+        if (frame.length < 5 || frame[0] != 'T' || frame[1] != 'P' || frame[2] != 'R') {
+            throw new IOException("不是线程池上报数据帧");
+        }
+        if (frame[3] != VERSION) {
+            throw new IOException("不支持的数据帧版本: " + frame[3]);
+        }
+        InputStream body = new ByteArrayInputStream(frame, 5, frame.length - 5);
+        if ((frame[4] & FLAG_GZIP) != 0) {
+            body = new GZIPInputStream(body);
+        }
+        Reader in = new Reader(new LimitedInputStream(body, MAX_FRAME_BYTES));
+
+        long sessionId = in.readVarLong();
+        long sequence = in.readVarLong();
+        Session session;
+        if (sequence == 0) {
+            session = new Session(readSchema(in));
+            if (sessions.size() >= MAX_SESSIONS && !sessions.containsKey(sessionId)) {
+                throw new IOException("上报会话数超过上限" + MAX_SESSIONS);
+            }
+            sessions.put(sessionId, session);
+        } else {
+            session = sessions.get(sessionId);
+            if (session == null) {
+                throw new ResyncRequiredException("未知的上报会话: " + sessionId);
+            }
+        }
+
+        synchronized (session) {
+            if (session.nextSequence != sequence) {
+                sessions.remove(sessionId);
+                throw new ResyncRequiredException("上报数据帧不连续，期望" + session.nextSequence + "，实际" + sequence);
+            }
+            try {
+                List<ThreadPoolInfo> threadPools = readPools(in, session);
+                session.nextSequence++;
+                session.lastAccessTime = System.currentTimeMillis();
+                return threadPools;
+            } catch (IOException | RuntimeException e) {
+                // 会话状态可能只更新了一部分，要求Agent重新同步
+                sessions.remove(sessionId);
+                throw e;
+            }
+        }
+    }
+
+    private List<Field> readSchema(Reader in) throws IOException {
+        long count = in.readVarLong();
+        if (count > MAX_FIELDS) {
+            throw new IOException("字段数超过上限: " + count);
+        }
+        List<Field> fields = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int kind = in.read();
+            fields.add(new Field(in.readString(), kind));
+        }
+        return fields;
+    }
+
+    private List<ThreadPoolInfo> readPools(Reader in, Session session) throws IOException {
+        long poolCount = in.readVarLong();
+        if (poolCount > MAX_POOLS) {
+            throw new IOException("线程池数超过上限: " + poolCount);
+        }
+        List<ThreadPoolInfo> threadPools = new ArrayList<>((int) poolCount);
+        for (int p = 0; p < poolCount; p++) {
+            long rawIndex = in.readVarLong();
+            int recordFlags = in.read();
+            // Agent按首次出现的顺序分配序号
+            if (rawIndex >= MAX_POOLS) {
+                throw new IOException("线程池序号超过上限: " + rawIndex);
+            }
+            int index = (int) rawIndex;
+            if (index > session.pools.size()) {
+                throw new ResyncRequiredException("未知的线程池序号: " + index);
+            }
+            if (index == session.pools.size()) {
+                session.pools.add(null);
+            }
+            PoolState state = session.pools.get(index);
+            if ((recordFlags & RECORD_WITH_METADATA) != 0) {
+                String threadPoolId = in.readString();
+                String threadPoolName = in.readString();
+                if (state == null) {
+                    state = new PoolState(session.numericFields.size(), session.textFields.size());
+                    session.pools.set(index, state);
+                }
+                state.threadPoolId = threadPoolId;
+                state.threadPoolName = threadPoolName;
+            } else if (state == null) {
+                throw new ResyncRequiredException("未知的线程池序号: " + index);
+            }
+
+            byte[] bitmap = in.readBytes((session.numericFields.size() + 7) / 8);
+            for (int i = 0; i < session.numericFields.size(); i++) {
+                if ((bitmap[i >> 3] & (1 << (i & 7))) != 0) {
+                    state.values[i] += unZigZag(in.readVarLong());
+                }
+            }
+            byte[] textBitmap = in.readBytes((session.textFields.size() + 7) / 8);
+            for (int i = 0; i < session.textFields.size(); i++) {
+                if ((textBitmap[i >> 3] & (1 << (i & 7))) != 0) {
+                    state.texts[i] = in.readString();
+                }
+            }
+            threadPools.add(toThreadPoolInfo(session, state));
+        }
+        return threadPools;
+    }
+
+    private ThreadPoolInfo toThreadPoolInfo(Session session, PoolState state) throws IOException {
+        ThreadPoolInfo info = new ThreadPoolInfo();
+        info.setThreadPoolId(state.threadPoolId);
+        info.setThreadPoolName(state.threadPoolName);
+        for (int i = 0; i < session.numericFields.size(); i++) {
+            session.numericFields.get(i).setNumber(info, state.values[i]);
+        }
+        for (int i = 0; i < session.textFields.size(); i++) {
+            session.textFields.get(i).setText(info, state.texts[i], objectMapper);
+        }
+        return info;
+    }
+
+    private void sweepIdleSessions() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweepTime < TimeUnit.MINUTES.toMillis(1)) {
+            return;
+        }
+        lastSweepTime = now;
+        sessions.values().removeIf(session -> now - session.lastAccessTime > SESSION_IDLE_MILLIS);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 需要Agent重新发送完整数据
+     */
+    public static class ResyncRequiredException extends RuntimeException {
+        public ResyncRequiredException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 单个Agent的上报会话
+     */
+    private static class Session {
+        final List<Field> numericFields = new ArrayList<>();
+        final List<Field> textFields = new ArrayList<>();
+        final List<PoolState> pools = new ArrayList<>();
+        long nextSequence;
+        volatile long lastAccessTime = System.currentTimeMillis();
+
+        Session(List<Field> schema) {
+            for (Field field : schema) {
+                (field.isNumeric() ? numericFields : textFields).add(field);
+            }
+        }
+    }
+
+    private static class PoolState {
+        String threadPoolId;
+        String threadPoolName;
+        final long[] values;
+        final String[] texts;
+
+        PoolState(int numericCount, int textCount) {
+            values = new long[numericCount];
+            texts = new String[textCount];
+        }
+    }
+
+    /**
+     * Agent字段表中的一个字段，Web端模型中没有对应属性时（Agent版本较新）忽略该字段
+     */
+    private static class Field {
+        final int kind;
+        final Method setter;
+
+        Field(String name, int kind) {
+            this.kind = kind;
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(ThreadPoolInfo.class, name);
+            Method writeMethod = descriptor != null ? descriptor.getWriteMethod() : null;
+            this.setter = writeMethod != null && isCompatible(writeMethod.getParameterTypes()[0]) ? writeMethod : null;
+        }
+
+        /**
+         * 类型不匹配的字段直接忽略，避免每一帧都解码失败
+         */
+        private boolean isCompatible(Class<?> type) {
+            switch (kind) {
+                case KIND_LONG:
+                case KIND_DOUBLE:
+                    return type == int.class || type == long.class || type == double.class || type == float.class
+                            || type == Integer.class || type == Long.class || type == Double.class || type == Float.class;
+                case KIND_BOOLEAN:
+                    return type == boolean.class || type == Boolean.class;
+                case KIND_STRING:
+                    return type == String.class;
+                case KIND_JSON:
+                    return !type.isPrimitive();
+                default:
+                    return false;
+            }
+        }
+
+        boolean isNumeric() {
+            return kind == KIND_LONG || kind == KIND_DOUBLE || kind == KIND_BOOLEAN;
+        }
+
+        void setNumber(ThreadPoolInfo info, long raw) {
+            if (setter == null) {
+                return;
+            }
+            Class<?> type = setter.getParameterTypes()[0];
+            Object value;
+            if (kind == KIND_BOOLEAN) {
+                value = raw != 0;
+            } else if (kind == KIND_DOUBLE) {
+                double scaled = raw / DOUBLE_SCALE;
+                if (type == float.class || type == Float.class) {
+                    value = (float) scaled;
+                } else if (type == int.class || type == Integer.class) {
+                    value = (int) Math.round(scaled);
+                } else if (type == long.class || type == Long.class) {
+                    value = Math.round(scaled);
+                } else {
+                    value = scaled;
+                }
+            } else if (type == float.class || type == Float.class) {
+                value = (float) raw;
+            } else if (type == int.class || type == Integer.class) {
+                value = (int) raw;
+            } else if (type == double.class || type == Double.class) {
+                value = (double) raw;
+            } else {
+                value = raw;
+            }
+            invoke(info, value);
+        }
+
+        void setText(ThreadPoolInfo info, String text, ObjectMapper objectMapper) throws IOException {
+            if (setter == null || text == null) {
+                return;
+            }
+            if (kind == KIND_STRING) {
+                invoke(info, text);
+            } else {
+                JavaType type = objectMapper.constructType(setter.getGenericParameterTypes()[0]);
+                invoke(info, objectMapper.readValue(text, type));
+            }
+        }
+
+        private void invoke(ThreadPoolInfo info, Object value) {
+            try {
+                setter.invoke(info, value);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("设置字段失败: " + setter.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * varint/字符串读取
+     */
+    private static class Reader {
+        private final InputStream in;
+
+        Reader(InputStream in) {
+            this.in = in;
+        }
+
+        int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("数据帧不完整");
+            }
+            return b;
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int n = in.read(bytes, offset, length - offset);
+                if (n < 0) {
+                    throw new EOFException("数据帧不完整");
+                }
+                offset += n;
+            }
+            return bytes;
+        }
+
+        long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("varint过长");
+        }
+
+        String readString() throws IOException {
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            if (length < 0 || length - 1 > MAX_STRING_BYTES) {
+                throw new IOException("字符串长度超过上限: " + (length - 1));
+            }
+            return new String(readBytes((int) (length - 1)), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 限制读取总字节数，防止压缩数据解压后占用过多内存
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                consume(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                consume(n);
+            }
+            return n;
+        }
+
+        private void consume(int n) throws IOException {
+            remaining -= n;
+            if (remaining < 0) {
+                throw new IOException("数据帧超过上限" + MAX_FRAME_BYTES + "字节");
+            }
+        }
+    }
+}
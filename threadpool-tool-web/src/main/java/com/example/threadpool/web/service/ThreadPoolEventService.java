@@ -0,0 +1,61 @@
+package com.example.threadpool.web.service;
+
+import com.example.threadpool.web.model.ThreadPoolEvent;
+import com.example.threadpool.web.repository.ThreadPoolEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池事件服务，保存Agent上报的事件并按保留时间清理
+ */
+@Service
+public class ThreadPoolEventService {
+
+    @Autowired
+    private ThreadPoolEventRepository eventRepository;
+
+    /**
+     * 事件保留时间（小时）
+     */
+    @Value("${threadpool.event.retention-hours:168}")
+    private long retentionHours;
+
+    private volatile long lastCleanupTime;
+
+    /**
+     * 保存事件
+     */
+    @Transactional
+    public void saveEvents(List<ThreadPoolEvent> events) {
+        for (ThreadPoolEvent event : events) {
+            // 主键由数据库生成
+            event.setId(null);
+        }
+        eventRepository.saveAll(events);
+        cleanupIfNeeded();
+    }
+
+    /**
+     * 查询指定线程池最近的100个事件，按时间倒序
+     */
+    public List<ThreadPoolEvent> getRecentEvents(String threadPoolId) {
+        return eventRepository.findTop100ByThreadPoolIdOrderByTimestampDesc(threadPoolId);
+    }
+
+    /**
+     * 每分钟最多清理一次过期事件
+     */
+    private void cleanupIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - lastCleanupTime < TimeUnit.MINUTES.toMillis(1)) {
+            return;
+        }
+        lastCleanupTime = now;
+        eventRepository.deleteOlderThan(now - TimeUnit.HOURS.toMillis(retentionHours));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.threadpool.web.service;
+
+import com.example.threadpool.web.model.ThreadPoolInfo;
+import com.example.threadpool.web.model.ThreadPoolLoadHistory;
+import com.example.threadpool.web.model.WarmUpRecommendation;
+import com.example.threadpool.web.repository.ThreadPoolLoadHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池负载历史服务，按线程池稳定标识和小时汇总上报数据，为Agent提供预热线程数
+ *
+ * 按固定的10秒采样周期计权：每次上报按距该线程池上次计入的周期数累计，同一周期内的多次上报只计第一次（最大活跃线程数仍按每次上报更新）。
+ * 自适应上报时HOT线程池每秒上报、IDLE线程池每分钟上报，按上报次数平均会让繁忙时段主导小时平均值
+ */
+@Service
+public class ThreadPoolLoadHistoryService {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * 预热线程数取各小时平均工作线程数的分位
+     */
+    private static final double WARM_UP_PERCENTILE = 0.75;
+
+    /**
+     * 采样周期，与Agent默认上报间隔相同，未启用自适应上报时每次上报正好计一个周期
+     */
+    private static final long SAMPLE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * 单次上报最多计入的周期数，更长的间隔视为Agent未运行
+     */
+    private static final long MAX_SAMPLES_PER_REPORT = TimeUnit.MINUTES.toMillis(5) / SAMPLE_MILLIS;
+
+    /**
+     * 线程池ID -> 上次计入的采样周期序号
+     */
+    private final Map<String, Long> lastSamples = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ThreadPoolLoadHistoryRepository historyRepository;
+
+    /**
+     * 负载历史保留时间（天）
+     */
+    @Value("${threadpool.history.retention-days:7}")
+    private long retentionDays;
+
+    private volatile long lastCleanupTime;
+
+    /**
+     * 把一次上报的数据累计到所在小时，没有稳定标识的线程池（如ForkJoinPool）跳过
+     */
+    @Transactional
+    public void record(List<ThreadPoolInfo> threadPools, long timestamp) {
+        long hour = timestamp - timestamp % HOUR_MILLIS;
+        long sample = timestamp / SAMPLE_MILLIS;
+        Map<String, ThreadPoolLoadHistory> updated = new HashMap<>();
+        for (ThreadPoolInfo threadPool : threadPools) {
+            String poolKey = threadPool.getPoolKey();
+            if (poolKey == null || poolKey.isEmpty()) {
+                continue;
+            }
+            Long lastSample = lastSamples.put(threadPool.getThreadPoolId(), sample);
+            long samples = lastSample == null ? 1 : Math.max(0, Math.min(sample - lastSample, MAX_SAMPLES_PER_REPORT));
+            ThreadPoolLoadHistory history = updated.computeIfAbsent(poolKey, key ->
+                    historyRepository.findByPoolKeyAndHourTimestamp(key, hour).orElseGet(() -> {
+                        ThreadPoolLoadHistory created = new ThreadPoolLoadHistory();
+                        created.setPoolKey(key);
+                        created.setHourTimestamp(hour);
+                        return created;
+                    }));
+            // 同一周期内的后续上报只更新最大活跃线程数
+            history.setReports(history.getReports() + samples);
+            history.setPoolSizeSum(history.getPoolSizeSum() + (long) threadPool.getPoolSize() * samples);
+            history.setActiveThreadsSum(history.getActiveThreadsSum() + (long) threadPool.getActiveThreads() * samples);
+            history.setMaxActiveThreads(Math.max(history.getMaxActiveThreads(), threadPool.getActiveThreads()));
+        }
+        historyRepository.saveAll(updated.values());
+        cleanupIfNeeded();
+    }
+
+    /**
+     * 计算预热线程数：保留期内各小时平均工作线程数的75分位，偶发的高峰和空闲时段都不会主导结果
+     */
+    public WarmUpRecommendation recommendWarmUp(String poolKey) {
+        long since = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays);
+        List<ThreadPoolLoadHistory> histories =
+                historyRepository.findByPoolKeyAndHourTimestampGreaterThanEqual(poolKey, since);
+        WarmUpRecommendation recommendation = new WarmUpRecommendation();
+        recommendation.setPoolKey(poolKey);
+        double[] hourlyPoolSizes = histories.stream()
+                .filter(history -> history.getReports() > 0)
+                .mapToDouble(history -> (double) history.getPoolSizeSum() / history.getReports())
+                .sorted()
+                .toArray();
+        if (hourlyPoolSizes.length == 0) {
+            return recommendation;
+        }
+        int index = (int) Math.ceil(hourlyPoolSizes.length * WARM_UP_PERCENTILE) - 1;
+        recommendation.setThreads((int) Math.ceil(hourlyPoolSizes[Math.max(0, index)]));
+        recommendation.setHours(hourlyPoolSizes.length);
+        recommendation.setMaxActiveThreads(histories.stream().mapToInt(ThreadPoolLoadHistory::getMaxActiveThreads).max().orElse(0));
+        return recommendation;
+    }
+
+    /**
+     * 每小时最多清理一次过期历史
+     */
+    private void cleanupIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - lastCleanupTime < HOUR_MILLIS) {
+            return;
+        }
+        lastCleanupTime = now;
+        historyRepository.deleteOlderThan(now - TimeUnit.DAYS.toMillis(retentionDays));
+        // 已停止上报的线程池（重启后ID会变化）
+        long staleBefore = now / SAMPLE_MILLIS - MAX_SAMPLES_PER_REPORT;
+        lastSamples.values().removeIf(lastSample -> lastSample < staleBefore);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.threadpool.web.service;
+
+import com.example.threadpool.web.model.ThreadPoolProfile;
+import com.example.threadpool.web.repository.ThreadPoolProfileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工作线程栈采样结果服务，保存Agent上报的结果并按保留时间清理
+ */
+@Service
+public class ThreadPoolProfileService {
+
+    @Autowired
+    private ThreadPoolProfileRepository profileRepository;
+
+    /**
+     * 采样结果保留时间（小时）
+     */
+    @Value("${threadpool.profile.retention-hours:72}")
+    private long retentionHours;
+
+    /**
+     * 保存采样结果
+     */
+    @Transactional
+    public ThreadPoolProfile saveProfile(ThreadPoolProfile profile) {
+        // 主键由数据库生成
+        profile.setId(null);
+        ThreadPoolProfile saved = profileRepository.save(profile);
+        profileRepository.deleteOlderThan(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours));
+        return saved;
+    }
+
+    /**
+     * 查询指定线程池最近的20次采样，按时间倒序
+     */
+    public List<ThreadPoolProfile> getRecentProfiles(String threadPoolId) {
+        return profileRepository.findTop20ByThreadPoolIdOrderByStartTimeDesc(threadPoolId);
+    }
+
+    /**
+     * 获取指定采样结果
+     */
+    public Optional<ThreadPoolProfile> getProfile(Long profileId) {
+        return profileRepository.findById(profileId);
+    }
+}
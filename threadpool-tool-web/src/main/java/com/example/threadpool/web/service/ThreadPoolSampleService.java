@@ -0,0 +1,78 @@
+package com.example.threadpool.web.service;
+
+import com.example.threadpool.web.model.ThreadPoolSample;
+import com.example.threadpool.web.model.ThreadPoolSampleBatch;
+import com.example.threadpool.web.repository.ThreadPoolSampleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池高频采样服务，保存Agent上报的采样批次并按保留时间清理
+ */
+@Service
+public class ThreadPoolSampleService {
+
+    @Autowired
+    private ThreadPoolSampleRepository sampleRepository;
+
+    /**
+     * 采样数据保留时间（分钟）
+     */
+    @Value("${threadpool.sample.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private volatile long lastCleanupTime;
+
+    /**
+     * 保存采样批次
+     *
+     * @return 保存的采样条数
+     */
+    @Transactional
+    public int saveBatches(List<ThreadPoolSampleBatch> batches) {
+        List<ThreadPoolSample> samples = new ArrayList<>();
+        for (ThreadPoolSampleBatch batch : batches) {
+            if (batch.getTimestamps() == null) {
+                continue;
+            }
+            for (int i = 0; i < batch.getTimestamps().length; i++) {
+                ThreadPoolSample sample = new ThreadPoolSample();
+                sample.setThreadPoolId(batch.getThreadPoolId());
+                sample.setTimestamp(batch.getTimestamps()[i]);
+                sample.setPoolSize(batch.getPoolSize()[i]);
+                sample.setActiveThreads(batch.getActiveThreads()[i]);
+                sample.setQueueSize(batch.getQueueSize()[i]);
+                sample.setCompletedTaskCount(batch.getCompletedTaskCount()[i]);
+                samples.add(sample);
+            }
+        }
+        sampleRepository.saveAll(samples);
+        cleanupIfNeeded();
+        return samples.size();
+    }
+
+    /**
+     * 查询指定线程池某个时间点之后的采样记录
+     */
+    public List<ThreadPoolSample> getSamples(String threadPoolId, long since) {
+        return sampleRepository.findByThreadPoolIdAndTimestampGreaterThanEqualOrderByTimestampAsc(threadPoolId, since);
+    }
+
+    /**
+     * 每分钟最多清理一次过期采样
+     */
+    private void cleanupIfNeeded() {
+        long now = System.currentTimeMillis();
+        if (now - lastCleanupTime < TimeUnit.MINUTES.toMillis(1)) {
+            return;
+        }
+        lastCleanupTime = now;
+        sampleRepository.deleteOlderThan(now - TimeUnit.MINUTES.toMillis(retentionMinutes));
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.threadpool.web.service;
 
+import com.example.threadpool.web.model.AdmissionControlConfig;
+import com.example.threadpool.web.model.ConcurrencyLimitConfig;
+import com.example.threadpool.web.model.AutoTuneConfig;
+import com.example.threadpool.web.model.RejectionPolicyConfig;
 import com.example.threadpool.web.model.ThreadPoolInfo;
 import com.example.threadpool.web.repository.ThreadPoolRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.InetAddress;
 import java.util.HashMap;
@@ -25,6 +30,9 @@ public class ThreadPoolService {
 
     @Autowired
     private ThreadPoolRepository threadPoolRepository;
+
+    @Autowired
+    private ThreadPoolLoadHistoryService loadHistoryService;
     
     /**
      * 获取所有线程池信息
@@ -54,6 +62,9 @@ public class ThreadPoolService {
             pool.setCorePoolSize(threadPoolInfo.getCorePoolSize());
             pool.setMaximumPoolSize(threadPoolInfo.getMaximumPoolSize());
             pool.setKeepAliveTime(threadPoolInfo.getKeepAliveTime());
+            if (threadPoolInfo.getQueueCapacity() > 0) {
+                pool.setQueueCapacity(threadPoolInfo.getQueueCapacity());
+            }
             pool.setLastUpdateTime(System.currentTimeMillis());
             
             threadPoolRepository.save(pool);
@@ -77,37 +88,204 @@ public class ThreadPoolService {
             requestBody.put("corePoolSize", threadPoolInfo.getCorePoolSize());
             requestBody.put("maximumPoolSize", threadPoolInfo.getMaximumPoolSize());
             requestBody.put("keepAliveTime", threadPoolInfo.getKeepAliveTime());
+            requestBody.put("queueCapacity", threadPoolInfo.getQueueCapacity());
             
-            // 获取主机信息
-            Optional<ThreadPoolInfo> existingPool = threadPoolRepository.findById(threadPoolId);
-            String hostName = existingPool.isPresent() ? existingPool.get().getHostName() : "";
-            
-            // 构建Agent HTTP服务器URL
-            // 默认使用9999端口，可以根据实际情况配置
-            hostName="localhost";
-            String agentUrl = "http://" + hostName + ":9999/api/threadpool/modify";
-            
-            // 发送HTTP请求
-            RestTemplate restTemplate = new RestTemplate();
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(agentUrl, entity, String.class);
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                System.out.println("成功修改远程线程池参数: " + threadPoolId);
-                return true;
-            } else {
-                System.err.println("修改远程线程池参数失败: " + response.getBody());
-                return false;
-            }
+            return sendModifyRequest(threadPoolId, requestBody);
         } catch (Exception e) {
             System.err.println("修改远程线程池参数异常: " + e.getMessage());
             e.printStackTrace();
             return false;
         }
     }
+
+    /**
+     * 启用、更新或关闭远程JVM中指定线程池的自动调优
+     * 复用Agent的线程池修改接口，只下发autoTune字段，核心参数不变
+     */
+    public boolean updateAutoTune(String threadPoolId, AutoTuneConfig autoTuneConfig) {
+        if (!threadPoolRepository.existsById(threadPoolId)) {
+            return false;
+        }
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("threadPoolId", threadPoolId);
+            requestBody.put("autoTune", autoTuneConfig);
+            return sendModifyRequest(threadPoolId, requestBody);
+        } catch (Exception e) {
+            System.err.println("修改远程线程池自动调优配置异常: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 启用、更新或关闭远程JVM中指定线程池的准入控制
+     */
+    public boolean updateAdmissionControl(String threadPoolId, AdmissionControlConfig admissionControlConfig) {
+        if (!threadPoolRepository.existsById(threadPoolId)) {
+            return false;
+        }
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("threadPoolId", threadPoolId);
+            requestBody.put("admissionControl", admissionControlConfig);
+            return sendModifyRequest(threadPoolId, requestBody);
+        } catch (Exception e) {
+            System.err.println("修改远程线程池准入控制配置异常: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 启用、更新或关闭远程JVM中指定线程池的自适应并发限制
+     */
+    public boolean updateConcurrencyLimit(String threadPoolId, ConcurrencyLimitConfig concurrencyLimitConfig) {
+        if (!threadPoolRepository.existsById(threadPoolId)) {
+            return false;
+        }
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("threadPoolId", threadPoolId);
+            requestBody.put("concurrencyLimit", concurrencyLimitConfig);
+            return sendModifyRequest(threadPoolId, requestBody);
+        } catch (Exception e) {
+            System.err.println("修改远程线程池并发限制配置异常: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 设置远程JVM中指定线程池的卡住任务阈值，0恢复Agent的默认阈值
+     */
+    public boolean updateStuckTaskThreshold(String threadPoolId, long thresholdMillis) {
+        if (!threadPoolRepository.existsById(threadPoolId)) {
+            return false;
+        }
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("threadPoolId", threadPoolId);
+            requestBody.put("stuckTaskThresholdMillis", thresholdMillis);
+            return sendModifyRequest(threadPoolId, requestBody);
+        } catch (Exception e) {
+            System.err.println("修改远程线程池卡住任务阈值异常: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 中断远程JVM中指定线程池当前卡住的任务
+     */
+    public boolean interruptStuckTasks(String threadPoolId) {
+        if (!threadPoolRepository.existsById(threadPoolId)) {
+            return false;
+        }
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("threadPoolId", threadPoolId);
+            requestBody.put("interruptStuckTasks", true);
+            return sendModifyRequest(threadPoolId, requestBody);
+        } catch (Exception e) {
+            System.err.println("中断远程线程池卡住任务异常: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 切换远程JVM中指定线程池的拒绝策略
+     */
+    public boolean updateRejectionPolicy(String threadPoolId, RejectionPolicyConfig rejectionPolicyConfig) {
+        if (!threadPoolRepository.existsById(threadPoolId)) {
+            return false;
+        }
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("threadPoolId", threadPoolId);
+            requestBody.put("rejectionPolicy", rejectionPolicyConfig);
+            return sendModifyRequest(threadPoolId, requestBody);
+        } catch (Exception e) {
+            System.err.println("切换远程线程池拒绝策略异常: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 启用或关闭远程JVM中指定线程池的先扩线程再排队模式
+     */
+    public boolean updateEagerScaleUp(String threadPoolId, boolean enabled) {
+        if (!threadPoolRepository.existsById(threadPoolId)) {
+            return false;
+        }
+        try {
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("threadPoolId", threadPoolId);
+            requestBody.put("eagerScaleUp", enabled);
+            return sendModifyRequest(threadPoolId, requestBody);
+        } catch (Exception e) {
+            System.err.println("切换远程线程池执行模式异常: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 让远程JVM中的Agent对指定线程池的工作线程做栈采样，采样结束后结果由Agent上报
+     *
+     * @param durationMillis 采样时长，0表示使用Agent默认值
+     * @param intervalMillis 采样间隔，0表示使用Agent默认值
+     */
+    public boolean startProfile(String threadPoolId, long durationMillis, long intervalMillis) {
+        if (!threadPoolRepository.existsById(threadPoolId)) {
+            return false;
+        }
+        try {
+            String agentUrl = UriComponentsBuilder.fromHttpUrl(getAgentUrl(threadPoolId, "/profile"))
+                    .queryParam("threadPoolId", threadPoolId)
+                    .queryParam("durationMs", durationMillis)
+                    .queryParam("intervalMs", intervalMillis)
+                    .toUriString();
+            ResponseEntity<String> response = new RestTemplate().postForEntity(agentUrl, null, String.class);
+            System.out.println("已启动远程线程池栈采样: " + threadPoolId + ", " + response.getBody());
+            return true;
+        } catch (Exception e) {
+            System.err.println("启动远程线程池栈采样异常: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 线程池所在JVM的Agent HTTP接口地址
+     */
+    private String getAgentUrl(String threadPoolId, String path) {
+        // 获取主机信息
+        Optional<ThreadPoolInfo> existingPool = threadPoolRepository.findById(threadPoolId);
+        String hostName = existingPool.isPresent() ? existingPool.get().getHostName() : "";
+        
+        // 构建Agent HTTP服务器URL
+        // 默认使用9999端口，可以根据实际情况配置
+        hostName="localhost";
+        return "http://" + hostName + ":9999/api/threadpool" + path;
+    }
+
+    /**
+     * 向线程池所在JVM的Agent发送修改请求
+     */
+    private boolean sendModifyRequest(String threadPoolId, Map<String, Object> requestBody) {
+        String agentUrl = getAgentUrl(threadPoolId, "/modify");
+        
+        // 发送HTTP请求
+        RestTemplate restTemplate = new RestTemplate();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+        ResponseEntity<String> response = restTemplate.postForEntity(agentUrl, entity, String.class);
+        
+        if (response.getStatusCode().is2xxSuccessful()) {
+            System.out.println("成功修改远程线程池参数: " + threadPoolId);
+            return true;
+        } else {
+            System.err.println("修改远程线程池参数失败: " + response.getBody());
+            return false;
+        }
+    }
     
     /**
      * 批量更新线程池数据
@@ -143,6 +321,83 @@ public class ThreadPoolService {
                 pool.setTaskCount(threadPool.getTaskCount());
                 pool.setCompletedTaskCount(threadPool.getCompletedTaskCount());
                 pool.setCustomTaskCount(threadPool.getCustomTaskCount());
+                pool.setQueueWaitTimeP50(threadPool.getQueueWaitTimeP50());
+                pool.setQueueWaitTimeP90(threadPool.getQueueWaitTimeP90());
+                pool.setQueueWaitTimeP99(threadPool.getQueueWaitTimeP99());
+                pool.setQueueWaitTimeP999(threadPool.getQueueWaitTimeP999());
+                pool.setQueueWaitTimeMax(threadPool.getQueueWaitTimeMax());
+                pool.setExecutionTimeP50(threadPool.getExecutionTimeP50());
+                pool.setExecutionTimeP90(threadPool.getExecutionTimeP90());
+                pool.setExecutionTimeP99(threadPool.getExecutionTimeP99());
+                pool.setExecutionTimeP999(threadPool.getExecutionTimeP999());
+                pool.setExecutionTimeMax(threadPool.getExecutionTimeMax());
+                pool.setRejectedTaskCount(threadPool.getRejectedTaskCount());
+                pool.setFailedTaskCount(threadPool.getFailedTaskCount());
+                pool.setSubmitRate(threadPool.getSubmitRate());
+                pool.setStartRate(threadPool.getStartRate());
+                pool.setCompleteRate(threadPool.getCompleteRate());
+                pool.setFailRate(threadPool.getFailRate());
+                pool.setRejectRate(threadPool.getRejectRate());
+                pool.setPoolSize(threadPool.getPoolSize());
+                pool.setAutoTuneEnabled(threadPool.isAutoTuneEnabled());
+                pool.setQueueCapacity(threadPool.getQueueCapacity());
+                pool.setRejectionPolicy(threadPool.getRejectionPolicy());
+                pool.setRejectionCounts(threadPool.getRejectionCounts());
+                pool.setEagerScaleUp(threadPool.isEagerScaleUp());
+                pool.setPoolType(threadPool.getPoolType());
+                pool.setParallelism(threadPool.getParallelism());
+                pool.setRunningThreads(threadPool.getRunningThreads());
+                pool.setStealCount(threadPool.getStealCount());
+                pool.setQueuedSubmissionCount(threadPool.getQueuedSubmissionCount());
+                pool.setQueuedTaskCount(threadPool.getQueuedTaskCount());
+                pool.setWorkerQueueDepths(threadPool.getWorkerQueueDepths());
+                pool.setWorkerQueueDepthMax(threadPool.getWorkerQueueDepthMax());
+                pool.setWorkerQueueDepthAvg(threadPool.getWorkerQueueDepthAvg());
+                pool.setCpuPercent(threadPool.getCpuPercent());
+                pool.setUserCpuPercent(threadPool.getUserCpuPercent());
+                pool.setSystemCpuPercent(threadPool.getSystemCpuPercent());
+                pool.setAllocationRate(threadPool.getAllocationRate());
+                pool.setTaskTypes(threadPool.getTaskTypes());
+                pool.setAdmissionControlEnabled(threadPool.isAdmissionControlEnabled());
+                pool.setMaxQueueWaitMillis(threadPool.getMaxQueueWaitMillis());
+                pool.setShedTaskCount(threadPool.getShedTaskCount());
+                pool.setAdmissionRejectedCount(threadPool.getAdmissionRejectedCount());
+                pool.setConcurrencyLimitEnabled(threadPool.isConcurrencyLimitEnabled());
+                pool.setConcurrencyLimit(threadPool.getConcurrencyLimit());
+                pool.setConcurrencyInFlight(threadPool.getConcurrencyInFlight());
+                pool.setConcurrencyLimitRttMillis(threadPool.getConcurrencyLimitRttMillis());
+                pool.setConcurrencyLimitMinRttMillis(threadPool.getConcurrencyLimitMinRttMillis());
+                pool.setConcurrencyLimitRejectedCount(threadPool.getConcurrencyLimitRejectedCount());
+                pool.setStartLatenessP50(threadPool.getStartLatenessP50());
+                pool.setStartLatenessP99(threadPool.getStartLatenessP99());
+                pool.setStartLatenessMax(threadPool.getStartLatenessMax());
+                pool.setPeriodDriftP50(threadPool.getPeriodDriftP50());
+                pool.setPeriodDriftP99(threadPool.getPeriodDriftP99());
+                pool.setPeriodDriftMax(threadPool.getPeriodDriftMax());
+                pool.setDelayedQueueBuckets(threadPool.getDelayedQueueBuckets());
+                pool.setStuckTaskCount(threadPool.getStuckTaskCount());
+                pool.setStuckTaskTotal(threadPool.getStuckTaskTotal());
+                pool.setStuckTasks(threadPool.getStuckTasks());
+                pool.setDeadlockState(threadPool.getDeadlockState());
+                pool.setDeadlockWaitingOn(threadPool.getDeadlockWaitingOn());
+                pool.setDeadlockTotal(threadPool.getDeadlockTotal());
+                pool.setDeadlockTasks(threadPool.getDeadlockTasks());
+                pool.setWorkerBlockedCount(threadPool.getWorkerBlockedCount());
+                pool.setWorkerBlockedTimeMillis(threadPool.getWorkerBlockedTimeMillis());
+                pool.setWorkerBlockedPercent(threadPool.getWorkerBlockedPercent());
+                pool.setWorkerWaitedCount(threadPool.getWorkerWaitedCount());
+                pool.setWorkerWaitedTimeMillis(threadPool.getWorkerWaitedTimeMillis());
+                pool.setWorkerWaitedPercent(threadPool.getWorkerWaitedPercent());
+                pool.setBlockedMonitors(threadPool.getBlockedMonitors());
+                pool.setIdleReclaimed(threadPool.isIdleReclaimed());
+                pool.setIdleReclaimCount(threadPool.getIdleReclaimCount());
+                pool.setIdleReclaimedThreads(threadPool.getIdleReclaimedThreads());
+                pool.setIdleReclaimedStackMb(threadPool.getIdleReclaimedStackMb());
+                pool.setPoolKey(threadPool.getPoolKey());
+                pool.setWarmUpThreads(threadPool.getWarmUpThreads());
+                pool.setWarmUpPrestarted(threadPool.getWarmUpPrestarted());
+                pool.setWarmUpMillis(threadPool.getWarmUpMillis());
+                pool.setReportLevel(threadPool.getReportLevel());
                 pool.setLastUpdateTime(currentTime);
                 
                 // 如果Agent端修改了核心参数，也需要更新
@@ -162,6 +417,9 @@ public class ThreadPoolService {
                 threadPoolRepository.save(threadPool);
             }
         }
+
+        // 按稳定标识累计负载历史，供重启后预热使用
+        loadHistoryService.record(threadPools, currentTime);
     }
     
     /**
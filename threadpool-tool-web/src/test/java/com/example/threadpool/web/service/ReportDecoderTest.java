@@ -0,0 +1,121 @@
+package com.example.threadpool.web.service;
+
+import com.example.threadpool.web.model.ThreadPoolInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Agent二进制上报数据的解码
+ *
+ * 样例数据帧（report-codec-frames.json）由Agent端的 ReportCodecTest 生成并校验，
+ * 这里把同样的字节解码回样例中的线程池数据，两端编解码器任意一端改动不兼容时测试失败
+ */
+class ReportDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private List<Frame> frames;
+
+    @BeforeEach
+    void loadFrames() throws IOException {
+        frames = new ArrayList<>();
+        try (InputStream in = getClass().getResourceAsStream("/report-codec-frames.json")) {
+            for (JsonNode node : objectMapper.readTree(in)) {
+                Frame frame = new Frame();
+                frame.description = node.get("description").asText();
+                frame.bytes = node.get("frame").binaryValue();
+                frame.threadPools = new ArrayList<>();
+                for (JsonNode pool : node.get("threadPools")) {
+                    frame.threadPools.add(objectMapper.treeToValue(pool, ThreadPoolInfo.class));
+                }
+                frames.add(frame);
+            }
+        }
+    }
+
+    @Test
+    void decodesAgentFramesBackToReportedThreadPools() throws IOException {
+        ReportDecoder decoder = newDecoder();
+        for (Frame frame : frames) {
+            assertThreadPools(frame, decoder.decode(frame.bytes));
+        }
+    }
+
+    @Test
+    void decodesGzipFrames() throws IOException {
+        ReportDecoder decoder = newDecoder();
+        for (Frame frame : frames) {
+            assertThreadPools(frame, decoder.decode(gzip(frame.bytes)));
+        }
+    }
+
+    @Test
+    void missingFrameRequiresResync() throws IOException {
+        ReportDecoder decoder = newDecoder();
+        decoder.decode(frames.get(0).bytes);
+
+        assertThrows(ReportDecoder.ResyncRequiredException.class, () -> decoder.decode(frames.get(2).bytes));
+        // 帧不连续后会话已被丢弃，后续差值帧同样要求重新同步
+        assertThrows(ReportDecoder.ResyncRequiredException.class, () -> decoder.decode(frames.get(1).bytes));
+        // 重新同步：Agent开启新会话后发送的完整数据可以正常解码
+        assertThreadPools(frames.get(4), decoder.decode(frames.get(4).bytes));
+        assertThreadPools(frames.get(5), decoder.decode(frames.get(5).bytes));
+    }
+
+    @Test
+    void unknownSessionRequiresResync() {
+        ReportDecoder decoder = newDecoder();
+
+        assertThrows(ReportDecoder.ResyncRequiredException.class, () -> decoder.decode(frames.get(1).bytes));
+    }
+
+    private ReportDecoder newDecoder() {
+        ReportDecoder decoder = new ReportDecoder();
+        ReflectionTestUtils.setField(decoder, "objectMapper", objectMapper);
+        return decoder;
+    }
+
+    private static void assertThreadPools(Frame frame, List<ThreadPoolInfo> decoded) {
+        assertEquals(frame.threadPools.size(), decoded.size(), frame.description);
+        for (int i = 0; i < decoded.size(); i++) {
+            ThreadPoolInfo expected = frame.threadPools.get(i);
+            // 上报时间由Web端在接收时填写，不在数据帧中
+            expected.setLastUpdateTime(decoded.get(i).getLastUpdateTime());
+            assertEquals(expected, decoded.get(i), frame.description);
+        }
+    }
+
+    /**
+     * 按Agent开启gzip时的格式压缩帧体，帧头5字节保持不压缩
+     */
+    private static byte[] gzip(byte[] frame) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(frame, 0, 4);
+        out.write(frame[4] | 1);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(frame, 5, frame.length - 5);
+        }
+        return out.toByteArray();
+    }
+
+    private static class Frame {
+        String description;
+        byte[] bytes;
+        List<ThreadPoolInfo> threadPools;
+    }
+}